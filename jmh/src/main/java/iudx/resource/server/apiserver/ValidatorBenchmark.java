@@ -0,0 +1,87 @@
+package iudx.resource.server.apiserver;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import iudx.resource.server.apiserver.query.CompiledQuery;
+import iudx.resource.server.apiserver.query.Queries;
+import iudx.resource.server.apiserver.service.CatalogueService;
+
+/**
+ * validation of compiled queries, with the applicable filters already in the catalogue cache.
+ * The filters of an item come from a fixed list, so only the validation itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidatorBenchmark {
+
+  @Param({Queries.CIRCLE, Queries.POLYGON, Queries.TEMPORAL, Queries.ATTRIBUTE, Queries.COMPLEX})
+  public String shape;
+
+  private Vertx vertx;
+  private Validator validator;
+  private CompiledQuery query;
+  private CompiledQuery body;
+
+  @Setup
+  public void setup() {
+    vertx = Vertx.vertx();
+    validator = new Validator(new FixedFilters(vertx));
+    query = CompiledQuery.fromQueryString(Queries.queryString(shape), Queries.isTemporal(shape));
+    body = CompiledQuery.fromJson(Queries.body(shape));
+    if (validator.validate(query).failed() || validator.validate(body).failed()) {
+      throw new IllegalStateException("query shape " + shape + " does not validate");
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    vertx.close();
+  }
+
+  @Benchmark
+  public Future<List<String>> validateQueryString() {
+    return validator.validate(query);
+  }
+
+  @Benchmark
+  public Future<List<String>> validateQueryBody() {
+    return validator.validate(body);
+  }
+
+  /**
+   * catalogue whose items support every filter. It points at a closed port, so populating the
+   * cache on creation fails without side effects.
+   */
+  private static final class FixedFilters extends CatalogueService {
+    private static final Future<List<String>> FILTERS =
+        Future.succeededFuture(List.of("ATTR", "TEMPORAL", "SPATIAL"));
+
+    private FixedFilters(Vertx vertx) {
+      super(vertx, new JsonObject().put("catServerHost", "localhost").put("catServerPort", "1"));
+    }
+
+    @Override
+    public Future<List<String>> getApplicableFilters(String id) {
+      return FILTERS;
+    }
+  }
+}
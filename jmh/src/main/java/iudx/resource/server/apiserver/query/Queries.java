@@ -0,0 +1,137 @@
+package iudx.resource.server.apiserver.query;
+
+import static iudx.resource.server.apiserver.util.Constants.*;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import io.vertx.core.MultiMap;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * query parameters shared by the benchmarks, shaped like the requests seen on the entities and
+ * temporal APIs.
+ */
+public final class Queries {
+
+  /** names of the query shapes, for use as a benchmark parameter. */
+  public static final String CIRCLE = "circle";
+  public static final String POLYGON = "polygon";
+  public static final String TEMPORAL = "temporal";
+  public static final String ATTRIBUTE = "attribute";
+  public static final String COMPLEX = "complex";
+
+  public static final String RESOURCE_ID =
+      "iisc.ac.in/89a36273d77dac4cf38114fca1bbe64392547f86/rs.iudx.io/"
+          + "surat-itms-realtime-information/surat-itms-live-eta";
+
+  private static final String POLYGON_COORDINATES =
+      "[[[72.719,21],[72.842,21.2],[72.923,20.8],[72.74,20.34],[72.9,20.1],[72.67,20],"
+          + "[72.719,21]]]";
+
+  private Queries() {}
+
+  /**
+   * request parameters of a query shape, as parsed from the query string of a GET request.
+   *
+   * @param shape one of the shape names
+   * @return request parameters
+   */
+  public static MultiMap params(String shape) {
+    MultiMap params = MultiMap.caseInsensitiveMultiMap();
+    params.add(NGSILDQUERY_ID, RESOURCE_ID);
+    addShape(params, shape);
+    return params;
+  }
+
+  /**
+   * raw query string of a GET request for a query shape, percent encoded like a browser does.
+   *
+   * @param shape one of the shape names
+   * @return query string, without the leading ?
+   */
+  public static String queryString(String shape) {
+    StringBuilder query = new StringBuilder();
+    for (Map.Entry<String, String> param : params(shape)) {
+      if (query.length() > 0) {
+        query.append('&');
+      }
+      query.append(param.getKey()).append('=')
+          .append(URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8));
+    }
+    return query.toString();
+  }
+
+  private static void addShape(MultiMap params, String shape) {
+    switch (shape) {
+      case CIRCLE:
+        params.add(NGSILDQUERY_GEOREL, "near;maxdistance=360")
+            .add(NGSILDQUERY_GEOMETRY, "point")
+            .add(NGSILDQUERY_COORDINATES, "[72.8296,21.2]")
+            .add(NGSILDQUERY_GEOPROPERTY, "location");
+        break;
+      case POLYGON:
+        params.add(NGSILDQUERY_GEOREL, "within")
+            .add(NGSILDQUERY_GEOMETRY, "polygon")
+            .add(NGSILDQUERY_COORDINATES, POLYGON_COORDINATES)
+            .add(NGSILDQUERY_GEOPROPERTY, "location");
+        break;
+      case TEMPORAL:
+        params.add(NGSILDQUERY_TIMEREL, "during")
+            .add(NGSILDQUERY_TIME, "2020-10-19T14:20:00Z")
+            .add(NGSILDQUERY_ENDTIME, "2020-10-19T16:20:00Z");
+        break;
+      case ATTRIBUTE:
+        params.add(NGSILDQUERY_ATTRIBUTE, "id,speed,license_plate")
+            .add(NGSILDQUERY_Q, "speed>=30");
+        break;
+      case COMPLEX:
+        addShape(params, POLYGON);
+        addShape(params, TEMPORAL);
+        addShape(params, ATTRIBUTE);
+        break;
+      default:
+        throw new IllegalArgumentException("unknown query shape " + shape);
+    }
+  }
+
+  /**
+   * whether a query shape goes to the temporal API.
+   *
+   * @param shape one of the shape names
+   * @return true for temporal shapes
+   */
+  public static boolean isTemporal(String shape) {
+    return TEMPORAL.equals(shape) || COMPLEX.equals(shape);
+  }
+
+  /**
+   * body of the POST query API for a query shape.
+   *
+   * @param shape one of the shape names
+   * @return request body
+   */
+  public static JsonObject body(String shape) {
+    MultiMap params = params(shape);
+    JsonObject body = new JsonObject().put(NGSILDQUERY_TYPE, "Query")
+        .put(NGSILDQUERY_ENTITIES, new JsonArray().add(new JsonObject().put(ID, RESOURCE_ID)));
+    if (params.contains(NGSILDQUERY_GEOREL)) {
+      body.put(NGSILDQUERY_GEOQ, new JsonObject()
+          .put(NGSILDQUERY_GEOMETRY, params.get(NGSILDQUERY_GEOMETRY))
+          .put(NGSILDQUERY_COORDINATES, new JsonArray(params.get(NGSILDQUERY_COORDINATES)))
+          .put(NGSILDQUERY_GEOREL, params.get(NGSILDQUERY_GEOREL))
+          .put(NGSILDQUERY_GEOPROPERTY, params.get(NGSILDQUERY_GEOPROPERTY)));
+    }
+    if (params.contains(NGSILDQUERY_TIMEREL)) {
+      body.put(NGSILDQUERY_TEMPORALQ, new JsonObject()
+          .put(NGSILDQUERY_TIMEREL, params.get(NGSILDQUERY_TIMEREL))
+          .put(NGSILDQUERY_TIME, params.get(NGSILDQUERY_TIME))
+          .put(NGSILDQUERY_ENDTIME, params.get(NGSILDQUERY_ENDTIME)));
+    }
+    if (params.contains(NGSILDQUERY_ATTRIBUTE)) {
+      body.put(NGSILDQUERY_ATTRIBUTE, params.get(NGSILDQUERY_ATTRIBUTE))
+          .put(NGSILDQUERY_Q, params.get(NGSILDQUERY_Q));
+    }
+    return body;
+  }
+}
@@ -0,0 +1,57 @@
+package iudx.resource.server.apiserver.query;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * compiling the request parameters in a single pass and rendering the query handed to the
+ * database service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryParamsBenchmark {
+
+  @Param({Queries.CIRCLE, Queries.POLYGON, Queries.TEMPORAL, Queries.ATTRIBUTE, Queries.COMPLEX})
+  public String shape;
+
+  private String queryString;
+  private JsonObject body;
+  private boolean temporal;
+
+  @Setup
+  public void setup() {
+    queryString = Queries.queryString(shape);
+    body = Queries.body(shape);
+    temporal = Queries.isTemporal(shape);
+  }
+
+  @Benchmark
+  public CompiledQuery compileQueryString() {
+    return CompiledQuery.fromQueryString(queryString, temporal);
+  }
+
+  @Benchmark
+  public CompiledQuery compileQueryBody() {
+    return CompiledQuery.fromJson(body);
+  }
+
+  @Benchmark
+  public JsonObject compileAndRender() {
+    return CompiledQuery.fromQueryString(queryString, temporal).toJson();
+  }
+}
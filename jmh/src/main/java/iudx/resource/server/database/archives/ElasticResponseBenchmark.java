@@ -0,0 +1,66 @@
+package iudx.resource.server.database.archives;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * turning a recorded Elasticsearch response into the response of the search APIs: decoding the
+ * body, collecting the sources of the hits and encoding the result for the event bus reply.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ElasticResponseBenchmark {
+
+  @Param({Payloads.SEARCH_SMALL, Payloads.SEARCH, Payloads.LATEST})
+  public String payload;
+
+  private Buffer body;
+  private JsonObject decoded;
+  private JsonObject response;
+
+  @Setup
+  public void setup() {
+    body = Buffer.buffer(Payloads.read(payload));
+    decoded = new JsonObject(body);
+    response = ElasticClient.toSearchResponse(decoded);
+    if (response == null) {
+      throw new IllegalStateException("recorded payload " + payload + " has no hits");
+    }
+  }
+
+  @Benchmark
+  public JsonObject decode() {
+    return new JsonObject(body);
+  }
+
+  @Benchmark
+  public JsonObject transform() {
+    return ElasticClient.toSearchResponse(decoded);
+  }
+
+  @Benchmark
+  public String encode() {
+    return response.encode();
+  }
+
+  @Benchmark
+  public String decodeTransformEncode() {
+    return ElasticClient.toSearchResponse(new JsonObject(body)).encode();
+  }
+}
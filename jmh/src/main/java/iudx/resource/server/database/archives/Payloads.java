@@ -0,0 +1,34 @@
+package iudx.resource.server.database.archives;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Elasticsearch responses recorded from the search APIs, kept under {@code payloads/} on the
+ * class path. They are the bodies as returned with the filter_path of the database service.
+ */
+final class Payloads {
+
+  /** search of 500 hits, the size of a typical temporal response. */
+  static final String SEARCH = "search-response.json";
+  /** search of 10 hits, the size of a typical spatial response. */
+  static final String SEARCH_SMALL = "search-response-small.json";
+  /** multi get of 50 docs from the latest index. */
+  static final String LATEST = "latest-response.json";
+  /** failed search, as carried by the exception of the client. */
+  static final String ERROR = "error-response.json";
+
+  private Payloads() {}
+
+  static byte[] read(String name) {
+    try (InputStream stream = Payloads.class.getResourceAsStream("/payloads/" + name)) {
+      if (stream == null) {
+        throw new IllegalArgumentException("no recorded payload " + name);
+      }
+      return stream.readAllBytes();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
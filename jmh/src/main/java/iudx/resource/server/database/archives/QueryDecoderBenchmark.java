@@ -0,0 +1,60 @@
+package iudx.resource.server.database.archives;
+
+import static iudx.resource.server.database.archives.Constants.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import iudx.resource.server.apiserver.query.CompiledQuery;
+import iudx.resource.server.apiserver.query.Queries;
+
+/**
+ * building the Elasticsearch query from the query of the API server, as the database service
+ * receives it and with the time limit it adds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryDecoderBenchmark {
+
+  @Param({Queries.CIRCLE, Queries.POLYGON, Queries.TEMPORAL, Queries.ATTRIBUTE, Queries.COMPLEX})
+  public String shape;
+
+  private final QueryDecoder queryDecoder = new QueryDecoder();
+  private JsonObject request;
+
+  @Setup
+  public void setup() {
+    request = CompiledQuery
+        .fromQueryString(Queries.queryString(shape), Queries.isTemporal(shape)).toJson()
+        .put("applicableFilters", new JsonArray().add("ATTR").add("TEMPORAL").add("SPATIAL"))
+        .put(TIME_LIMIT, "test,2020-10-19T00:00:00Z,30");
+    JsonObject query = queryDecoder.queryDecoder(request);
+    if (query.containsKey(ERROR)) {
+      throw new IllegalStateException("query shape " + shape + " does not decode - " + query);
+    }
+  }
+
+  @Benchmark
+  public JsonObject queryDecoder() {
+    return queryDecoder.queryDecoder(request);
+  }
+
+  @Benchmark
+  public String queryDecoderEncoded() {
+    return queryDecoder.queryDecoder(request).toString();
+  }
+}
@@ -0,0 +1,62 @@
+package iudx.resource.server.database.archives;
+
+import static iudx.resource.server.database.archives.Constants.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * building the success, count and failure responses of the database service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseBuilderBenchmark {
+
+  private JsonArray results;
+  private JsonObject error;
+
+  @Setup
+  public void setup() {
+    results = ElasticClient
+        .toSearchResponse(new JsonObject(Buffer.buffer(Payloads.read(Payloads.SEARCH_SMALL))))
+        .getJsonArray(RESULTS);
+    error = new JsonObject(Buffer.buffer(Payloads.read(Payloads.ERROR)));
+  }
+
+  @Benchmark
+  public JsonObject success() {
+    return new ResponseBuilder(SUCCESS).setTypeAndTitle(200).setMessage(results).getResponse();
+  }
+
+  @Benchmark
+  public JsonObject count() {
+    return new ResponseBuilder(SUCCESS).setTypeAndTitle(200).setCount(4123).getResponse();
+  }
+
+  @Benchmark
+  public String emptyFailure() {
+    return new ResponseBuilder(FAILED).setTypeAndTitle(204).setMessage(EMPTY_RESPONSE)
+        .getResponse().toString();
+  }
+
+  @Benchmark
+  public String databaseFailure() {
+    return new ResponseBuilder(FAILED).setTypeAndTitle(400).setMessage(error).getResponse()
+        .toString();
+  }
+}
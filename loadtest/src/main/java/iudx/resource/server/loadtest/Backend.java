@@ -0,0 +1,54 @@
+package iudx.resource.server.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * common part of the stand-in backends: the port they listen on, the number of requests they
+ * served and the latency they add to every response.
+ */
+abstract class Backend {
+
+  protected final Vertx vertx;
+  private final String name;
+  private final long latencyMs;
+  private final long jitterMs;
+  private final LongAdder requests = new LongAdder();
+  protected int port;
+
+  Backend(Vertx vertx, String name, JsonObject config) {
+    this.vertx = vertx;
+    this.name = name;
+    this.latencyMs = config.getLong("latencyMs", 0L);
+    this.jitterMs = config.getLong("jitterMs", 0L);
+  }
+
+  String name() {
+    return name;
+  }
+
+  int port() {
+    return port;
+  }
+
+  long requests() {
+    return requests.sum();
+  }
+
+  /**
+   * run a reply after the configured latency.
+   *
+   * @param reply the reply
+   */
+  protected void respond(Runnable reply) {
+    requests.increment();
+    long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs) : 0);
+    if (delay > 0) {
+      vertx.setTimer(delay, timer -> reply.run());
+    } else {
+      reply.run();
+    }
+  }
+}
@@ -0,0 +1,131 @@
+package iudx.resource.server.loadtest;
+
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.JksOptions;
+
+/**
+ * a stand-in for the auth and catalogue servers, over HTTPS.
+ * <p>
+ * The catalogue knows the configured resources and their groups, all with the configured access
+ * policy and supporting every query type. The auth server grants every token access to every
+ * configured resource.
+ * </p>
+ */
+final class FakeCatalogue extends Backend {
+
+  static final String CONSUMER = "loadtest@iudx.org";
+
+  private final Path keystore;
+  private final String accessPolicy;
+  private final List<String> resources;
+  private final Set<String> groups = new LinkedHashSet<>();
+  private HttpServer server;
+
+  FakeCatalogue(Vertx vertx, JsonObject config, List<String> resources, Path keystore) {
+    super(vertx, "catalogue", config);
+    this.keystore = keystore;
+    this.accessPolicy = config.getString("accessPolicy", "OPEN");
+    this.resources = resources;
+    for (String resource : resources) {
+      groups.add(groupOf(resource));
+    }
+  }
+
+  Future<Integer> start() {
+    Promise<Integer> promise = Promise.promise();
+    HttpServerOptions options = new HttpServerOptions().setSsl(true).setKeyStoreOptions(
+        new JksOptions().setPath(keystore.toString()).setPassword(TestKeystore.PASSWORD));
+    server = vertx.createHttpServer(options);
+    server.requestHandler(request -> request.bodyHandler(body -> handle(request)))
+        .listen(0, "localhost", listenHandler -> {
+          if (listenHandler.succeeded()) {
+            port = listenHandler.result().actualPort();
+            promise.complete(port);
+          } else {
+            promise.fail(listenHandler.cause());
+          }
+        });
+    return promise.future();
+  }
+
+  private void handle(HttpServerRequest request) {
+    JsonObject body;
+    switch (request.path()) {
+      case "/auth/v1/token/introspect":
+        body = introspect();
+        break;
+      case "/iudx/cat/v1/search":
+        body = search(request.params());
+        break;
+      case "/iudx/cat/v1/item":
+        String id = request.params().get("id");
+        body = items(resource -> resource.equals(id));
+        break;
+      default:
+        request.response().setStatusCode(404).end();
+        return;
+    }
+    respond(() -> request.response().putHeader("Content-Type", "application/json")
+        .end(body.toBuffer()));
+  }
+
+  private JsonObject introspect() {
+    JsonArray request = new JsonArray();
+    for (String resource : resources) {
+      request.add(new JsonObject().put("id", resource)
+          .put("apis", new JsonArray().add("/ngsi-ld/v1/entities")
+              .add("/ngsi-ld/v1/temporal/entities").add("/ngsi-ld/v1/entityOperations/query"))
+          .put("methods", new JsonArray().add("*")));
+    }
+    return new JsonObject().put("consumer", CONSUMER).put("request", request);
+  }
+
+  private JsonObject search(MultiMap params) {
+    String property = params.get("property");
+    if ("[resourceServer]".equals(property) || "[iudxResourceAPIs]".equals(property)) {
+      return results(groups.stream().map(this::item).collect(Collectors.toList()));
+    }
+    if ("resource".equals(params.get("rel"))) {
+      String group = params.get("id");
+      return items(resource -> groupOf(resource).equals(group));
+    }
+    if ("[id]".equals(property)) {
+      String id = params.get("value").replace("[", "").replace("]", "");
+      return groups.contains(id) ? results(List.of(item(id))) : items(id::equals);
+    }
+    return results(List.of());
+  }
+
+  private JsonObject items(Predicate<String> filter) {
+    return results(resources.stream().filter(filter).map(this::item)
+        .collect(Collectors.toList()));
+  }
+
+  private JsonObject item(String id) {
+    return new JsonObject().put("id", id).put("accessPolicy", accessPolicy)
+        .put("iudxResourceAPIs", new JsonArray().add("ATTR").add("TEMPORAL").add("SPATIAL"));
+  }
+
+  private static JsonObject results(List<JsonObject> items) {
+    return new JsonObject().put("status", "success").put("totalHits", items.size())
+        .put("results", new JsonArray(items));
+  }
+
+  private static String groupOf(String resource) {
+    return resource.substring(0, resource.lastIndexOf("/"));
+  }
+}
@@ -0,0 +1,54 @@
+package iudx.resource.server.loadtest;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * an Elasticsearch stand-in serving recorded responses. Searches get the recorded search
+ * response whatever the query, counts get a fixed count.
+ */
+final class FakeElasticsearch extends Backend {
+
+  private final Buffer search;
+  private final Buffer count;
+  private HttpServer server;
+
+  FakeElasticsearch(Vertx vertx, JsonObject config) {
+    super(vertx, "elasticsearch", config);
+    this.search = Recordings.read(config.getString("searchPayload", "search-response.json"));
+    this.count = new JsonObject().put("count", config.getInteger("count", 500)).toBuffer();
+  }
+
+  Future<Integer> start() {
+    Promise<Integer> promise = Promise.promise();
+    server = vertx.createHttpServer();
+    server.requestHandler(request -> request.bodyHandler(body -> handle(request)))
+        .listen(0, "localhost", listenHandler -> {
+          if (listenHandler.succeeded()) {
+            port = listenHandler.result().actualPort();
+            promise.complete(port);
+          } else {
+            promise.fail(listenHandler.cause());
+          }
+        });
+    return promise.future();
+  }
+
+  private void handle(HttpServerRequest request) {
+    Buffer body;
+    if (request.path().endsWith("/_search")) {
+      body = search;
+    } else if (request.path().endsWith("/_count")) {
+      body = count;
+    } else {
+      request.response().setStatusCode(404).end();
+      return;
+    }
+    respond(() -> request.response().putHeader("Content-Type", "application/json").end(body));
+  }
+}
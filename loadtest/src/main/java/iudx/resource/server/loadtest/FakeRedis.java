@@ -0,0 +1,117 @@
+package iudx.resource.server.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.parsetools.RecordParser;
+
+/**
+ * a Redis stand-in speaking enough RESP for the latest data client. JSON.GET answers with a
+ * recorded latest document whatever the key and path, PING, AUTH and SELECT succeed and every
+ * other command is an error.
+ */
+final class FakeRedis extends Backend {
+
+  private static final String CRLF = "\r\n";
+
+  private final Buffer document;
+  private NetServer server;
+
+  FakeRedis(Vertx vertx, JsonObject config) {
+    super(vertx, "redis", config);
+    this.document = new JsonObject(Recordings.read(config.getString("latestPayload",
+        "latest-response.json"))).getJsonArray("docs").getJsonObject(0)
+            .getJsonObject("_source").toBuffer();
+  }
+
+  Future<Integer> start() {
+    Promise<Integer> promise = Promise.promise();
+    server = vertx.createNetServer();
+    server.connectHandler(socket -> new Connection(socket).start())
+        .listen(0, "localhost", listenHandler -> {
+          if (listenHandler.succeeded()) {
+            port = listenHandler.result().actualPort();
+            promise.complete(port);
+          } else {
+            promise.fail(listenHandler.cause());
+          }
+        });
+    return promise.future();
+  }
+
+  private static Buffer bulk(Buffer value) {
+    return Buffer.buffer("$" + value.length() + CRLF).appendBuffer(value).appendString(CRLF);
+  }
+
+  /**
+   * parses the commands of one client. Commands arrive as arrays of bulk strings, or inline.
+   */
+  private final class Connection {
+    private final NetSocket socket;
+    private final RecordParser parser = RecordParser.newDelimited(CRLF);
+    private List<String> command = new ArrayList<>();
+    private int arity;
+    private boolean readingBulk;
+
+    private Connection(NetSocket socket) {
+      this.socket = socket;
+    }
+
+    private void start() {
+      parser.handler(this::record);
+      socket.handler(parser);
+    }
+
+    private void record(Buffer record) {
+      if (readingBulk) {
+        readingBulk = false;
+        parser.delimitedMode(CRLF);
+        command.add(record.getString(0, record.length() - CRLF.length()));
+        if (command.size() == arity) {
+          execute();
+        }
+        return;
+      }
+      String line = record.toString();
+      if (line.isEmpty()) {
+        return;
+      }
+      if (line.charAt(0) == '*') {
+        arity = Integer.parseInt(line.substring(1));
+        command = new ArrayList<>(arity);
+      } else if (line.charAt(0) == '$') {
+        readingBulk = true;
+        parser.fixedSizeMode(Integer.parseInt(line.substring(1)) + CRLF.length());
+      } else {
+        command = new ArrayList<>(List.of(line.trim().split("\\s+")));
+        execute();
+      }
+    }
+
+    private void execute() {
+      List<String> executed = command;
+      command = new ArrayList<>();
+      String name = executed.get(0).toUpperCase();
+      switch (name) {
+        case "JSON.GET":
+          respond(() -> socket.write(bulk(document)));
+          break;
+        case "PING":
+          socket.write("+PONG" + CRLF);
+          break;
+        case "AUTH":
+        case "SELECT":
+          socket.write("+OK" + CRLF);
+          break;
+        default:
+          socket.write("-ERR unknown command '" + name + "'" + CRLF);
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package iudx.resource.server.loadtest;
+
+import static iudx.resource.server.databroker.util.Constants.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * a data broker stand-in answering the data broker service on the event bus.
+ * <p>
+ * Published adaptor messages are counted and handed to the live streams opened by the API
+ * server, the way the data broker would deliver them through the group exchange. Every other
+ * operation succeeds without effect.
+ * </p>
+ */
+final class InMemoryBroker {
+
+  static final String BROKER_SERVICE_ADDRESS = "iudx.rs.broker.service";
+  private static final String LEASE_ADDRESS = "iudx.rs.loadtest.broker.lease";
+
+  private final Vertx vertx;
+  private final Set<String> liveGroups = new HashSet<>();
+  private final LongAdder published = new LongAdder();
+  private final LongAdder requests = new LongAdder();
+
+  InMemoryBroker(Vertx vertx) {
+    this.vertx = vertx;
+  }
+
+  void start() {
+    vertx.eventBus().consumer(BROKER_SERVICE_ADDRESS, this::handle);
+    vertx.eventBus().<JsonObject>consumer(LIVE_OPEN_ADDRESS, message -> {
+      String group = message.body().getString(ID);
+      liveGroups.add(group);
+      message.reply(new JsonObject().put(STREAM_ADDRESS, LIVE_ADDRESS_PREFIX + group)
+          .put(STREAM_LEASE_ADDRESS, LEASE_ADDRESS).put(STREAM_LEASE_TTL_KEY, STREAM_LEASE_TTL));
+    });
+    vertx.eventBus().<String>consumer(LEASE_ADDRESS, message -> message.reply(message.body()));
+  }
+
+  long requests() {
+    return requests.sum();
+  }
+
+  long published() {
+    return published.sum();
+  }
+
+  private void handle(Message<JsonObject> message) {
+    requests.increment();
+    String action = message.headers().get("action");
+    if ("publishFromAdaptor".equals(action)) {
+      publish(message.body().getJsonObject("request"));
+      message.reply(new JsonObject().put(STATUS, 200));
+    } else if ("publishBulkFromAdaptor".equals(action)) {
+      JsonArray batch = message.body().getJsonArray("request");
+      for (Object adaptorMessage : batch) {
+        publish((JsonObject) adaptorMessage);
+      }
+      message.reply(new JsonObject().put(STATUS, 200).put(PUBLISHED, batch.size()));
+    } else {
+      message.reply(new JsonObject().put(TYPE, 200).put(TITLE, SUCCESS));
+    }
+  }
+
+  private void publish(JsonObject adaptorMessage) {
+    published.increment();
+    String id = adaptorMessage.getString(ID);
+    if (id == null || id.lastIndexOf("/") < 0) {
+      return;
+    }
+    String group = id.substring(0, id.lastIndexOf("/"));
+    if (liveGroups.contains(group)) {
+      vertx.eventBus().publish(LIVE_ADDRESS_PREFIX + group, adaptorMessage.toBuffer(),
+          new DeliveryOptions().addHeader(ROUTING_KEY, id));
+    }
+  }
+}
@@ -0,0 +1,139 @@
+package iudx.resource.server.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
+
+/**
+ * drives a weighted mix of requests against the API server.
+ * <p>
+ * Without a rate the load is a closed loop: a fixed number of clients each send their next
+ * request once the previous one is answered. With a rate the load is an open loop: requests are
+ * sent on schedule whether or not earlier ones were answered, and latency is measured from the
+ * scheduled time, so a stalled server shows up in the percentiles instead of lowering the load.
+ * Requests scheduled during the warm-up are sent but not recorded. Everything runs on one event
+ * loop, so the statistics need no locking.
+ * </p>
+ */
+final class LoadGenerator {
+
+  private final Vertx vertx;
+  private final JsonObject config;
+  private final List<LoadReport.RequestStats> mix = new ArrayList<>();
+  private final List<Integer> schedule = new ArrayList<>();
+  private final Promise<LoadReport> done = Promise.promise();
+  private WebClient client;
+  private String token;
+  private long measureStart;
+  private long end;
+  private long inFlight;
+  private long sent;
+  private boolean stopped;
+
+  LoadGenerator(Vertx vertx, JsonObject config) {
+    this.vertx = vertx;
+    this.config = config;
+    for (Object request : config.getJsonArray("requests")) {
+      JsonObject spec = (JsonObject) request;
+      for (int i = 0; i < spec.getInteger("weight", 1); i++) {
+        schedule.add(mix.size());
+      }
+      mix.add(new LoadReport.RequestStats(spec));
+    }
+  }
+
+  /**
+   * run the load on a context of its own.
+   *
+   * @return Future of the report, once every request sent is answered
+   */
+  Future<LoadReport> run() {
+    Context context = vertx.getOrCreateContext();
+    context.runOnContext(v -> start());
+    return done.future();
+  }
+
+  private void start() {
+    int connections = config.getInteger("connections", 64);
+    client = WebClient.create(vertx, new WebClientOptions()
+        .setDefaultHost(config.getString("host", "localhost"))
+        .setDefaultPort(config.getInteger("port", 8080))
+        .setMaxPoolSize(connections).setKeepAlive(true).setTryUseCompression(true));
+    token = config.getString("token", "public");
+    long now = System.nanoTime();
+    measureStart = now + TimeUnit.SECONDS.toNanos(config.getLong("warmupSeconds", 10L));
+    end = measureStart + TimeUnit.SECONDS.toNanos(config.getLong("durationSeconds", 30L));
+    int rate = config.getInteger("rate", 0);
+    if (rate > 0) {
+      openLoop(rate, now);
+    } else {
+      for (int i = 0; i < config.getInteger("concurrency", connections); i++) {
+        send(System.nanoTime());
+      }
+      stopped = true;
+    }
+  }
+
+  private void openLoop(int rate, long start) {
+    long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+    long[] next = {start};
+    vertx.setPeriodic(1, timer -> {
+      long now = System.nanoTime();
+      while (next[0] <= now && next[0] < end) {
+        send(next[0]);
+        next[0] += interval;
+      }
+      if (next[0] >= end) {
+        vertx.cancelTimer(timer);
+        stopped = true;
+        finishIfIdle();
+      }
+    });
+  }
+
+  private void send(long scheduled) {
+    LoadReport.RequestStats stats = mix.get(schedule.get((int) (sent++ % schedule.size())));
+    inFlight++;
+    HttpRequest<Buffer> request = client.request(HttpMethod.valueOf(stats.method), stats.path)
+        .putHeader("token", token);
+    if (stats.body != null) {
+      request.putHeader("Content-Type", "application/json").sendBuffer(stats.body,
+          responseHandler -> complete(stats, scheduled, responseHandler.succeeded()
+              ? responseHandler.result().statusCode() : 0));
+    } else {
+      request.send(responseHandler -> complete(stats, scheduled,
+          responseHandler.succeeded() ? responseHandler.result().statusCode() : 0));
+    }
+  }
+
+  private void complete(LoadReport.RequestStats stats, long scheduled, int status) {
+    inFlight--;
+    long now = System.nanoTime();
+    if (scheduled >= measureStart && scheduled < end) {
+      stats.record(now - scheduled, status);
+    }
+    if (config.getInteger("rate", 0) <= 0 && now < end) {
+      send(now);
+    } else {
+      finishIfIdle();
+    }
+  }
+
+  private void finishIfIdle() {
+    if (stopped && inFlight == 0 && !done.future().isComplete()) {
+      client.close();
+      long seconds = config.getLong("durationSeconds", 30L);
+      done.complete(new LoadReport(mix, seconds));
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package iudx.resource.server.loadtest;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * throughput and latency percentiles of a load test run, per request of the mix and overall.
+ */
+final class LoadReport {
+
+  private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+  private final List<RequestStats> requests;
+  private final long durationSeconds;
+  private final JsonObject backends = new JsonObject();
+
+  LoadReport(List<RequestStats> requests, long durationSeconds) {
+    this.requests = requests;
+    this.durationSeconds = durationSeconds;
+  }
+
+  /**
+   * add the number of requests a backend served during the run.
+   *
+   * @param name backend name
+   * @param served requests served
+   * @return the report
+   */
+  LoadReport backend(String name, long served) {
+    backends.put(name, served);
+    return this;
+  }
+
+  /**
+   * share of requests that failed or were not answered with a 2xx status.
+   *
+   * @return error rate between 0 and 1
+   */
+  double errorRate() {
+    long count = 0;
+    long errors = 0;
+    for (RequestStats stats : requests) {
+      count += stats.count;
+      errors += stats.errors;
+    }
+    return count == 0 ? 1 : (double) errors / count;
+  }
+
+  private RequestStats total() {
+    RequestStats total = new RequestStats(new JsonObject().put("name", "total"));
+    for (RequestStats stats : requests) {
+      total.histogram.add(stats.histogram);
+      total.count += stats.count;
+      total.errors += stats.errors;
+      stats.statuses.forEach((status, count) -> total.statuses.merge(status, count, Long::sum));
+    }
+    return total;
+  }
+
+  void print(PrintStream out) {
+    out.printf("%-16s %10s %10s %8s", "request", "count", "req/s", "errors");
+    for (double percentile : PERCENTILES) {
+      out.printf(" %9s", "p" + percentile + "ms");
+    }
+    out.printf(" %9s%n", "max ms");
+    for (RequestStats stats : requests) {
+      print(out, stats);
+    }
+    print(out, total());
+    out.println("backend requests " + backends.encode());
+  }
+
+  private void print(PrintStream out, RequestStats stats) {
+    out.printf("%-16s %10d %10.1f %8d", stats.name, stats.count,
+        (double) stats.count / durationSeconds, stats.errors);
+    for (double percentile : PERCENTILES) {
+      out.printf(" %9.2f", millis(stats.histogram.getValueAtPercentile(percentile)));
+    }
+    out.printf(" %9.2f%n", millis(stats.histogram.getMaxValue()));
+  }
+
+  JsonObject toJson() {
+    JsonArray results = new JsonArray();
+    for (RequestStats stats : requests) {
+      results.add(toJson(stats));
+    }
+    return new JsonObject().put("durationSeconds", durationSeconds).put("requests", results)
+        .put("total", toJson(total())).put("errorRate", errorRate()).put("backends", backends);
+  }
+
+  private JsonObject toJson(RequestStats stats) {
+    JsonObject latency = new JsonObject();
+    for (double percentile : PERCENTILES) {
+      latency.put("p" + percentile, millis(stats.histogram.getValueAtPercentile(percentile)));
+    }
+    latency.put("max", millis(stats.histogram.getMaxValue()))
+        .put("mean", stats.histogram.getMean() / 1000);
+    JsonObject statuses = new JsonObject();
+    stats.statuses.forEach((status, count) -> statuses.put(String.valueOf(status), count));
+    return new JsonObject().put("name", stats.name).put("count", stats.count)
+        .put("throughput", (double) stats.count / durationSeconds).put("errors", stats.errors)
+        .put("statuses", statuses).put("latencyMs", latency);
+  }
+
+  private static double millis(long micros) {
+    return micros / 1000.0;
+  }
+
+  /**
+   * a request of the mix and what was recorded for it. Only touched by the load generator.
+   */
+  static final class RequestStats {
+    final String name;
+    final String method;
+    final String path;
+    final Buffer body;
+    private final Histogram histogram = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final Map<Integer, Long> statuses = new TreeMap<>();
+    private long count;
+    private long errors;
+
+    RequestStats(JsonObject spec) {
+      this.name = spec.getString("name");
+      this.method = spec.getString("method", "GET");
+      this.path = spec.getString("path");
+      this.body = spec.containsKey("body") ? spec.getJsonObject("body").toBuffer() : null;
+    }
+
+    void record(long latencyNanos, int status) {
+      long micros = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+      histogram.recordValue(Math.min(micros, histogram.getHighestTrackableValue()));
+      statuses.merge(status, 1L, Long::sum);
+      count++;
+      if (status < 200 || status > 299) {
+        errors++;
+      }
+    }
+  }
+}
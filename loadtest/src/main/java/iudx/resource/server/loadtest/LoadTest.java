@@ -0,0 +1,141 @@
+package iudx.resource.server.loadtest;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.cli.CLI;
+import io.vertx.core.cli.CommandLine;
+import io.vertx.core.cli.Option;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import iudx.resource.server.apiserver.util.Util;
+import iudx.resource.server.tracing.Tracing;
+
+/**
+ * Load test - runs a non-clustered resource server against local stand-ins for its backends and
+ * reports throughput and latency percentiles.
+ * <p>
+ * The stand-ins listen on free ports of localhost and the host and port settings of the deployed
+ * modules are pointed at them. Elasticsearch and Redis answer with recorded responses, the auth
+ * and catalogue servers are served over HTTPS with a generated certificate, and the data broker
+ * service is answered in memory, so no external server is needed. The server, the stand-ins and
+ * the load generator share one JVM, which can be profiled as a whole.
+ * </p>
+ * <p>
+ * The report is printed and, if configured, written as JSON. The process exits with 1 when the
+ * error rate is above the configured maximum, with 2 when the run could not be completed.
+ * </p>
+ */
+public final class LoadTest {
+
+  private static final Logger LOGGER = LogManager.getLogger(LoadTest.class);
+
+  private LoadTest() {}
+
+  /**
+   * deploy the server, drive the load and collect the report.
+   *
+   * @param vertx vertx instance
+   * @param config load test configuration
+   * @return Future of the report
+   * @throws Exception if the keystore of the stand-ins cannot be created
+   */
+  static Future<LoadReport> run(Vertx vertx, JsonObject config) throws Exception {
+    Path keystore = TestKeystore.create();
+    JsonObject backends = config.getJsonObject("backends", new JsonObject());
+    List<String> resources = Util.toList(config.getJsonArray("resources"));
+    FakeElasticsearch elastic =
+        new FakeElasticsearch(vertx, backends.getJsonObject("elasticsearch", new JsonObject()));
+    FakeRedis redis = new FakeRedis(vertx, backends.getJsonObject("redis", new JsonObject()));
+    FakeCatalogue catalogue = new FakeCatalogue(vertx,
+        backends.getJsonObject("catalogue", new JsonObject()), resources, keystore);
+    InMemoryBroker broker = new InMemoryBroker(vertx);
+    broker.start();
+
+    return CompositeFuture.all(elastic.start(), redis.start(), catalogue.start())
+        .compose(started -> {
+          JsonObject endpoints = new JsonObject()
+              .put("databaseIP", "localhost").put("databasePort", elastic.port())
+              .put("redisHost", "localhost").put("redisPort", redis.port())
+              .put("catServerHost", "localhost")
+              .put("catServerPort", String.valueOf(catalogue.port()))
+              .put("authServerHost", "localhost")
+              .put("authServerPort", String.valueOf(catalogue.port()))
+              .put("keystore", keystore.toString()).put("keystorePassword", TestKeystore.PASSWORD);
+          return deploy(vertx, config.getJsonArray("modules"), endpoints, 0);
+        })
+        .compose(deployed -> new LoadGenerator(vertx, config.getJsonObject("load")).run())
+        .map(report -> report.backend(elastic.name(), elastic.requests())
+            .backend(redis.name(), redis.requests())
+            .backend(catalogue.name(), catalogue.requests())
+            .backend("broker", broker.requests()));
+  }
+
+  private static Future<Void> deploy(Vertx vertx, JsonArray modules, JsonObject endpoints,
+      int i) {
+    if (i >= modules.size()) {
+      return Future.succeededFuture();
+    }
+    JsonObject config = modules.getJsonObject(i).copy().mergeIn(endpoints);
+    String moduleName = config.getString("id");
+    Promise<String> promise = Promise.promise();
+    vertx.deployVerticle(moduleName, new DeploymentOptions()
+        .setInstances(config.getInteger("verticleInstances", 1)).setConfig(config), promise);
+    return promise.future().compose(deployed -> {
+      LOGGER.info("Deployed " + moduleName);
+      return deploy(vertx, modules, endpoints, i + 1);
+    });
+  }
+
+  private static void exit(Vertx vertx, int status) {
+    vertx.close(closed -> System.exit(status));
+  }
+
+  public static void main(String[] args) throws Exception {
+    CLI cli = CLI.create("IUDX RS load test")
+        .setSummary("Load test of the resource server against local backends")
+        .addOption(new Option().setLongName("help").setShortName("h").setFlag(true)
+            .setDescription("display help"))
+        .addOption(new Option().setLongName("config").setShortName("c")
+            .setRequired(true).setDescription("load test configuration file"));
+    CommandLine commandLine = cli.parse(Arrays.asList(args), false);
+    if (!commandLine.isValid() || commandLine.isFlagEnabled("help")) {
+      StringBuilder usageString = new StringBuilder();
+      cli.usage(usageString);
+      System.out.println(usageString);
+      return;
+    }
+
+    JsonObject config = new JsonObject(new String(
+        Files.readAllBytes(Paths.get(commandLine.getOptionValue("config"))),
+        StandardCharsets.UTF_8));
+    Vertx vertx = Vertx.vertx();
+    Tracing.init(vertx, config.getJsonObject("tracing", new JsonObject()));
+    JsonObject load = config.getJsonObject("load");
+    run(vertx, config).onComplete(runHandler -> {
+      if (runHandler.failed()) {
+        LOGGER.fatal("Load test failed", runHandler.cause());
+        exit(vertx, 2);
+        return;
+      }
+      LoadReport report = runHandler.result();
+      report.print(System.out);
+      String reportPath = load.getString("report");
+      if (reportPath != null) {
+        vertx.fileSystem().writeFileBlocking(reportPath, report.toJson().toBuffer());
+      }
+      double maxErrorRate = load.getDouble("maxErrorRate", 0.0);
+      exit(vertx, report.errorRate() > maxErrorRate ? 1 : 0);
+    });
+  }
+}
@@ -0,0 +1,25 @@
+package iudx.resource.server.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import io.vertx.core.buffer.Buffer;
+
+/**
+ * backend responses recorded from a deployment, kept under {@code payloads/} on the class path.
+ */
+final class Recordings {
+
+  private Recordings() {}
+
+  static Buffer read(String name) {
+    try (InputStream stream = Recordings.class.getResourceAsStream("/payloads/" + name)) {
+      if (stream == null) {
+        throw new IllegalArgumentException("no recorded payload " + name);
+      }
+      return Buffer.buffer(stream.readAllBytes());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+package iudx.resource.server.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * a throw-away keystore holding a self-signed certificate for localhost. It serves the stand-in
+ * auth and catalogue servers, is the client keystore of the authenticator, and is made the trust
+ * store of the process so that the authenticator verifies the stand-in like a real auth server.
+ */
+final class TestKeystore {
+
+  static final String PASSWORD = "loadtest";
+
+  private TestKeystore() {}
+
+  /**
+   * generate the keystore with the keytool of the running JDK and trust it.
+   *
+   * @return path of the keystore
+   * @throws IOException if keytool fails
+   * @throws InterruptedException if interrupted while waiting for keytool
+   */
+  static Path create() throws IOException, InterruptedException {
+    Path directory = Files.createTempDirectory("iudx-loadtest");
+    Path keystore = directory.resolve("keystore.jks");
+    String keytool = Paths.get(System.getProperty("java.home"), "bin", "keytool").toString();
+    Process process = new ProcessBuilder(keytool, "-genkeypair", "-alias", "localhost",
+        "-keyalg", "RSA", "-keysize", "2048", "-validity", "2", "-dname", "CN=localhost",
+        "-ext", "SAN=dns:localhost,ip:127.0.0.1", "-storetype", "JKS",
+        "-keystore", keystore.toString(), "-storepass", PASSWORD, "-keypass", PASSWORD)
+            .redirectErrorStream(true).start();
+    String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    if (process.waitFor() != 0) {
+      throw new IOException("keytool failed - " + output);
+    }
+    keystore.toFile().deleteOnExit();
+    directory.toFile().deleteOnExit();
+
+    System.setProperty("javax.net.ssl.trustStore", keystore.toString());
+    System.setProperty("javax.net.ssl.trustStorePassword", PASSWORD);
+    System.setProperty("javax.net.ssl.trustStoreType", "JKS");
+    return keystore;
+  }
+}
@@ -3,6 +3,7 @@ package iudx.resource.server.apiserver;
 
 import static iudx.resource.server.apiserver.util.Constants.*;
 import static iudx.resource.server.apiserver.util.Util.toUriFunction;
+import static iudx.resource.server.apiserver.validation.QueryCompilerHandler.COMPILED_QUERY;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -10,7 +11,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import io.netty.handler.codec.http.HttpConstants;
@@ -19,11 +22,14 @@ import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Future;
 import io.vertx.core.MultiMap;
 import io.vertx.core.Promise;
+import io.vertx.core.http.Http2Settings;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServer;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -34,22 +40,34 @@ import io.vertx.ext.web.api.validation.ValidationException;
 import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.ext.web.handler.CorsHandler;
 import iudx.resource.server.apiserver.handlers.AuthHandler;
+import iudx.resource.server.apiserver.handlers.CompressionHandler;
+import iudx.resource.server.apiserver.handlers.LoadSheddingHandler;
+import iudx.resource.server.apiserver.handlers.MetricsHandler;
+import iudx.resource.server.apiserver.handlers.TraceHandler;
+import iudx.resource.server.apiserver.limits.EndpointLimiters;
+import iudx.resource.server.apiserver.limits.RateLimiter;
 import iudx.resource.server.apiserver.management.ManagementApi;
 import iudx.resource.server.apiserver.management.ManagementApiImpl;
-import iudx.resource.server.apiserver.query.NGSILDQueryParams;
-import iudx.resource.server.apiserver.query.QueryMapper;
+import iudx.resource.server.apiserver.query.CompiledQuery;
 import iudx.resource.server.apiserver.response.ResponseType;
 import iudx.resource.server.apiserver.response.RestResponse;
 import iudx.resource.server.apiserver.service.CatalogueService;
+import iudx.resource.server.apiserver.subscription.LiveDataHub;
+import iudx.resource.server.apiserver.subscription.StreamingConnection;
+import iudx.resource.server.apiserver.subscription.StreamingHub;
 import iudx.resource.server.apiserver.subscription.SubsType;
 import iudx.resource.server.apiserver.subscription.SubscriptionService;
 import iudx.resource.server.apiserver.util.Constants;
+import iudx.resource.server.apiserver.util.Util;
 import iudx.resource.server.apiserver.validation.ValidationFailureHandler;
 import iudx.resource.server.apiserver.validation.HTTPRequestValidatiorsHandlersFactory;
 import iudx.resource.server.authenticator.AuthenticationService;
 import iudx.resource.server.database.archives.DatabaseService;
 import iudx.resource.server.database.latest.LatestDataService;
 import iudx.resource.server.databroker.DataBrokerService;
+import iudx.resource.server.resilience.BackendUnavailableException;
+import iudx.resource.server.tracing.Span;
+import iudx.resource.server.tracing.Tracing;
 
 
 /**
@@ -90,6 +108,9 @@ public class ApiServerVerticle extends AbstractVerticle {
   private ManagementApi managementApi;
   private SubscriptionService subsService;
   private CatalogueService catalogueService;
+  private StreamingHub streamingHub;
+  private int streamBufferSize;
+  private LiveDataHub liveDataHub;
 
   private DatabaseService database;
   private DataBrokerService databroker;
@@ -135,88 +156,135 @@ public class ApiServerVerticle extends AbstractVerticle {
     /* Define the APIs, methods, endpoints and associated methods. */
 
     router = Router.router(vertx);
+    RateLimiter rateLimiter =
+        RateLimiter.getInstance(vertx, config().getJsonObject("rateLimits", new JsonObject()));
     router.route().handler(
         CorsHandler.create("*").allowedHeaders(allowedHeaders).allowedMethods(allowedMethods));
+    router.route().handler(MetricsHandler.create());
+    router.route().handler(CompressionHandler.create(config()
+        .getJsonObject("httpServer", new JsonObject()).getJsonObject("compression",
+            new JsonObject())));
+    router.route().handler(TraceHandler.create());
+    // stream sub, ahead of the BodyHandler so that a WebSocket upgrade finds the request unread
+    router.get(NGSILD_SUBSCRIPTION_URL + "/:domain/:userSHA/:alias" + STREAM_PATH)
+        .handler(AuthHandler.create(vertx, rateLimiter)).handler(this::streamSubscription);
+    router.get(NGSILD_ENTITIES_URL + "/:domain/:userSHA/:resourceServer/:resourceGroup/:resourceName"
+        + LIVE_PATH)
+        .handler(AuthHandler.create(vertx, rateLimiter)).handler(this::handleLiveEntitiesQuery);
     // router.route().handler(HeadersHandler.create());
     router.route().handler(BodyHandler.create());
     // router.route().handler(AuthHandler.create(vertx));
 
+    /* load shedding per endpoint class, ahead of validation and authentication */
+    EndpointLimiters limiters = EndpointLimiters
+        .getInstance(config().getJsonObject("concurrencyLimits", new JsonObject()));
+    router.get(NGSILD_ENTITIES_URL)
+        .handler(LoadSheddingHandler.create(limiters, EndpointLimiters.SEARCH));
+    router.post(NGSILD_POST_QUERY_PATH)
+        .handler(LoadSheddingHandler.create(limiters, EndpointLimiters.SEARCH));
+    router.get(NGSILD_ENTITIES_URL
+        + "/:domain/:userSHA/:resourceServer/:resourceGroup/:resourceName")
+        .handler(LoadSheddingHandler.create(limiters, EndpointLimiters.LATEST));
+    router.get(NGSILD_TEMPORAL_URL)
+        .handler(LoadSheddingHandler.create(limiters, EndpointLimiters.TEMPORAL));
+    router.routeWithRegex(SUBSCRIPTION_URL_REGEX)
+        .handler(MetricsHandler.template(SUBSCRIPTION_URL_REGEX))
+        .handler(LoadSheddingHandler.create(limiters, EndpointLimiters.MANAGEMENT));
+    router.routeWithRegex(IUDX_MANAGEMENT_URL + "(.*)")
+        .handler(MetricsHandler.template(IUDX_MANAGEMENT_URL + "(.*)"))
+        .handler(LoadSheddingHandler.create(limiters, EndpointLimiters.MANAGEMENT));
+    router.routeWithRegex(ADAPTER_URL_REGEX)
+        .handler(MetricsHandler.template(ADAPTER_URL_REGEX))
+        .handler(LoadSheddingHandler.create(limiters, EndpointLimiters.MANAGEMENT));
+
     HTTPRequestValidatiorsHandlersFactory validators = new HTTPRequestValidatiorsHandlersFactory();
     ValidationFailureHandler validationsFailureHandler = new ValidationFailureHandler();
 
     /* NGSI-LD api endpoints */
     router.get(NGSILD_ENTITIES_URL).handler(validators.getValidation4Context("ENTITY"))
-        .handler(AuthHandler.create(vertx)).handler(this::handleEntitiesQuery)
+        .handler(AuthHandler.create(vertx, rateLimiter)).handler(this::handleEntitiesQuery)
         .failureHandler(validationsFailureHandler);
 
     router
         .get(NGSILD_ENTITIES_URL + "/:domain/:userSha/:resourceServer/:resourceGroup/:resourceName")
-        .handler(validators.getValidation4Context("LATEST")).handler(AuthHandler.create(vertx))
+        .handler(validators.getValidation4Context("LATEST"))
+        .handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::handleLatestEntitiesQuery).failureHandler(validationsFailureHandler);
 
     router.post(NGSILD_POST_QUERY_PATH).consumes(APPLICATION_JSON)
-        .handler(validators.getValidation4Context("POST")).handler(AuthHandler.create(vertx))
+        .handler(validators.getValidation4Context("POST"))
+        .handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::handlePostEntitiesQuery).failureHandler(validationsFailureHandler);
 
     router.get(NGSILD_TEMPORAL_URL).handler(validators.getValidation4Context("TEMPORAL"))
-        .handler(AuthHandler.create(vertx)).handler(this::handleTemporalQuery)
+        .handler(AuthHandler.create(vertx, rateLimiter)).handler(this::handleTemporalQuery)
         .failureHandler(validationsFailureHandler);
 
-    router.post(NGSILD_SUBSCRIPTION_URL).handler(AuthHandler.create(vertx))
+    router.post(NGSILD_SUBSCRIPTION_URL).handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::handleSubscriptions);
     // append sub
     router.patch(NGSILD_SUBSCRIPTION_URL + "/:domain/:userSHA/:alias")
-        .handler(AuthHandler.create(vertx)).handler(this::appendSubscription);
+        .handler(AuthHandler.create(vertx, rateLimiter)).handler(this::appendSubscription);
     // update sub
     router.put(NGSILD_SUBSCRIPTION_URL + "/:domain/:userSHA/:alias")
-        .handler(AuthHandler.create(vertx)).handler(this::updateSubscription);
+        .handler(AuthHandler.create(vertx, rateLimiter)).handler(this::updateSubscription);
     // get sub
     router.get(NGSILD_SUBSCRIPTION_URL + "/:domain/:userSHA/:alias")
-        .handler(AuthHandler.create(vertx)).handler(this::getSubscription);
+        .handler(AuthHandler.create(vertx, rateLimiter)).handler(this::getSubscription);
     // delete sub
     router.delete(NGSILD_SUBSCRIPTION_URL + "/:domain/:userSHA/:alias")
-        .handler(AuthHandler.create(vertx)).handler(this::deleteSubscription);
+        .handler(AuthHandler.create(vertx, rateLimiter)).handler(this::deleteSubscription);
 
     /* Management Api endpoints */
     // Exchange
-    router.post(IUDX_MANAGEMENT_EXCHANGE_URL).handler(AuthHandler.create(vertx))
+    router.post(IUDX_MANAGEMENT_EXCHANGE_URL).handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::createExchange);
-    router.delete(IUDX_MANAGEMENT_EXCHANGE_URL + "/:exId").handler(AuthHandler.create(vertx))
+    router.delete(IUDX_MANAGEMENT_EXCHANGE_URL + "/:exId")
+        .handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::deleteExchange);
-    router.get(IUDX_MANAGEMENT_EXCHANGE_URL + "/:exId").handler(AuthHandler.create(vertx))
+    router.get(IUDX_MANAGEMENT_EXCHANGE_URL + "/:exId")
+        .handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::getExchangeDetails);
     // Queue
-    router.post(IUDX_MANAGEMENT_QUEUE_URL).handler(AuthHandler.create(vertx))
+    router.post(IUDX_MANAGEMENT_QUEUE_URL).handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::createQueue);
-    router.delete(IUDX_MANAGEMENT_QUEUE_URL + "/:queueId").handler(AuthHandler.create(vertx))
+    router.delete(IUDX_MANAGEMENT_QUEUE_URL + "/:queueId")
+        .handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::deleteQueue);
-    router.get(IUDX_MANAGEMENT_QUEUE_URL + "/:queueId").handler(AuthHandler.create(vertx))
+    router.get(IUDX_MANAGEMENT_QUEUE_URL + "/:queueId")
+        .handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::getQueueDetails);
     // bind
-    router.post(IUDX_MANAGEMENT_BIND_URL).handler(AuthHandler.create(vertx))
+    router.post(IUDX_MANAGEMENT_BIND_URL).handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::bindQueue2Exchange);
     // unbind
-    router.post(IUDX_MANAGEMENT_UNBIND_URL).handler(AuthHandler.create(vertx))
+    router.post(IUDX_MANAGEMENT_UNBIND_URL).handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::unbindQueue2Exchange);
     // vHost
-    router.post(IUDX_MANAGEMENT_VHOST_URL).handler(AuthHandler.create(vertx))
+    router.post(IUDX_MANAGEMENT_VHOST_URL).handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::createVHost);
-    router.delete(IUDX_MANAGEMENT_VHOST_URL + "/:vhostId").handler(AuthHandler.create(vertx))
+    router.delete(IUDX_MANAGEMENT_VHOST_URL + "/:vhostId")
+        .handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::deleteVHost);
     // adapter
-    router.post(IUDX_MANAGEMENT_ADAPTER_URL + "/register").handler(AuthHandler.create(vertx))
+    router.post(IUDX_MANAGEMENT_ADAPTER_URL + "/register")
+        .handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::registerAdapter);
     router.delete(IUDX_MANAGEMENT_ADAPTER_URL + "/:domain/:userSHA/:resourceServer/:resourceGroup")
-        .handler(AuthHandler.create(vertx)).handler(this::deleteAdapter);
+        .handler(AuthHandler.create(vertx, rateLimiter)).handler(this::deleteAdapter);
     router.get(IUDX_MANAGEMENT_ADAPTER_URL + "/:domain/:userSHA/:resourceServer/:resourceGroup")
-        .handler(AuthHandler.create(vertx)).handler(this::getAdapterDetails);
-    router.post(IUDX_MANAGEMENT_ADAPTER_URL + "/heartbeat").handler(AuthHandler.create(vertx))
+        .handler(AuthHandler.create(vertx, rateLimiter)).handler(this::getAdapterDetails);
+    router.post(IUDX_MANAGEMENT_ADAPTER_URL + "/heartbeat")
+        .handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::publishHeartbeat);
-    router.post(IUDX_MANAGEMENT_ADAPTER_URL + "/downstreamissue").handler(AuthHandler.create(vertx))
+    router.post(IUDX_MANAGEMENT_ADAPTER_URL + "/downstreamissue")
+        .handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::publishDownstreamIssue);
-    router.post(IUDX_MANAGEMENT_ADAPTER_URL + "/dataissue").handler(AuthHandler.create(vertx))
+    router.post(IUDX_MANAGEMENT_ADAPTER_URL + "/dataissue")
+        .handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::publishDataIssue);
-    router.post(IUDX_MANAGEMENT_ADAPTER_URL + "/entities").handler(AuthHandler.create(vertx))
+    router.post(IUDX_MANAGEMENT_ADAPTER_URL + "/entities")
+        .handler(AuthHandler.create(vertx, rateLimiter))
         .handler(this::publishDataFromAdapter);
 
     /**
@@ -268,7 +336,28 @@ public class ApiServerVerticle extends AbstractVerticle {
       }
     }
 
-    serverOptions.setCompressionSupported(true).setCompressionLevel(5);
+    /* HTTP/2, negotiated by ALPN over TLS or upgraded to in clear text, and the transport */
+    JsonObject httpServer = config().getJsonObject("httpServer", new JsonObject());
+    boolean http2 = httpServer.getBoolean("http2", false);
+    serverOptions.setUseAlpn(http2 && isSSL).setHttp2ClearTextEnabled(http2)
+        .setAlpnVersions(http2 ? List.of(HttpVersion.HTTP_2, HttpVersion.HTTP_1_1)
+            : List.of(HttpVersion.HTTP_1_1))
+        .setInitialSettings(new Http2Settings()
+            .setMaxConcurrentStreams(httpServer.getLong("maxConcurrentStreams", 100L)))
+        .setTcpNoDelay(httpServer.getBoolean("tcpNoDelay", true))
+        .setTcpFastOpen(httpServer.getBoolean("tcpFastOpen", false))
+        .setReusePort(httpServer.getBoolean("reusePort", false))
+        .setAcceptBacklog(httpServer.getInteger("acceptBacklog", -1))
+        .setIdleTimeout(httpServer.getInteger("idleTimeoutSeconds", 0))
+        .setIdleTimeoutUnit(TimeUnit.SECONDS);
+    if ((serverOptions.isTcpFastOpen() || serverOptions.isReusePort())
+        && !vertx.isNativeTransportEnabled()) {
+      LOGGER.warn("Warn : tcpFastOpen and reusePort need the native transport, not enabled");
+    }
+
+    /* the CompressionHandler leaves out the responses not worth compressing */
+    serverOptions.setCompressionSupported(true)
+        .setCompressionLevel(httpServer.getInteger("compressionLevel", 5));
     server = vertx.createHttpServer(serverOptions);
     server.requestHandler(router).listen(port);
 
@@ -286,6 +375,10 @@ public class ApiServerVerticle extends AbstractVerticle {
     subsService = new SubscriptionService();
     catalogueService = new CatalogueService(vertx, config());
     validator = new Validator(catalogueService);
+    streamingHub = new StreamingHub(vertx);
+    streamBufferSize = config().getInteger("streamBufferSize", DEFAULT_STREAM_BUFFER_SIZE);
+    liveDataHub = LiveDataHub.getInstance(vertx,
+        config().getInteger("liveRingSize", DEFAULT_LIVE_RING_SIZE));
 
   }
 
@@ -300,11 +393,22 @@ public class ApiServerVerticle extends AbstractVerticle {
     HttpServerResponse response = routingContext.response();
     // get query paramaters
     MultiMap params = getQueryParams(routingContext, response).get();
-    if (!params.isEmpty()) {
-      ValidationException ex =
-          new ValidationException("Query parameters are not allowed with latest query");
-      ex.setParameterName("[Query parameters]");
+    List<String> attrs = null;
+    try {
+      for (String name : params.names()) {
+        if (!NGSILDQUERY_ATTRIBUTE.equalsIgnoreCase(name) || params.getAll(name).size() > 1) {
+          ValidationException ex =
+              new ValidationException("Only attrs is allowed with latest query");
+          ex.setParameterName("[Query parameters]");
+          throw ex;
+        }
+      }
+      if (params.contains(NGSILDQUERY_ATTRIBUTE)) {
+        attrs = CompiledQuery.attributes(params.get(NGSILDQUERY_ATTRIBUTE));
+      }
+    } catch (ValidationException ex) {
       routingContext.fail(ex);
+      return;
     }
     String domain = request.getParam(JSON_DOMAIN);
     String userSha = request.getParam(JSON_USERSHA);
@@ -314,17 +418,25 @@ public class ApiServerVerticle extends AbstractVerticle {
     String id = domain + "/" + userSha + "/" + resourceServer + "/" + resourceGroup + "/"
         + resourceName;
     JsonObject json = new JsonObject();
-    Future<List<String>> filtersFuture =catalogueService.getApplicableFilters(id);
+    Span filtersSpan = TraceHandler.stage(routingContext, "catalogue");
+    Future<List<String>> filtersFuture = catalogueService.getApplicableFilters(id);
     /* HTTP request instance/host details */
     String instanceID = request.getHeader(HEADER_HOST);
     json.put(JSON_INSTANCEID, instanceID);
     json.put(JSON_ID, new JsonArray().add(id));
     json.put(JSON_SEARCH_TYPE, "latestSearch");
+    if (attrs != null) {
+      json.put(JSON_ATTRIBUTE_FILTER, new JsonArray(new ArrayList<>(attrs)));
+    }
     LOGGER.debug("Info: IUDX query json;" + json);
     filtersFuture.onComplete(filtersHandler -> {
+      filtersSpan.end();
       if (filtersHandler.succeeded()) {
         json.put("applicableFilters", filtersHandler.result());
-        executeLatestSearchQuery(json, response);
+        executeLatestSearchQuery(json, routingContext);
+      } else if (filtersHandler.cause() instanceof BackendUnavailableException) {
+        LOGGER.error("Error : Catalogue unavailable for filters");
+        handleUnavailableResponse(response, filtersHandler.cause().getMessage());
       } else {
         LOGGER.error("catalogue item/group doesn't have filters.");
         handleResponse(response, ResponseType.BadRequestData,
@@ -343,55 +455,9 @@ public class ApiServerVerticle extends AbstractVerticle {
     /* Handles HTTP request from client */
     JsonObject authInfo = (JsonObject) routingContext.data().get("authInfo");
     LOGGER.debug("authInfo : " + authInfo);
-    HttpServerRequest request = routingContext.request();
-    /* Handles HTTP response from server to client */
-    HttpServerResponse response = routingContext.response();
-    // get query paramaters
-    MultiMap params = getQueryParams(routingContext, response).get();
-    MultiMap headerParams = request.headers();
-    // validate request parameters
-    Future<Boolean> validationResult = validator.validate(params);
-    validationResult.onComplete(validationHandler -> {
-      if (validationHandler.succeeded()) {
-        // parse query params
-        NGSILDQueryParams ngsildquery = new NGSILDQueryParams(params);
-        if (isTemporalParamsPresent(ngsildquery)) {
-          ValidationException ex =
-              new ValidationException("Temporal parameters are not allowed in entities query.");
-          ex.setParameterName("[timerel,time or endtime]");
-          routingContext.fail(ex);
-        }
-        // create json
-        QueryMapper queryMapper = new QueryMapper();
-        JsonObject json = queryMapper.toJson(ngsildquery, false);
-        Future<List<String>> filtersFuture =
-            catalogueService.getApplicableFilters(json.getJsonArray("id").getString(0));
-        /* HTTP request instance/host details */
-        String instanceID = request.getHeader(HEADER_HOST);
-        json.put(JSON_INSTANCEID, instanceID);
-        LOGGER.debug("Info: IUDX query json;" + json);
-        /* HTTP request body as Json */
-        JsonObject requestBody = new JsonObject();
-        requestBody.put("ids", json.getJsonArray("id"));
-        filtersFuture.onComplete(filtersHandler -> {
-          if (filtersHandler.succeeded()) {
-            json.put("applicableFilters", filtersHandler.result());
-            if (json.containsKey(IUDXQUERY_OPTIONS)
-                && JSON_COUNT.equalsIgnoreCase(json.getString(IUDXQUERY_OPTIONS))) {
-              executeCountQuery(json, response);
-            } else {
-              executeSearchQuery(json, response);
-            }
-          } else {
-            LOGGER.error("catalogue item/group doesn't have filters.");
-          }
-        });
-      } else if (validationHandler.failed()) {
-        LOGGER.error("Fail: Validation failed");
-        handleResponse(response, ResponseType.BadRequestData,
-            validationHandler.cause().getMessage());
-      }
-    });
+    // query compiled and validated by the QueryCompilerHandler of the route
+    CompiledQuery query = routingContext.get(COMPILED_QUERY);
+    executeCompiledQuery(query, routingContext);
   }
 
   /**
@@ -402,40 +468,50 @@ public class ApiServerVerticle extends AbstractVerticle {
    */
   public void handlePostEntitiesQuery(RoutingContext routingContext) {
     LOGGER.debug("Info: handlePostEntitiesQuery method started.");
-    HttpServerRequest request = routingContext.request();
     JsonObject requestJson = routingContext.getBodyAsJson();
     LOGGER.debug("Info: request Json :: ;" + requestJson);
     HttpServerResponse response = routingContext.response();
-    MultiMap headerParams = request.headers();
-    // validate request parameters
-    Future<Boolean> validationResult = validator.validate(requestJson);
-    validationResult.onComplete(validationHandler -> {
+    CompiledQuery query;
+    try {
+      query = CompiledQuery.fromJson(requestJson);
+    } catch (ValidationException ex) {
+      LOGGER.error("Fail: Bad request");
+      handleResponse(response, ResponseType.BadRequestData, ex.getMessage());
+      return;
+    }
+    executeCompiledQuery(query, routingContext);
+  }
+
+  /**
+   * validate a compiled query against the catalogue and execute it in DB, as a count query when
+   * asked for with the options parameter, or a geo grid aggregation with the aggregate parameter.
+   * 
+   * @param query compiled query
+   * @param routingContext routingContext
+   */
+  private void executeCompiledQuery(CompiledQuery query, RoutingContext routingContext) {
+    HttpServerResponse response = routingContext.response();
+    Span validateSpan = TraceHandler.stage(routingContext, "validate");
+    validator.validate(query).onComplete(validationHandler -> {
+      validateSpan.end();
       if (validationHandler.succeeded()) {
-        // parse query params
-        NGSILDQueryParams ngsildquery = new NGSILDQueryParams(requestJson);
-        QueryMapper queryMapper = new QueryMapper();
-        JsonObject json = queryMapper.toJson(ngsildquery, requestJson.containsKey("temporalQ"));
-        Future<List<String>> filtersFuture =
-            catalogueService.getApplicableFilters(json.getJsonArray("id").getString(0));
-        String instanceID = request.getHeader(HEADER_HOST);
-        json.put(JSON_INSTANCEID, instanceID);
-        requestJson.put("ids", json.getJsonArray("id"));
-        LOGGER.debug("Info: IUDX query json : ;" + json);
-        filtersFuture.onComplete(filtersHandler -> {
-          if (filtersHandler.succeeded()) {
-            json.put("applicableFilters", filtersHandler.result());
-            if (json.containsKey(IUDXQUERY_OPTIONS)
-                && JSON_COUNT.equalsIgnoreCase(json.getString(IUDXQUERY_OPTIONS))) {
-              executeCountQuery(json, response);
-            } else {
-              executeSearchQuery(json, response);
-            }
-          } else {
-            LOGGER.error("catalogue item/group doesn't have filters.");
-          }
-        });
-      } else if (validationHandler.failed()) {
-        LOGGER.error("Fail: Bad request");
+        JsonObject json = query.toJson();
+        /* HTTP request instance/host details */
+        json.put(JSON_INSTANCEID, routingContext.request().getHeader(HEADER_HOST));
+        json.put("applicableFilters", validationHandler.result());
+        LOGGER.debug("Info: IUDX query json;" + json);
+        if (query.isCount()) {
+          executeCountQuery(json, routingContext);
+        } else if (query.isAggregation()) {
+          executeAggregationQuery(json, routingContext);
+        } else {
+          executeSearchQuery(json, routingContext);
+        }
+      } else if (validationHandler.cause() instanceof BackendUnavailableException) {
+        LOGGER.error("Error : Catalogue unavailable for validation");
+        handleUnavailableResponse(response, validationHandler.cause().getMessage());
+      } else {
+        LOGGER.error("Fail: Validation failed");
         handleResponse(response, ResponseType.BadRequestData,
             validationHandler.cause().getMessage());
       }
@@ -446,10 +522,13 @@ public class ApiServerVerticle extends AbstractVerticle {
    * Execute a count query in DB
    * 
    * @param json valid json query
-   * @param response
+   * @param routingContext routingContext
    */
-  private void executeCountQuery(JsonObject json, HttpServerResponse response) {
-    database.countQuery(json, handler -> {
+  private void executeCountQuery(JsonObject json, RoutingContext routingContext) {
+    HttpServerResponse response = routingContext.response();
+    Span span = TraceHandler.stage(routingContext, "database");
+    Tracing.inScope(span, () -> database.countQuery(json, handler -> {
+      span.end();
       if (handler.succeeded()) {
         LOGGER.info("Success: Count Success");
         handleSuccessResponse(response, ResponseType.Ok.getCode(),
@@ -458,17 +537,42 @@ public class ApiServerVerticle extends AbstractVerticle {
         LOGGER.error("Fail: Count Fail");
         processBackendResponse(response, handler.cause().getMessage());
       }
-    });
+    }));
+  }
+
+  /**
+   * Execute a geo grid aggregation query in DB
+   * 
+   * @param json valid json query
+   * @param routingContext routingContext
+   */
+  private void executeAggregationQuery(JsonObject json, RoutingContext routingContext) {
+    HttpServerResponse response = routingContext.response();
+    Span span = TraceHandler.stage(routingContext, "database");
+    Tracing.inScope(span, () -> database.aggregationQuery(json, handler -> {
+      span.end();
+      if (handler.succeeded()) {
+        LOGGER.info("Success: Aggregation Success");
+        handleSuccessResponse(response, ResponseType.Ok.getCode(),
+            handler.result().toString());
+      } else if (handler.failed()) {
+        LOGGER.error("Fail: Aggregation Fail");
+        processBackendResponse(response, handler.cause().getMessage());
+      }
+    }));
   }
 
   /**
    * Execute a search query in DB
    * 
    * @param json valid json query
-   * @param response
+   * @param routingContext routingContext
    */
-  private void executeSearchQuery(JsonObject json, HttpServerResponse response) {
-    database.searchQuery(json, handler -> {
+  private void executeSearchQuery(JsonObject json, RoutingContext routingContext) {
+    HttpServerResponse response = routingContext.response();
+    Span span = TraceHandler.stage(routingContext, "database");
+    Tracing.inScope(span, () -> database.searchQuery(json, handler -> {
+      span.end();
       if (handler.succeeded()) {
         LOGGER.info("Success: Search Success");
         handleSuccessResponse(response, ResponseType.Ok.getCode(),
@@ -477,11 +581,14 @@ public class ApiServerVerticle extends AbstractVerticle {
         LOGGER.error("Fail: Search Fail");
         processBackendResponse(response, handler.cause().getMessage());
       }
-    });
+    }));
   }
 
-  private void executeLatestSearchQuery(JsonObject json, HttpServerResponse response) {
-    latestDataService.getLatestData(json, handler -> {
+  private void executeLatestSearchQuery(JsonObject json, RoutingContext routingContext) {
+    HttpServerResponse response = routingContext.response();
+    Span span = TraceHandler.stage(routingContext, "latest");
+    Tracing.inScope(span, () -> latestDataService.getLatestData(json, handler -> {
+      span.end();
       if (handler.succeeded()) {
         LOGGER.info("Latest data search succeeded");
         handleSuccessResponse(response, ResponseType.Ok.getCode(),handler.result().toString());
@@ -489,7 +596,7 @@ public class ApiServerVerticle extends AbstractVerticle {
         LOGGER.error("Fail: Search Fail");
         processBackendResponse(response, handler.cause().getMessage());
       }
-    });
+    }));
   }
   
   
@@ -502,51 +609,9 @@ public class ApiServerVerticle extends AbstractVerticle {
    */
   private void handleTemporalQuery(RoutingContext routingContext) {
     LOGGER.debug("Info: handleTemporalQuery method started.");
-    /* Handles HTTP request from client */
-    HttpServerRequest request = routingContext.request();
-    /* Handles HTTP response from server to client */
-    HttpServerResponse response = routingContext.response();
-    /* HTTP request instance/host details */
-    String instanceID = request.getHeader(HEADER_HOST);
-    // get query parameters
-    MultiMap params = getQueryParams(routingContext, response).get();
-    MultiMap headerParams = request.headers();
-    // validate request params
-    Future<Boolean> validationResult = validator.validate(params);
-    validationResult.onComplete(validationHandler -> {
-      if (validationHandler.succeeded()) {
-        // parse query params
-        NGSILDQueryParams ngsildquery = new NGSILDQueryParams(params);
-        // create json
-        QueryMapper queryMapper = new QueryMapper();
-        JsonObject json = queryMapper.toJson(ngsildquery, true);
-        Future<List<String>> filtersFuture =
-            catalogueService.getApplicableFilters(json.getJsonArray("id").getString(0));
-        json.put(JSON_INSTANCEID, instanceID);
-        LOGGER.debug("Info: IUDX temporal json query;" + json);
-        /* HTTP request body as Json */
-        JsonObject requestBody = new JsonObject();
-        requestBody.put("ids", json.getJsonArray("id"));
-        filtersFuture.onComplete(filtersHandler -> {
-          if (filtersHandler.succeeded()) {
-            json.put("applicableFilters", filtersHandler.result());
-            if (json.containsKey(IUDXQUERY_OPTIONS)
-                && JSON_COUNT.equalsIgnoreCase(json.getString(IUDXQUERY_OPTIONS))) {
-              executeCountQuery(json, response);
-            } else {
-              executeSearchQuery(json, response);
-            }
-          } else {
-            LOGGER.error("catalogue item/group doesn't have filters.");
-          }
-        });
-      } else if (validationHandler.failed()) {
-        LOGGER.error("Fail: Bad request;");
-        handleResponse(response, ResponseType.BadRequestData,
-            validationHandler.cause().getMessage());
-      }
-    });
-
+    // query compiled and validated by the QueryCompilerHandler of the route
+    CompiledQuery query = routingContext.get(COMPILED_QUERY);
+    executeCompiledQuery(query, routingContext);
   }
 
   /**
@@ -741,6 +806,82 @@ public class ApiServerVerticle extends AbstractVerticle {
     }
   }
 
+  /**
+   * stream the live data of a resource to the client, over a WebSocket when the client asks for
+   * an upgrade and over Server-Sent Events otherwise.
+   * 
+   * @param routingContext routingContext
+   */
+  private void handleLiveEntitiesQuery(RoutingContext routingContext) {
+    LOGGER.debug("Info: handleLiveEntitiesQuery method started");
+    HttpServerRequest request = routingContext.request();
+    HttpServerResponse response = routingContext.response();
+    String id = request.getParam(JSON_DOMAIN) + "/" + request.getParam(JSON_USERSHA) + "/"
+        + request.getParam(JSON_RESOURCE_SERVER) + "/" + request.getParam(JSON_RESOURCE_GROUP)
+        + "/" + request.getParam(JSON_RESOURCE_NAME);
+    /* the upgrade has to happen before any asynchronous call */
+    boolean isWebSocket = "websocket".equalsIgnoreCase(request.getHeader(HttpHeaders.UPGRADE));
+    StreamingConnection connection =
+        isWebSocket ? StreamingConnection.webSocket(request.upgrade(), streamBufferSize)
+            : StreamingConnection.sse(response, streamBufferSize);
+    liveDataHub.attach(id, connection).onComplete(liveHandler -> {
+      if (liveHandler.succeeded()) {
+        LOGGER.info("Success: live data of " + id);
+      } else if (isWebSocket) {
+        LOGGER.error("Fail: live data of " + id);
+        connection.close();
+      } else {
+        LOGGER.error("Fail: live data of " + id);
+        processBackendResponse(response, liveHandler.cause().getMessage());
+      }
+    });
+  }
+
+  /**
+   * stream the messages of a streaming subscription to the client, over a WebSocket when the
+   * client asks for an upgrade and over Server-Sent Events otherwise.
+   * 
+   * @param routingContext routingContext
+   */
+  private void streamSubscription(RoutingContext routingContext) {
+    LOGGER.debug("Info: streamSubscription method started");
+    HttpServerRequest request = routingContext.request();
+    HttpServerResponse response = routingContext.response();
+    String domain = request.getParam(JSON_DOMAIN);
+    String usersha = request.getParam(JSON_USERSHA);
+    String alias = request.getParam(JSON_ALIAS);
+    String subsId = domain + "/" + usersha + "/" + alias;
+    JsonObject authInfo = (JsonObject) routingContext.data().get("authInfo");
+    String consumer = authInfo.getString(JSON_CONSUMER);
+    if (consumer == null || !usersha.equals(DigestUtils.sha1Hex(consumer))) {
+      LOGGER.error("Fail: " + MSG_STREAM_NOT_OWNER);
+      handleResponse(response, ResponseType.AuthenticationFailure, MSG_STREAM_NOT_OWNER);
+      return;
+    }
+    JsonObject requestJson = new JsonObject();
+    requestJson.put(SUBSCRIPTION_ID, subsId);
+    requestJson.put(SUB_TYPE, SubsType.STREAMING.getMessage());
+    requestJson.put(JSON_CONSUMER, consumer);
+    /* the upgrade has to happen before any asynchronous call */
+    boolean isWebSocket = "websocket".equalsIgnoreCase(request.getHeader(HttpHeaders.UPGRADE));
+    StreamingConnection connection =
+        isWebSocket ? StreamingConnection.webSocket(request.upgrade(), streamBufferSize)
+            : StreamingConnection.sse(response, streamBufferSize);
+    subsService.getSubscription(requestJson, databroker, database)
+        .compose(subscription -> streamingHub.attach(subsId, connection))
+        .onComplete(streamHandler -> {
+          if (streamHandler.succeeded()) {
+            LOGGER.info("Success: streaming subscription " + subsId);
+          } else if (isWebSocket) {
+            LOGGER.error("Fail: streaming subscription " + subsId);
+            connection.close();
+          } else {
+            LOGGER.error("Fail: streaming subscription " + subsId);
+            processBackendResponse(response, streamHandler.cause().getMessage());
+          }
+        });
+  }
+
   /**
    * delete a subscription by id.
    * 
@@ -1439,6 +1580,10 @@ public class ApiServerVerticle extends AbstractVerticle {
    */
   public void publishDataFromAdapter(RoutingContext routingContext) {
     LOGGER.debug("Info: publishDataFromAdapter method started;");
+    if (Util.isJsonArray(routingContext.getBody())) {
+      publishBulkDataFromAdapter(routingContext);
+      return;
+    }
     JsonObject requestJson = routingContext.getBodyAsJson();
     HttpServerRequest request = routingContext.request();
     HttpServerResponse response = routingContext.response();
@@ -1473,6 +1618,63 @@ public class ApiServerVerticle extends AbstractVerticle {
     }
   }
 
+  /**
+   * publish an array of data from adapter to rabbit MQ. All entities must belong to the same
+   * resource group, so one token introspection covers the whole batch.
+   * 
+   * @param routingContext routingContext Note: All logs are debug level
+   */
+  private void publishBulkDataFromAdapter(RoutingContext routingContext) {
+    LOGGER.debug("Info: publishBulkDataFromAdapter method started;");
+    HttpServerRequest request = routingContext.request();
+    HttpServerResponse response = routingContext.response();
+    JsonArray entities;
+    try {
+      entities = routingContext.getBodyAsJsonArray();
+    } catch (DecodeException ex) {
+      handleResponse(response, ResponseType.BadRequestData, MSG_BULK_INVALID_PAYLOAD);
+      return;
+    }
+    if (entities.size() > VALIDATION_MAX_BULK_ENTITIES) {
+      handleResponse(response, ResponseType.RequestEntityTooLarge, MSG_BULK_TOO_LARGE);
+      return;
+    }
+    String resourceGroup = Util.getResourceGroup(entities);
+    if (resourceGroup == null) {
+      handleResponse(response, ResponseType.BadRequestData, MSG_BULK_INVALID_PAYLOAD);
+      return;
+    }
+    if (!request.headers().contains(HEADER_TOKEN)) {
+      LOGGER.debug("Fail: Unauthorized");
+      handleResponse(response, ResponseType.AuthenticationFailure);
+      return;
+    }
+    JsonObject requestJson = entities.getJsonObject(0).copy();
+    requestJson.put(JSON_INSTANCEID, request.getHeader(HEADER_HOST));
+    JsonObject authenticationInfo = new JsonObject();
+    authenticationInfo.put(API_ENDPOINT, "/iudx/v1/adapter");
+    authenticationInfo.put(HEADER_TOKEN, request.getHeader(HEADER_TOKEN));
+    authenticator.tokenInterospect(requestJson, authenticationInfo, authHandler -> {
+      if (authHandler.succeeded()) {
+        Future<JsonObject> brokerResult =
+            managementApi.publishBulkDataFromAdapter(entities, databroker);
+        brokerResult.onComplete(brokerResultHandler -> {
+          if (brokerResultHandler.succeeded()) {
+            LOGGER.debug("Success: publishing bulk data from adapter");
+            handleSuccessResponse(response, ResponseType.Ok.getCode(),
+                brokerResultHandler.result().toString());
+          } else {
+            LOGGER.debug("Fail: Bad request;" + brokerResultHandler.cause().getMessage());
+            processBackendResponse(response, brokerResultHandler.cause().getMessage());
+          }
+        });
+      } else {
+        LOGGER.debug("Fail: Unauthorized;" + authHandler.cause().getMessage());
+        handleResponse(response, ResponseType.AuthenticationFailure);
+      }
+    });
+  }
+
   /**
    * handle HTTP response.
    * 
@@ -1511,6 +1713,12 @@ public class ApiServerVerticle extends AbstractVerticle {
         .end(generateResponse(responseType, message).toString());
   }
 
+  /* a backend that cannot be reached now, to be asked again shortly */
+  private void handleUnavailableResponse(HttpServerResponse response, String message) {
+    response.putHeader(HEADER_RETRY_AFTER, "1");
+    handleResponse(response, ResponseType.ServiceUnavailable, message);
+  }
+
   private JsonObject generateResponse(ResponseType responseType) {
     int type = responseType.getCode();
     return new RestResponse.Builder().withType(type)
@@ -1576,13 +1784,12 @@ public class ApiServerVerticle extends AbstractVerticle {
   @Override
   public void stop() {
     LOGGER.info("Stopping the API server");
-  }
-
-  private boolean isTemporalParamsPresent(NGSILDQueryParams ngsildquery) {
-    return ngsildquery.getTemporalRelation().getTemprel() != null
-        || ngsildquery.getTemporalRelation().getTime() != null
-        || ngsildquery.getTemporalRelation().getEndTime() != null;
-
+    if (streamingHub != null) {
+      streamingHub.close();
+    }
+    if (liveDataHub != null) {
+      liveDataHub.release();
+    }
   }
 }
 
@@ -1,18 +1,28 @@
 package iudx.resource.server.apiserver.handlers;
 
 import static iudx.resource.server.apiserver.util.Constants.*;
+import static iudx.resource.server.apiserver.validation.QueryCompilerHandler.COMPILED_QUERY;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import org.apache.http.HttpStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import io.micrometer.core.instrument.Timer;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpServerRequest;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
+import iudx.resource.server.apiserver.limits.RateLimiter;
+import iudx.resource.server.apiserver.query.CompiledQuery;
 import iudx.resource.server.apiserver.response.ResponseType;
+import iudx.resource.server.apiserver.util.Util;
 import iudx.resource.server.authenticator.AuthenticationService;
+import iudx.resource.server.metrics.ServerMetrics;
+import iudx.resource.server.resilience.BackendUnavailableException;
+import iudx.resource.server.tracing.Span;
+import iudx.resource.server.tracing.Tracing;
 
 
 /**
@@ -28,17 +38,21 @@ public class AuthHandler implements Handler<RoutingContext> {
   private final String AUTH_INFO = "authInfo";
   private final List<String> noAuthRequired = bypassEndpoint;
   private static AuthenticationService authenticator;
+  private static RateLimiter rateLimiter;
   private HttpServerRequest request;
   
-  public static AuthHandler create(Vertx vertx) {
+  public static AuthHandler create(Vertx vertx, RateLimiter limiter) {
     authenticator = AuthenticationService.createProxy(vertx, AUTH_SERVICE_ADDRESS);
+    rateLimiter = limiter;
     return new AuthHandler();
   }
 
   @Override
   public void handle(RoutingContext context) {
     request = context.request();
-    JsonObject requestJson = context.getBodyAsJson();
+    /* bulk adapter requests carry an array body, their ids are checked by the handler */
+    JsonObject requestJson =
+        Util.isJsonArray(context.getBody()) ? null : context.getBodyAsJson();
     
     if(requestJson == null) {
       requestJson = new JsonObject();
@@ -73,21 +87,37 @@ public class AuthHandler implements Handler<RoutingContext> {
     requestJson.put(IDS,ids);
     
     LOGGER.debug("request" + requestJson);
-    authenticator.tokenInterospect(requestJson, authInfo, authHandler -> {
-      if (authHandler.succeeded()) {
-        LOGGER.debug("Auth info : " + authHandler.result());
-        context.data().put(AUTH_INFO, authHandler.result());
-      } else {
-        processAuthFailure(context, authHandler.cause().getMessage());
-        return;
-      }
-      context.next();
-      return;
-    });
+    Timer.Sample sample = ServerMetrics.start();
+    Span span = TraceHandler.stage(context, "auth");
+    JsonObject authRequest = requestJson;
+    Tracing.inScope(span, () -> authenticator.tokenInterospect(authRequest, authInfo,
+        authHandler -> {
+          span.end();
+          ServerMetrics.recordBackend(sample, ServerMetrics.BACKEND_AUTH, "introspect",
+              authHandler.succeeded());
+          if (authHandler.succeeded()) {
+            LOGGER.debug("Auth info : " + authHandler.result());
+            context.data().put(AUTH_INFO, authHandler.result());
+            if (!isWithinRateLimit(context, authHandler.result(), path)) {
+              return;
+            }
+          } else {
+            processAuthFailure(context, authHandler.cause().getMessage());
+            return;
+          }
+          context.next();
+          return;
+        }));
   }
 
   private void processAuthFailure(RoutingContext ctx, String result) {
-    if (result.contains("Not Found")) {
+    if (BackendUnavailableException.isUnavailable(result)) {
+      LOGGER.error("Error : Authentication backend unavailable");
+      ctx.response().putHeader(CONTENT_TYPE, APPLICATION_JSON)
+          .putHeader(HEADER_RETRY_AFTER, "1")
+          .setStatusCode(ResponseType.ServiceUnavailable.getCode())
+          .end(responseUnavailableJson().toString());
+    } else if (result.contains("Not Found")) {
       LOGGER.error("Error : Item Not Found");
       final String payload = responseNotFoundJson().toString();
       ctx.response().putHeader(CONTENT_TYPE, APPLICATION_JSON)
@@ -100,6 +130,41 @@ public class AuthHandler implements Handler<RoutingContext> {
     }
   }
 
+  /**
+   * take a token from the bucket of the consumer for the API, or reject the request with a 429.
+   * Requests without a consumer are limited by client address.
+   */
+  private boolean isWithinRateLimit(RoutingContext ctx, JsonObject access, String api) {
+    String consumer = access.getString(JSON_CONSUMER);
+    if (consumer == null) {
+      consumer = ctx.request().remoteAddress().host();
+    }
+    long waitNanos = rateLimiter.tryAcquire(consumer, api, access.getJsonObject(JSON_RATE_LIMIT));
+    if (waitNanos == 0) {
+      return true;
+    }
+    LOGGER.debug("Info : rate limit reached for " + consumer + " on " + api);
+    ServerMetrics.recordShed(api, "rate");
+    long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    ctx.response().putHeader(CONTENT_TYPE, APPLICATION_JSON)
+        .putHeader(HEADER_RETRY_AFTER, String.valueOf(retryAfter))
+        .setStatusCode(ResponseType.TooManyRequests.getCode())
+        .end(responseTooManyRequestsJson(retryAfter).toString());
+    return false;
+  }
+
+  private JsonObject responseTooManyRequestsJson(long retryAfter) {
+    return new JsonObject().put(JSON_TYPE, ResponseType.TooManyRequests.getCode())
+        .put(JSON_TITLE, ResponseType.TooManyRequests.getMessage())
+        .put(JSON_DETAIL, "Rate limit exceeded, retry after " + retryAfter + " seconds");
+  }
+
+  private JsonObject responseUnavailableJson() {
+    return new JsonObject().put(JSON_TYPE, HttpStatus.SC_SERVICE_UNAVAILABLE)
+        .put(JSON_TITLE, ResponseType.ServiceUnavailable.getMessage())
+        .put(JSON_DETAIL, "Authentication is unavailable, retry later");
+  }
+
   private JsonObject responseUnauthorizedJson() {
     return new JsonObject().put(JSON_TYPE, HttpStatus.SC_UNAUTHORIZED)
         .put(JSON_TITLE, "Not Authorized").put(JSON_DETAIL, "Invalid credentials");
@@ -121,7 +186,8 @@ public class AuthHandler implements Handler<RoutingContext> {
     String id = "";
     switch (forPath) {
       case NGSILD_SUBSCRIPTION_URL: {
-        id = path.replaceAll(NGSILD_SUBSCRIPTION_URL + "/", "");
+        id = path.replaceAll(NGSILD_SUBSCRIPTION_URL + "/", "")
+            .replaceAll(STREAM_PATH + "$", "");
         break;
       }
       case IUDX_MANAGEMENT_ADAPTER_URL: {
@@ -141,16 +207,17 @@ public class AuthHandler implements Handler<RoutingContext> {
         break;
       }
       case NGSILD_ENTITIES_URL: {
-        if (path.split("/").length == 9) {
-          id = path.replaceAll(NGSILD_ENTITIES_URL + "/", "");
+        String entityPath = path.replaceAll(LIVE_PATH + "$", "");
+        if (entityPath.split("/").length == 9) {
+          id = entityPath.replaceAll(NGSILD_ENTITIES_URL + "/", "");
           break;
         } else {
-          id = request.getParam("id");
+          id = getQueryIds(context);
           break;
         }
       }
       case NGSILD_TEMPORAL_URL: {
-        id = request.getParam("id");
+        id = getQueryIds(context);
         break;
       }
       case NGSILD_POST_QUERY_PATH: {
@@ -165,6 +232,19 @@ public class AuthHandler implements Handler<RoutingContext> {
     return id;
   }
 
+  /**
+   * get the ids of the query compiled for the route, the ones the request is served for. The query
+   * string decoder of the request splits a value on a <b>;</b>, so its id may not be the one
+   * queried.
+   *
+   * @param context current routing context
+   * @return ids queried, comma separated, empty when the route compiled no query
+   */
+  private String getQueryIds(RoutingContext context) {
+    CompiledQuery query = context.get(COMPILED_QUERY);
+    return query == null ? "" : String.join(",", query.getIds());
+  }
+
   /**
    * get normalized path without id as path param.
    * 
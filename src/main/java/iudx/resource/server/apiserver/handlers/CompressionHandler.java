@@ -0,0 +1,81 @@
+package iudx.resource.server.apiserver.handlers;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * leaves out of compression the responses not worth it, below a size or of a content type that
+ * does not compress, like an event stream flushed event by event. The server compresses every
+ * other response. A streamed response, of unknown size, is compressed when its type is.
+ *
+ */
+public class CompressionHandler implements Handler<RoutingContext> {
+
+  private static final JsonArray DEFAULT_CONTENT_TYPES = new JsonArray()
+      .add("application/json").add("application/ld+json").add("application/geo+json")
+      .add("text/plain").add("text/html").add("application/x-yaml").add("text/yaml");
+
+  private final long minBytes;
+  private final Set<String> contentTypes;
+
+  private CompressionHandler(long minBytes, Set<String> contentTypes) {
+    this.minBytes = minBytes;
+    this.contentTypes = contentTypes;
+  }
+
+  /**
+   * create the handler from its configuration.
+   *
+   * @param config the compression block, minBytes (default 1024) and contentTypes
+   * @return the handler
+   */
+  public static CompressionHandler create(JsonObject config) {
+    Set<String> contentTypes = new HashSet<>();
+    for (Object type : config.getJsonArray("contentTypes", DEFAULT_CONTENT_TYPES)) {
+      contentTypes.add(((String) type).toLowerCase(Locale.ROOT));
+    }
+    return new CompressionHandler(config.getLong("minBytes", 1024L), contentTypes);
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    HttpServerResponse response = context.response();
+    context.addHeadersEndHandler(v -> {
+      MultiMap headers = response.headers();
+      if (!headers.contains(HttpHeaders.CONTENT_ENCODING) && !isCompressible(response)) {
+        // the server does not compress a response with an encoding already set
+        headers.set(HttpHeaders.CONTENT_ENCODING, HttpHeaders.IDENTITY);
+      }
+    });
+    context.next();
+  }
+
+  private boolean isCompressible(HttpServerResponse response) {
+    String type = response.headers().get(HttpHeaders.CONTENT_TYPE);
+    if (type == null) {
+      return false;
+    }
+    int parameters = type.indexOf(';');
+    String mediaType = parameters < 0 ? type : type.substring(0, parameters);
+    if (!contentTypes.contains(mediaType.trim().toLowerCase(Locale.ROOT))) {
+      return false;
+    }
+    if (response.isChunked()) {
+      return true;
+    }
+    String length = response.headers().get(HttpHeaders.CONTENT_LENGTH);
+    try {
+      return (length == null ? response.bytesWritten() : Long.parseLong(length)) >= minBytes;
+    } catch (NumberFormatException ex) {
+      return true;
+    }
+  }
+}
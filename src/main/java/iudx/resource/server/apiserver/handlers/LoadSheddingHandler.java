@@ -0,0 +1,105 @@
+package iudx.resource.server.apiserver.handlers;
+
+import static iudx.resource.server.apiserver.util.Constants.*;
+import org.apache.http.HttpStatus;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import iudx.resource.server.apiserver.limits.EndpointLimiter;
+import iudx.resource.server.apiserver.limits.EndpointLimiters;
+import iudx.resource.server.apiserver.response.ResponseType;
+import iudx.resource.server.metrics.ServerMetrics;
+
+/**
+ * rejects requests of an endpoint class once its concurrency limit is reached, before they are
+ * validated, authenticated or sent to a backend.
+ * <p>
+ * A rejected request gets a 503 with a Retry-After header. An admitted request holds its slot
+ * until the response is written. Only the latency of a request served by the backends, answered
+ * with a 2xx or 5xx, feeds the limit, as the fast 4xx of validation or authentication would pass
+ * for the latency without load. Responses which signal overload downstream, 503 and 504, count as
+ * drops.
+ * </p>
+ */
+public class LoadSheddingHandler implements Handler<RoutingContext> {
+
+  private static final Logger LOGGER = LogManager.getLogger(LoadSheddingHandler.class);
+  private static final String REASON = "concurrency";
+
+  private final EndpointLimiter limiter;
+  private final String retryAfter;
+
+  private LoadSheddingHandler(EndpointLimiter limiter, int retryAfterSeconds) {
+    this.limiter = limiter;
+    this.retryAfter = String.valueOf(retryAfterSeconds);
+  }
+
+  public static LoadSheddingHandler create(EndpointLimiters limiters, String endpointClass) {
+    return new LoadSheddingHandler(limiters.get(endpointClass),
+        limiters.getRetryAfterSeconds());
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    HttpServerResponse response = context.response();
+    if (!limiter.tryAcquire()) {
+      LOGGER.debug("Info : shedding " + limiter.getName() + " request, limit "
+          + limiter.getLimit());
+      ServerMetrics.recordShed(limiter.getName(), REASON);
+      response.putHeader(CONTENT_TYPE, APPLICATION_JSON)
+          .putHeader(HEADER_RETRY_AFTER, retryAfter)
+          .setStatusCode(ResponseType.ServiceUnavailable.getCode())
+          .end(responseOverloadedJson().toString());
+      return;
+    }
+    Slot slot = new Slot(System.nanoTime());
+    context.addBodyEndHandler(v -> {
+      int status = response.getStatusCode();
+      if (status >= HttpStatus.SC_BAD_REQUEST && status < HttpStatus.SC_INTERNAL_SERVER_ERROR) {
+        slot.abandon();
+      } else {
+        slot.release(status == HttpStatus.SC_SERVICE_UNAVAILABLE
+            || status == HttpStatus.SC_GATEWAY_TIMEOUT);
+      }
+    });
+    response.closeHandler(v -> slot.abandon());
+    context.next();
+  }
+
+  private JsonObject responseOverloadedJson() {
+    return new JsonObject().put(JSON_TYPE, HttpStatus.SC_SERVICE_UNAVAILABLE)
+        .put(JSON_TITLE, ResponseType.ServiceUnavailable.getMessage())
+        .put(JSON_DETAIL, "Server is busy, retry after " + retryAfter + " seconds");
+  }
+
+  /**
+   * the slot of an admitted request, released once whether the response ends or the client goes
+   * away first, abandoned without a sample when the response tells nothing of the backends. Only
+   * touched on the event loop of the request.
+   */
+  private final class Slot {
+    private final long start;
+    private boolean released;
+
+    private Slot(long start) {
+      this.start = start;
+    }
+
+    private void release(boolean dropped) {
+      if (!released) {
+        released = true;
+        limiter.release(System.nanoTime() - start, dropped);
+      }
+    }
+
+    private void abandon() {
+      if (!released) {
+        released = true;
+        limiter.release();
+      }
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package iudx.resource.server.apiserver.handlers;
+
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.Route;
+import io.vertx.ext.web.RoutingContext;
+import iudx.resource.server.metrics.ServerMetrics;
+
+/**
+ * records the latency and response size of every API request, tagged by route template. A regex
+ * route has no path, its template is given by a {@link #template(String)} handler.
+ *
+ */
+public class MetricsHandler implements Handler<RoutingContext> {
+
+  private static final String UNMATCHED = "unmatched";
+  private static final String ROUTE_TEMPLATE = "routeTemplate";
+
+  public static MetricsHandler create() {
+    return new MetricsHandler();
+  }
+
+  /**
+   * name the template of a regex route, for the requests ended on it.
+   *
+   * @param template route template, usually the regex of the route
+   * @return the handler
+   */
+  public static Handler<RoutingContext> template(String template) {
+    return context -> {
+      context.put(ROUTE_TEMPLATE, template);
+      context.next();
+    };
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    Timer.Sample sample = ServerMetrics.start();
+    context.addBodyEndHandler(v -> {
+      HttpServerResponse response = context.response();
+      ServerMetrics.recordRoute(sample, getRoute(context), context.request().method().name(),
+          response.getStatusCode());
+      ServerMetrics.recordPayload(ServerMetrics.BACKEND_API, ServerMetrics.DIRECTION_RESPONSE,
+          response.bytesWritten());
+    });
+    context.next();
+  }
+
+  /* the last route that handled the request, the catch-all and regex routes have no path */
+  private String getRoute(RoutingContext context) {
+    Route route = context.currentRoute();
+    String path = route == null ? null : route.getPath();
+    if (path == null || path.isEmpty()) {
+      String template = context.get(ROUTE_TEMPLATE);
+      return template == null ? UNMATCHED : template;
+    }
+    return path;
+  }
+}
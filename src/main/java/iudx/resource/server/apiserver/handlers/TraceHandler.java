@@ -0,0 +1,79 @@
+package iudx.resource.server.apiserver.handlers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+import iudx.resource.server.tracing.Span;
+import iudx.resource.server.tracing.Tracing;
+
+/**
+ * starts the span of every API request and keeps the spans of its stages.
+ * <p>
+ * When enabled, the stage durations are returned in a Server-Timing header, with the time spent
+ * before the headers were written as {@code total}.
+ * </p>
+ */
+public class TraceHandler implements Handler<RoutingContext> {
+
+  private static final String TRACE = "trace";
+  private static final String SERVER_TIMING = "Server-Timing";
+
+  public static TraceHandler create() {
+    return new TraceHandler();
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    RequestTrace trace = new RequestTrace(Tracing.startRequest(
+        context.request().method().name() + " " + context.request().path(),
+        context.request().getHeader(Tracing.TRACEPARENT)));
+    context.put(TRACE, trace);
+    if (Tracing.isServerTimingEnabled()) {
+      context.addHeadersEndHandler(v -> context.response().putHeader(SERVER_TIMING,
+          trace.serverTiming()));
+    }
+    context.addBodyEndHandler(v -> trace.root.tag("status",
+        String.valueOf(context.response().getStatusCode())).end());
+    context.next();
+  }
+
+  /**
+   * start the span of a stage of a request.
+   *
+   * @param context routing context of the request
+   * @param name stage name
+   * @return the span, to be ended when the stage completes
+   */
+  public static Span stage(RoutingContext context, String name) {
+    RequestTrace trace = context.get(TRACE);
+    if (trace == null) {
+      return Span.NOOP;
+    }
+    Span span = trace.root.child(name);
+    trace.stages.add(span);
+    return span;
+  }
+
+  private static final class RequestTrace {
+    private final Span root;
+    private final List<Span> stages = new ArrayList<>();
+
+    private RequestTrace(Span root) {
+      this.root = root;
+    }
+
+    private String serverTiming() {
+      StringBuilder header = new StringBuilder();
+      for (Span stage : stages) {
+        if (stage.isEnded()) {
+          header.append(stage.getName()).append(";dur=")
+              .append(String.format(Locale.ROOT, "%.2f", stage.getDurationMillis())).append(", ");
+        }
+      }
+      return header.append("total;dur=")
+          .append(String.format(Locale.ROOT, "%.2f", root.getDurationMillis())).toString();
+    }
+  }
+}
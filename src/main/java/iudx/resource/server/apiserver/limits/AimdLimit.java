@@ -0,0 +1,31 @@
+package iudx.resource.server.apiserver.limits;
+
+/**
+ * additive increase, multiplicative decrease. The limit grows by one for every request that
+ * completes in time while the limit is being used, and is cut by a tenth when a request is
+ * dropped or takes longer than the timeout.
+ */
+final class AimdLimit extends ConcurrencyLimit {
+
+  private static final double BACKOFF_RATIO = 0.9;
+
+  private final long timeoutNanos;
+  private double estimate;
+
+  AimdLimit(int initialLimit, int minLimit, int maxLimit, long timeoutMillis) {
+    super(initialLimit, minLimit, maxLimit);
+    this.timeoutNanos = timeoutMillis * 1_000_000L;
+    this.estimate = getLimit();
+  }
+
+  @Override
+  void update(long rttNanos, int inFlight, boolean dropped) {
+    if (dropped || rttNanos > timeoutNanos) {
+      estimate = Math.max(minLimit, estimate * BACKOFF_RATIO);
+    } else if (inFlight * 2 >= estimate) {
+      /* only grow while the limit is actually being used */
+      estimate = Math.min(maxLimit, estimate + 1);
+    }
+    setLimit(estimate);
+  }
+}
@@ -0,0 +1,70 @@
+package iudx.resource.server.apiserver.limits;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * an estimate of the number of requests an endpoint class can serve at once, adjusted from the
+ * latency and outcome of every completed request.
+ * <p>
+ * Updates are serialized by the owning {@link EndpointLimiter}, the current limit is read without
+ * locking when a request is admitted.
+ * </p>
+ */
+public abstract class ConcurrencyLimit {
+
+  public static final String AIMD = "aimd";
+  public static final String VEGAS = "vegas";
+
+  protected final int minLimit;
+  protected final int maxLimit;
+  private volatile int limit;
+
+  protected ConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+    this.minLimit = Math.max(1, minLimit);
+    this.maxLimit = Math.max(this.minLimit, maxLimit);
+    this.limit = clamp(initialLimit);
+  }
+
+  /**
+   * create a limit.
+   *
+   * @param algorithm {@link #AIMD} or {@link #VEGAS}
+   * @param config initial, min and max limit, and timeoutMs for AIMD
+   * @return the limit
+   */
+  public static ConcurrencyLimit create(String algorithm, JsonObject config) {
+    int initial = config.getInteger("initial", 20);
+    int min = config.getInteger("min", 1);
+    int max = config.getInteger("max", 200);
+    if (AIMD.equalsIgnoreCase(algorithm)) {
+      return new AimdLimit(initial, min, max, config.getLong("timeoutMs", 5000L));
+    }
+    return new VegasLimit(initial, min, max);
+  }
+
+  /**
+   * get the current limit.
+   *
+   * @return requests allowed in flight
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /**
+   * adjust the limit after a request completed.
+   *
+   * @param rttNanos time the request took
+   * @param inFlight requests in flight when it completed, itself included
+   * @param dropped whether the request failed for lack of capacity
+   */
+  abstract void update(long rttNanos, int inFlight, boolean dropped);
+
+  protected void setLimit(double newLimit) {
+    limit = clamp((int) newLimit);
+  }
+
+  private int clamp(int value) {
+    return Math.min(maxLimit, Math.max(minLimit, value));
+  }
+}
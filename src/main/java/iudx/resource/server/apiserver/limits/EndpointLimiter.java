@@ -0,0 +1,69 @@
+package iudx.resource.server.apiserver.limits;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * admits requests of one endpoint class while fewer than the current limit are in flight.
+ * Shared by all API server verticles, admission is lock free and limit updates are serialized.
+ */
+public final class EndpointLimiter {
+
+  private final String name;
+  private final ConcurrencyLimit limit;
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  EndpointLimiter(String name, ConcurrencyLimit limit) {
+    this.name = name;
+    this.limit = limit;
+  }
+
+  /**
+   * take a slot for a request.
+   *
+   * @return false when the limit is reached and the request has to be rejected
+   */
+  public boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit.getLimit()) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * give back the slot of a completed request and adjust the limit.
+   *
+   * @param rttNanos time from admission to the end of the response
+   * @param dropped whether the request failed for lack of capacity, as on a timeout
+   */
+  public void release(long rttNanos, boolean dropped) {
+    int current = inFlight.getAndDecrement();
+    synchronized (limit) {
+      limit.update(rttNanos, current, dropped);
+    }
+  }
+
+  /**
+   * give back the slot of a request that did not complete, as when the client went away, without
+   * taking its latency into account.
+   */
+  public void release() {
+    inFlight.decrementAndGet();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getLimit() {
+    return limit.getLimit();
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+}
@@ -0,0 +1,83 @@
+package iudx.resource.server.apiserver.limits;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.vertx.core.json.JsonObject;
+import iudx.resource.server.metrics.ServerMetrics;
+
+/**
+ * the concurrency limiters of the API server, one per endpoint class.
+ * <p>
+ * Requests are classed by cost: latest data is served from Redis, searches and temporal queries
+ * from Elasticsearch with very different costs, and management requests from the broker and the
+ * database. Each class gets its own adaptive limit, so a burst of temporal queries sheds temporal
+ * queries and not latest data requests. The limiters are shared by all API server verticles of
+ * the process.
+ * </p>
+ */
+public final class EndpointLimiters {
+
+  private static final Logger LOGGER = LogManager.getLogger(EndpointLimiters.class);
+
+  public static final String LATEST = "latest";
+  public static final String SEARCH = "search";
+  public static final String TEMPORAL = "temporal";
+  public static final String MANAGEMENT = "management";
+
+  private static volatile EndpointLimiters instance;
+
+  private final Map<String, EndpointLimiter> limiters = new LinkedHashMap<>();
+  private final int retryAfterSeconds;
+
+  private EndpointLimiters(JsonObject config) {
+    String algorithm = config.getString("algorithm", ConcurrencyLimit.VEGAS);
+    retryAfterSeconds = config.getInteger("retryAfterSeconds", 1);
+    for (String name : new String[] {LATEST, SEARCH, TEMPORAL, MANAGEMENT}) {
+      EndpointLimiter limiter = new EndpointLimiter(name,
+          ConcurrencyLimit.create(algorithm, config.getJsonObject(name, new JsonObject())));
+      ServerMetrics.monitorLimiter(name, limiter, EndpointLimiter::getLimit,
+          EndpointLimiter::getInFlight);
+      limiters.put(name, limiter);
+    }
+    LOGGER.debug("Info : " + algorithm + " concurrency limits on " + limiters.keySet());
+  }
+
+  /**
+   * get the limiters of this process.
+   *
+   * @param config the concurrencyLimits block of the API server config
+   * @return the limiters
+   */
+  public static EndpointLimiters getInstance(JsonObject config) {
+    if (instance == null) {
+      synchronized (EndpointLimiters.class) {
+        if (instance == null) {
+          instance = new EndpointLimiters(config);
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * get the limiter of an endpoint class.
+   *
+   * @param endpointClass one of {@link #LATEST}, {@link #SEARCH}, {@link #TEMPORAL} or
+   *        {@link #MANAGEMENT}
+   * @return the limiter
+   */
+  public EndpointLimiter get(String endpointClass) {
+    return limiters.get(endpointClass);
+  }
+
+  /**
+   * get the delay a rejected client is asked to wait before retrying.
+   *
+   * @return seconds for the Retry-After header
+   */
+  public int getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -0,0 +1,226 @@
+package iudx.resource.server.apiserver.limits;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import iudx.resource.server.apiserver.util.SharedContext;
+
+/**
+ * token bucket rate limits per consumer and API.
+ * <p>
+ * Every node keeps its own buckets, so admitting a request costs no round trip. The buckets are
+ * striped by consumer, requests of different consumers rarely contend for the same lock.
+ * Periodically each node publishes the tokens its consumers took on the clustered event bus, and
+ * the other nodes take them out of their own buckets, so that a consumer spreading requests over
+ * the nodes gets its limit once and not once per node. Between two reconciliations a consumer can
+ * overshoot by what the other nodes admitted in the meantime.
+ * </p>
+ * <p>
+ * The limit of a bucket is, in order of precedence, the one granted with the token, the one
+ * configured for the consumer, the one configured for the API, or the default.
+ * </p>
+ * <p>
+ * The limiter is shared by the API server verticles of the process. Its reconciliation consumer
+ * and timer run on the {@link SharedContext}, so they outlive the verticle that created it.
+ * </p>
+ */
+public final class RateLimiter {
+
+  private static final Logger LOGGER = LogManager.getLogger(RateLimiter.class);
+
+  private static final String SYNC_ADDRESS = "iudx.rs.ratelimit.sync";
+  private static final String NODE = "node";
+  private static final String CONSUMED = "consumed";
+  private static final String RATE = "rate";
+  private static final String BURST = "burst";
+  private static final int STRIPES = 64;
+
+  private static volatile RateLimiter instance;
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final boolean enabled;
+  private final Limit defaultLimit;
+  private final Map<String, Limit> apiLimits = new HashMap<>();
+  private final Map<String, Limit> consumerLimits = new HashMap<>();
+  private final long idleNanos;
+  private final long syncIntervalMs;
+  private final Stripe[] stripes = new Stripe[STRIPES];
+
+  RateLimiter(JsonObject config) {
+    enabled = config.getBoolean("enabled", false);
+    defaultLimit = Limit.of(config.getJsonObject("default", new JsonObject()), null);
+    config.getJsonObject("apis", new JsonObject()).forEach(
+        api -> apiLimits.put(api.getKey(), Limit.of((JsonObject) api.getValue(), defaultLimit)));
+    config.getJsonObject("consumers", new JsonObject()).forEach(consumer -> consumerLimits
+        .put(consumer.getKey(), Limit.of((JsonObject) consumer.getValue(), defaultLimit)));
+    idleNanos = TimeUnit.SECONDS.toNanos(config.getLong("idleSeconds", 300L));
+    syncIntervalMs = config.getLong("syncIntervalMs", 1000L);
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /* reconcile with the other nodes, on the shared context so that no verticle stop ends it */
+  private void startSync(Vertx vertx) {
+    SharedContext.get(vertx).onSuccess(context -> context.runOnContext(v -> {
+      vertx.eventBus().<JsonObject>consumer(SYNC_ADDRESS, message -> absorb(message.body()));
+      vertx.setPeriodic(syncIntervalMs, timer -> {
+        JsonObject consumed = drain(System.nanoTime());
+        if (!consumed.isEmpty()) {
+          vertx.eventBus().publish(SYNC_ADDRESS,
+              new JsonObject().put(NODE, nodeId).put(CONSUMED, consumed));
+        }
+      });
+      LOGGER.debug("Info : rate limits enabled, default " + defaultLimit.rate + "/s");
+    }));
+  }
+
+  /**
+   * get the rate limiter of this process.
+   *
+   * @param vertx vertx instance
+   * @param config the rateLimits block of the API server config
+   * @return the rate limiter
+   */
+  public static RateLimiter getInstance(Vertx vertx, JsonObject config) {
+    if (instance == null) {
+      synchronized (RateLimiter.class) {
+        if (instance == null) {
+          RateLimiter limiter = new RateLimiter(config);
+          if (limiter.enabled) {
+            limiter.startSync(vertx);
+          }
+          instance = limiter;
+        }
+      }
+    }
+    return instance;
+  }
+
+  /**
+   * take a token for a request.
+   *
+   * @param consumer consumer making the request
+   * @param api normalized API path
+   * @param granted limit granted with the token, rate and burst, or null
+   * @return 0 when the request is admitted, otherwise the nanos until it would be
+   */
+  public long tryAcquire(String consumer, String api, JsonObject granted) {
+    return tryAcquire(consumer, api, granted, System.nanoTime());
+  }
+
+  long tryAcquire(String consumer, String api, JsonObject granted, long now) {
+    if (!enabled) {
+      return 0;
+    }
+    Limit limit = resolve(consumer, api, granted);
+    Stripe stripe = stripe(consumer);
+    synchronized (stripe) {
+      Map<String, TokenBucket> buckets =
+          stripe.buckets.computeIfAbsent(consumer, c -> new HashMap<>());
+      TokenBucket bucket = buckets.get(api);
+      if (bucket == null) {
+        bucket = new TokenBucket(limit.rate, limit.burst, now);
+        buckets.put(api, bucket);
+      } else {
+        bucket.setLimit(limit.rate, limit.burst);
+      }
+      return bucket.tryConsume(now);
+    }
+  }
+
+  private Limit resolve(String consumer, String api, JsonObject granted) {
+    Limit configured = consumerLimits.get(consumer);
+    if (configured == null) {
+      configured = apiLimits.getOrDefault(api, defaultLimit);
+    }
+    return granted == null ? configured : Limit.of(granted, configured);
+  }
+
+  private Stripe stripe(String consumer) {
+    return stripes[(consumer.hashCode() & Integer.MAX_VALUE) % STRIPES];
+  }
+
+  /* collect the tokens taken here since the last reconciliation and drop idle buckets */
+  JsonObject drain(long now) {
+    JsonObject consumed = new JsonObject();
+    for (Stripe stripe : stripes) {
+      synchronized (stripe) {
+        Iterator<Map.Entry<String, Map<String, TokenBucket>>> consumers =
+            stripe.buckets.entrySet().iterator();
+        while (consumers.hasNext()) {
+          Map.Entry<String, Map<String, TokenBucket>> consumer = consumers.next();
+          JsonObject apis = new JsonObject();
+          Iterator<Map.Entry<String, TokenBucket>> buckets =
+              consumer.getValue().entrySet().iterator();
+          while (buckets.hasNext()) {
+            Map.Entry<String, TokenBucket> bucket = buckets.next();
+            long count = bucket.getValue().drainConsumed();
+            if (count > 0) {
+              apis.put(bucket.getKey(), count);
+            } else if (bucket.getValue().isIdle(now, idleNanos)) {
+              buckets.remove();
+            }
+          }
+          if (!apis.isEmpty()) {
+            consumed.put(consumer.getKey(), apis);
+          }
+          if (consumer.getValue().isEmpty()) {
+            consumers.remove();
+          }
+        }
+      }
+    }
+    return consumed;
+  }
+
+  /* take the tokens taken on another node out of the local buckets */
+  void absorb(JsonObject body) {
+    if (nodeId.equals(body.getString(NODE))) {
+      return;
+    }
+    body.getJsonObject(CONSUMED, new JsonObject()).forEach(consumer -> {
+      Stripe stripe = stripe(consumer.getKey());
+      synchronized (stripe) {
+        Map<String, TokenBucket> buckets = stripe.buckets.get(consumer.getKey());
+        if (buckets == null) {
+          return;
+        }
+        ((JsonObject) consumer.getValue()).forEach(api -> {
+          TokenBucket bucket = buckets.get(api.getKey());
+          if (bucket != null) {
+            bucket.absorb(((Number) api.getValue()).longValue());
+          }
+        });
+      }
+    });
+  }
+
+  private static final class Stripe {
+    private final Map<String, Map<String, TokenBucket>> buckets = new HashMap<>();
+  }
+
+  private static final class Limit {
+    private final double rate;
+    private final double burst;
+
+    private Limit(double rate, double burst) {
+      this.rate = rate;
+      this.burst = burst;
+    }
+
+    /* rate in requests per second, burst defaults to one second worth of requests */
+    private static Limit of(JsonObject config, Limit fallback) {
+      double rate = config.getDouble(RATE, fallback == null ? 20d : fallback.rate);
+      rate = rate > 0 ? rate : 1d;
+      double burst = config.getDouble(BURST, fallback == null ? rate : fallback.burst);
+      return new Limit(rate, Math.max(1d, burst));
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package iudx.resource.server.apiserver.limits;
+
+/**
+ * a token bucket refilled continuously at a fixed rate up to its burst size. Tokens taken on
+ * other nodes are subtracted when they are reconciled, so the bucket can go negative, down to
+ * minus its burst size.
+ * <p>
+ * Not thread safe, guarded by the stripe of the {@link RateLimiter} holding it.
+ * </p>
+ */
+final class TokenBucket {
+
+  private double rate;
+  private double burst;
+  private double tokens;
+  private long updated;
+  private long lastUsed;
+  private long consumed;
+
+  TokenBucket(double rate, double burst, long now) {
+    this.rate = rate;
+    this.burst = burst;
+    this.tokens = burst;
+    this.updated = now;
+    this.lastUsed = now;
+  }
+
+  /**
+   * take a token.
+   *
+   * @param now current time in nanos
+   * @return 0 when a token was taken, otherwise the nanos until one is available
+   */
+  long tryConsume(long now) {
+    refill(now);
+    lastUsed = now;
+    if (tokens >= 1) {
+      tokens--;
+      consumed++;
+      return 0;
+    }
+    return Math.max(1, (long) ((1 - tokens) / rate * 1_000_000_000L));
+  }
+
+  void setLimit(double rate, double burst) {
+    if (rate != this.rate || burst != this.burst) {
+      this.rate = rate;
+      this.burst = burst;
+      tokens = Math.min(tokens, burst);
+    }
+  }
+
+  /**
+   * subtract the tokens taken on another node.
+   *
+   * @param count tokens taken
+   */
+  void absorb(long count) {
+    tokens = Math.max(-burst, tokens - count);
+  }
+
+  /**
+   * get the tokens taken locally since the last call, to be reported to the other nodes.
+   *
+   * @return tokens taken
+   */
+  long drainConsumed() {
+    long count = consumed;
+    consumed = 0;
+    return count;
+  }
+
+  /**
+   * whether the bucket is full and has not been used for a while, so that dropping it changes
+   * nothing.
+   */
+  boolean isIdle(long now, long idleNanos) {
+    refill(now);
+    return consumed == 0 && tokens >= burst && now - lastUsed >= idleNanos;
+  }
+
+  private void refill(long now) {
+    tokens = Math.min(burst, tokens + (now - updated) * rate / 1_000_000_000L);
+    updated = now;
+  }
+}
@@ -0,0 +1,64 @@
+package iudx.resource.server.apiserver.limits;
+
+/**
+ * delay based limit, after TCP Vegas. The shortest latency seen is taken as the latency without
+ * load, and the queue building up in the backends is estimated from how far a request exceeds it:
+ * {@code queue = limit * (1 - rttNoLoad / rtt)}. The limit grows while the queue is short and
+ * shrinks once it gets long, by steps of {@code log10(limit)}.
+ * <p>
+ * The latency without load is probed again every {@value #PROBE_INTERVAL} samples, so that the
+ * limit recovers when the backends get slower for good, as after an index grows.
+ * </p>
+ */
+final class VegasLimit extends ConcurrencyLimit {
+
+  private static final int PROBE_INTERVAL = 1000;
+  private static final double SMOOTHING = 0.5;
+
+  private double estimate;
+  private long rttNoLoad;
+  private int samples;
+
+  VegasLimit(int initialLimit, int minLimit, int maxLimit) {
+    super(initialLimit, minLimit, maxLimit);
+    this.estimate = getLimit();
+  }
+
+  @Override
+  void update(long rttNanos, int inFlight, boolean dropped) {
+    if (++samples >= PROBE_INTERVAL) {
+      samples = 0;
+      rttNoLoad = 0;
+    }
+    if (rttNanos <= 0) {
+      return;
+    }
+    if (rttNoLoad == 0 || rttNanos < rttNoLoad) {
+      rttNoLoad = rttNanos;
+      return;
+    }
+
+    double step = Math.max(1, Math.log10(estimate));
+    double newLimit;
+    if (dropped) {
+      newLimit = estimate - step;
+    } else if (inFlight * 2 < estimate) {
+      /* too few requests to tell anything about the backends */
+      return;
+    } else {
+      double queue = Math.ceil(estimate * (1 - (double) rttNoLoad / rttNanos));
+      if (queue <= step) {
+        newLimit = estimate + 6 * step;
+      } else if (queue < 3 * step) {
+        newLimit = estimate + step;
+      } else if (queue > 6 * step) {
+        newLimit = estimate - step;
+      } else {
+        return;
+      }
+    }
+    newLimit = Math.min(maxLimit, Math.max(minLimit, newLimit));
+    estimate = (1 - SMOOTHING) * estimate + SMOOTHING * newLimit;
+    setLimit(estimate);
+  }
+}
@@ -1,6 +1,7 @@
 package iudx.resource.server.apiserver.management;
 
 import io.vertx.core.Future;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import iudx.resource.server.databroker.DataBrokerService;
 
@@ -159,4 +160,13 @@ public interface ManagementApi {
    */
   Future<JsonObject> publishDataFromAdapter(JsonObject json, DataBrokerService databroker);
 
+  /**
+   * publish a batch of data from adapter.
+   * 
+   * @param json       request json array
+   * @param databroker DataBrokerService object
+   * @return Future
+   */
+  Future<JsonObject> publishBulkDataFromAdapter(JsonArray json, DataBrokerService databroker);
+
 }
@@ -2,6 +2,7 @@ package iudx.resource.server.apiserver.management;
 
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import static iudx.resource.server.apiserver.util.Constants.JSON_DETAIL;
 import static iudx.resource.server.apiserver.util.Constants.JSON_TITLE;
@@ -338,7 +339,7 @@ public class ManagementApiImpl implements ManagementApi {
     Promise<JsonObject> promise = Promise.promise();
     databroker.publishHeartbeat(json, handler -> {
       if (handler.succeeded()) {
-        JsonObject result = new JsonObject();
+        JsonObject result = handler.result();
         LOGGER.info("Result from databroker verticle :: " + result);
         if (result.containsKey(Constants.JSON_TYPE)
             && result.getString(Constants.JSON_TYPE).equalsIgnoreCase(Constants.SUCCCESS)) {
@@ -362,9 +363,10 @@ public class ManagementApiImpl implements ManagementApi {
     Promise<JsonObject> promise = Promise.promise();
     databroker.publishHeartbeat(json, handler -> {
       if (handler.succeeded()) {
-        JsonObject result = new JsonObject();
+        JsonObject result = handler.result();
         LOGGER.info("Result from databroker verticle :: " + result);
-        if (result.getString(Constants.JSON_TYPE).equalsIgnoreCase(Constants.SUCCCESS)) {
+        if (result.containsKey(Constants.JSON_TYPE)
+            && result.getString(Constants.JSON_TYPE).equalsIgnoreCase(Constants.SUCCCESS)) {
           promise.complete(result);
         } else {
           promise.fail(result.toString());
@@ -384,9 +386,10 @@ public class ManagementApiImpl implements ManagementApi {
     Promise<JsonObject> promise = Promise.promise();
     databroker.publishHeartbeat(json, handler -> {
       if (handler.succeeded()) {
-        JsonObject result = new JsonObject();
+        JsonObject result = handler.result();
         LOGGER.info("Result from databroker verticle :: " + result);
-        if (result.getString(Constants.JSON_TYPE).equalsIgnoreCase(Constants.SUCCCESS)) {
+        if (result.containsKey(Constants.JSON_TYPE)
+            && result.getString(Constants.JSON_TYPE).equalsIgnoreCase(Constants.SUCCCESS)) {
           promise.complete(result);
         } else {
           promise.fail(result.toString());
@@ -420,6 +423,25 @@ public class ManagementApiImpl implements ManagementApi {
     return promise.future();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Future<JsonObject> publishBulkDataFromAdapter(JsonArray json,
+      DataBrokerService databroker) {
+    Promise<JsonObject> promise = Promise.promise();
+    databroker.publishBulkFromAdaptor(json, handler -> {
+      if (handler.succeeded()) {
+        JsonObject result = handler.result();
+        LOGGER.info("Result from databroker verticle :: " + result);
+        promise.complete(result);
+      } else {
+        promise.fail(handler.cause().getMessage());
+      }
+    });
+    return promise.future();
+  }
+
   private JsonObject generateResponse(JsonObject response) {
     JsonObject finalResponse = new JsonObject();
     int type = response.getInteger(JSON_TYPE);
@@ -0,0 +1,748 @@
+package iudx.resource.server.apiserver.query;
+
+import static iudx.resource.server.apiserver.util.Constants.*;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.api.validation.ValidationException;
+import iudx.resource.server.geo.Coordinates;
+
+/**
+ * an NGSI-LD query compiled from the query string of a GET request or the body of a POST request.
+ * <p>
+ * The query is read in a single pass: every parameter is decoded, checked against the rules of its
+ * type and stored as it is met, and the checks spanning several parameters run once at the end. An
+ * invalid query fails with a {@link ValidationException} naming the parameter. The compiled query
+ * is immutable, the validation against the catalogue and the request handlers read it directly,
+ * and {@link #toJson()} renders the query handed to the database service.
+ * </p>
+ */
+public final class CompiledQuery {
+
+  private static final List<String> GEOMETRIES =
+      List.of("Point", "point", "Polygon", "polygon", "LineString", "linestring", "bbox");
+  private static final List<String> GEORELS = List.of("within", "intersects", "near");
+  private static final List<String> GEOPROPERTIES = List.of("location", "Location");
+  private static final List<String> TIMERELS = List.of("after", "before", "during", "between");
+  private static final List<String> OPERATORS = List.of(">", "==", "<", "!=", "<=", ">=");
+  private static final String GEOTILE_GRID = "geotile_grid";
+  private static final List<String> AGGREGATIONS = List.of(GEOTILE_GRID, "geohash_grid");
+  private static final int MAX_IDS = 5;
+  private static final int MAX_Q_LENGTH = 512;
+
+  private final boolean temporal;
+  private final List<String> ids;
+  private final List<String> attrs;
+  private final String geometry;
+  private final Coordinates coordinates;
+  private final String geoRelation;
+  private final Double maxDistance;
+  private final Double minDistance;
+  private final String geoProperty;
+  private final String timeRel;
+  private final String time;
+  private final String endTime;
+  private final List<Term> terms;
+  private final String options;
+  private final String aggregate;
+  private final Integer precision;
+  private final boolean withCount;
+  private final boolean approximate;
+  private final boolean temporalParams;
+  private final boolean spatialParams;
+  private final String searchType;
+
+  private CompiledQuery(Compiler compiler) {
+    this.temporal = compiler.temporal;
+    this.ids = Collections.unmodifiableList(compiler.ids);
+    this.attrs = compiler.attrs == null ? null : Collections.unmodifiableList(compiler.attrs);
+    this.geometry = compiler.geometry;
+    this.coordinates = compiler.coordinates;
+    this.geoRelation = compiler.geoRelation;
+    this.maxDistance = compiler.maxDistance;
+    this.minDistance = compiler.minDistance;
+    this.geoProperty = compiler.geoProperty;
+    this.timeRel = compiler.timeRel;
+    this.time = compiler.time;
+    this.endTime = compiler.endTime;
+    this.terms = compiler.terms == null ? null : Collections.unmodifiableList(compiler.terms);
+    this.options = compiler.options;
+    this.aggregate = compiler.aggregate;
+    this.precision = compiler.precision;
+    this.withCount = compiler.withCount;
+    this.approximate = compiler.approximate;
+    this.temporalParams = compiler.temporalParams;
+    this.spatialParams = compiler.spatialParams;
+    this.searchType = searchType();
+  }
+
+  /**
+   * compile the query string of a GET request on the entities or temporal API. Unlike the query
+   * string decoder of Netty a <b>+</b> is kept as is, and a <b>;</b> is part of the value.
+   *
+   * @param query raw query string, without the leading ?
+   * @param temporal true for the temporal API, false for the entities API
+   * @return the compiled query
+   * @throws ValidationException when the query is not valid
+   */
+  public static CompiledQuery fromQueryString(String query, boolean temporal) {
+    Compiler compiler = new Compiler(temporal, temporal);
+    if (query != null) {
+      int length = query.length();
+      int start = 0;
+      while (start < length) {
+        int end = query.indexOf('&', start);
+        if (end < 0) {
+          end = length;
+        }
+        if (end > start) {
+          int separator = query.indexOf('=', start);
+          if (separator < 0 || separator > end) {
+            separator = end;
+          }
+          String value = separator < end ? decode(query, separator + 1, end) : "";
+          compiler.param(decode(query, start, separator), value);
+        }
+        start = end + 1;
+      }
+    }
+    return compiler.compile();
+  }
+
+  /**
+   * compile the body of a POST request on the query API. Only the first of the entities is
+   * queried, the one the request is authorized for.
+   *
+   * @param body request body, already checked against the JSON schema
+   * @return the compiled query
+   * @throws ValidationException when the query is not valid
+   */
+  public static CompiledQuery fromJson(JsonObject body) {
+    Compiler compiler = new Compiler(body.containsKey(NGSILDQUERY_TEMPORALQ), true);
+    for (Map.Entry<String, Object> entry : body) {
+      Object value = entry.getValue();
+      if (value == null) {
+        continue;
+      }
+      switch (entry.getKey()) {
+        case NGSILDQUERY_ENTITIES: {
+          compiler.param(NGSILDQUERY_ENTITIES, "");
+          JsonArray entities = (JsonArray) value;
+          if (!entities.isEmpty()) {
+            compiler.entity(entities.getJsonObject(0));
+          }
+          break;
+        }
+        case NGSILDQUERY_GEOQ:
+        case NGSILDQUERY_TEMPORALQ: {
+          compiler.param(entry.getKey(), "");
+          for (Map.Entry<String, Object> inner : (JsonObject) value) {
+            if (inner.getValue() != null) {
+              compiler.param(inner.getKey(), inner.getValue().toString());
+            }
+          }
+          break;
+        }
+        default:
+          compiler.param(entry.getKey(), value.toString());
+          break;
+      }
+    }
+    return compiler.compile();
+  }
+
+  /**
+   * validate the attrs of a request on the latest API, the only query parameter it takes.
+   *
+   * @param value value of the attrs parameter
+   * @return the attributes
+   * @throws ValidationException when they are not valid
+   */
+  public static List<String> attributes(String value) {
+    return Compiler.attrs(Compiler.notBlank(NGSILDQUERY_ATTRIBUTE, value));
+  }
+
+  /**
+   * render the query handed to the database service.
+   *
+   * @return the query as JSON
+   */
+  public JsonObject toJson() {
+    JsonObject json = new JsonObject();
+    json.put(JSON_ID, new JsonArray(new ArrayList<>(ids)));
+    if (attrs != null) {
+      json.put(JSON_ATTRIBUTE_FILTER, new JsonArray(new ArrayList<>(attrs)));
+    }
+    if (geometry != null) {
+      if (isNearPoint()) {
+        // in the order lat, lon the database service reads them in
+        json.put(JSON_LAT, coordinates.get(0));
+        json.put(JSON_LON, coordinates.get(1));
+        json.put(JSON_RADIUS, maxDistance);
+      } else {
+        json.put(JSON_GEOMETRY, geometry);
+        json.put(JSON_COORDINATES, coordinates.toString());
+        json.put(JSON_GEOREL, geoRelation);
+        if (maxDistance != null) {
+          json.put(JSON_MAXDISTANCE, maxDistance);
+        } else if (minDistance != null) {
+          json.put(JSON_MINDISTANCE, minDistance);
+        }
+      }
+    }
+    if (temporal) {
+      json.put(JSON_TIME, time);
+      if (JSON_DURING.equalsIgnoreCase(timeRel)) {
+        json.put(JSON_ENDTIME, endTime);
+      }
+      json.put(JSON_TIMEREL, timeRel);
+    }
+    if (terms != null) {
+      JsonArray query = new JsonArray();
+      for (Term term : terms) {
+        query.add(term.toJson());
+      }
+      json.put(JSON_ATTR_QUERY, query);
+    }
+    if (geoProperty != null) {
+      json.put(JSON_GEOPROPERTY, geoProperty);
+    }
+    if (options != null) {
+      json.put(IUDXQUERY_OPTIONS, options);
+    }
+    if (aggregate != null) {
+      json.put(JSON_AGGREGATE, aggregate);
+      json.put(JSON_PRECISION, precision);
+    }
+    if (withCount) {
+      json.put(JSON_WITH_COUNT, true);
+    }
+    if (approximate) {
+      json.put(JSON_APPROXIMATE, true);
+    }
+    json.put(JSON_SEARCH_TYPE, searchType);
+    return json;
+  }
+
+  public List<String> getIds() {
+    return ids;
+  }
+
+  public List<String> getAttrs() {
+    return attrs;
+  }
+
+  public String getGeometry() {
+    return geometry;
+  }
+
+  public Coordinates getCoordinates() {
+    return coordinates;
+  }
+
+  public String getSearchType() {
+    return searchType;
+  }
+
+  /**
+   * whether the request asks for the count of the matching documents.
+   *
+   * @return true for a count query
+   */
+  public boolean isCount() {
+    return JSON_COUNT.equalsIgnoreCase(options);
+  }
+
+  /**
+   * whether the request asks for the matching documents aggregated on a geo grid, the attributes
+   * being the metrics of every cell.
+   *
+   * @return true for a geo grid aggregation query
+   */
+  public boolean isAggregation() {
+    return aggregate != null;
+  }
+
+  /**
+   * whether any temporal parameter was given, for the check against the applicable filters.
+   *
+   * @return true when timerel, time, endtime or timeProperty was given
+   */
+  public boolean hasTemporalParams() {
+    return temporalParams;
+  }
+
+  /**
+   * whether any spatial parameter was given, for the check against the applicable filters.
+   *
+   * @return true when georel, geometry, geoproperty or coordinates was given
+   */
+  public boolean hasSpatialParams() {
+    return spatialParams;
+  }
+
+  public boolean hasAttributeParams() {
+    return attrs != null;
+  }
+
+  private boolean isNearPoint() {
+    return GEOM_POINT.equalsIgnoreCase(geometry) && JSON_NEAR.equals(geoRelation)
+        && maxDistance != null;
+  }
+
+  private String searchType() {
+    StringBuilder type = new StringBuilder(64);
+    type.append(temporal ? JSON_TEMPORAL_SEARCH : JSON_LATEST_SEARCH);
+    if (geometry != null) {
+      type.append(JSON_GEO_SEARCH);
+    }
+    if (attrs != null) {
+      type.append(JSON_RESPONSE_FILTER_SEARCH);
+    }
+    if (terms != null) {
+      type.append(JSON_ATTRIBUTE_SEARCH);
+    }
+    return type.substring(0, type.length() - 1);
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledQuery [ids=" + ids + ", attrs=" + attrs + ", geometry=" + geometry
+        + ", coordinates=" + coordinates + ", georel=" + geoRelation + ", maxDistance="
+        + maxDistance + ", minDistance=" + minDistance + ", geoProperty=" + geoProperty
+        + ", timerel=" + timeRel + ", time=" + time + ", endTime=" + endTime + ", q=" + terms
+        + ", options=" + options + ", aggregate=" + aggregate + ", precision=" + precision
+        + ", count=" + withCount + ", approximate=" + approximate + ", searchType=" + searchType
+        + "]";
+  }
+
+  private static String decode(String query, int start, int end) {
+    String raw = query.substring(start, end);
+    if (raw.indexOf('%') < 0) {
+      return raw;
+    }
+    try {
+      return URLDecoder.decode(raw.replace("+", "%2B"), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException ex) {
+      throw invalid(raw, MSG_BAD_QUERY);
+    }
+  }
+
+  private static ValidationException invalid(String parameter, String message) {
+    ValidationException exception = new ValidationException(message);
+    exception.setParameterName(parameter);
+    return exception;
+  }
+
+  /**
+   * a term of the q parameter, an attribute compared to a value.
+   */
+  public static final class Term {
+    private final String attribute;
+    private final String operator;
+    private final String value;
+
+    private Term(String attribute, String operator, String value) {
+      this.attribute = attribute;
+      this.operator = operator;
+      this.value = value;
+    }
+
+    /**
+     * split a term at its operator, the first run of operator characters after the attribute.
+     *
+     * @param term a term like speed>=30
+     * @return the term, with a null operator when there is none
+     */
+    static Term parse(String term) {
+      String attribute = null;
+      int length = term.length();
+      int operatorStart = -1;
+      for (int i = 0; i < length; i++) {
+        char c = term.charAt(i);
+        boolean alphanumeric = Character.isLetter(c) || Character.isDigit(c);
+        if (operatorStart < 0) {
+          if (!alphanumeric && (c == '>' || c == '=' || c == '<' || c == '!')) {
+            attribute = term.substring(0, i);
+            operatorStart = i;
+          }
+        } else if (alphanumeric) {
+          return new Term(attribute, term.substring(operatorStart, i), term.substring(i));
+        }
+      }
+      return new Term(attribute, null, null);
+    }
+
+    JsonObject toJson() {
+      JsonObject json = new JsonObject();
+      json.put(JSON_ATTRIBUTE, attribute);
+      json.put(JSON_OPERATOR, operator);
+      json.put(JSON_VALUE, value);
+      return json;
+    }
+
+    @Override
+    public String toString() {
+      return attribute + operator + value;
+    }
+  }
+
+  /* reads the parameters one at a time, checking each against the rules of its type */
+  private static final class Compiler {
+    private final boolean temporal;
+    private final boolean temporalAllowed;
+    private final Set<String> seen = new HashSet<>();
+
+    private List<String> ids;
+    private List<String> attrs;
+    private String geometry;
+    private Coordinates coordinates;
+    private String geoRelation;
+    private Double maxDistance;
+    private Double minDistance;
+    private String geoProperty;
+    private String timeRel;
+    private String time;
+    private String endTime;
+    private List<Term> terms;
+    private String options;
+    private String aggregate;
+    private Integer precision;
+    private boolean withCount;
+    private boolean approximate;
+    private boolean temporalParams;
+    private boolean spatialParams;
+
+    private Compiler(boolean temporal, boolean temporalAllowed) {
+      this.temporal = temporal;
+      this.temporalAllowed = temporalAllowed;
+    }
+
+    private void param(String key, String value) {
+      if (!seen.add(key)) {
+        throw invalid(key, "Duplicate parameter.");
+      }
+      switch (key) {
+        case NGSILDQUERY_ID:
+          ids = ids(notBlank(key, value));
+          break;
+        case NGSILDQUERY_ATTRIBUTE:
+          attrs = attrs(notBlank(key, value));
+          break;
+        case NGSILDQUERY_GEOREL:
+          geoRel(notBlank(key, value));
+          spatialParams = true;
+          break;
+        case NGSILDQUERY_GEOMETRY:
+          geometry = oneOf(key, notBlank(key, value), GEOMETRIES);
+          spatialParams = true;
+          break;
+        case NGSILDQUERY_COORDINATES:
+          coordinates = coordinates(notBlank(key, value));
+          spatialParams = true;
+          break;
+        case NGSILDQUERY_GEOPROPERTY:
+          geoProperty = oneOf(key, notBlank(key, value), GEOPROPERTIES);
+          spatialParams = true;
+          break;
+        case NGSILDQUERY_Q:
+          terms = terms(notBlank(key, value));
+          break;
+        case NGSILDQUERY_TIMEREL:
+          timeRel = oneOf(key, notBlank(key, value), TIMERELS);
+          temporalParams = true;
+          break;
+        case NGSILDQUERY_TIME:
+          time = date(key, notBlank(key, value));
+          temporalParams = true;
+          break;
+        case NGSILDQUERY_ENDTIME:
+          endTime = date(key, notBlank(key, value));
+          temporalParams = true;
+          break;
+        case NGSILDQUERY_TIME_PROPERTY:
+          temporalParams = true;
+          break;
+        case IUDXQUERY_OPTIONS:
+          if (!"count".equals(value)) {
+            throw invalid(key, "count is only allowed value for options parameter");
+          }
+          options = value;
+          break;
+        case IUDXQUERY_AGGREGATE:
+          aggregate = oneOf(key, notBlank(key, value), AGGREGATIONS);
+          break;
+        case IUDXQUERY_PRECISION:
+          try {
+            precision = Integer.valueOf(notBlank(key, value));
+          } catch (NumberFormatException ex) {
+            throw invalid(key, "Number format error ( not a valid precision)");
+          }
+          break;
+        case NGSILDQUERY_COUNT:
+          withCount = bool(key, value);
+          break;
+        case IUDXQUERY_APPROXIMATE:
+          approximate = bool(key, value);
+          break;
+        case NGSILDQUERY_TYPE:
+        case NGSILDQUERY_IDPATTERN:
+        case NGSILDQUERY_TIMEPROPERTY:
+        case NGSILDQUERY_ENTITIES:
+        case NGSILDQUERY_GEOQ:
+        case NGSILDQUERY_TEMPORALQ:
+          /* accepted, not used by the query */
+          break;
+        default:
+          throw invalid(key, MSG_BAD_QUERY);
+      }
+    }
+
+    private void entity(JsonObject entity) {
+      String id = entity.getString(NGSILDQUERY_ID);
+      if (id != null) {
+        if (id.length() > VALIDATION_ID_MAX_LEN) {
+          throw invalid(NGSILDQUERY_ID, "id exceeds " + VALIDATION_ID_MAX_LEN + " characters");
+        }
+        ids = new ArrayList<>(1);
+        ids.add(id);
+      }
+    }
+
+    private CompiledQuery compile() {
+      if (ids == null) {
+        throw invalid(NGSILDQUERY_ID, "id is mandatory.");
+      }
+      if (!temporalAllowed && (timeRel != null || time != null || endTime != null)) {
+        throw invalid("[timerel,time or endtime]",
+            "Temporal parameters are not allowed in entities query.");
+      }
+      if (geoRelation != null || coordinates != null || geometry != null
+          || geoProperty != null) {
+        if (geoRelation == null || coordinates == null || geometry == null
+            || geoProperty == null) {
+          throw invalid("geometry, georel, coordinates, geoproperty", "incomplete geo-query "
+              + "geoproperty, geometry, georel, coordinates all are mandatory. ");
+        }
+        isValidShape();
+      }
+      if (aggregate != null || precision != null) {
+        isValidAggregation();
+      }
+      if (approximate && !withCount && options == null) {
+        throw invalid(IUDXQUERY_APPROXIMATE, "approximate is only allowed with a count");
+      }
+      if (temporal) {
+        if (timeRel == null || time == null) {
+          throw invalid("timerel/time", "timerel and time are mandatory for temporal query.");
+        }
+        if (JSON_DURING.equalsIgnoreCase(timeRel)) {
+          isValidTimeInterval();
+        }
+      }
+      return new CompiledQuery(this);
+    }
+
+    /* geotile precision is the zoom level 0 to 29, geohash precision the length 1 to 12 */
+    private void isValidAggregation() {
+      if (aggregate == null) {
+        throw invalid(IUDXQUERY_PRECISION, "precision is only allowed with aggregate");
+      }
+      if (options != null || withCount) {
+        throw invalid(IUDXQUERY_OPTIONS, "count is not allowed with aggregate");
+      }
+      boolean geotile = GEOTILE_GRID.equals(aggregate);
+      if (precision == null) {
+        precision = geotile ? 7 : 5;
+      }
+      int min = geotile ? 0 : 1;
+      int max = geotile ? 29 : 12;
+      if (precision < min || precision > max) {
+        throw invalid(IUDXQUERY_PRECISION,
+            "precision of " + aggregate + " must be between " + min + " and " + max);
+      }
+    }
+
+    private void isValidTimeInterval() {
+      if (endTime == null) {
+        throw invalid("time/endtime", "time and endTime both are mandatory for during Query.");
+      }
+      long days;
+      try {
+        days = Duration.between(ZonedDateTime.parse(time), ZonedDateTime.parse(endTime)).toDays();
+      } catch (DateTimeParseException ex) {
+        throw invalid("time/endtime", "Invalid time format");
+      }
+      if (days > VALIDATION_MAX_DAYS_INTERVAL_ALLOWED) {
+        throw invalid("time-endtime", "time interval greater than 10 days is not allowed");
+      }
+    }
+
+    /* the nesting and the number of positions the geometry needs */
+    private void isValidShape() {
+      int positions = coordinates.getPositions();
+      boolean valid;
+      switch (geometry.toLowerCase()) {
+        case GEOM_POINT:
+          valid = coordinates.getDepth() == Coordinates.POINT;
+          break;
+        case GEOM_POLYGON:
+          valid = coordinates.hasClosedRings() && positions <= VALIDATION_ALLOWED_COORDINATES;
+          break;
+        case GEOM_LINESTRING:
+          valid = coordinates.getDepth() == Coordinates.LINE && positions >= 2
+              && positions <= VALIDATION_ALLOWED_COORDINATES;
+          break;
+        default:
+          valid = coordinates.getDepth() == Coordinates.LINE && positions == 2;
+          break;
+      }
+      if (!valid) {
+        throw invalid(NGSILDQUERY_COORDINATES, "coordinates do not match geometry " + geometry);
+      }
+    }
+
+    private static Coordinates coordinates(String value) {
+      try {
+        return Coordinates.parse(value);
+      } catch (IllegalArgumentException ex) {
+        throw invalid(NGSILDQUERY_COORDINATES, ex.getMessage());
+      }
+    }
+
+    private static boolean bool(String key, String value) {
+      if (!"true".equals(value) && !"false".equals(value)) {
+        throw invalid(key, "Value " + value + " is not a boolean");
+      }
+      return Boolean.parseBoolean(value);
+    }
+
+    private static String notBlank(String key, String value) {
+      if (value.isBlank()) {
+        throw invalid(key, "Empty value not allowed for parameter.");
+      }
+      return value;
+    }
+
+    private static String oneOf(String key, String value, List<String> allowed) {
+      if (!allowed.contains(value)) {
+        throw invalid(key, "Value " + value + " in not inside enum list " + allowed);
+      }
+      return value;
+    }
+
+    private static List<String> ids(String value) {
+      List<String> ids = split(value, ',');
+      if (ids.size() > MAX_IDS) {
+        throw invalid(NGSILDQUERY_ID, "More than " + MAX_IDS + " ids are not allowed.");
+      }
+      for (String id : ids) {
+        if (id.length() > VALIDATION_ID_MAX_LEN) {
+          throw invalid(NGSILDQUERY_ID, "id exceeds " + VALIDATION_ID_MAX_LEN + " characters");
+        }
+        isNotSeparated(NGSILDQUERY_ID, id);
+      }
+      return ids;
+    }
+
+    private static List<String> attrs(String value) {
+      List<String> attrs = split(value, ',');
+      if (attrs.size() > VALIDATION_MAX_ATTRS) {
+        throw invalid(NGSILDQUERY_ATTRIBUTE,
+            "More than " + VALIDATION_MAX_ATTRS + " attributes are not allowed.");
+      }
+      for (String attr : attrs) {
+        if (attr.length() > VALIDATIONS_MAX_ATTR_LENGTH) {
+          throw invalid(NGSILDQUERY_ATTRIBUTE,
+              "One of the attribute exceeds allowed characters(only 100 characters allowed).");
+        }
+        isNotSeparated(NGSILDQUERY_ATTRIBUTE, attr);
+      }
+      return attrs;
+    }
+
+    /* a relation with at most one modifier, the max or min distance */
+    private void geoRel(String value) {
+      int separator = value.indexOf(';');
+      geoRelation = oneOf(NGSILDQUERY_GEOREL,
+          separator < 0 ? value : value.substring(0, separator), GEORELS);
+      if (separator < 0) {
+        return;
+      }
+      String distance = value.substring(separator + 1);
+      int equals = distance.indexOf('=');
+      if (equals < 0 || distance.indexOf(';') >= 0) {
+        throw invalid(NGSILDQUERY_GEOREL, "Only one of maxdistance or mindistance is allowed");
+      }
+      String name = distance.substring(0, equals);
+      try {
+        if (name.equalsIgnoreCase(NGSILDQUERY_MAXDISTANCE)) {
+          maxDistance = Double.parseDouble(distance.substring(equals + 1));
+        } else if (name.equalsIgnoreCase(NGSILDQUERY_MINDISTANCE)) {
+          minDistance = Double.parseDouble(distance.substring(equals + 1));
+        } else {
+          throw invalid(NGSILDQUERY_GEOREL, "Only one of maxdistance or mindistance is allowed");
+        }
+      } catch (NumberFormatException ex) {
+        throw invalid(NGSILDQUERY_GEOREL, "Number format error ( not a valid distance)");
+      }
+    }
+
+    /* a ; or = would be read as another parameter by the query string decoder of Netty */
+    private static void isNotSeparated(String key, String value) {
+      if (value.indexOf(';') >= 0 || value.indexOf('=') >= 0) {
+        throw invalid(key, "Value " + value + " contains a reserved character");
+      }
+    }
+
+    private static List<Term> terms(String value) {
+      if (value.length() > MAX_Q_LENGTH) {
+        throw invalid(NGSILDQUERY_Q, "Exceeding max length(512 characters) criteria ");
+      }
+      List<String> parts = split(value, ';');
+      List<Term> terms = new ArrayList<>(parts.size());
+      for (String part : parts) {
+        Term term = Term.parse(part);
+        if (term.operator == null || !OPERATORS.contains(term.operator)) {
+          throw invalid(NGSILDQUERY_Q,
+              "Not a valid Operator in <<q>> query, only " + OPERATORS + "  allowed");
+        }
+        terms.add(term);
+      }
+      return terms;
+    }
+
+    private static String date(String key, String value) {
+      // a + not escaped in the query string may have been turned into a space by a proxy
+      String date = value.trim().replace(' ', '+');
+      try {
+        ZonedDateTime.parse(date);
+      } catch (DateTimeParseException ex) {
+        throw invalid(key, "Invalid Date format.");
+      }
+      return date;
+    }
+
+    private static List<String> split(String value, char separator) {
+      List<String> parts = new ArrayList<>(4);
+      int start = 0;
+      int end;
+      while ((end = value.indexOf(separator, start)) >= 0) {
+        parts.add(value.substring(start, end));
+        start = end + 1;
+      }
+      parts.add(value.substring(start));
+      return parts;
+    }
+  }
+}
@@ -1,12 +1,17 @@
 package iudx.resource.server.apiserver.service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Timer;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
@@ -19,10 +24,21 @@ import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.ext.web.client.predicate.ResponsePredicate;
 import iudx.resource.server.authenticator.Constants;
+import iudx.resource.server.metrics.ServerMetrics;
+import iudx.resource.server.resilience.BackendGuard;
+import iudx.resource.server.resilience.BackendUnavailableException;
 
 /**
  * catalogue service to fetch calatogue items and groups for the purpose of cache
- *
+ * <p>
+ * Filters are served stale while revalidated: an entry younger than the soft TTL is served as is,
+ * an entry between the soft and the hard TTL is served while a refresh runs in the background, and
+ * only an entry older than the hard TTL, or a miss, waits for the catalogue. Concurrent loads of
+ * the same id share one catalogue call. Entries older than the hard TTL are kept until evicted by
+ * size and served when the catalogue cannot be reached. Configured by the {@code catalogueCache}
+ * block of the API server config, {@code softTtlMinutes}, {@code hardTtlMinutes} and
+ * {@code maxSize}.
+ * </p>
  */
 public class CatalogueService {
 
@@ -36,16 +52,25 @@ public class CatalogueService {
   private static String catItemPath;
   private Vertx vertx;
 
-  private final Cache<String, List<String>> applicableFilterCache =
-      CacheBuilder.newBuilder().maximumSize(1000)
-          .expireAfterAccess(Constants.CACHE_TIMEOUT_AMOUNT, TimeUnit.MINUTES).build();
+  private final Cache<String, FilterEntry> applicableFilterCache;
+  // loads in flight per id, confined to the event loop of the verticle
+  private final Map<String, List<Promise<List<String>>>> loading = new HashMap<>();
+  private final long softTtlMillis;
+  private final long hardTtlMillis;
+  private final LongSupplier clock;
+  // the filters of one item or group id
+  private Function<String, Future<List<String>>> lookup;
+  private BackendGuard catalogueGuard;
 
   public CatalogueService(Vertx vertx, JsonObject config) {
+    this(config, System::currentTimeMillis);
     this.vertx=vertx;
+    lookup = this::callCatalogueAPI;
     catHost = config.getString("catServerHost");
     catPort = Integer.parseInt(config.getString("catServerPort"));
     catSearchPath = Constants.CAT_RSG_PATH;
     catItemPath = Constants.CAT_ITEM_PATH;
+    catalogueGuard = BackendGuard.of(ServerMetrics.BACKEND_CATALOGUE, config);
 
     WebClientOptions options =
         new WebClientOptions().setTrustAll(true).setVerifyHost(false).setSsl(true);
@@ -56,6 +81,25 @@ public class CatalogueService {
     });
   }
 
+  /* the cache alone, looking filters up with the given function; for tests */
+  CatalogueService(JsonObject config, LongSupplier clock,
+      Function<String, Future<List<String>>> lookup) {
+    this(config, clock);
+    this.lookup = lookup;
+  }
+
+  private CatalogueService(JsonObject config, LongSupplier clock) {
+    this.clock = clock;
+    JsonObject cacheConfig = config.getJsonObject("catalogueCache", new JsonObject());
+    softTtlMillis = TimeUnit.MINUTES.toMillis(
+        cacheConfig.getLong("softTtlMinutes", Constants.CACHE_TIMEOUT_AMOUNT));
+    hardTtlMillis = Math.max(softTtlMillis,
+        TimeUnit.MINUTES.toMillis(cacheConfig.getLong("hardTtlMinutes", 1440L)));
+    applicableFilterCache = ServerMetrics.monitor(CacheBuilder.newBuilder()
+        .maximumSize(cacheConfig.getLong("maxSize", 1000L)).recordStats().build(),
+        "applicableFilterCache");
+  }
+
   /**
    * populate
    * 
@@ -63,7 +107,7 @@ public class CatalogueService {
    */
   private Future<Boolean> populateCache() {
     Promise<Boolean> promise = Promise.promise();
-    catWebClient.get(catPort, catHost, catSearchPath)
+    catWebClient.get(catPort, catHost, catSearchPath).timeout(catalogueGuard.getTimeoutMillis())
         .addQueryParam("property", "[iudxResourceAPIs]")
         .addQueryParam("value", "[[TEMPORAL,ATTR,SPATIAL]]")
         .addQueryParam("filter", "[iudxResourceAPIs,id]").expect(ResponsePredicate.JSON)
@@ -75,9 +119,9 @@ public class CatalogueService {
               String id = res.getString("id");
               String[] idArray = id.split("/");
               if (idArray.length == 4) {
-                applicableFilterCache.put(id + "/*", toList(res.getJsonArray("iudxResourceAPIs")));
+                cacheFilters(id + "/*", toList(res.getJsonArray("iudxResourceAPIs")));
               } else {
-                applicableFilterCache.put(id, toList(res.getJsonArray("iudxResourceAPIs")));
+                cacheFilters(id, toList(res.getJsonArray("iudxResourceAPIs")));
               }
             });
             promise.complete(true);
@@ -94,85 +138,116 @@ public class CatalogueService {
     // Note: id should be a complete id not a group id (ex : domain/SHA/rs/rs-group/itemId)
     String groupId = id.substring(0, id.lastIndexOf("/"));
     // check for item in cache.
-    List<String> filters = applicableFilterCache.getIfPresent(id);
-    if (filters == null) {
+    FilterEntry entry = applicableFilterCache.getIfPresent(id);
+    if (entry == null) {
       // check for group if not present by item key.
-      filters = applicableFilterCache.getIfPresent(groupId + "/*");
+      entry = applicableFilterCache.getIfPresent(groupId + "/*");
     }
-    if (filters == null) {
-      //filters = fetchFilters4Item(id, groupId);
-      fetchFilters4Item(id, groupId).onComplete(handler->{
-        if(handler.succeeded()) {
-          promise.complete(handler.result());
-        }else {
-          promise.fail("failed to fetch filters.");
-        }
-      });
-    }else {
-      promise.complete(filters);
+    long age = entry == null ? Long.MAX_VALUE : clock.getAsLong() - entry.loadedAt;
+    if (age < hardTtlMillis) {
+      if (age >= softTtlMillis) {
+        // serve the cached filters, the next request gets the refreshed ones
+        load(id, groupId);
+      }
+      promise.complete(entry.filters);
+      return promise.future();
     }
+    FilterEntry expired = entry;
+    load(id, groupId).onComplete(handler->{
+      if(handler.succeeded()) {
+        promise.complete(handler.result());
+      } else if (expired != null) {
+        LOGGER.warn("Warn : serving stale filters for " + id);
+        ServerMetrics.recordFallback(ServerMetrics.BACKEND_CATALOGUE);
+        promise.complete(expired.filters);
+      } else if (handler.cause() instanceof BackendUnavailableException) {
+        promise.fail(handler.cause());
+      } else {
+        promise.fail("failed to fetch filters.");
+      }
+    });
+    return promise.future();
+  }
+
+  /* fetch the filters of an id, joining the load already in flight for it if any */
+  private Future<List<String>> load(String id, String groupId) {
+    Promise<List<String>> promise = Promise.promise();
+    List<Promise<List<String>>> waiting = loading.get(id);
+    if (waiting != null) {
+      waiting.add(promise);
+      return promise.future();
+    }
+    waiting = new ArrayList<>();
+    waiting.add(promise);
+    loading.put(id, waiting);
+    fetchFilters4Item(id, groupId).onComplete(handler -> {
+      loading.remove(id).forEach(waiter -> waiter.handle(handler));
+    });
     return promise.future();
   }
 
 
   private Future<List<String>> fetchFilters4Item(String id, String groupId) {
     Promise<List<String>> promise = Promise.promise();
-    Future<List<String>> getItemFilters = getFilterFromItemId(id);
-    Future<List<String>> getGroupFilters = getFilterFromGroupId(groupId);
-    getItemFilters.onComplete(itemHandler -> {
+    lookup.apply(id).onComplete(itemHandler -> {
       if (itemHandler.succeeded()) {
         List<String> filters4Item = itemHandler.result();
         if (filters4Item.isEmpty()) {
-          //Future<List<String>> getGroupFilters = getFilterFromGroupId(groupId);
-          getGroupFilters.onComplete(groupHandler -> {
+          lookup.apply(groupId).onComplete(groupHandler -> {
             if (groupHandler.succeeded()) {
               List<String> filters4Group = groupHandler.result();
-              applicableFilterCache.put(groupId + "/*", filters4Group);
+              cacheFilters(groupId + "/*", filters4Group);
               promise.complete(filters4Group);
             } else {
               LOGGER.error(
                   "Failed to fetch applicable filters for id: " + id + "or group id : " + groupId);
+              promise.fail(groupHandler.cause());
             }
           });
         } else {
-          applicableFilterCache.put(id, filters4Item);
+          cacheFilters(id, filters4Item);
           promise.complete(filters4Item);
         }
       } else {
-
+        promise.fail(itemHandler.cause());
       }
     });
     return promise.future();
   }
 
-
-  private Future<List<String>> getFilterFromGroupId(String groupId) {
-    Promise<List<String>> promise = Promise.promise();
-    callCatalogueAPI(groupId, handler -> {
-      if (handler.succeeded()) {
-        promise.complete(handler.result());
-      } else {
-        promise.fail("failed to fetch filters for group");
-      }
-    });
-    return promise.future();
+  private void cacheFilters(String key, List<String> filters) {
+    applicableFilterCache.put(key, new FilterEntry(filters, clock.getAsLong()));
   }
 
-  private Future<List<String>> getFilterFromItemId(String itemId) {
+
+  private Future<List<String>> callCatalogueAPI(String id) {
     Promise<List<String>> promise = Promise.promise();
-    callCatalogueAPI(itemId, handler -> {
+    callCatalogueAPI(id, handler -> {
       if (handler.succeeded()) {
         promise.complete(handler.result());
+      } else if (handler.cause() instanceof BackendUnavailableException) {
+        promise.fail(handler.cause());
       } else {
-        promise.fail("failed to fetch filters for group");
+        promise.fail("failed to fetch filters for " + id);
       }
     });
     return promise.future();
   }
-  
+
   private void callCatalogueAPI(String id, Handler<AsyncResult<List<String>>> handler) {
     List<String> filters = new ArrayList<String>();
-    catWebClient.get(catPort, catHost, catItemPath).addQueryParam("id", id).send(catHandler -> {
+    if (!catalogueGuard.tryAcquire()) {
+      handler.handle(Future.failedFuture(catalogueGuard.unavailable()));
+      return;
+    }
+    long startNanos = System.nanoTime();
+    Timer.Sample sample = ServerMetrics.start();
+    catWebClient.get(catPort, catHost, catItemPath).timeout(catalogueGuard.getTimeoutMillis())
+        .addQueryParam("id", id).send(catHandler -> {
+      catalogueGuard.release(startNanos,
+          catHandler.failed() || catHandler.result().statusCode() >= 500);
+      ServerMetrics.recordBackend(sample, ServerMetrics.BACKEND_CATALOGUE, "item",
+          catHandler.succeeded());
       if (catHandler.succeeded()) {
         JsonArray response = catHandler.result().bodyAsJsonObject().getJsonArray("results");
         response.forEach(json -> {
@@ -183,8 +258,10 @@ public class CatalogueService {
         });
         handler.handle(Future.succeededFuture(filters));
       } else if (catHandler.failed()) {
-        LOGGER.error("catalogue call(/iudx/cat/v1/item) failed for id" + id);
-        handler.handle(Future.failedFuture("catalogue call(/iudx/cat/v1/item) failed for id" + id));
+        LOGGER.error("catalogue call(/iudx/cat/v1/item) failed for id" + id + " : "
+            + catHandler.cause().getMessage());
+        // not reached or timed out, the same to the client as a rejected call
+        handler.handle(Future.failedFuture(catalogueGuard.unavailable()));
       }
     });
   }
@@ -197,4 +274,14 @@ public class CatalogueService {
       return (List<T>) arr.getList();
     }
   }
+
+  private static final class FilterEntry {
+    private final List<String> filters;
+    private final long loadedAt;
+
+    private FilterEntry(List<String> filters, long loadedAt) {
+      this.filters = filters;
+      this.loadedAt = loadedAt;
+    }
+  }
 }
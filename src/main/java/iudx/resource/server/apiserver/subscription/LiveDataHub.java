@@ -0,0 +1,272 @@
+package iudx.resource.server.apiserver.subscription;
+
+import static iudx.resource.server.apiserver.util.Constants.*;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.lmax.disruptor.RingBuffer;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+import iudx.resource.server.apiserver.util.SharedContext;
+
+/**
+ * fans out the live data of resources to the clients of the live endpoint.
+ * <p>
+ * A resource group is consumed once per API server process, however many clients follow its
+ * resources. The data broker binds one queue to the group exchange and publishes every message
+ * on the event bus with its routing key. The hub writes each message once into a ring buffer of
+ * the group and signals the clients of that resource, which read the ring from their own event
+ * loop. Readers do not gate the writer: a client that falls a whole ring behind skips ahead and
+ * the skipped messages count as dropped.
+ * </p>
+ * <p>
+ * The hub is shared by all API server verticles, each holding a reference released when it stops,
+ * and the last one closes it. Groups are opened and closed on the {@link SharedContext}, so their
+ * consumers outlive the verticle that opened them; everything a client touches runs on the
+ * context of the client.
+ * </p>
+ */
+public final class LiveDataHub {
+
+  private static final Logger LOGGER = LogManager.getLogger(LiveDataHub.class);
+  private static LiveDataHub instance;
+  private static int references;
+
+  private final Vertx vertx;
+  private final Future<Context> context;
+  private final int ringSize;
+  private final Map<String, Future<GroupFeed>> feeds = new HashMap<>();
+
+  private LiveDataHub(Vertx vertx, int ringSize) {
+    this.vertx = vertx;
+    this.context = SharedContext.get(vertx);
+    this.ringSize = 1 << (32 - Integer.numberOfLeadingZeros(Math.max(2, ringSize) - 1));
+  }
+
+  /**
+   * get the hub of this process, taking a reference on it.
+   *
+   * @param vertx vertx instance
+   * @param ringSize messages kept per resource group, rounded up to a power of two
+   * @return the hub
+   */
+  public static synchronized LiveDataHub getInstance(Vertx vertx, int ringSize) {
+    if (instance == null) {
+      instance = new LiveDataHub(vertx, ringSize);
+    }
+    references++;
+    return instance;
+  }
+
+  /**
+   * release a reference taken on the hub, closing it with the last one.
+   */
+  public void release() {
+    synchronized (LiveDataHub.class) {
+      if (instance != this || --references > 0) {
+        return;
+      }
+      instance = null;
+    }
+    close();
+  }
+
+  /**
+   * attach a client to a resource, opening the feed of its group if needed. Must be called on the
+   * context of the client connection.
+   *
+   * @param resourceId id of the resource
+   * @param connection client connection
+   * @return Future which completes once the client receives messages
+   */
+  public Future<Void> attach(String resourceId, StreamingConnection connection) {
+    Context readerContext = vertx.getOrCreateContext();
+    Promise<Void> promise = Promise.promise();
+    String group = resourceId.substring(0, resourceId.lastIndexOf("/"));
+    context.onFailure(cause -> readerContext.runOnContext(failed -> promise.fail(cause)));
+    onHubContext(v -> feeds.computeIfAbsent(group, this::open).onComplete(openHandler -> {
+      if (openHandler.failed()) {
+        feeds.remove(group);
+        readerContext.runOnContext(failed -> promise.fail(openHandler.cause()));
+        return;
+      }
+      GroupFeed feed = openHandler.result();
+      Reader reader = new Reader(feed, resourceId, connection, readerContext);
+      feed.readers.computeIfAbsent(resourceId, id -> new HashSet<>()).add(reader);
+      feed.readerCount++;
+      readerContext.runOnContext(attached -> {
+        connection.closeHandler(closed -> detach(reader));
+        connection.open();
+        promise.complete();
+      });
+    }));
+    return promise.future();
+  }
+
+  private Future<GroupFeed> open(String group) {
+    GroupFeed feed = new GroupFeed(group, RingBuffer.createSingleProducer(Slot::new, ringSize),
+        new StreamLease(vertx, LIVE_OPEN_ADDRESS, new JsonObject().put(ID, group)));
+    return feed.lease.open().map(address -> {
+      feed.consumer = vertx.eventBus().consumer(address, feed::publish);
+      LOGGER.debug("Info : live feed opened for " + group);
+      return feed;
+    }).onFailure(cause -> LOGGER.error("Error : opening live feed " + group + " - " + cause));
+  }
+
+  private void detach(Reader reader) {
+    reader.closed = true;
+    if (reader.dropped > 0) {
+      LOGGER.debug("Info : client on " + reader.resourceId + " dropped " + reader.dropped
+          + " messages");
+    }
+    onHubContext(v -> {
+      GroupFeed feed = reader.feed;
+      Set<Reader> readers = feed.readers.get(reader.resourceId);
+      if (readers == null || !readers.remove(reader)) {
+        return;
+      }
+      if (readers.isEmpty()) {
+        feed.readers.remove(reader.resourceId);
+      }
+      if (--feed.readerCount == 0) {
+        LOGGER.debug("Info : closing live feed " + feed.group);
+        feed.lease.close();
+        feed.consumer.unregister();
+        feeds.remove(feed.group);
+      }
+    });
+  }
+
+  /**
+   * close every client connection.
+   */
+  private void close() {
+    onHubContext(v -> {
+      for (Future<GroupFeed> feed : feeds.values()) {
+        feed.onSuccess(opened -> {
+          for (Set<Reader> readers : opened.readers.values()) {
+            for (Reader reader : readers) {
+              reader.context.runOnContext(closing -> reader.connection.close());
+            }
+          }
+        });
+      }
+    });
+  }
+
+  private void onHubContext(Handler<Void> task) {
+    context.onSuccess(hubContext -> hubContext.runOnContext(task));
+  }
+
+  /**
+   * a message as written into the ring, immutable so that a reader sees it whole.
+   */
+  private static final class LiveMessage {
+    private final long sequence;
+    private final String routingKey;
+    private final Buffer body;
+
+    private LiveMessage(long sequence, String routingKey, Buffer body) {
+      this.sequence = sequence;
+      this.routingKey = routingKey;
+      this.body = body;
+    }
+  }
+
+  private static final class Slot {
+    private volatile LiveMessage message;
+  }
+
+  /**
+   * the ring of a resource group. The event bus consumer is its only writer, the readers map is
+   * only touched on the context of the hub.
+   */
+  private static final class GroupFeed {
+    private final String group;
+    private final RingBuffer<Slot> ring;
+    private final StreamLease lease;
+    private final Map<String, Set<Reader>> readers = new HashMap<>();
+    private int readerCount;
+    private MessageConsumer<Buffer> consumer;
+
+    private GroupFeed(String group, RingBuffer<Slot> ring, StreamLease lease) {
+      this.group = group;
+      this.ring = ring;
+      this.lease = lease;
+    }
+
+    private void publish(Message<Buffer> message) {
+      String routingKey = message.headers().get(ROUTING_KEY);
+      long sequence = ring.next();
+      ring.get(sequence).message = new LiveMessage(sequence, routingKey, message.body());
+      ring.publish(sequence);
+      Set<Reader> targets = routingKey == null ? null : readers.get(routingKey);
+      if (targets != null) {
+        for (Reader reader : targets) {
+          reader.signal();
+        }
+      }
+    }
+  }
+
+  /**
+   * a client reading the ring of its group. The read position is only touched on the context of
+   * the client, signals coalesce into at most one pending drain.
+   */
+  private static final class Reader {
+    private final GroupFeed feed;
+    private final String resourceId;
+    private final StreamingConnection connection;
+    private final Context context;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private long sequence;
+    private long dropped;
+    private volatile boolean closed;
+
+    private Reader(GroupFeed feed, String resourceId, StreamingConnection connection,
+        Context context) {
+      this.feed = feed;
+      this.resourceId = resourceId;
+      this.connection = connection;
+      this.context = context;
+      this.sequence = feed.ring.getCursor() + 1;
+    }
+
+    private void signal() {
+      if (!closed && scheduled.compareAndSet(false, true)) {
+        context.runOnContext(v -> drain());
+      }
+    }
+
+    private void drain() {
+      scheduled.set(false);
+      RingBuffer<Slot> ring = feed.ring;
+      long cursor = ring.getCursor();
+      long oldest = cursor - ring.getBufferSize() + 1;
+      if (sequence < oldest) {
+        dropped += oldest - sequence;
+        sequence = oldest;
+      }
+      for (; sequence <= cursor && !closed; sequence++) {
+        LiveMessage message = ring.get(sequence).message;
+        if (message == null || message.sequence != sequence) {
+          /* overwritten by the writer while this reader was behind */
+          dropped++;
+        } else if (resourceId.equals(message.routingKey)) {
+          connection.offer(message.body);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package iudx.resource.server.apiserver.subscription;
+
+import static iudx.resource.server.apiserver.util.Constants.*;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * a stream opened on the data broker and the lease that keeps its queue consumer alive.
+ * <p>
+ * The lease is renewed periodically on the address given by the data broker. When a renewal
+ * fails, because the broker instance holding the lease is gone or dropped it, the stream is
+ * opened again. A reopened stream keeps its event bus address.
+ * </p>
+ */
+final class StreamLease {
+
+  private static final Logger LOGGER = LogManager.getLogger(StreamLease.class);
+
+  private final Vertx vertx;
+  private final String openAddress;
+  private final JsonObject request;
+  private String address;
+  private String leaseAddress;
+  private long renewTimer = -1;
+  private boolean closed;
+
+  StreamLease(Vertx vertx, String openAddress, JsonObject request) {
+    this.vertx = vertx;
+    this.openAddress = openAddress;
+    this.request = request;
+  }
+
+  /**
+   * open the stream and start renewing its lease.
+   *
+   * @return Future of the event bus address the stream is published on
+   */
+  Future<String> open() {
+    return request().map(opened -> {
+      long renewInterval = opened.getLong(STREAM_LEASE_TTL_KEY) / 3;
+      renewTimer = vertx.setPeriodic(renewInterval, timer -> renew());
+      return address;
+    });
+  }
+
+  private Future<JsonObject> request() {
+    Promise<JsonObject> promise = Promise.promise();
+    vertx.eventBus().<JsonObject>request(openAddress, request, replyHandler -> {
+      if (replyHandler.succeeded()) {
+        address = replyHandler.result().body().getString(STREAM_ADDRESS);
+        leaseAddress = replyHandler.result().body().getString(STREAM_LEASE_ADDRESS);
+        promise.complete(replyHandler.result().body());
+      } else {
+        promise.fail(replyHandler.cause());
+      }
+    });
+    return promise.future();
+  }
+
+  private void renew() {
+    vertx.eventBus().request(leaseAddress, address, renewHandler -> {
+      if (renewHandler.failed() && !closed) {
+        LOGGER.debug("Info : reopening stream " + address);
+        request();
+      }
+    });
+  }
+
+  /**
+   * stop renewing the lease, the data broker cancels the consumer once it expires.
+   */
+  void close() {
+    closed = true;
+    vertx.cancelTimer(renewTimer);
+  }
+}
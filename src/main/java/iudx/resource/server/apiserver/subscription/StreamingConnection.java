@@ -0,0 +1,179 @@
+package iudx.resource.server.apiserver.subscription;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.ServerWebSocket;
+
+/**
+ * a client connected to the streaming endpoint, over Server-Sent Events or WebSocket.
+ * <p>
+ * Messages are written while the connection accepts them. Once its write queue is full they wait
+ * in a bounded buffer until the connection drains, and the oldest are dropped when the buffer is
+ * full, so a slow client never holds back the others.
+ * </p>
+ */
+public abstract class StreamingConnection {
+
+  private final Deque<Buffer> pending = new ArrayDeque<>();
+  private final int capacity;
+  private long dropped;
+  private boolean draining;
+
+  StreamingConnection(int capacity) {
+    this.capacity = Math.max(1, capacity);
+  }
+
+  /**
+   * create a Server-Sent Events connection on an HTTP response.
+   *
+   * @param response response to stream to
+   * @param capacity messages buffered while the client is slow
+   * @return the connection
+   */
+  public static StreamingConnection sse(HttpServerResponse response, int capacity) {
+    return new SseConnection(response, capacity);
+  }
+
+  /**
+   * create a connection on an upgraded WebSocket.
+   *
+   * @param webSocket WebSocket to stream to
+   * @param capacity messages buffered while the client is slow
+   * @return the connection
+   */
+  public static StreamingConnection webSocket(ServerWebSocket webSocket, int capacity) {
+    return new WebSocketConnection(webSocket, capacity);
+  }
+
+  /**
+   * queue a message for the client.
+   *
+   * @param message message body
+   */
+  void offer(Buffer message) {
+    if (pending.size() == capacity) {
+      pending.poll();
+      dropped++;
+    }
+    pending.add(message);
+    flush();
+  }
+
+  long getDropped() {
+    return dropped;
+  }
+
+  private void flush() {
+    while (!pending.isEmpty() && !writeQueueFull()) {
+      send(pending.poll());
+    }
+    if (!pending.isEmpty() && !draining) {
+      draining = true;
+      drainHandler(v -> {
+        draining = false;
+        flush();
+      });
+    }
+  }
+
+  abstract void open();
+
+  abstract void send(Buffer message);
+
+  abstract boolean writeQueueFull();
+
+  abstract void drainHandler(Handler<Void> handler);
+
+  abstract void closeHandler(Handler<Void> handler);
+
+  abstract void close();
+
+  private static final class SseConnection extends StreamingConnection {
+    private static final Buffer DATA = Buffer.buffer("data: ");
+    private static final Buffer END = Buffer.buffer("\n\n");
+    private final HttpServerResponse response;
+
+    private SseConnection(HttpServerResponse response, int capacity) {
+      super(capacity);
+      this.response = response;
+    }
+
+    @Override
+    void open() {
+      /* no Connection header, it is forbidden over HTTP/2 and the default of HTTP/1.1 */
+      response.setChunked(true).putHeader("Content-Type", "text/event-stream")
+          .putHeader("Cache-Control", "no-cache").write(": stream opened\n\n");
+    }
+
+    @Override
+    void send(Buffer message) {
+      /* observations are single line JSON, so one data field carries the whole message */
+      response.write(Buffer.buffer(message.length() + 8).appendBuffer(DATA).appendBuffer(message)
+          .appendBuffer(END));
+    }
+
+    @Override
+    boolean writeQueueFull() {
+      return response.writeQueueFull();
+    }
+
+    @Override
+    void drainHandler(Handler<Void> handler) {
+      response.drainHandler(handler);
+    }
+
+    @Override
+    void closeHandler(Handler<Void> handler) {
+      response.closeHandler(handler);
+    }
+
+    @Override
+    void close() {
+      if (!response.ended() && !response.closed()) {
+        response.end();
+      }
+    }
+  }
+
+  private static final class WebSocketConnection extends StreamingConnection {
+    private final ServerWebSocket webSocket;
+
+    private WebSocketConnection(ServerWebSocket webSocket, int capacity) {
+      super(capacity);
+      this.webSocket = webSocket;
+    }
+
+    @Override
+    void open() {
+      /* the handshake is completed by the upgrade */
+    }
+
+    @Override
+    void send(Buffer message) {
+      webSocket.writeTextMessage(message.toString());
+    }
+
+    @Override
+    boolean writeQueueFull() {
+      return webSocket.writeQueueFull();
+    }
+
+    @Override
+    void drainHandler(Handler<Void> handler) {
+      webSocket.drainHandler(handler);
+    }
+
+    @Override
+    void closeHandler(Handler<Void> handler) {
+      webSocket.closeHandler(handler);
+    }
+
+    @Override
+    void close() {
+      webSocket.close();
+    }
+  }
+}
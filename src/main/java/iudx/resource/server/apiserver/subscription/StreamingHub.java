@@ -0,0 +1,114 @@
+package iudx.resource.server.apiserver.subscription;
+
+import static iudx.resource.server.apiserver.util.Constants.*;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * fans out the messages of streaming subscriptions to the clients of the streaming endpoint.
+ * <p>
+ * A subscription is consumed once per hub, however many clients follow it. The hub asks the data
+ * broker to consume the subscription queue, listens on the event bus address it is given, and
+ * renews the consumer lease while at least one client is connected. A hub belongs to one API
+ * server verticle and is only used from its event loop.
+ * </p>
+ */
+public class StreamingHub {
+
+  private static final Logger LOGGER = LogManager.getLogger(StreamingHub.class);
+
+  private final Vertx vertx;
+  private final Map<String, Future<Stream>> streams = new HashMap<>();
+
+  public StreamingHub(Vertx vertx) {
+    this.vertx = vertx;
+  }
+
+  /**
+   * attach a client to a subscription, opening the subscription stream if needed.
+   *
+   * @param subscriptionId id of a streaming subscription
+   * @param connection client connection
+   * @return Future which completes once the client receives messages
+   */
+  public Future<Void> attach(String subscriptionId, StreamingConnection connection) {
+    Promise<Void> promise = Promise.promise();
+    streams.computeIfAbsent(subscriptionId, this::open).onComplete(openHandler -> {
+      if (openHandler.failed()) {
+        streams.remove(subscriptionId);
+        promise.fail(openHandler.cause());
+        return;
+      }
+      Stream stream = openHandler.result();
+      stream.connections.add(connection);
+      connection.closeHandler(v -> detach(stream, connection));
+      connection.open();
+      LOGGER.debug("Info : " + stream.connections.size() + " clients on " + subscriptionId);
+      promise.complete();
+    });
+    return promise.future();
+  }
+
+  private Future<Stream> open(String subscriptionId) {
+    Stream stream = new Stream(subscriptionId, new StreamLease(vertx, STREAM_OPEN_ADDRESS,
+        new JsonObject().put(SUBSCRIPTION_ID, subscriptionId)));
+    return stream.lease.open().map(address -> {
+      stream.consumer = vertx.eventBus().consumer(address, message -> {
+        for (StreamingConnection connection : stream.connections) {
+          connection.offer(message.body());
+        }
+      });
+      return stream;
+    }).onFailure(
+        cause -> LOGGER.error("Error : opening stream " + subscriptionId + " - " + cause));
+  }
+
+  private void detach(Stream stream, StreamingConnection connection) {
+    stream.connections.remove(connection);
+    if (connection.getDropped() > 0) {
+      LOGGER.debug("Info : client on " + stream.subscriptionId + " dropped "
+          + connection.getDropped() + " messages");
+    }
+    if (stream.connections.isEmpty()) {
+      LOGGER.debug("Info : closing stream " + stream.subscriptionId);
+      stream.lease.close();
+      stream.consumer.unregister();
+      streams.remove(stream.subscriptionId);
+    }
+  }
+
+  /**
+   * close every client connection.
+   */
+  public void close() {
+    for (Future<Stream> stream : streams.values()) {
+      stream.onSuccess(opened -> {
+        for (StreamingConnection connection : new LinkedHashSet<>(opened.connections)) {
+          connection.close();
+        }
+      });
+    }
+  }
+
+  private static final class Stream {
+    private final String subscriptionId;
+    private final StreamLease lease;
+    private final Set<StreamingConnection> connections = new LinkedHashSet<>();
+    private MessageConsumer<Buffer> consumer;
+
+    private Stream(String subscriptionId, StreamLease lease) {
+      this.subscriptionId = subscriptionId;
+      this.lease = lease;
+    }
+  }
+}
@@ -25,6 +25,8 @@ public class Constants {
   public static final String NGSILD_TEMPORAL_URL = NGSILD_BASE_PATH + "/temporal/entities";
   public static final String NGSILD_SUBSCRIPTION_URL = NGSILD_BASE_PATH + "/subscription";
   public static final String NGSILD_POST_QUERY_PATH = NGSILD_BASE_PATH + "/entityOperations/query";
+  public static final String STREAM_PATH = "/stream";
+  public static final String LIVE_PATH = "/live";
 
   // IUDX management endpoints
   public static final String IUDX_MANAGEMENT_URL = "/management";
@@ -79,6 +81,10 @@ public class Constants {
   public static final String NGSILDQUERY_MAXDISTANCE = "maxdistance";
   public static final String NGSILDQUERY_MINDISTANCE = "mindistance";
   public static final String IUDXQUERY_OPTIONS = "options";
+  public static final String IUDXQUERY_AGGREGATE = "aggregate";
+  public static final String IUDXQUERY_PRECISION = "precision";
+  public static final String NGSILDQUERY_COUNT = "count";
+  public static final String IUDXQUERY_APPROXIMATE = "approximate";
   public static final String NGSILDQUERY_ENTITIES = "entities";
   public static final String NGSILDQUERY_GEOQ = "geoQ";
   public static final String NGSILDQUERY_TEMPORALQ = "temporalQ";
@@ -100,6 +106,7 @@ public class Constants {
 
   // request/response params
   public static final String CONTENT_TYPE = "content-type";
+  public static final String HEADER_RETRY_AFTER = "Retry-After";
   public static final String APPLICATION_JSON = "application/json";
   public static final String SUBSCRIPTION_ID = "subscriptionID";
   public static final String EXCHANGE_ID = "exId";
@@ -108,11 +115,16 @@ public class Constants {
   public static final String JSON_INSTANCEID = "instanceID";
   public static final String JSON_CONSUMER = "consumer";
   public static final String JSON_PROVIDER = "provider";
+  public static final String JSON_RATE_LIMIT = "rateLimit";
   public static final String JSON_TYPE = "type";
   public static final String JSON_NAME = "name";
   public static final String JSON_ENTITIES = "entities";
   public static final String JSON_ID = "id";
   public static final String JSON_ATTRIBUTE_FILTER = "attrs";
+  public static final String JSON_AGGREGATE = "aggregate";
+  public static final String JSON_PRECISION = "precision";
+  public static final String JSON_WITH_COUNT = "withCount";
+  public static final String JSON_APPROXIMATE = "approximate";
   public static final String JSON_NEAR = "near";
   public static final String JSON_LAT = "lat";
   public static final String JSON_LON = "lon";
@@ -199,6 +211,22 @@ public class Constants {
   public static final String MSG_SUB_TYPE_NOT_FOUND = "Subscription type not present in body";
   public static final String MSG_SUB_INVALID_TOKEN = "Invalid/no token found in header";
   public static final String MSG_BAD_QUERY="Bad query";
+  public static final String MSG_BULK_INVALID_PAYLOAD =
+      "Expected a non-empty array of entities with ids from a single resource group";
+  public static final String MSG_BULK_TOO_LARGE = "Too many entities in one request";
+  public static final String MSG_STREAM_NOT_OWNER = "Subscription belongs to another consumer";
+
+  // streaming endpoint
+  public static final String STREAM_OPEN_ADDRESS = "iudx.rs.broker.stream.open";
+  public static final String STREAM_ADDRESS = "address";
+  public static final String STREAM_LEASE_ADDRESS = "leaseAddress";
+  public static final String STREAM_LEASE_TTL_KEY = "leaseTtl";
+  public static final int DEFAULT_STREAM_BUFFER_SIZE = 256;
+  public static final String ROUTING_KEY = "routingKey";
+
+  // live endpoint
+  public static final String LIVE_OPEN_ADDRESS = "iudx.rs.broker.live.open";
+  public static final int DEFAULT_LIVE_RING_SIZE = 1024;
 
   // results
   public static final String SUCCCESS = "success";
@@ -211,6 +239,7 @@ public class Constants {
   public static final int VALIDATION_MAX_DAYS_INTERVAL_ALLOWED=10;
   public static final int VALIDATION_COORDINATE_PRECISION_ALLOWED=6;
   public static final int VALIDATIONS_MAX_ATTR_LENGTH=100;
+  public static final int VALIDATION_MAX_BULK_ENTITIES=5000;
   public static final int VALIDATION_ALLOWED_COORDINATES=10;
   public static final List<String> VALIDATION_ALLOWED_HEADERS=List.of("token","options");
   
@@ -0,0 +1,66 @@
+package iudx.resource.server.apiserver.util;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+
+/**
+ * the context of a verticle deployed once per process, for the state the API server verticles
+ * share.
+ * <p>
+ * Event bus consumers and timers belong to the deployment of the context they are registered on,
+ * and go away when it is undeployed. The shared verticle is deployed from a thread outside Vert.x,
+ * so it has no parent deployment and is not undeployed with the API server verticle that asked for
+ * it first.
+ * </p>
+ */
+public final class SharedContext {
+
+  private static final Logger LOGGER = LogManager.getLogger(SharedContext.class);
+
+  private static Vertx owner;
+  private static Future<Context> context;
+
+  private SharedContext() {}
+
+  /**
+   * get the shared context, deploying its verticle on the first call.
+   *
+   * @param vertx vertx instance
+   * @return Future of the context
+   */
+  public static synchronized Future<Context> get(Vertx vertx) {
+    if (context == null || owner != vertx) {
+      Promise<Context> promise = Promise.promise();
+      owner = vertx;
+      context = promise.future();
+      Thread deployer = new Thread(() -> vertx.deployVerticle(new SharedVerticle(promise),
+          deployHandler -> {
+            if (deployHandler.failed()) {
+              LOGGER.error("Error : shared context not deployed; " + deployHandler.cause());
+              promise.tryFail(deployHandler.cause());
+            }
+          }), "shared-context-deployer");
+      deployer.setDaemon(true);
+      deployer.start();
+    }
+    return context;
+  }
+
+  private static final class SharedVerticle extends AbstractVerticle {
+    private final Promise<Context> promise;
+
+    private SharedVerticle(Promise<Context> promise) {
+      this.promise = promise;
+    }
+
+    @Override
+    public void start() {
+      promise.complete(vertx.getOrCreateContext());
+    }
+  }
+}
@@ -4,7 +4,9 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
 import java.util.function.Function;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 
 public class Util {
   
@@ -27,4 +29,52 @@ public class Util {
     return uri;
   };
 
+  /**
+   * check whether a request body holds a JSON array, without decoding it.
+   * 
+   * @param body request body
+   * @return true if the first non-whitespace character opens an array
+   */
+  public static boolean isJsonArray(Buffer body) {
+    if (body == null) {
+      return false;
+    }
+    for (int i = 0; i < body.length(); i++) {
+      byte b = body.getByte(i);
+      if (!Character.isWhitespace(b)) {
+        return b == '[';
+      }
+    }
+    return false;
+  }
+
+  /**
+   * get the resource group shared by all entities of a bulk request.
+   * 
+   * @param entities array of entities, each with an id
+   * @return resource group id, or null if the array is empty, malformed or spans groups
+   */
+  public static String getResourceGroup(JsonArray entities) {
+    String resourceGroup = null;
+    if (entities == null || entities.isEmpty()) {
+      return null;
+    }
+    for (Object entity : entities) {
+      if (!(entity instanceof JsonObject)) {
+        return null;
+      }
+      String id = ((JsonObject) entity).getString("id");
+      if (id == null || id.lastIndexOf('/') < 0) {
+        return null;
+      }
+      String group = id.substring(0, id.lastIndexOf('/'));
+      if (resourceGroup == null) {
+        resourceGroup = group;
+      } else if (!resourceGroup.equals(group)) {
+        return null;
+      }
+    }
+    return resourceGroup;
+  }
+
 }
@@ -0,0 +1,45 @@
+package iudx.resource.server.apiserver.validation;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.vertx.core.Handler;
+import io.vertx.ext.web.RoutingContext;
+import io.vertx.ext.web.api.validation.ValidationException;
+import iudx.resource.server.apiserver.query.CompiledQuery;
+
+/**
+ * compiles the query string of an entities or temporal request, validating it on the way, and
+ * puts the {@link CompiledQuery} in the routing context for the handlers down the route. An
+ * invalid query fails the route with the {@link ValidationException}, answered by the
+ * {@link ValidationFailureHandler}.
+ */
+public class QueryCompilerHandler implements Handler<RoutingContext> {
+
+  private static final Logger LOGGER = LogManager.getLogger(QueryCompilerHandler.class);
+
+  public static final String COMPILED_QUERY = "compiledQuery";
+
+  private final boolean temporal;
+
+  private QueryCompilerHandler(boolean temporal) {
+    this.temporal = temporal;
+  }
+
+  public static QueryCompilerHandler create(boolean temporal) {
+    return new QueryCompilerHandler(temporal);
+  }
+
+  @Override
+  public void handle(RoutingContext context) {
+    CompiledQuery query;
+    try {
+      query = CompiledQuery.fromQueryString(context.request().query(), temporal);
+    } catch (ValidationException ex) {
+      LOGGER.debug("Info : invalid query, " + ex.parameterName() + " : " + ex.getMessage());
+      context.fail(ex);
+      return;
+    }
+    context.put(COMPILED_QUERY, query);
+    context.next();
+  }
+}
@@ -17,6 +17,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Timer;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
@@ -31,6 +32,11 @@ import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.ext.web.client.predicate.ResponsePredicate;
 import iudx.resource.server.databroker.util.Util;
+import iudx.resource.server.metrics.ServerMetrics;
+import iudx.resource.server.resilience.BackendGuard;
+import iudx.resource.server.resilience.BackendUnavailableException;
+import iudx.resource.server.tracing.Span;
+import iudx.resource.server.tracing.Tracing;
 
 /**
  * The Authentication Service Implementation.
@@ -58,6 +64,8 @@ public class AuthenticationServiceImpl implements AuthenticationService {
   private static String catPath;
   private String resourceServerId;
   private WebClient catWebClient;
+  private final BackendGuard authGuard;
+  private final BackendGuard catalogueGuard;
 
   /**
    * Cache/'s will hold at-most 1000 objects and only for a duration of TIP_CACHE_TIMEOUT_AMOUNT
@@ -65,16 +73,21 @@ public class AuthenticationServiceImpl implements AuthenticationService {
    */
   // Cache for all token.
   // what if token is revoked ?
-  private final Cache<String, JsonObject> tipCache = CacheBuilder.newBuilder().maximumSize(1000)
-      .expireAfterAccess(Constants.CACHE_TIMEOUT_AMOUNT, TimeUnit.MINUTES).build();
+  private final Cache<String, JsonObject> tipCache = ServerMetrics.monitor(
+      CacheBuilder.newBuilder().maximumSize(1000).recordStats()
+          .expireAfterAccess(Constants.CACHE_TIMEOUT_AMOUNT, TimeUnit.MINUTES).build(),
+      "tipCache");
   // resourceGroupCache will contains ACL info about all resource group in a resource server
-  private final Cache<String, String> resourceGroupCache =
-      CacheBuilder.newBuilder().maximumSize(1000)
-          .expireAfterAccess(Constants.CACHE_TIMEOUT_AMOUNT, TimeUnit.MINUTES).build();
+  private final Cache<String, String> resourceGroupCache = ServerMetrics.monitor(
+      CacheBuilder.newBuilder().maximumSize(1000).recordStats()
+          .expireAfterAccess(Constants.CACHE_TIMEOUT_AMOUNT, TimeUnit.MINUTES).build(),
+      "resourceGroupCache");
   // resourceIdCache will contains info about resources available(& their ACL) in resource server.
   // what if resource id ACL is changed ?
-  private final Cache<String, String> resourceIdCache = CacheBuilder.newBuilder().maximumSize(1000)
-      .expireAfterAccess(Constants.CACHE_TIMEOUT_AMOUNT, TimeUnit.MINUTES).build();
+  private final Cache<String, String> resourceIdCache = ServerMetrics.monitor(
+      CacheBuilder.newBuilder().maximumSize(1000).recordStats()
+          .expireAfterAccess(Constants.CACHE_TIMEOUT_AMOUNT, TimeUnit.MINUTES).build(),
+      "resourceIdCache");
 
   /**
    * This is a constructor which is used by the DataBroker Verticle to instantiate a RabbitMQ
@@ -92,6 +105,8 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     catPort = Integer.parseInt(config.getString("catServerPort"));
     catPath = Constants.CAT_RSG_PATH;
     resourceServerId = config.getString("resourceServerId");
+    authGuard = BackendGuard.of(ServerMetrics.BACKEND_AUTH, config);
+    catalogueGuard = BackendGuard.of(ServerMetrics.BACKEND_CATALOGUE, config);
 
     WebClientOptions options =
         new WebClientOptions().setTrustAll(true).setVerifyHost(false).setSsl(true);
@@ -266,6 +281,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
             result.put("status", "error");
             result.put("message", failure.getMessage());
             LOGGER.debug("RESULT : " + failure.getCause());
+            handler.handle(Future.failedFuture(result.toString()));
           });
         } else {
           // Based on API perform TIP.
@@ -353,8 +369,23 @@ public class AuthenticationServiceImpl implements AuthenticationService {
       // call cat-server only when token not found in cache.
       JsonObject body = new JsonObject();
       body.put("token", token);
-      webClient.post(443, config.getString(Constants.AUTH_SERVER_HOST), Constants.AUTH_TIP_PATH)
+      if (!authGuard.tryAcquire()) {
+        promise.fail(authGuard.unavailable());
+        return promise.future();
+      }
+      long startNanos = System.nanoTime();
+      Timer.Sample sample = ServerMetrics.start();
+      Span span = Tracing.start("auth.tip");
+      int authPort = Integer.parseInt(config.getString(Constants.AUTH_SERVER_PORT, "443"));
+      webClient.post(authPort, config.getString(Constants.AUTH_SERVER_HOST),
+          Constants.AUTH_TIP_PATH).timeout(authGuard.getTimeoutMillis())
           .expect(ResponsePredicate.JSON).sendJsonObject(body, httpResponseAsyncResult -> {
+            authGuard.release(startNanos, httpResponseAsyncResult.failed()
+                || httpResponseAsyncResult.result().statusCode() >= 500);
+            ServerMetrics.recordBackend(sample, ServerMetrics.BACKEND_AUTH, "tip",
+                httpResponseAsyncResult.succeeded()
+                    && httpResponseAsyncResult.result().statusCode() == HttpStatus.SC_OK);
+            span.end();
             if (httpResponseAsyncResult.failed()) {
               promise.fail(httpResponseAsyncResult.cause());
               return;
@@ -548,7 +579,8 @@ public class AuthenticationServiceImpl implements AuthenticationService {
           }).onFailure(handler -> {
             LOGGER.error("cat response failed for Id : (" + rId + ")" + handler.getCause());
             result.put(rId, false);
-            promise.fail("Not Found " + rId);
+            promise.fail(BackendUnavailableException.isUnavailable(handler.getMessage())
+                ? handler.getMessage() : "Not Found " + rId);
           });
         }
       }
@@ -586,9 +618,20 @@ public class AuthenticationServiceImpl implements AuthenticationService {
       promise.complete(groupACL);
     } else {
       LOGGER.debug("Info : cache miss");
-      catWebClient.get(catPort, catHost, catPath).addQueryParam("property", "[id]")
+      if (!catalogueGuard.tryAcquire()) {
+        promise.fail(catalogueGuard.unavailable());
+        return promise.future();
+      }
+      long startNanos = System.nanoTime();
+      Timer.Sample sample = ServerMetrics.start();
+      catWebClient.get(catPort, catHost, catPath).timeout(catalogueGuard.getTimeoutMillis())
+          .addQueryParam("property", "[id]")
           .addQueryParam("value", "[[" + groupId + "]]").addQueryParam("filter", "[accessPolicy]")
           .expect(ResponsePredicate.JSON).send(httpResponseAsyncResult -> {
+            catalogueGuard.release(startNanos, httpResponseAsyncResult.failed()
+                || httpResponseAsyncResult.result().statusCode() >= 500);
+            ServerMetrics.recordBackend(sample, ServerMetrics.BACKEND_CATALOGUE, "groupPolicy",
+                httpResponseAsyncResult.succeeded());
             if (httpResponseAsyncResult.failed()) {
               LOGGER.error(httpResponseAsyncResult.cause());
               promise.fail("Resource not found");
@@ -633,9 +676,20 @@ public class AuthenticationServiceImpl implements AuthenticationService {
       promise.complete(true);
     } else {
       LOGGER.debug("Info : Cache miss : call cat server");
-      catWebClient.get(catPort, catHost, catPath).addQueryParam("property", "[id]")
+      if (!catalogueGuard.tryAcquire()) {
+        promise.fail(catalogueGuard.unavailable());
+        return promise.future();
+      }
+      long startNanos = System.nanoTime();
+      Timer.Sample sample = ServerMetrics.start();
+      catWebClient.get(catPort, catHost, catPath).timeout(catalogueGuard.getTimeoutMillis())
+          .addQueryParam("property", "[id]")
           .addQueryParam("value", "[[" + id + "]]").addQueryParam("filter", "[id]")
           .expect(ResponsePredicate.JSON).send(responseHandler -> {
+            catalogueGuard.release(startNanos, responseHandler.failed()
+                || responseHandler.result().statusCode() >= 500);
+            ServerMetrics.recordBackend(sample, ServerMetrics.BACKEND_CATALOGUE, "resourceExists",
+                responseHandler.succeeded());
             if (responseHandler.failed()) {
               promise.fail("false");
             }
@@ -935,7 +989,13 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         promise.fail(result.toString());
       }
     }
-    return promise.future();
+    return promise.future().map(access -> withRateLimit(access, result));
+  }
+
+  /* a rate limit granted with the token is passed on, the API server enforces it */
+  private JsonObject withRateLimit(JsonObject access, JsonObject tipResponse) {
+    JsonObject rateLimit = tipResponse.getJsonObject(Constants.JSON_RATE_LIMIT);
+    return rateLimit == null ? access : access.put(Constants.JSON_RATE_LIMIT, rateLimit);
   }
 
   private List<String> extractAllowedIds(JsonObject json) {
@@ -10,6 +10,7 @@ public class Constants {
   public static final String KEYSTORE_PATH = "keystore";
   public static final String KEYSTORE_PASSWORD = "keystorePassword";
   public static final String AUTH_SERVER_HOST = "authServerHost";
+  public static final String AUTH_SERVER_PORT = "authServerPort";
   public static final String AUTH_CERTINFO_PATH = "/auth/v1/certificate-info";
   public static final String PUBLIC_TOKEN = "public";
   public static final List<String> OPEN_ENDPOINTS =
@@ -29,6 +30,7 @@ public class Constants {
   public static final String SERVER_MODE = "serverMode";
   public static final String JSON_CONSUMER = "consumer"; 
   public static final String JSON_PROVIDER = "provider"; 
+  public static final String JSON_RATE_LIMIT = "rateLimit";
   public static final String JSON_TEST_CONSUMER = "vasanth.rajaraman@datakaveri.org";
   public static final String JSON_TEST_PROVIDER_SHA = "datakaveri.org/3ae88e7ba006938ffc38203d326b1711b892226d";
   public static final String JSON_IUDX_ADMIN_SHA = "datakaveri.org/27E503DA0BDDA6EFAE3A52B3EF423C1F9005657A";
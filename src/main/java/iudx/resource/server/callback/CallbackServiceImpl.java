@@ -1,9 +1,12 @@
 package iudx.resource.server.callback;
 
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.HashMap;
 import org.apache.http.HttpStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import io.micrometer.core.instrument.Timer;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
@@ -24,6 +27,7 @@ import io.vertx.sqlclient.PoolOptions;
 import io.vertx.sqlclient.Row;
 import io.vertx.sqlclient.RowSet;
 import io.vertx.sqlclient.SqlConnection;
+import iudx.resource.server.metrics.ServerMetrics;
 
 /**
  * <h1>Callback Service Service Implementation.</h1>
@@ -308,9 +312,14 @@ public class CallbackServiceImpl implements CallbackService {
                     requestObj.put(Constants.CURRENT_MESSAGE_JSON_OBJECT, currentBodyJsonObj);
 
                     /* Send data to callback Url */
+                    Timer.Sample sample = ServerMetrics.start();
+                    JsonObject deliveredJsonObj = currentBodyJsonObj;
                     Future<JsonObject> result = sendDataToCallBackSubscriber(requestObj);
                     result.onComplete(resultHandler -> {
+                      ServerMetrics.recordBackend(sample, ServerMetrics.BACKEND_CALLBACK,
+                          "deliver", resultHandler.succeeded());
                       if (resultHandler.succeeded()) {
+                        recordDeliveryLag(deliveredJsonObj);
                         LOGGER.info(Constants.CALLBACK_URL_RESPONSE + Constants.COLON
                             + resultHandler.result());
                         finalResponse.put(Constants.SUCCESS,
@@ -356,6 +365,20 @@ public class CallbackServiceImpl implements CallbackService {
     return promise.future();
   }
 
+  /* time from the observation to its delivery, skipped when the message has no valid time */
+  private void recordDeliveryLag(JsonObject message) {
+    String observationTime = message.getString(Constants.OBSERVATION_DATE_TIME);
+    if (observationTime == null) {
+      return;
+    }
+    try {
+      ServerMetrics.recordCallbackLag(System.currentTimeMillis()
+          - OffsetDateTime.parse(observationTime).toInstant().toEpochMilli());
+    } catch (DateTimeParseException e) {
+      LOGGER.debug(Constants.ERROR + Constants.COLON + e.getMessage());
+    }
+  }
+
   @Override
   public CallbackService sendDataToCallBackSubscriber(JsonObject request,
       Handler<AsyncResult<JsonObject>> handler) {
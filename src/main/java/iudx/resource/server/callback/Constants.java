@@ -96,4 +96,5 @@ public class Constants {
   public static final String CONNECT_TO_CALLBACK_URL_FAIL = "Failed to connect callbackUrl";
   public static final String NO_CALLBACK_URL_FOR_ROUTING_KEY =
       "No callBackUrl exist for routing key";
+  public static final String OBSERVATION_DATE_TIME = "observationDateTime";
 }
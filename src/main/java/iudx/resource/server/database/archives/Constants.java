@@ -24,12 +24,19 @@ public class Constants {
   public static final String VARANASI_TEST_COUNT_INDEX = "varanasi/_count";
   public static final String LATEST_RESOURCE_INDEX = "latest/_mget";
   public static final String SOURCE_FILTER_KEY = "_source";
+  public static final String INCLUDES_KEY = "includes";
+  public static final String EXCLUDES_KEY = "excludes";
   public static final String RANGE_KEY = "range";
   public static final String TERM_KEY = "term";
   public static final String TERMS_KEY = "terms";
   public static final String FILTER_PATH = "filter_path";
   public static final String FILTER_PATH_VAL = "took,hits.hits._source";
   public static final String FILTER_PATH_VAL_LATEST = "docs._source";
+  public static final String FILTER_PATH_VAL_AGGREGATION = "took,aggregations.grid.buckets";
+  public static final String FILTER_PATH_VAL_WITH_TOTAL = "took,hits.total,hits.hits._source";
+  public static final String FILTER_PATH_VAL_TOTAL = "took,hits.total";
+  public static final String FILTER_PATH_VAL_STATS =
+      "took,hits.total,aggregations.first.value,aggregations.last.value";
   public static final String SIZE_KEY = "size";
   public static final String GREATER_THAN = "gt";
   public static final String LESS_THAN = "lt";
@@ -37,14 +44,18 @@ public class Constants {
   public static final String LESS_THAN_EQ = "lte";
   public static final String MUST_NOT = "must_not";
   public static final String REQUEST_GET = "GET";
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
   public static final String HITS = "hits";
   public static final String SEARCH_KEY = "search";
   public static final String ERROR = "Error";
   public static final String COUNT = "count";
+  public static final String TOOK = "took";
   public static final String DOC_ID = "_id";
   public static final String DOCS_KEY = "docs";
   public static final String SEARCH_REQ_PARAM = "/_search";
   public static final String COUNT_REQ_PARAM = "/_count";
+  public static final String FIELD_CAPS_REQ_PARAM = "/_field_caps";
   public static final String TIME_FIELD_DB = "observationDateTime";
   /* Request Params */
   /* Temporal */
@@ -68,6 +79,35 @@ public class Constants {
   public static final String BBOX = "bbox";
   /* Response Filter */
   public static final String RESPONSE_ATTRS = "attrs";
+  /* Geo grid aggregation */
+  public static final String AGGREGATE = "aggregate";
+  public static final String PRECISION = "precision";
+  public static final String GRID_FIELD = "gridField";
+  public static final String GRID_SIZE = "gridSize";
+  public static final String GRID_AGGREGATION = "grid";
+  public static final String AGGS_KEY = "aggs";
+  public static final String AGGREGATIONS = "aggregations";
+  public static final String BUCKETS = "buckets";
+  public static final String DOC_COUNT = "doc_count";
+  public static final String FIELD_KEY = "field";
+  public static final String STATS_KEY = "stats";
+  public static final String CELL_KEY = "cell";
+  public static final String FIELDS_KEY = "fields";
+  /* Count */
+  public static final String WITH_COUNT = "withCount";
+  public static final String APPROXIMATE = "approximate";
+  public static final String TRACK_TOTAL_HITS = "track_total_hits";
+  public static final String TOTAL_KEY = "total";
+  public static final String RELATION_KEY = "relation";
+  public static final String RELATION_EQ = "eq";
+  public static final String TOTAL_HITS = "totalHits";
+  public static final String TOTAL_HITS_RELATION = "totalHitsRelation";
+  /* Query cost */
+  public static final String WINDOW_DAYS = "windowDays";
+  public static final String FIRST_KEY = "first";
+  public static final String LAST_KEY = "last";
+  public static final String MIN_KEY = "min";
+  public static final String MAX_KEY = "max";
   /* Attribute */
   public static final String ATTRIBUTE_QUERY_KEY = "attr-query";
   public static final String ATTRIBUTE_KEY = "attribute";
@@ -91,7 +131,11 @@ public class Constants {
   public static final String MISSING_RESPONSE_FILTER_FIELDS = "Missing/Invalid responseFilter parameters";
   public static final String MISSING_GEO_FIELDS = "Missing/Invalid geo parameters";
   public static final String COORDINATE_MISMATCH = "Coordinate mismatch (Polygon)";
-  public static final String COUNT_UNSUPPORTED = "Count is not supported with filtering";
+  public static final String GRID_FIELD_NOT_CONFIGURED =
+      "Geo grid aggregation is not configured on this server";
+  public static final String NOT_NUMERIC_ATTRIBUTE = "Stats only of numeric attributes, not: ";
+  public static final String QUERY_TOO_EXPENSIVE =
+      "Time window too large for the data of the resource, days allowed: ";
   public static final String EMPTY_RESPONSE = "Empty response";
   public static final String DB_ERROR = "DB request has failed";
   public static final String DB_ERROR_2XX = "Status code is not 2xx";
@@ -138,6 +182,7 @@ public class Constants {
   public static final String PATH_PARAM = "pathParam";
   public static final String GROUP = "group";
   public static final String INVALID_LATEST_QUERY = "invalid latest params";
+  public static final String LATEST_ATTRIBUTE_REGEX = "^[A-Za-z_][A-Za-z0-9_]*$";
   public static final String ATTRIBUTE_LIST_NOT_FOUND = "key [attributeList] not found";
   public static final String REDIS_ERROR = "Redis Error!";
   public static final String INVALID_OPTIONS = "invalid options for latest";
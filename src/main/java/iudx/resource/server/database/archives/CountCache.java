@@ -0,0 +1,103 @@
+package iudx.resource.server.database.archives;
+
+import static iudx.resource.server.database.archives.Constants.*;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.vertx.core.json.JsonObject;
+import iudx.resource.server.metrics.ServerMetrics;
+
+/**
+ * The Count Cache.
+ * <h1>Count Cache</h1>
+ * <p>
+ * Caches the exact number of documents matching a query over a closed window of history, one
+ * ending before now by more than the ingestion lag, which no longer changes. The key is the index
+ * and the filter of the decoded query, the same for a count query and for a search query asking for
+ * its count, so either of them fills the cache for both. It is configured by the countCache block
+ * of the database verticle:
+ * </p>
+ * <ul>
+ * <li>maxSize : most counts kept (default 10000)</li>
+ * <li>ttlMinutes : time a count is kept, for late corrections of the data (default 1440)</li>
+ * <li>immutableAfterMinutes : age of a window end after which its data is complete (default 60)
+ * </li>
+ * <li>approximateThreshold : hits counted exactly when the caller allows an approximate count
+ * (default 10000)</li>
+ * </ul>
+ */
+public class CountCache {
+
+  private final Cache<String, Long> counts;
+  private final long immutableAfterMillis;
+  private final int approximateThreshold;
+
+  /**
+   * create the cache from its configuration.
+   *
+   * @param config the countCache block
+   */
+  public CountCache(JsonObject config) {
+    counts = ServerMetrics.monitor(CacheBuilder.newBuilder()
+        .maximumSize(config.getLong("maxSize", 10000L))
+        .expireAfterWrite(config.getLong("ttlMinutes", 1440L), TimeUnit.MINUTES)
+        .recordStats().build(), "countCache");
+    immutableAfterMillis =
+        TimeUnit.MINUTES.toMillis(config.getLong("immutableAfterMinutes", 60L));
+    approximateThreshold = config.getInteger("approximateThreshold", 10000);
+  }
+
+  public int getApproximateThreshold() {
+    return approximateThreshold;
+  }
+
+  /**
+   * get the key of a query, null when its window is still open and its count can change.
+   *
+   * @param index index of the resource group
+   * @param request request received from the ApiServerVerticle
+   * @param query decoded query
+   * @return the key, or null when the count is not to be cached
+   */
+  public String key(String index, JsonObject request, JsonObject query) {
+    if (!isClosedWindow(request)) {
+      return null;
+    }
+    return index + '|' + query.getJsonObject(QUERY_KEY).encode();
+  }
+
+  public Long get(String key) {
+    return key == null ? null : counts.getIfPresent(key);
+  }
+
+  public void put(String key, long count) {
+    if (key != null) {
+      counts.put(key, count);
+    }
+  }
+
+  /* a temporal query ending in the past, the time limit of other queries is relative to now */
+  private boolean isClosedWindow(JsonObject request) {
+    String searchType = request.getString(SEARCH_TYPE);
+    String timeRelation = request.getString(REQ_TIMEREL);
+    if (searchType == null || !searchType.matches(TEMPORAL_SEARCH_REGEX) || timeRelation == null) {
+      return false;
+    }
+    String end;
+    if (DURING.equalsIgnoreCase(timeRelation)) {
+      end = request.getString(END_TIME);
+    } else if (BEFORE.equalsIgnoreCase(timeRelation) || TEQUALS.equalsIgnoreCase(timeRelation)) {
+      end = request.getString(TIME_KEY);
+    } else {
+      return false;
+    }
+    try {
+      return end != null && ZonedDateTime.parse(end).toInstant().toEpochMilli()
+          < System.currentTimeMillis() - immutableAfterMillis;
+    } catch (DateTimeParseException ex) {
+      return false;
+    }
+  }
+}
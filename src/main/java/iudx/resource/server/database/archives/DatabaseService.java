@@ -49,6 +49,18 @@ public interface DatabaseService {
   @Fluent
   DatabaseService countQuery(JsonObject request, Handler<AsyncResult<JsonObject>> handler);
 
+  /**
+   * The aggregationQuery implements the geo grid aggregation operation with the database.
+   * 
+   * @param request which is a JsonObject
+   * @param handler which is a Request Handler
+   * @return DatabaseService which is a Service
+   */
+
+  @Fluent
+  DatabaseService aggregationQuery(JsonObject request,
+      Handler<AsyncResult<JsonObject>> handler);
+
   /**
    * The create implements the count operation with the database.
    * @param client RestClient to perform ES queries.
@@ -3,13 +3,19 @@ package iudx.resource.server.database.archives;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import static iudx.resource.server.database.archives.Constants.*;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import iudx.resource.server.geo.GeometryPreprocessor;
+import iudx.resource.server.tracing.Span;
+import iudx.resource.server.tracing.Tracing;
 
 /**
  * The Database Service Implementation.
@@ -26,19 +32,47 @@ import org.apache.logging.log4j.Logger;
 public class DatabaseServiceImpl implements DatabaseService {
 
   private static final Logger LOGGER = LogManager.getLogger(DatabaseServiceImpl.class);
+  private static final Set<String> NUMERIC_TYPES = Set.of("long", "integer", "short", "byte",
+      "double", "float", "half_float", "scaled_float");
   private final ElasticClient client;
-  private JsonObject query;
-  private QueryDecoder queryDecoder = new QueryDecoder();
-  private ResponseBuilder responseBuilder;
+  private final QueryDecoder queryDecoder;
+  private final CountCache countCache;
+  private final QueryCostEstimator costEstimator;
   private String timeLimit;
+  private final String gridField;
+  private final int gridSize;
 
   public DatabaseServiceImpl(ElasticClient client, String timeLimit) {
+    this(client, timeLimit, new JsonObject());
+  }
+
+  /**
+   * create the service with the preprocessing of the polygon and line geo-queries, the response
+   * projection, the geo grid aggregation, the count cache and the query cost estimator, as
+   * configured by the geoPreprocessing, projection, geoAggregation, countCache and queryCost
+   * blocks.
+   *
+   * @param client Elasticsearch client
+   * @param timeLimit time limit of the queries, as configured
+   * @param config config of the database verticle
+   */
+  public DatabaseServiceImpl(ElasticClient client, String timeLimit, JsonObject config) {
     this.client = client;
     this.timeLimit = timeLimit;
+    this.queryDecoder =
+        new QueryDecoder(GeometryPreprocessor.create(config.getJsonObject("geoPreprocessing")),
+            ResponseProjection.create(config.getJsonObject("projection")));
+    JsonObject geoAggregation = config.getJsonObject("geoAggregation", new JsonObject());
+    this.gridField = geoAggregation.getString("field");
+    this.gridSize = geoAggregation.getInteger("maxCells", 10000);
+    this.countCache = new CountCache(config.getJsonObject("countCache", new JsonObject()));
+    this.costEstimator = new QueryCostEstimator(client, config.getJsonObject("queryCost"));
   }
 
   /**
-   * Performs a ElasticSearch search query using the low level REST client.
+   * Performs a ElasticSearch search query using the low level REST client. The total hits are
+   * counted along with the page when asked for with withCount, served from the count cache when
+   * known. The time window is limited by the query cost estimator.
    * 
    * @param request Json object received from the ApiServerVerticle
    * @param handler Handler to return database response in case of success and appropriate error
@@ -54,55 +88,43 @@ public class DatabaseServiceImpl implements DatabaseService {
     // TODO : only for testing comment after testing.
     request.put("isTest", true);
 
-    if (!request.containsKey(ID)) {
-      LOGGER.debug("Info: " + ID_NOT_FOUND);
-      responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400).setMessage(ID_NOT_FOUND);
-      handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
-      return null;
-    }
-
-    if (request.getJsonArray(ID).isEmpty()) {
-      LOGGER.debug("Info: " + EMPTY_RESOURCE_ID);
-      responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400)
-          .setMessage(EMPTY_RESOURCE_ID);
-      handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
+    String error = requestError(request);
+    if (error != null) {
+      handler.handle(Future.failedFuture(failure(error)));
       return null;
     }
 
-    if (!request.containsKey(SEARCH_TYPE)) {
-      LOGGER.debug("Info: " + SEARCHTYPE_NOT_FOUND);
-      responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400)
-          .setMessage(SEARCHTYPE_NOT_FOUND);
-      handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
-      return null;
+    String index = index(request);
+    LOGGER.debug("Index name: " + index);
+    if (!LATEST_SEARCH.equalsIgnoreCase(request.getString(SEARCH_TYPE))) {
+      String costError = costEstimator.limit(index, request);
+      if (costError != null) {
+        handler.handle(Future.failedFuture(failure(costError)));
+        return null;
+      }
     }
-
-    if (request.getJsonArray(ID).getString(0).split("/").length != 5) {
-      LOGGER.error("Malformed ID: " + request.getJsonArray(ID).getString(0));
-      responseBuilder =
-          new ResponseBuilder(FAILED).setTypeAndTitle(400)
-              .setMessage(MALFORMED_ID + request.getJsonArray(ID));
-      handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
-      return null;
+    boolean withCount = request.getBoolean(WITH_COUNT, false);
+    if (withCount) {
+      request.put(TRACK_TOTAL_HITS, request.getBoolean(APPROXIMATE, false)
+          ? countCache.getApproximateThreshold() : true);
     }
 
-    List<String> splitId = new LinkedList<>(Arrays.asList(request.getJsonArray(ID)
-        .getString(0).split("/")));
-    splitId.remove(splitId.size() - 1);
-    String index = String.join("__", splitId);
-    index = index.concat(SEARCH_REQ_PARAM);
-    LOGGER.debug("Index name: " + index);
-
-    query = queryDecoder.queryDecoder(request);
+    Span decodeSpan = Tracing.start("queryDecoder");
+    JsonObject query = queryDecoder.queryDecoder(request);
+    decodeSpan.end();
     if (query.containsKey(ERROR)) {
       LOGGER.error("Fail: Query returned with an error: " + query.getString(ERROR));
-      responseBuilder =
-          new ResponseBuilder(FAILED).setTypeAndTitle(400)
-              .setMessage(query.getString(ERROR));
-      handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
+      handler.handle(Future.failedFuture(failure(query.getString(ERROR))));
       return null;
     }
 
+    String countKey = withCount ? countCache.key(index, request, query) : null;
+    Long cachedCount = countCache.get(countKey);
+    if (cachedCount != null) {
+      // the count is known, Elasticsearch only fetches the page
+      query.put(TRACK_TOTAL_HITS, false);
+    }
+
     LOGGER.debug("Info: Query constructed: " + query.toString());
     if (LATEST_SEARCH.equalsIgnoreCase(request.getString(SEARCH_TYPE))) {
       client.searchAsync(LATEST_RESOURCE_INDEX, FILTER_PATH_VAL_LATEST, query.toString(),
@@ -116,11 +138,20 @@ public class DatabaseServiceImpl implements DatabaseService {
             }
           });
     } else {
-      client.searchAsync(index, FILTER_PATH_VAL, query.toString(),
+      String filterPath =
+          withCount && cachedCount == null ? FILTER_PATH_VAL_WITH_TOTAL : FILTER_PATH_VAL;
+      client.searchAsync(index.concat(SEARCH_REQ_PARAM), filterPath, query.toString(),
           searchRes -> {
           if (searchRes.succeeded()) {
             LOGGER.debug("Success: Successful DB request");
-            handler.handle(Future.succeededFuture(searchRes.result()));
+            JsonObject result = searchRes.result();
+            if (cachedCount != null) {
+              result.put(TOTAL_HITS, cachedCount);
+            } else if (result.containsKey(TOTAL_HITS)
+                && !result.containsKey(TOTAL_HITS_RELATION)) {
+              countCache.put(countKey, result.getLong(TOTAL_HITS));
+            }
+            handler.handle(Future.succeededFuture(result));
           } else {
             LOGGER.error("Fail: DB Request;" + searchRes.cause().getMessage());
             handler.handle(Future.failedFuture(searchRes.cause().getMessage()));
@@ -131,7 +162,9 @@ public class DatabaseServiceImpl implements DatabaseService {
   }
 
   /**
-   * Performs a ElasticSearch count query using the low level REST client.
+   * Performs a ElasticSearch count query using the low level REST client. The count of a closed
+   * window is served from the count cache, and counted up to a threshold by a search of size 0
+   * when the caller allows an approximate count.
    * 
    * @param request Json object received from the ApiServerVerticle
    * @param handler Handler to return database response in case of success and appropriate error
@@ -145,67 +178,193 @@ public class DatabaseServiceImpl implements DatabaseService {
     request.put(SEARCH_KEY, false);
     request.put(TIME_LIMIT, timeLimit);
 
-
-    if (!request.containsKey(ID)) {
-      LOGGER.debug("Info: " + ID_NOT_FOUND);
-      responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400).setMessage(ID_NOT_FOUND);
-      handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
+    String error = requestError(request);
+    if (error != null) {
+      handler.handle(Future.failedFuture(failure(error)));
       return null;
     }
 
-    if (request.getJsonArray(ID).isEmpty()) {
-      LOGGER.debug("Info: " + EMPTY_RESOURCE_ID);
-      responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400)
-          .setMessage(EMPTY_RESOURCE_ID);
-      handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
+    String index = index(request);
+    LOGGER.debug("Index name: " + index);
+    String costError = costEstimator.limit(index, request);
+    if (costError != null) {
+      handler.handle(Future.failedFuture(failure(costError)));
       return null;
     }
 
-    if (!request.containsKey(SEARCH_TYPE)) {
-      LOGGER.debug("Info: " + SEARCHTYPE_NOT_FOUND);
-      responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400)
-          .setMessage(SEARCHTYPE_NOT_FOUND);
-      handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
+    Span decodeSpan = Tracing.start("queryDecoder");
+    JsonObject query = queryDecoder.queryDecoder(request);
+    decodeSpan.end();
+    if (query.containsKey(ERROR)) {
+      LOGGER.error("Fail: Query returned with an error: " + query.getString(ERROR));
+      handler.handle(Future.failedFuture(failure(query.getString(ERROR))));
       return null;
     }
 
-    if (request.getJsonArray(ID).getString(0).split("/").length != 5) {
-      LOGGER.error("Malformed ID: " + request.getJsonArray(ID).getString(0));
-      responseBuilder =
-          new ResponseBuilder(FAILED).setTypeAndTitle(400)
-              .setMessage(MALFORMED_ID + request.getJsonArray(ID));
-      handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
+    String countKey = countCache.key(index, request, query);
+    Long cachedCount = countCache.get(countKey);
+    if (cachedCount != null) {
+      LOGGER.debug("Info: count served from cache");
+      handler.handle(Future.succeededFuture(new ResponseBuilder(SUCCESS).setTypeAndTitle(200)
+          .setCount(cachedCount.intValue()).getResponse()));
+      return this;
+    }
+
+    LOGGER.debug("Info: Query constructed: " + query.toString());
+    Handler<AsyncResult<JsonObject>> countHandler = countRes -> {
+      if (countRes.succeeded()) {
+        LOGGER.debug("Success: Successful DB request");
+        JsonObject count = countRes.result().getJsonArray(RESULTS).getJsonObject(0);
+        if (!count.containsKey(RELATION_KEY)) {
+          countCache.put(countKey, count.getLong(COUNT));
+        }
+        handler.handle(Future.succeededFuture(countRes.result()));
+      } else {
+        LOGGER.error("Fail: DB Request;" + countRes.cause().getMessage());
+        handler.handle(Future.failedFuture(countRes.cause().getMessage()));
+      }
+    };
+    if (request.getBoolean(APPROXIMATE, false)) {
+      query.put(SIZE_KEY, 0).put(TRACK_TOTAL_HITS, countCache.getApproximateThreshold());
+      client.approximateCountAsync(index.concat(SEARCH_REQ_PARAM), query.toString(),
+          countHandler);
+    } else {
+      client.countAsync(index.concat(COUNT_REQ_PARAM), query.toString(), countHandler);
+    }
+    return this;
+  }
+
+  /**
+   * Performs a ElasticSearch geo grid aggregation query using the low level REST client, the
+   * documents counted per cell with the stats of the requested attributes.
+   * 
+   * @param request Json object received from the ApiServerVerticle
+   * @param handler Handler to return database response in case of success and appropriate error
+   *        message in case of failure
+   */
+  @Override
+  public DatabaseService aggregationQuery(JsonObject request,
+      Handler<AsyncResult<JsonObject>> handler) {
+
+    LOGGER.debug("Info: aggregationQuery;" + request.toString());
+
+    request.put(SEARCH_KEY, true);
+    request.put(TIME_LIMIT, timeLimit);
+    request.put(GRID_FIELD, gridField);
+    request.put(GRID_SIZE, gridSize);
+
+    String error = request.containsKey(AGGREGATE) ? requestError(request) : INVALID_SEARCH;
+    if (error == null && gridField == null) {
+      error = GRID_FIELD_NOT_CONFIGURED;
+    }
+    if (error != null) {
+      handler.handle(Future.failedFuture(failure(error)));
       return null;
     }
 
-    List<String> splitId = new LinkedList<>(Arrays.asList(request.getJsonArray(ID)
-        .getString(0).split("/")));
-    splitId.remove(splitId.size() - 1);
-    String index = String.join("__", splitId);
-    index = index.concat(COUNT_REQ_PARAM);
+    String costError = costEstimator.limit(index(request), request);
+    if (costError != null) {
+      handler.handle(Future.failedFuture(failure(costError)));
+      return null;
+    }
+    String index = index(request).concat(SEARCH_REQ_PARAM);
     LOGGER.debug("Index name: " + index);
 
-    query = queryDecoder.queryDecoder(request);
+    Span decodeSpan = Tracing.start("queryDecoder");
+    JsonObject query = queryDecoder.queryDecoder(request);
+    decodeSpan.end();
     if (query.containsKey(ERROR)) {
       LOGGER.error("Fail: Query returned with an error: " + query.getString(ERROR));
-      responseBuilder =
-          new ResponseBuilder(FAILED).setTypeAndTitle(400)
-              .setMessage(query.getString(ERROR));
-      handler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
+      handler.handle(Future.failedFuture(failure(query.getString(ERROR))));
       return null;
     }
 
     LOGGER.debug("Info: Query constructed: " + query.toString());
+    JsonArray attrs = request.getJsonArray(RESPONSE_ATTRS);
+    if (attrs == null || attrs.isEmpty()) {
+      aggregate(index, query, handler);
+      return this;
+    }
+    // the stats of a field not mapped to a number fail the whole query
+    List<String> fields = new ArrayList<>(attrs.size());
+    for (Object attr : attrs) {
+      fields.add((String) attr);
+    }
+    client.fieldTypesAsync(index(request), fields, typesRes -> {
+      if (typesRes.failed()) {
+        LOGGER.error("Fail: DB Request;" + typesRes.cause().getMessage());
+        handler.handle(Future.failedFuture(typesRes.cause().getMessage()));
+        return;
+      }
+      for (String field : fields) {
+        if (!isNumeric(typesRes.result().getJsonArray(field))) {
+          LOGGER.debug("Info: " + NOT_NUMERIC_ATTRIBUTE + field);
+          handler.handle(Future.failedFuture(failure(NOT_NUMERIC_ATTRIBUTE + field)));
+          return;
+        }
+      }
+      aggregate(index, query, handler);
+    });
+    return this;
+  }
 
-    client.countAsync(index, query.toString(), countRes -> {
-      if (countRes.succeeded()) {
+  private void aggregate(String index, JsonObject query,
+      Handler<AsyncResult<JsonObject>> handler) {
+    client.aggregationAsync(index, query.toString(), aggregationRes -> {
+      if (aggregationRes.succeeded()) {
         LOGGER.debug("Success: Successful DB request");
-        handler.handle(Future.succeededFuture(countRes.result()));
+        handler.handle(Future.succeededFuture(aggregationRes.result()));
       } else {
-        LOGGER.error("Fail: DB Request;" + countRes.cause().getMessage());
-        handler.handle(Future.failedFuture(countRes.cause().getMessage()));
+        LOGGER.error("Fail: DB Request;" + aggregationRes.cause().getMessage());
+        handler.handle(Future.failedFuture(aggregationRes.cause().getMessage()));
       }
     });
-    return this;
+  }
+
+  /* mapped, and to a numeric type in every index */
+  static boolean isNumeric(JsonArray types) {
+    if (types == null || types.isEmpty()) {
+      return false;
+    }
+    for (Object type : types) {
+      if (!NUMERIC_TYPES.contains(type)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /* the error of a request missing what every query needs, null when it has it */
+  private static String requestError(JsonObject request) {
+    if (!request.containsKey(ID)) {
+      LOGGER.debug("Info: " + ID_NOT_FOUND);
+      return ID_NOT_FOUND;
+    }
+    if (request.getJsonArray(ID).isEmpty()) {
+      LOGGER.debug("Info: " + EMPTY_RESOURCE_ID);
+      return EMPTY_RESOURCE_ID;
+    }
+    if (!request.containsKey(SEARCH_TYPE)) {
+      LOGGER.debug("Info: " + SEARCHTYPE_NOT_FOUND);
+      return SEARCHTYPE_NOT_FOUND;
+    }
+    if (request.getJsonArray(ID).getString(0).split("/").length != 5) {
+      LOGGER.error("Malformed ID: " + request.getJsonArray(ID).getString(0));
+      return MALFORMED_ID + request.getJsonArray(ID);
+    }
+    return null;
+  }
+
+  private static String failure(String message) {
+    return new ResponseBuilder(FAILED).setTypeAndTitle(400).setMessage(message).getResponse()
+        .toString();
+  }
+
+  /* the index of the resource group of the first id */
+  private static String index(JsonObject request) {
+    List<String> splitId = new LinkedList<>(Arrays.asList(request.getJsonArray(ID)
+        .getString(0).split("/")));
+    splitId.remove(splitId.size() - 1);
+    return String.join("__", splitId);
   }
 }
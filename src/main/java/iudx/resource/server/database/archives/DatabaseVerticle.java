@@ -1,9 +1,15 @@
 package iudx.resource.server.database.archives;
 
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.http.HttpHost;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.serviceproxy.ServiceBinder;
+import iudx.resource.server.metrics.ServerMetrics;
+import iudx.resource.server.resilience.BackendGuard;
 
 /**
  * The Database Verticle.
@@ -47,9 +53,21 @@ public class DatabaseVerticle extends AbstractVerticle {
     password = config().getString("dbPassword");
     timeLimit = config().getString("timeLimit");
 
-    client = new ElasticClient(databaseIP, databasePort, user, password); 
+    /* the nodes of the cluster, host:port each, or the single databaseIP and databasePort */
+    List<HttpHost> nodes = new ArrayList<>();
+    JsonArray databaseNodes = config().getJsonArray("databaseNodes", new JsonArray());
+    for (int i = 0; i < databaseNodes.size(); i++) {
+      nodes.add(HttpHost.create(databaseNodes.getString(i)));
+    }
+    if (nodes.isEmpty()) {
+      nodes.add(new HttpHost(databaseIP, databasePort));
+    }
+
+    client = new ElasticClient(nodes, user, password,
+        config().getJsonObject("elasticClient", new JsonObject()),
+        BackendGuard.of(ServerMetrics.BACKEND_ELASTIC, config()));
     binder = new ServiceBinder(vertx);
-    database = new DatabaseServiceImpl(client, timeLimit);
+    database = new DatabaseServiceImpl(client, timeLimit, config());
 
     consumer =
         binder.setAddress(DATABASE_SERVICE_ADDRESS)
@@ -60,6 +78,7 @@ public class DatabaseVerticle extends AbstractVerticle {
   @Override
   public void stop() {
 	binder.unregister(consumer);
+    client.close();
   }
 }
 
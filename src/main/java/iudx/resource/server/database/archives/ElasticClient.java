@@ -3,27 +3,57 @@ package iudx.resource.server.database.archives;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
-import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.core.json.jackson.DatabindCodec;
 import static iudx.resource.server.database.archives.Constants.*;
+import io.micrometer.core.instrument.Timer;
+import iudx.resource.server.metrics.ServerMetrics;
+import iudx.resource.server.resilience.BackendGuard;
+import iudx.resource.server.tracing.Span;
+import iudx.resource.server.tracing.Tracing;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import com.google.common.io.CountingInputStream;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
+import org.apache.http.entity.ContentType;
 import org.apache.http.impl.client.BasicCredentialsProvider;
-import org.apache.http.util.EntityUtils;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.reactor.IOReactorException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.NodeSelector;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.ResponseListener;
 import org.elasticsearch.client.RestClient;
 
 public class ElasticClient {
 
   private final RestClient client;
+  private final BackendGuard guard;
+  private final PoolingNHttpClientConnectionManager connectionManager;
+  private final int compressionThreshold;
   private ResponseBuilder responseBuilder;
   private static final Logger LOGGER = LogManager.getLogger(ElasticClient.class);
   /**
@@ -34,10 +64,103 @@ public class ElasticClient {
    */
 
   public ElasticClient(String databaseIP, int databasePort, String user, String password) {
+    this(databaseIP, databasePort, user, password,
+        BackendGuard.of(ServerMetrics.BACKEND_ELASTIC, new JsonObject()));
+  }
+
+  /**
+   * ElasticClient - Elastic Low level wrapper with the circuit breaker and bulkhead of the
+   * cluster.
+   * 
+   * @param databaseIP IP of the ElasticDB
+   * @param databasePort Port of the ElasticDB
+   * @param guard guard of the Elasticsearch backend
+   */
+  public ElasticClient(String databaseIP, int databasePort, String user, String password,
+      BackendGuard guard) {
+    this(List.of(new HttpHost(databaseIP, databasePort)), user, password, new JsonObject(),
+        guard);
+  }
+
+  /**
+   * ElasticClient - Elastic Low level wrapper over the nodes of a cluster, requests sent to them
+   * in turn. A node failing is taken out of rotation and retried after a back off growing with
+   * its failures. The connection pool and the transport are configured by the elasticClient
+   * block of the database verticle:
+   * <ul>
+   * <li>maxConnPerRoute : connections to a node (default 10)</li>
+   * <li>maxConnTotal : connections to all the nodes (default 30)</li>
+   * <li>ioThreads : IO reactor threads (default the available processors)</li>
+   * <li>keepAliveMs : time an idle connection is kept (default 60000)</li>
+   * <li>connectTimeoutMs, socketTimeoutMs : timeouts of a request (default 1000 and 30000)</li>
+   * <li>compression : gzip the body of the requests larger than compressionThreshold bytes, and
+   * accept gzip or deflate responses (default false and 1024)</li>
+   * </ul>
+   * 
+   * @param nodes nodes of the cluster
+   * @param config the elasticClient block
+   * @param guard guard of the Elasticsearch backend
+   */
+  public ElasticClient(List<HttpHost> nodes, String user, String password, JsonObject config,
+      BackendGuard guard) {
+    this.guard = guard;
+    boolean compression = config.getBoolean("compression", false);
+    this.compressionThreshold =
+        compression ? config.getInteger("compressionThreshold", 1024) : Integer.MAX_VALUE;
+    Header[] defaultHeaders = compression
+        ? new Header[] {new BasicHeader(HttpHeaders.ACCEPT_ENCODING, GZIP + ", " + DEFLATE)}
+        : new Header[0];
     CredentialsProvider credentials = new BasicCredentialsProvider();
     credentials.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials(user, password));
-    client = RestClient.builder(new HttpHost(databaseIP, databasePort)).setHttpClientConfigCallback(
-        httpClientBuilder -> httpClientBuilder.setDefaultCredentialsProvider(credentials)).build();
+    int connectTimeout = config.getInteger("connectTimeoutMs", 1000);
+    int socketTimeout = config.getInteger("socketTimeoutMs", 30000);
+    IOReactorConfig reactorConfig = IOReactorConfig.custom()
+        .setIoThreadCount(
+            config.getInteger("ioThreads", Runtime.getRuntime().availableProcessors()))
+        .setConnectTimeout(connectTimeout).setSoTimeout(socketTimeout)
+        .setSoKeepAlive(true).setTcpNoDelay(true).build();
+    try {
+      connectionManager =
+          new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(reactorConfig));
+    } catch (IOReactorException e) {
+      throw new IllegalStateException("Elasticsearch IO reactor not started", e);
+    }
+    connectionManager.setDefaultMaxPerRoute(config.getInteger("maxConnPerRoute", 10));
+    connectionManager.setMaxTotal(config.getInteger("maxConnTotal", 30));
+    ServerMetrics.monitorPool(ServerMetrics.BACKEND_ELASTIC, connectionManager,
+        pool -> pool.getTotalStats().getLeased(), pool -> pool.getTotalStats().getAvailable(),
+        pool -> pool.getTotalStats().getPending());
+    long keepAliveMillis = config.getLong("keepAliveMs", 60000L);
+
+    client = RestClient.builder(nodes.toArray(new HttpHost[0]))
+        .setNodeSelector(NodeSelector.ANY)
+        .setDefaultHeaders(defaultHeaders)
+        .setFailureListener(new RestClient.FailureListener() {
+          @Override
+          public void onFailure(Node node) {
+            LOGGER.error("Error : Elasticsearch node out of rotation " + node.getHost());
+            ServerMetrics.recordNodeFailure(ServerMetrics.BACKEND_ELASTIC,
+                node.getHost().toHostString());
+          }
+        })
+        .setRequestConfigCallback(requestConfigBuilder -> requestConfigBuilder
+            .setConnectTimeout(connectTimeout).setSocketTimeout(socketTimeout))
+        .setHttpClientConfigCallback(httpClientBuilder -> httpClientBuilder
+            .setDefaultCredentialsProvider(credentials)
+            .setConnectionManager(connectionManager)
+            .setKeepAliveStrategy((response, context) -> keepAliveMillis))
+        .build();
+  }
+
+  /**
+   * close the client, its connections and IO threads.
+   */
+  public void close() {
+    try {
+      client.close();
+    } catch (IOException e) {
+      LOGGER.error("Error : Elasticsearch client not closed, " + e.getMessage());
+    }
   }
 
   /**
@@ -49,60 +172,126 @@ public class ElasticClient {
    */
   public ElasticClient searchAsync(String index, String filterPathValue, String query,
       Handler<AsyncResult<JsonObject>> searchHandler) {
+    return search(index, filterPathValue, query, "search", ElasticClient::toSearchResponse,
+        searchHandler);
+  }
 
+  /**
+   * aggregationAsync - Wrapper around elasticsearch async search requests of a geo grid
+   * aggregation, returning the cells instead of the documents.
+   * 
+   * @param index Index to search on
+   * @param query Query with the aggregation
+   * @param aggregationHandler JsonObject result {@link AsyncResult}
+   */
+  public ElasticClient aggregationAsync(String index, String query,
+      Handler<AsyncResult<JsonObject>> aggregationHandler) {
+    return search(index, FILTER_PATH_VAL_AGGREGATION, query, "aggregation",
+        ElasticClient::toAggregationResponse, aggregationHandler);
+  }
+
+  /**
+   * indexStatsAsync - Wrapper around elasticsearch async search requests of the documents of an
+   * index and the first and last of their observation times.
+   * 
+   * @param index Index to search on
+   * @param query Query of size 0 with the min and max aggregations of the observation time
+   * @param statsHandler JsonObject result {@link AsyncResult}
+   */
+  public ElasticClient indexStatsAsync(String index, String query,
+      Handler<AsyncResult<JsonObject>> statsHandler) {
+    return search(index, FILTER_PATH_VAL_STATS, query, "stats", ElasticClient::toStatsResponse,
+        statsHandler);
+  }
+
+  /**
+   * approximateCountAsync - Counts the hits of a search up to its track_total_hits, instead of
+   * the exact count of a count request.
+   * 
+   * @param index Index to search on
+   * @param query Query of size 0 with track_total_hits
+   * @param countHandler JsonObject result {@link AsyncResult}
+   */
+  public ElasticClient approximateCountAsync(String index, String query,
+      Handler<AsyncResult<JsonObject>> countHandler) {
+    return search(index, FILTER_PATH_VAL_TOTAL, query, "count", ElasticClient::toCountResponse,
+        countHandler);
+  }
+
+  /**
+   * fieldTypesAsync - Wrapper around elasticsearch async field capabilities requests, the types
+   * the fields are mapped to in an index.
+   * 
+   * @param index Index the fields are in
+   * @param fields Fields
+   * @param typesHandler JsonObject result {@link AsyncResult}, the types of every mapped field
+   */
+  public ElasticClient fieldTypesAsync(String index, List<String> fields,
+      Handler<AsyncResult<JsonObject>> typesHandler) {
+    Request queryRequest = new Request(REQUEST_GET, index.concat(FIELD_CAPS_REQ_PARAM));
+    queryRequest.addParameter(FIELDS_KEY, String.join(",", fields));
+    return perform(queryRequest, index, "fieldTypes", ElasticClient::toFieldTypesResponse,
+        typesHandler);
+  }
+
+  private ElasticClient search(String index, String filterPathValue, String query,
+      String operation, Function<JsonObject, JsonObject> toResponse,
+      Handler<AsyncResult<JsonObject>> searchHandler) {
     Request queryRequest = new Request(REQUEST_GET, index);
     queryRequest.addParameter(FILTER_PATH, filterPathValue);
-    queryRequest.setJsonEntity(query);
+    setEntity(queryRequest, query);
+    return perform(queryRequest, index, operation, toResponse, searchHandler);
+  }
+
+  private ElasticClient perform(Request queryRequest, String index, String operation,
+      Function<JsonObject, JsonObject> toResponse,
+      Handler<AsyncResult<JsonObject>> searchHandler) {
+
+    if (!guard.tryAcquire()) {
+      searchHandler.handle(Future.failedFuture(unavailableResponse()));
+      return this;
+    }
+    long startNanos = System.nanoTime();
+    Timer.Sample sample = ServerMetrics.start();
+    Span span = Tracing.start("elasticsearch." + operation).tag("index", index);
 
     client.performRequestAsync(queryRequest, new ResponseListener() {
       @Override
       public void onSuccess(Response response) {
-        JsonArray dbResponse = new JsonArray();
-        JsonObject jsonTemp;
+        guard.release(startNanos, false);
+        ServerMetrics.recordBackend(sample, ServerMetrics.BACKEND_ELASTIC, operation, true);
+        span.end();
+        Timer.Sample decodeSample = ServerMetrics.start();
         try {
-          JsonObject responseJson = new JsonObject(EntityUtils.toString(response.getEntity()));
-          if (!responseJson.containsKey(HITS) && !responseJson.containsKey(DOCS_KEY)) {
+          JsonObject responseJson = readEntity(response);
+          if (responseJson.containsKey(TOOK)) {
+            ServerMetrics.recordElasticTook(responseJson.getLong(TOOK),
+                System.nanoTime() - startNanos);
+          }
+          JsonObject searchResponse = toResponse.apply(responseJson);
+          if (searchResponse == null) {
             responseBuilder =
                 new ResponseBuilder(FAILED).setTypeAndTitle(204).setMessage(EMPTY_RESPONSE);
             searchHandler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
             return;
           }
-          responseBuilder = new ResponseBuilder(SUCCESS).setTypeAndTitle(200);
-          JsonArray responseHits = new JsonArray();
-          if (responseJson.containsKey(HITS)) {
-            responseHits = responseJson.getJsonObject(HITS).getJsonArray(HITS);
-          } else if (responseJson.containsKey(DOCS_KEY)) {
-            responseHits = responseJson.getJsonArray(DOCS_KEY);
-          }
-          for (Object json : responseHits) {
-            jsonTemp = (JsonObject) json;
-            dbResponse.add(jsonTemp.getJsonObject(SOURCE_FILTER_KEY));
-          }
-          responseBuilder.setMessage(dbResponse);
-          searchHandler.handle(Future.succeededFuture(responseBuilder.getResponse()));
-        } catch (IOException e) {
+          ServerMetrics.recordBackend(decodeSample, ServerMetrics.BACKEND_ELASTIC, "decode", true);
+          searchHandler.handle(Future.succeededFuture(searchResponse));
+        } catch (IOException | RuntimeException e) {
           LOGGER.error("IO Execption from Database: " + e.getMessage());
-          JsonObject ioError = new JsonObject(e.getMessage());
-          responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400).setMessage(ioError);
+          responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400)
+              .setMessage(String.valueOf(e.getMessage()));
           searchHandler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
         }
       }
 
       @Override
       public void onFailure(Exception e) {
+        guard.release(startNanos, isBackendFailure(e));
+        ServerMetrics.recordBackend(sample, ServerMetrics.BACKEND_ELASTIC, operation, false);
+        span.tag("error", "true").end();
         LOGGER.error(e.getLocalizedMessage());
-        try {
-          String error = e.getMessage().substring(e.getMessage().indexOf("{"),
-              e.getMessage().lastIndexOf("}") + 1);
-          JsonObject dbError = new JsonObject(error);
-          responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400).setMessage(dbError);
-          searchHandler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
-        } catch (DecodeException jsonError) {
-          LOGGER.error("Json parsing exception: " + jsonError);
-          responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400)
-              .setMessage(BAD_PARAMETERS);
-          searchHandler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
-        }
+        searchHandler.handle(Future.failedFuture(failureResponse(e)));
       }
     });
     return this;
@@ -118,12 +307,22 @@ public class ElasticClient {
   public ElasticClient countAsync(String index, String query,
       Handler<AsyncResult<JsonObject>> countHandler) {
 
+    if (!guard.tryAcquire()) {
+      countHandler.handle(Future.failedFuture(unavailableResponse()));
+      return this;
+    }
     Request queryRequest = new Request(REQUEST_GET, index);
-    queryRequest.setJsonEntity(query);
+    setEntity(queryRequest, query);
+    long startNanos = System.nanoTime();
+    Timer.Sample sample = ServerMetrics.start();
+    Span span = Tracing.start("elasticsearch.count").tag("index", index);
 
     client.performRequestAsync(queryRequest, new ResponseListener() {
       @Override
       public void onSuccess(Response response) {
+        guard.release(startNanos, false);
+        ServerMetrics.recordBackend(sample, ServerMetrics.BACKEND_ELASTIC, "count", true);
+        span.end();
 
         try {
           int statusCode = response.getStatusLine().getStatusCode();
@@ -135,7 +334,7 @@ public class ElasticClient {
             return;
           }
 
-          JsonObject responseJson = new JsonObject(EntityUtils.toString(response.getEntity()));
+          JsonObject responseJson = readEntity(response);
           if (responseJson.getInteger(COUNT) == 0) {
             responseBuilder =
                 new ResponseBuilder(FAILED).setTypeAndTitle(204).setMessage(EMPTY_RESPONSE);
@@ -146,31 +345,222 @@ public class ElasticClient {
               new ResponseBuilder(SUCCESS).setTypeAndTitle(200)
                   .setCount(responseJson.getInteger(COUNT));
           countHandler.handle(Future.succeededFuture(responseBuilder.getResponse()));
-        } catch (IOException e) {
+        } catch (IOException | RuntimeException e) {
           LOGGER.error("IO Execption from Database: " + e.getMessage());
-          JsonObject ioError = new JsonObject(e.getMessage());
-          responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400).setMessage(ioError);
+          responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400)
+              .setMessage(String.valueOf(e.getMessage()));
           countHandler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
         }
       }
 
       @Override
       public void onFailure(Exception e) {
+        guard.release(startNanos, isBackendFailure(e));
+        ServerMetrics.recordBackend(sample, ServerMetrics.BACKEND_ELASTIC, "count", false);
+        span.tag("error", "true").end();
         LOGGER.error(e.getLocalizedMessage());
-        try {
-          String error = e.getMessage().substring(e.getMessage().indexOf("{"),
-              e.getMessage().lastIndexOf("}") + 1);
-          JsonObject dbError = new JsonObject(error);
-          responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400).setMessage(dbError);
-          countHandler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
-        } catch (DecodeException jsonError) {
-          LOGGER.error("Json parsing exception: " + jsonError);
-          responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(400)
-              .setMessage(BAD_PARAMETERS);
-          countHandler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
-        }
+        countHandler.handle(Future.failedFuture(failureResponse(e)));
       }
     });
     return this;
   }
+
+  /**
+   * toSearchResponse - Transforms the hits of a search or the docs of a multi get into the
+   * response of the search APIs.
+   * 
+   * @param responseJson Elasticsearch response
+   * @return JsonObject response, or null if Elasticsearch found nothing
+   */
+  static JsonObject toSearchResponse(JsonObject responseJson) {
+    JsonArray responseHits;
+    JsonObject total = null;
+    if (responseJson.containsKey(HITS)) {
+      responseHits = responseJson.getJsonObject(HITS).getJsonArray(HITS);
+      total = responseJson.getJsonObject(HITS).getJsonObject(TOTAL_KEY);
+    } else if (responseJson.containsKey(DOCS_KEY)) {
+      responseHits = responseJson.getJsonArray(DOCS_KEY);
+    } else {
+      return null;
+    }
+    if (responseHits == null) {
+      return null;
+    }
+    JsonArray dbResponse = new JsonArray();
+    for (Object json : responseHits) {
+      dbResponse.add(((JsonObject) json).getJsonObject(SOURCE_FILTER_KEY));
+    }
+    JsonObject response = new ResponseBuilder(SUCCESS).setTypeAndTitle(200)
+        .setMessage(dbResponse).getResponse();
+    if (total != null) {
+      // the count asked for with the page, a lower bound when over track_total_hits
+      response.put(TOTAL_HITS, total.getLong(VALUE));
+      if (!RELATION_EQ.equals(total.getString(RELATION_KEY))) {
+        response.put(TOTAL_HITS_RELATION, total.getString(RELATION_KEY));
+      }
+    }
+    return response;
+  }
+
+  /**
+   * toCountResponse - Transforms the total hits of a search of size 0 into the response of a
+   * count.
+   * 
+   * @param responseJson Elasticsearch response
+   * @return JsonObject response, or null if Elasticsearch found nothing
+   */
+  static JsonObject toCountResponse(JsonObject responseJson) {
+    JsonObject hits = responseJson.getJsonObject(HITS);
+    JsonObject total = hits == null ? null : hits.getJsonObject(TOTAL_KEY);
+    if (total == null || total.getInteger(VALUE) == 0) {
+      return null;
+    }
+    return new ResponseBuilder(SUCCESS).setTypeAndTitle(200)
+        .setCount(total.getInteger(VALUE), total.getString(RELATION_KEY)).getResponse();
+  }
+
+  /**
+   * toStatsResponse - Transforms the total hits and the min and max observation times into the
+   * count of documents and their first and last times in epoch milliseconds.
+   * 
+   * @param responseJson Elasticsearch response
+   * @return JsonObject response, the times missing from an empty index
+   */
+  static JsonObject toStatsResponse(JsonObject responseJson) {
+    JsonObject hits = responseJson.getJsonObject(HITS, new JsonObject());
+    JsonObject aggregations = responseJson.getJsonObject(AGGREGATIONS, new JsonObject());
+    JsonObject response = new JsonObject().put(COUNT,
+        hits.getJsonObject(TOTAL_KEY, new JsonObject()).getLong(VALUE, 0L));
+    for (String key : new String[] {FIRST_KEY, LAST_KEY}) {
+      JsonObject time = aggregations.getJsonObject(key);
+      if (time != null && time.getValue(VALUE) != null) {
+        response.put(key, time.getDouble(VALUE).longValue());
+      }
+    }
+    return response;
+  }
+
+  /**
+   * toFieldTypesResponse - Transforms the capabilities of the fields into the types every field
+   * is mapped to, more than one when the indices of a pattern differ.
+   * 
+   * @param responseJson Elasticsearch response
+   * @return JsonObject response, empty when no field is mapped
+   */
+  static JsonObject toFieldTypesResponse(JsonObject responseJson) {
+    JsonObject response = new JsonObject();
+    for (Map.Entry<String, Object> field : responseJson.getJsonObject(FIELDS_KEY,
+        new JsonObject())) {
+      response.put(field.getKey(), new JsonArray(
+          new ArrayList<>(((JsonObject) field.getValue()).fieldNames())));
+    }
+    return response;
+  }
+
+  /**
+   * toAggregationResponse - Transforms the buckets of a geo grid aggregation into cells, with the
+   * count of documents and the stats of every attribute in the cell.
+   * 
+   * @param responseJson Elasticsearch response
+   * @return JsonObject response, or null if Elasticsearch found nothing
+   */
+  static JsonObject toAggregationResponse(JsonObject responseJson) {
+    JsonObject aggregations = responseJson.getJsonObject(AGGREGATIONS);
+    if (aggregations == null) {
+      return null;
+    }
+    JsonArray buckets = aggregations.getJsonObject(GRID_AGGREGATION).getJsonArray(BUCKETS);
+    if (buckets == null || buckets.isEmpty()) {
+      return null;
+    }
+    JsonArray cells = new JsonArray();
+    for (Object json : buckets) {
+      JsonObject bucket = (JsonObject) json;
+      JsonObject cell = new JsonObject().put(CELL_KEY, bucket.getValue(KEY))
+          .put(COUNT, bucket.getValue(DOC_COUNT));
+      for (Map.Entry<String, Object> metric : bucket) {
+        if (metric.getValue() instanceof JsonObject) {
+          cell.put(metric.getKey(), metric.getValue());
+        }
+      }
+      cells.add(cell);
+    }
+    return new ResponseBuilder(SUCCESS).setTypeAndTitle(200).setMessage(cells).getResponse();
+  }
+
+  /* rejected queries are the fault of the request, except when Elasticsearch is overloaded */
+  private static boolean isBackendFailure(Exception e) {
+    if (e instanceof ResponseException) {
+      int status = ((ResponseException) e).getResponse().getStatusLine().getStatusCode();
+      return status >= 500 || status == 429;
+    }
+    return true;
+  }
+
+  /* the query as the body, gzipped when large */
+  private void setEntity(Request request, String query) {
+    byte[] body = query.getBytes(StandardCharsets.UTF_8);
+    byte[] wire = body.length < compressionThreshold ? body : gzip(body);
+    NByteArrayEntity entity = new NByteArrayEntity(wire, ContentType.APPLICATION_JSON);
+    if (wire != body) {
+      entity.setContentEncoding(GZIP);
+    }
+    request.setEntity(entity);
+    ServerMetrics.recordPayload(ServerMetrics.BACKEND_ELASTIC, ServerMetrics.DIRECTION_REQUEST,
+        wire.length, body.length);
+  }
+
+  private String unavailableResponse() {
+    return new ResponseBuilder(FAILED).setTypeAndTitle(503)
+        .setMessage(guard.unavailable().getMessage()).getResponse().toString();
+  }
+
+  private static byte[] gzip(byte[] body) {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+      gzip.write(body);
+    } catch (IOException e) {
+      LOGGER.error("Error : query not compressed, " + e.getMessage());
+      return body;
+    }
+    return compressed.toByteArray();
+  }
+
+  /*
+   * the error of Elasticsearch, read from its response as it may be compressed. Elasticsearch not
+   * reached, not answering in time or failing is unavailable, the same as when its breaker is open.
+   */
+  private String failureResponse(Exception e) {
+    if (isBackendFailure(e)) {
+      return unavailableResponse();
+    }
+    try {
+      JsonObject dbError = readEntity(((ResponseException) e).getResponse());
+      return new ResponseBuilder(FAILED).setTypeAndTitle(400).setMessage(dbError).getResponse()
+          .toString();
+    } catch (IOException | RuntimeException jsonError) {
+      LOGGER.error("Json parsing exception: " + jsonError);
+      return new ResponseBuilder(FAILED).setTypeAndTitle(400).setMessage(BAD_PARAMETERS)
+          .getResponse().toString();
+    }
+  }
+
+  /* the response parsed from its content, inflated on the way when Elasticsearch compressed it */
+  @SuppressWarnings("unchecked")
+  private JsonObject readEntity(Response response) throws IOException {
+    String encoding = response.getHeader(HttpHeaders.CONTENT_ENCODING);
+    CountingInputStream wire = new CountingInputStream(response.getEntity().getContent());
+    CountingInputStream raw = wire;
+    if (GZIP.equalsIgnoreCase(encoding)) {
+      raw = new CountingInputStream(new GZIPInputStream(wire));
+    } else if (DEFLATE.equalsIgnoreCase(encoding)) {
+      raw = new CountingInputStream(new InflaterInputStream(wire));
+    }
+    try (InputStream content = raw) {
+      return new JsonObject(DatabindCodec.mapper().readValue(content, Map.class));
+    } finally {
+      ServerMetrics.recordPayload(ServerMetrics.BACKEND_ELASTIC,
+          ServerMetrics.DIRECTION_RESPONSE, wire.getCount(), raw.getCount());
+    }
+  }
 }
@@ -0,0 +1,148 @@
+package iudx.resource.server.database.archives;
+
+import static iudx.resource.server.database.archives.Constants.*;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.vertx.core.json.JsonObject;
+import iudx.resource.server.metrics.ServerMetrics;
+
+/**
+ * The Query Cost Estimator.
+ * <h1>Query Cost Estimator</h1>
+ * <p>
+ * Estimates the documents a query scans from the rate at which documents arrive in the index of
+ * its resource group, sampled from Elasticsearch in the background and cached. The window given to
+ * a query without one, or to an open ended before or after query, is sized to hold about
+ * maxDocuments, wider for a sparse sensor than for a dense one, and a during query projected to
+ * scan more than maxDocuments is rejected with the days it fits in. Until the rate of an index is
+ * sampled the configured timeLimit applies. It is configured by the queryCost block of the
+ * database verticle, and disabled without it:
+ * </p>
+ * <ul>
+ * <li>maxDocuments : documents a query may scan (default 1000000)</li>
+ * <li>minDays, maxDays : bounds of the window (default 1 and 365)</li>
+ * <li>sampleMinutes : time a sampled rate is kept (default 60)</li>
+ * </ul>
+ */
+public class QueryCostEstimator {
+
+  private static final Logger LOGGER = LogManager.getLogger(QueryCostEstimator.class);
+  private static final double MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+  private final ElasticClient client;
+  private final boolean enabled;
+  private final long maxDocuments;
+  private final int minDays;
+  private final int maxDays;
+  private final Cache<String, Double> rates;
+  private final Set<String> sampling = ConcurrentHashMap.newKeySet();
+
+  /**
+   * create the estimator from its configuration.
+   *
+   * @param client Elasticsearch client the rates are sampled with
+   * @param config the queryCost block, null when not configured
+   */
+  public QueryCostEstimator(ElasticClient client, JsonObject config) {
+    this.client = client;
+    this.enabled = config != null;
+    JsonObject settings = enabled ? config : new JsonObject();
+    maxDocuments = settings.getLong("maxDocuments", 1000000L);
+    minDays = settings.getInteger("minDays", 1);
+    maxDays = settings.getInteger("maxDays", 365);
+    rates = ServerMetrics.monitor(CacheBuilder.newBuilder().maximumSize(10000)
+        .expireAfterWrite(settings.getLong("sampleMinutes", 60L), TimeUnit.MINUTES)
+        .recordStats().build(), "queryCostRates");
+  }
+
+  /**
+   * limit the time window of a query by the documents it would scan, giving the request the
+   * windowDays of its default window.
+   *
+   * @param index index of the resource group
+   * @param request request received from the ApiServerVerticle
+   * @return the error of a query projected to scan too many documents, null otherwise
+   */
+  public String limit(String index, JsonObject request) {
+    Double rate = rate(index);
+    if (rate == null) {
+      return null;
+    }
+    int windowDays = windowDays(rate);
+    if (DURING.equalsIgnoreCase(request.getString(REQ_TIMEREL))) {
+      double projected = rate * days(request.getString(TIME_KEY), request.getString(END_TIME));
+      if (projected > maxDocuments) {
+        LOGGER.debug("Info: query on " + index + " projected to scan " + (long) projected
+            + " documents");
+        return QUERY_TOO_EXPENSIVE + windowDays;
+      }
+      return null;
+    }
+    request.put(WINDOW_DAYS, windowDays);
+    return null;
+  }
+
+  /* documents per day of the index, null until sampled */
+  Double rate(String index) {
+    if (!enabled) {
+      return null;
+    }
+    Double rate = rates.getIfPresent(index);
+    if (rate == null && sampling.add(index)) {
+      sample(index);
+    }
+    return rate == null || rate.isNaN() ? null : rate;
+  }
+
+  /* the rate of the documents over the span of their times, a day at least */
+  void record(String index, long count, Long first, Long last) {
+    double days = first == null || last == null ? 1 : Math.max(1, (last - first) / MILLIS_PER_DAY);
+    rates.put(index, count / days);
+  }
+
+  int windowDays(double rate) {
+    double days = rate <= 0 ? maxDays : Math.floor(maxDocuments / rate);
+    return (int) Math.max(minDays, Math.min(maxDays, days));
+  }
+
+  private void sample(String index) {
+    JsonObject field = new JsonObject().put(FIELD_KEY, TIME_FIELD_DB);
+    JsonObject aggregations = new JsonObject()
+        .put(FIRST_KEY, new JsonObject().put(MIN_KEY, field))
+        .put(LAST_KEY, new JsonObject().put(MAX_KEY, field));
+    JsonObject query = new JsonObject().put(SIZE_KEY, 0).put(TRACK_TOTAL_HITS, true)
+        .put(AGGS_KEY, aggregations);
+    client.indexStatsAsync(index.concat(SEARCH_REQ_PARAM), query.toString(), statsRes -> {
+      if (statsRes.succeeded()) {
+        JsonObject stats = statsRes.result();
+        record(index, stats.getLong(COUNT), stats.getLong(FIRST_KEY), stats.getLong(LAST_KEY));
+      } else {
+        LOGGER.error("Error : rate of " + index + " not sampled, " + statsRes.cause().getMessage());
+        // not sampled again before the next period, the timeLimit applies meanwhile
+        rates.put(index, Double.NaN);
+      }
+      sampling.remove(index);
+    });
+  }
+
+  private static double days(String time, String endTime) {
+    if (time == null || endTime == null) {
+      return 0;
+    }
+    try {
+      return Duration.between(ZonedDateTime.parse(time), ZonedDateTime.parse(endTime)).toMillis()
+          / MILLIS_PER_DAY;
+    } catch (DateTimeParseException ex) {
+      // the query decoder rejects it
+      return 0;
+    }
+  }
+}
@@ -8,11 +8,25 @@ import static iudx.resource.server.database.archives.Constants.*;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
 import org.apache.commons.codec.digest.DigestUtils;
+import iudx.resource.server.geo.Coordinates;
+import iudx.resource.server.geo.GeometryPreprocessor;
 
 public class QueryDecoder {
 
   private static final Logger LOGGER = LogManager.getLogger(QueryDecoder.class);
 
+  private final GeometryPreprocessor geoPreprocessor;
+  private final ResponseProjection projection;
+
+  public QueryDecoder() {
+    this(GeometryPreprocessor.disabled(), ResponseProjection.none());
+  }
+
+  public QueryDecoder(GeometryPreprocessor geoPreprocessor, ResponseProjection projection) {
+    this.geoPreprocessor = geoPreprocessor;
+    this.projection = projection;
+  }
+
   /**
    * Decodes and constructs ElasticSearch Search/Count query based on the parameters passed in the
    * request.
@@ -38,6 +52,11 @@ public class QueryDecoder {
       elasticQuery.put(SIZE_KEY, 10000);
     }
 
+    /* Total hits counted along with the page */
+    if (request.containsKey(TRACK_TOTAL_HITS)) {
+      elasticQuery.put(TRACK_TOTAL_HITS, request.getValue(TRACK_TOTAL_HITS));
+    }
+
     /* Latest Search */
     if (LATEST_SEARCH.equalsIgnoreCase(searchType)) {
 //      JsonArray sourceFilter = null;
@@ -85,7 +104,17 @@ public class QueryDecoder {
 //          pathParam = resourceGroup.concat("._").concat(sha1String).concat(attributeList.getString(resourceGroup));
       pathParam = resourceGroup.concat("._").concat(sha1String).concat(DEFAULT_ATTRIBUTE);
       LOGGER.debug("PathParam: "+pathParam);
-      return new JsonObject().put(KEY, resourceGroup).put(PATH_PARAM, pathParam);
+      JsonObject latestQuery = new JsonObject().put(KEY, resourceGroup).put(PATH_PARAM, pathParam);
+      // the attributes are read from Redis by their paths in the document
+      if (request.containsKey(RESPONSE_ATTRS)) {
+        for (Object attribute : request.getJsonArray(RESPONSE_ATTRS)) {
+          if (!((String) attribute).matches(LATEST_ATTRIBUTE_REGEX)) {
+            return new JsonObject().put(ERROR, INVALID_LATEST_QUERY);
+          }
+        }
+        latestQuery.put(RESPONSE_ATTRS, request.getJsonArray(RESPONSE_ATTRS));
+      }
+      return latestQuery;
       //}
       // group query
 
@@ -105,6 +134,11 @@ public class QueryDecoder {
     JsonObject timeObject = null;
       String timeLimit = request.getString(TIME_LIMIT).split(",")[1];
     int numDays = Integer.valueOf(request.getString(TIME_LIMIT).split(",")[2]);
+    if (request.containsKey(WINDOW_DAYS)) {
+      // sized by the query cost estimator to the data rate of the resource
+      numDays = request.getInteger(WINDOW_DAYS);
+      timeLimit = String.valueOf(numDays);
+    }
 
     /* Geo-Spatial Search */
     if (searchType.matches(GEOSEARCH_REGEX)) {
@@ -138,29 +172,39 @@ public class QueryDecoder {
 
         String geometry = request.getString(GEOMETRY);
         relation = request.getString(GEOREL);
-        coordinates = new JsonArray(request.getString(COORDINATES_KEY));
-        int length = coordinates.getJsonArray(0).size();
-
-        if (geometry.equalsIgnoreCase(POLYGON)
-            && !coordinates.getJsonArray(0).getJsonArray(0).getDouble(0)
-                .equals(coordinates.getJsonArray(0).getJsonArray(length - 1).getDouble(0))
-            && !coordinates.getJsonArray(0).getJsonArray(0).getDouble(1)
-                .equals(coordinates.getJsonArray(0).getJsonArray(length - 1).getDouble(1))) {
+        Coordinates shape;
+        try {
+          shape = Coordinates.parse(request.getString(COORDINATES_KEY));
+        } catch (IllegalArgumentException ex) {
+          return new JsonObject().put(ERROR, MISSING_GEO_FIELDS);
+        }
+
+        if (geometry.equalsIgnoreCase(POLYGON) && !shape.hasClosedRings()) {
           return new JsonObject().put(ERROR, COORDINATE_MISMATCH);
+        }
 
+        shape = geoPreprocessor.simplify(shape);
+        JsonObject boundingBox = geoPreprocessor.boundingBoxFilter(shape, GEO_KEY, relation);
+        if (boundingBox != null) {
+          filterQuery.add(boundingBox);
         }
 
         queryGeoShape = GEO_SHAPE_QUERY.replace("$1", geometry)
-            .replace("$2", coordinates.toString()).replace("$3", relation).replace("$4", GEO_KEY);
+            .replace("$2", shape.toString()).replace("$3", relation).replace("$4", GEO_KEY);
 
       } else if (request.containsKey(GEOMETRY) && request.getString(GEOMETRY).equalsIgnoreCase(BBOX)
           && request.containsKey(GEOREL) && request.containsKey(COORDINATES_KEY)
           && request.containsKey(GEO_PROPERTY)) {
         relation = request.getString(GEOREL);
-        coordinates = new JsonArray(request.getString(COORDINATES_KEY));
+        Coordinates shape;
+        try {
+          shape = Coordinates.parse(request.getString(COORDINATES_KEY));
+        } catch (IllegalArgumentException ex) {
+          return new JsonObject().put(ERROR, MISSING_GEO_FIELDS);
+        }
 
         queryGeoShape = GEO_SHAPE_QUERY.replace("$1", GEO_BBOX)
-            .replace("$2", coordinates.toString()).replace("$3", relation).replace("$4", GEO_KEY);
+            .replace("$2", shape.toString()).replace("$3", relation).replace("$4", GEO_KEY);
 
       } else {
         return new JsonObject().put(ERROR, MISSING_GEO_FIELDS);
@@ -311,17 +355,20 @@ public class QueryDecoder {
       LOGGER.debug("Info: Adding responseFilter");
 
       match = true;
-      if (!request.getBoolean(SEARCH_KEY)) {
-        return new JsonObject().put(ERROR, COUNT_UNSUPPORTED);
-      }
-      if (request.containsKey(RESPONSE_ATTRS)) {
-        JsonArray sourceFilter = request.getJsonArray(RESPONSE_ATTRS);
-        elasticQuery.put(SOURCE_FILTER_KEY, sourceFilter);
-      } else {
+      // projected below, a count returns no documents to project
+      if (!request.containsKey(RESPONSE_ATTRS)) {
         return new JsonObject().put(ERROR, MISSING_RESPONSE_FILTER_FIELDS);
       }
     }
 
+    /* Response Projection */
+    if (request.containsKey(SEARCH_KEY) && request.getBoolean(SEARCH_KEY)) {
+      JsonObject source = projection.source(request.getJsonArray(RESPONSE_ATTRS));
+      if (source != null) {
+        elasticQuery.put(SOURCE_FILTER_KEY, source);
+      }
+    }
+
     /* checks if any valid search requests have matched */
     if (!match) {
       return new JsonObject().put(ERROR, INVALID_SEARCH);
@@ -358,7 +405,35 @@ public class QueryDecoder {
         LOGGER.debug("#######TIME COMPONENT ATTACHED: " + filterQuery.toString());
       }
       boolObject.getJsonObject(BOOL_KEY).put(FILTER_KEY, filterQuery);
+      if (request.containsKey(AGGREGATE)) {
+        // only the cells are returned, the attributes are their metrics
+        elasticQuery.remove(SOURCE_FILTER_KEY);
+        elasticQuery.put(SIZE_KEY, 0).put(AGGS_KEY, geoGridAggregation(request));
+      }
       return elasticQuery.put(QUERY_KEY, boolObject);
     }
   }
+
+  /**
+   * Constructs the geotile_grid or geohash_grid aggregation of a query, with the stats of every
+   * requested attribute as sub-aggregations of the cells.
+   * 
+   * @param request Json object containing the aggregation, its precision and the attributes
+   * @return JsonObject of the aggregations
+   */
+  private JsonObject geoGridAggregation(JsonObject request) {
+    JsonObject grid = new JsonObject().put(request.getString(AGGREGATE),
+        new JsonObject().put(FIELD_KEY, request.getString(GRID_FIELD, GEO_KEY))
+            .put(PRECISION, request.getInteger(PRECISION))
+            .put(SIZE_KEY, request.getInteger(GRID_SIZE, 10000)));
+    if (request.containsKey(RESPONSE_ATTRS)) {
+      JsonObject metrics = new JsonObject();
+      for (Object attribute : request.getJsonArray(RESPONSE_ATTRS)) {
+        metrics.put((String) attribute,
+            new JsonObject().put(STATS_KEY, new JsonObject().put(FIELD_KEY, attribute)));
+      }
+      grid.put(AGGS_KEY, metrics);
+    }
+    return new JsonObject().put(GRID_AGGREGATION, grid);
+  }
 }
@@ -58,6 +58,17 @@ public class ResponseBuilder {
     return this;
   }
 
+  /** Count tracked up to a threshold, the relation gte when it is a lower bound. */
+
+  ResponseBuilder setCount(int count, String relation) {
+    JsonObject result = new JsonObject().put(COUNT, count);
+    if (!RELATION_EQ.equals(relation)) {
+      result.put(RELATION_KEY, relation);
+    }
+    response.put(RESULTS, new JsonArray().add(result));
+    return this;
+  }
+
   public JsonObject getResponse() {
     return response;
   }
@@ -0,0 +1,64 @@
+package iudx.resource.server.database.archives;
+
+import static iudx.resource.server.database.archives.Constants.*;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * The Response Projection.
+ * <h1>Response Projection</h1>
+ * <p>
+ * Builds the _source filter of a search, so Elasticsearch reads and sends only the attributes
+ * asked for with attrs, and never the fields the API does not return, like those added to the
+ * documents at ingestion. It is configured by the projection block of the database verticle:
+ * </p>
+ * <ul>
+ * <li>excludes : fields never returned (default none)</li>
+ * </ul>
+ */
+public final class ResponseProjection {
+
+  private final JsonArray excludes;
+
+  private ResponseProjection(JsonArray excludes) {
+    this.excludes = excludes;
+  }
+
+  /**
+   * create the projection from its configuration.
+   *
+   * @param config the projection block, null when not configured
+   * @return the projection
+   */
+  public static ResponseProjection create(JsonObject config) {
+    if (config == null) {
+      return none();
+    }
+    return new ResponseProjection(config.getJsonArray(EXCLUDES_KEY, new JsonArray()).copy());
+  }
+
+  public static ResponseProjection none() {
+    return new ResponseProjection(new JsonArray());
+  }
+
+  /**
+   * build the _source filter of a search.
+   *
+   * @param attrs attributes asked for, null for all of them
+   * @return the filter, or null when the whole documents are returned
+   */
+  public JsonObject source(JsonArray attrs) {
+    boolean projected = attrs != null && !attrs.isEmpty();
+    if (!projected && excludes.isEmpty()) {
+      return null;
+    }
+    JsonObject source = new JsonObject();
+    if (projected) {
+      source.put(INCLUDES_KEY, attrs.copy());
+    }
+    if (!excludes.isEmpty()) {
+      source.put(EXCLUDES_KEY, excludes.copy());
+    }
+    return source;
+  }
+}
@@ -8,6 +8,7 @@ import static iudx.resource.server.database.archives.Constants.ID;
 import static iudx.resource.server.database.archives.Constants.ID_NOT_FOUND;
 import static iudx.resource.server.database.archives.Constants.KEY;
 import static iudx.resource.server.database.archives.Constants.PATH_PARAM;
+import static iudx.resource.server.database.archives.Constants.RESPONSE_ATTRS;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import io.vertx.core.AsyncResult;
@@ -117,7 +118,8 @@ public class LatestDataServiceImpl implements LatestDataService{
         }
 
         LOGGER.debug("Info: Query constructed: " + query.toString());
-        redisClient.searchAsync(query.getString(KEY), query.getString(PATH_PARAM), searchRes -> {
+        redisClient.searchAsync(query.getString(KEY), query.getString(PATH_PARAM),
+                query.getJsonArray(RESPONSE_ATTRS), searchRes -> {
             if (searchRes.succeeded()) {
                 LOGGER.debug("Success: Successful Redis request");
                 handler.handle(Future.succeededFuture(searchRes.result()));
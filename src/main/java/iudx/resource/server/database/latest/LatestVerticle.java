@@ -59,7 +59,7 @@ public class LatestVerticle extends AbstractVerticle {
             // connectionString = "redis://:@https://database.iudx.io:28734/1";
             // System.out.println("RedisConnectionString: " + connectionString);
             // redisClient = new RedisClient(vertx, connectionString);
-            redisClient = new RedisClient(vertx, redisHost, port);
+            redisClient = new RedisClient(vertx, redisHost, port, config());
             binder = new ServiceBinder(vertx);
             latestData = new LatestDataServiceImpl(redisClient, attributeList);
 
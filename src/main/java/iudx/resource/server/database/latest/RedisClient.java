@@ -2,10 +2,14 @@ package iudx.resource.server.database.latest;
 
 import static iudx.resource.server.database.archives.Constants.*;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.redislabs.modules.rejson.JReJSON;
 import com.redislabs.modules.rejson.Path;
+import io.micrometer.core.instrument.Timer;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
@@ -14,7 +18,13 @@ import io.vertx.core.Vertx;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.rxjava.redis.client.RedisAPI;
+import redis.clients.jedis.exceptions.JedisDataException;
 import iudx.resource.server.database.archives.ResponseBuilder;
+import iudx.resource.server.metrics.ServerMetrics;
+import iudx.resource.server.resilience.BackendGuard;
+import iudx.resource.server.resilience.BackendUnavailableException;
+import iudx.resource.server.tracing.Span;
+import iudx.resource.server.tracing.Tracing;
 
 public class RedisClient {
     // private Redis redisClient;
@@ -23,6 +33,9 @@ public class RedisClient {
     private RedisAPI redis;
     private Vertx vertx;
     private JReJSON client;
+    private BackendGuard guard;
+    // last documents read, served when Redis fails
+    private Cache<String, JsonObject> staleCache;
 
 //    public RedisClient(Vertx vertx, String connectionString){
 //        this.vertx = vertx;
@@ -40,8 +53,28 @@ public class RedisClient {
      */
 
     public RedisClient(Vertx vertx, String ip, int port) {
+        this(vertx, ip, port, new JsonObject());
+    }
+
+    /**
+     * RedisClient - Redis JReJSON Client with the circuit breaker and bulkhead of Redis, and a
+     * cache of the last documents read to serve when Redis fails.
+     *
+     * @param vertx Vertx Instance
+     * @param ip    IP of Redis
+     * @param port  Port of Redis
+     * @param config config of the latest verticle, staleLatestSize and staleLatestSeconds bound
+     *        the stale cache
+     */
+
+    public RedisClient(Vertx vertx, String ip, int port, JsonObject config) {
         this.vertx = vertx;
         this.client = new JReJSON(ip, port);
+        this.guard = BackendGuard.of(ServerMetrics.BACKEND_REDIS, config);
+        this.staleCache = CacheBuilder.newBuilder()
+            .maximumSize(config.getInteger("staleLatestSize", 10000))
+            .expireAfterWrite(config.getInteger("staleLatestSeconds", 600), TimeUnit.SECONDS)
+            .build();
     }
 
     /**
@@ -53,17 +86,51 @@ public class RedisClient {
      */
 
     public RedisClient searchAsync(String key, String pathParam, Handler<AsyncResult<JsonObject>> searchHandler) {
+        return searchAsync(key, pathParam, null, searchHandler);
+    }
+
+    /**
+     * searchAsync - Wrapper around Redis async search requests, reading only the attributes
+     * asked for.
+     *
+     * @param key Redis Key
+     * @param pathParam Path Parameter for Redis Nested JSON object
+     * @param attrs attributes of the object to read, null for all of them
+     * @param searchHandler JsonObject result {@link AsyncResult}
+     */
+
+    public RedisClient searchAsync(String key, String pathParam, JsonArray attrs,
+            Handler<AsyncResult<JsonObject>> searchHandler) {
         // using get command
         JsonArray response = new JsonArray();
-        get(key, pathParam).onComplete(resultRedis -> {
+        String staleKey = key + path(pathParam) + (attrs == null ? "" : attrs.encode());
+        get(key, pathParam, attrs).onComplete(resultRedis -> {
+            JsonObject stale = null;
+            if (resultRedis.failed() && !ID_NOT_PRESENT.equals(resultRedis.cause().getMessage())) {
+                stale = staleCache.getIfPresent(staleKey);
+            }
             if (resultRedis.succeeded()) {
                 LOGGER.debug("Key found!");
                 JsonObject fromRedis = resultRedis.result();
                 LOGGER.debug("Result from Redis: " + fromRedis);
+                staleCache.put(staleKey, fromRedis);
                     response.add(fromRedis);
                     responseBuilder = new ResponseBuilder(SUCCESS).setTypeAndTitle(200).setMessage(response);
                     searchHandler.handle(Future.succeededFuture(responseBuilder.getResponse()));
             }
+            else if (stale != null) {
+                LOGGER.warn("Warn : serving stale latest data for " + key + ", "
+                    + resultRedis.cause().getMessage());
+                ServerMetrics.recordFallback(ServerMetrics.BACKEND_REDIS);
+                response.add(stale);
+                responseBuilder = new ResponseBuilder(SUCCESS).setTypeAndTitle(200).setMessage(response);
+                searchHandler.handle(Future.succeededFuture(responseBuilder.getResponse()));
+            }
+            else if (resultRedis.cause() instanceof BackendUnavailableException) {
+                responseBuilder = new ResponseBuilder(FAILED).setTypeAndTitle(503)
+                        .setMessage(resultRedis.cause().getMessage());
+                searchHandler.handle(Future.failedFuture(responseBuilder.getResponse().toString()));
+            }
             else {
                 LOGGER.error("Redis Error: " + resultRedis.cause());
                 resultRedis.cause().printStackTrace();
@@ -199,15 +266,43 @@ public class RedisClient {
      */
 
     public Future<JsonObject> get(String key, String path) {
+        return get(key, path, null);
+    }
+
+    /**
+     * get - makes sync Redis call asynchronous
+     * overridden method to read only some attributes of the object at the path, by their paths
+     * in one JSON.GET
+     * @param key Redis Key
+     * @param path Redis Path parameter
+     * @param attrs attributes of the object to read, null for all of them
+     * returns Future Object with (JSON) result from Redis
+     */
+
+    public Future<JsonObject> get(String key, String path, JsonArray attrs) {
         Promise<JsonObject> promise = Promise.promise();
+        if (!guard.tryAcquire()) {
+            promise.fail(guard.unavailable());
+            return promise.future();
+        }
+        long startNanos = System.nanoTime();
+        Timer.Sample sample = ServerMetrics.start();
+        Span span = Tracing.start("redis.get");
+        // unordered, the bulkhead bounds the worker threads waiting on Redis
         vertx.executeBlocking(getFromRedisHandler -> {
-            JsonObject json = getFromRedis(key, path);
+            JsonObject json = attrs == null ? getFromRedis(key, path)
+                : getFromRedis(key, path, attrs);
             if (json == null) {
                 getFromRedisHandler.fail(ID_NOT_PRESENT);
             } else {
                 getFromRedisHandler.complete(json);
             }
-        }, resultHandler -> {
+        }, false, resultHandler -> {
+            guard.release(startNanos, resultHandler.failed()
+                && !ID_NOT_PRESENT.equals(resultHandler.cause().getMessage()));
+            ServerMetrics.recordBackend(sample, ServerMetrics.BACKEND_REDIS, "get",
+                resultHandler.succeeded());
+            span.end();
             if (resultHandler.succeeded()) {
                 promise.complete((JsonObject) resultHandler.result());
             } else {
@@ -234,9 +329,48 @@ public class RedisClient {
             } else {
                 return null;
             }
-        } catch (Exception e) {
+        } catch (JedisDataException e) {
+            /* the key has no such path, connection failures are passed on */
             return null;
         }
     }
 
+    /**
+     * getFromRedis - wrapper around Redis JReJSON client get command with a path per attribute,
+     * keyed by the path in the reply when there are several
+     * @param key Redis Key
+     * @param path Redis Path parameter of the object
+     * @param attrs attributes of the object
+     * returns (JsonObject) the attributes, or null when the key or one of them is missing
+     */
+
+    private JsonObject getFromRedis(String key, String path, JsonArray attrs) {
+        Path[] paths = new Path[attrs.size()];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = new Path(path + "." + attrs.getString(i));
+        }
+        try {
+            Object result = client.get(key, Object.class, paths);
+            if (result == null) {
+                return null;
+            }
+            JsonObject res = new JsonObject();
+            if (paths.length == 1) {
+                return res.put(attrs.getString(0), result);
+            }
+            Map<?, ?> values = (Map<?, ?>) result;
+            for (int i = 0; i < paths.length; i++) {
+                res.put(attrs.getString(i), values.get(paths[i].toString()));
+            }
+            return res;
+        } catch (JedisDataException e) {
+            /* the key has no such path, connection failures are passed on */
+            return null;
+        }
+    }
+
+    private static String path(String pathParam) {
+        return pathParam == null ? "" : pathParam;
+    }
+
 }
@@ -7,6 +7,7 @@ import io.vertx.codegen.annotations.VertxGen;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 
 /**
@@ -357,6 +358,18 @@ public interface DataBrokerService {
   DataBrokerService publishFromAdaptor(JsonObject request,
       Handler<AsyncResult<JsonObject>> handler);
 
+  /**
+   * The publishBulkFromAdaptor implements the batched publish from adaptor operation with the data
+   * broker, using publisher confirms.
+   * 
+   * @param request which is a JsonArray of adaptor messages
+   * @param handler which is a Request Handler
+   * @return DataBrokerService which is a Service
+   **/
+  @Fluent
+  DataBrokerService publishBulkFromAdaptor(JsonArray request,
+      Handler<AsyncResult<JsonObject>> handler);
+
   @GenIgnore
   static DataBrokerService createProxy(Vertx vertx, String address) {
     return new DataBrokerServiceVertxEBProxy(vertx, address);
@@ -1,14 +1,18 @@
 package iudx.resource.server.databroker;
 
 import io.vertx.core.AsyncResult;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import io.vertx.rabbitmq.RabbitMQClient;
 import iudx.resource.server.databroker.util.Util;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import org.apache.http.HttpStatus;
 import static iudx.resource.server.databroker.util.Constants.*;
@@ -35,11 +39,6 @@ public class DataBrokerServiceImpl implements DataBrokerService {
   private String user;
   private String password;
   private String vhost;
-  private int totalBindCount;
-  private int totalBindSuccess;
-  private int totalUnBindCount;
-  private int totalUnBindSuccess;
-  private boolean bindingSuccessful;
   private RabbitClient webClient;
   private PostgresClient pgClient;
   private SubscriptionService subscriptionService;
@@ -728,97 +727,145 @@ public class DataBrokerServiceImpl implements DataBrokerService {
     return this;
   }
 
+  /**
+   * publish a batch of adaptor messages through the confirm channel pool. Messages are pipelined
+   * on the pool and the handler is called once every message is confirmed or has failed.
+   * 
+   * @param request array of adaptor messages, each carrying its resource id
+   * @param handler handler with the number of published and failed messages
+   */
   @Override
-  public DataBrokerService publishHeartbeat(JsonObject request,
+  public DataBrokerService publishBulkFromAdaptor(JsonArray request,
       Handler<AsyncResult<JsonObject>> handler) {
-    JsonObject response = new JsonObject();
-    if (request != null && !request.isEmpty()) {
-      String adaptor = request.getString(ID);
-      String routingKey = request.getString("status");
-      if (adaptor != null && !adaptor.isEmpty() && routingKey != null && !routingKey.isEmpty()) {
-        JsonObject json = new JsonObject();
-        Future<JsonObject> future1 =
-            webClient.getExchange(json.put("id", adaptor), vhost);
-        future1.onComplete(ar -> {
-          if (ar.result().getInteger("type") == HttpStatus.SC_OK) {
-            json.put("exchangeName", adaptor);
-            // exchange found, now get list of all queues which are bound with this exchange
-            Future<JsonObject> future2 =
-                webClient.listExchangeSubscribers(json, vhost);
-            future2.onComplete(rh -> {
-              JsonObject queueList = rh.result();
-              if (queueList != null && queueList.size() > 0) {
-                // now find queues which are bound with given routingKey and publish message
-                queueList.forEach(queue -> {
-                  // JsonObject obj = new JsonObject();
-                  Map.Entry<String, Object> map = queue;
-                  String queueName = map.getKey();
-                  JsonArray array = (JsonArray) map.getValue();
-                  array.forEach(rk -> {
-                    if ((rk.toString()).contains(routingKey)) {
-                      // routingKey matched. now publish message
-                      JsonObject message = new JsonObject();
-                      message.put("body", request.toString());
-                      webClient.getRabbitMQClient().basicPublish(adaptor, routingKey, message,
-                          resultHandler -> {
-                        if (resultHandler.succeeded()) {
-                          LOGGER.info("publishHeartbeat - message published to queue [ " + queueName
-                              + " ] for routingKey [ " + routingKey + " ]");
-                          response.put("type", "success");
-                          response.put("queueName", queueName);
-                          response.put("routingKey", rk.toString());
-                          response.put("detail", "routingKey matched");
-                          handler.handle(Future.succeededFuture(response));
-                        } else {
-                          LOGGER.error(
-                              "publishHeartbeat - some error in publishing message to queue [ "
-                                  + queueName + " ]. cause : " + resultHandler.cause());
-                          response.put("messagePublished", "failed");
-                          response.put("type", "error");
-                          response.put("detail", "routingKey not matched");
-                          handler.handle(Future.failedFuture(response.toString()));
-                        }
-                      });
-                    } else {
-                      LOGGER.error(
-                          "publishHeartbeat - routingKey [ " + routingKey + " ] not matched with [ "
-                              + rk.toString() + " ] for queue [ " + queueName + " ]");
-                      handler.handle(Future.failedFuture(
-                          "publishHeartbeat - routingKey [ " + routingKey + " ] not matched with [ "
-                              + rk.toString() + " ] for queue [ " + queueName + " ]"));
-                    }
-                  });
-
-                });
-
-              } else {
-                LOGGER.error(
-                    "publishHeartbeat method - Oops !! None queue bound with given exchange");
-                handler.handle(Future.failedFuture(
-                    "publishHeartbeat method - Oops !! None queue bound with given exchange"));
-              }
-
-            });
-
-          } else {
-            LOGGER.error("Either adaptor does not exist or some other error to publish message");
-            handler.handle(Future.failedFuture(
-                "Either adaptor does not exist or some other error to publish message"));
-          }
-
-        });
+    if (request == null || request.isEmpty()) {
+      handler.handle(Future.failedFuture(
+          Util.getResponseJson(BAD_REQUEST_CODE, BAD_REQUEST_DATA, PAYLOAD_ERROR).toString()));
+      return this;
+    }
+    List<Future> published = new ArrayList<>();
+    for (Object item : request) {
+      if (!(item instanceof JsonObject)) {
+        published.add(Future.failedFuture(PAYLOAD_ERROR));
+        continue;
+      }
+      JsonObject message = (JsonObject) item;
+      String routingKey = message.getString(ID);
+      if (routingKey == null || routingKey.isBlank() || !routingKey.contains("/")) {
+        published.add(Future.failedFuture(INVALID_ROUTING_KEY));
+        continue;
+      }
+      String resourceGroupId = routingKey.substring(0, routingKey.lastIndexOf("/"));
+      published.add(webClient.publishConfirmed(resourceGroupId, routingKey,
+          Buffer.buffer(message.toString())));
+    }
+    CompositeFuture.join(published).onComplete(joinHandler -> {
+      int failed = 0;
+      for (Future future : published) {
+        if (future.failed()) {
+          failed++;
+        }
+      }
+      if (failed == 0) {
+        LOGGER.info("Success : " + published.size() + " messages published");
+        handler.handle(Future.succeededFuture(new JsonObject().put(STATUS, HttpStatus.SC_OK)
+            .put(PUBLISHED, published.size())));
       } else {
-        LOGGER.error("publishHeartbeat - adaptor and routingKey not provided to publish message");
+        LOGGER.error("Fail : " + failed + " of " + published.size() + " messages not published");
         handler.handle(Future.failedFuture(
-            "publishHeartbeat - adaptor and routingKey not provided to publish message"));
+            Util.getResponseJson(BAD_REQUEST_CODE, MSG_PUBLISH_FAILED, BULK_PUBLISH_PARTIAL)
+                .put(PUBLISHED, published.size() - failed).put(FAILED, failed).toString()));
       }
+    });
+    return this;
+  }
 
-    } else {
+  /**
+   * publish a heartbeat (or issue) message from an adaptor. The bindings of the adaptor exchange
+   * come from the topology cache, so a heartbeat normally costs one basicPublish and no management
+   * API call. The handler is called exactly once.
+   * 
+   * @param request json with the adaptor id and the status (routing key)
+   * @param handler handler with the matched queue and routing key
+   */
+  @Override
+  public DataBrokerService publishHeartbeat(JsonObject request,
+      Handler<AsyncResult<JsonObject>> handler) {
+    if (request == null || request.isEmpty()) {
       LOGGER.error("publishHeartbeat - request is null to publish message");
       handler.handle(Future.failedFuture("publishHeartbeat - request is null to publish message"));
+      return this;
+    }
+    String adaptor = request.getString(ID);
+    String routingKey = request.getString("status");
+    if (adaptor == null || adaptor.isEmpty() || routingKey == null || routingKey.isEmpty()) {
+      LOGGER.error("publishHeartbeat - adaptor and routingKey not provided to publish message");
+      handler.handle(Future.failedFuture(
+          "publishHeartbeat - adaptor and routingKey not provided to publish message"));
+      return this;
     }
 
-    return null;
+    webClient.getExchangeBindings(adaptor, vhost).onComplete(bindingHandler -> {
+      if (bindingHandler.failed()) {
+        LOGGER.error("Either adaptor does not exist or some other error to publish message");
+        handler.handle(Future.failedFuture(
+            "Either adaptor does not exist or some other error to publish message"));
+        return;
+      }
+      JsonObject queueList = bindingHandler.result();
+      if (queueList == null || queueList.isEmpty() || queueList.containsKey(TYPE)) {
+        LOGGER.error("publishHeartbeat method - Oops !! None queue bound with given exchange");
+        handler.handle(Future.failedFuture(
+            "publishHeartbeat method - Oops !! None queue bound with given exchange"));
+        return;
+      }
 
+      /* find a queue bound with the given routingKey */
+      String queueName = null;
+      String boundKey = null;
+      for (Map.Entry<String, Object> queue : queueList) {
+        for (Object rk : (JsonArray) queue.getValue()) {
+          if (rk.toString().contains(routingKey)) {
+            queueName = queue.getKey();
+            boundKey = rk.toString();
+            break;
+          }
+        }
+        if (queueName != null) {
+          break;
+        }
+      }
+      if (queueName == null) {
+        LOGGER.error("publishHeartbeat - routingKey [ " + routingKey + " ] not bound for [ "
+            + adaptor + " ]");
+        handler.handle(Future.failedFuture(
+            Util.getResponseJson(BAD_REQUEST_CODE, FAILURE, HEARTBEAT_NO_BINDING).toString()));
+        return;
+      }
+
+      String matchedQueue = queueName;
+      String matchedKey = boundKey;
+      JsonObject message = new JsonObject();
+      message.put("body", request.toString());
+      webClient.getRabbitMQClient().basicPublish(adaptor, routingKey, message, resultHandler -> {
+        JsonObject response = new JsonObject();
+        if (resultHandler.succeeded()) {
+          LOGGER.info("publishHeartbeat - message published to queue [ " + matchedQueue
+              + " ] for routingKey [ " + routingKey + " ]");
+          response.put("type", "success");
+          response.put("queueName", matchedQueue);
+          response.put("routingKey", matchedKey);
+          response.put("detail", "routingKey matched");
+          handler.handle(Future.succeededFuture(response));
+        } else {
+          LOGGER.error("publishHeartbeat - some error in publishing message to queue [ "
+              + matchedQueue + " ]. cause : " + resultHandler.cause());
+          response.put("messagePublished", "failed");
+          response.put("type", "error");
+          response.put("detail", "routingKey not matched");
+          handler.handle(Future.failedFuture(response.toString()));
+        }
+      });
+    });
+    return this;
   }
 }
@@ -1,5 +1,8 @@
 package iudx.resource.server.databroker;
 
+import static iudx.resource.server.databroker.util.Constants.DEFAULT_PUBLISHER_CHANNELS;
+import static iudx.resource.server.databroker.util.Constants.DEFAULT_PUBLISHER_CONFIRM_WINDOW;
+import static iudx.resource.server.databroker.util.Constants.DEFAULT_STREAM_QUEUE_BUFFER;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import io.vertx.core.AbstractVerticle;
@@ -62,6 +65,7 @@ public class DataBrokerVerticle extends AbstractVerticle {
   private RabbitClient rabbitClient;
   private RabbitWebClient rabbitWebClient;
   private PostgresClient pgClient;
+  private StreamingDispatcher streamingDispatcher;
 
   /**
    * This method is used to start the Verticle. It deploys a verticle in a cluster, registers the
@@ -155,8 +159,11 @@ public class DataBrokerVerticle extends AbstractVerticle {
 
     rabbitWebClient = new RabbitWebClient(vertx, webConfig, propObj);
     pgClient = new PostgresClient(vertx, connectOptions, poolOptions);
-    rabbitClient =
-        new RabbitClient(vertx, config, rabbitWebClient, pgClient);
+    rabbitClient = new RabbitClient(vertx, config, rabbitWebClient, pgClient,
+        Integer.parseInt(config().getString("publisherChannels",
+            String.valueOf(DEFAULT_PUBLISHER_CHANNELS))),
+        Integer.parseInt(config().getString("publisherConfirmWindow",
+            String.valueOf(DEFAULT_PUBLISHER_CONFIRM_WINDOW))));
     binder = new ServiceBinder(vertx);
     databroker = new DataBrokerServiceImpl(rabbitClient, pgClient, dataBrokerVhost);
 
@@ -167,12 +174,21 @@ public class DataBrokerVerticle extends AbstractVerticle {
         binder.setAddress(BROKER_SERVICE_ADDRESS)
       .register(DataBrokerService.class, databroker);
 
+    /* Serve the streaming and live endpoints of the API server from broker queues. */
+
+    streamingDispatcher = new StreamingDispatcher(vertx, rabbitClient,
+        Integer.parseInt(config().getString("streamQueueBufferSize",
+            String.valueOf(DEFAULT_STREAM_QUEUE_BUFFER))));
+    streamingDispatcher.start();
+
   }
 
 
   @Override
   public void stop() {
     binder.unregister(consumer);
+    streamingDispatcher.stop();
+    rabbitClient.close();
   }
 }
 
@@ -0,0 +1,359 @@
+package iudx.resource.server.databroker;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.Method;
+import com.rabbitmq.client.ShutdownSignalException;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.rabbitmq.RabbitMQOptions;
+
+/**
+ * A pool of AMQP channels in publisher confirm mode.
+ * <p>
+ * Each channel is owned by a single thread and keeps at most {@code window} unconfirmed messages
+ * in flight. Messages beyond the window wait in a local queue and are sent as the broker acks
+ * earlier ones, so publishing is pipelined instead of waiting a round trip per message. A message
+ * is always sent on the channel picked by its routing key, which keeps per-entity ordering.
+ * </p>
+ * <p>
+ * A channel closed by the broker, as on a publish to a missing exchange, fails the messages in
+ * flight on it and is replaced, while a channel closed with its connection is recovered along
+ * with it.
+ * </p>
+ * <p>
+ * The same connection serves passive declarations, which the Vert.x client cannot issue. They run
+ * on a short-lived channel, so a missing exchange or queue never closes a shared channel.
+ * </p>
+ */
+public class PublisherChannelPool {
+
+  private static final Logger LOGGER = LogManager.getLogger(PublisherChannelPool.class);
+
+  private final Vertx vertx;
+  private final RabbitMQOptions options;
+  private final int channelCount;
+  private final int window;
+  private final List<PublisherChannel> channels = new ArrayList<>();
+  private Connection connection;
+  private Future<Void> started;
+
+  /**
+   * create a publisher pool on a dedicated connection to the broker.
+   *
+   * @param vertx vertx instance
+   * @param options connection options shared with the RabbitMQ client
+   * @param channelCount number of channels in the pool
+   * @param window maximum unconfirmed messages per channel
+   */
+  public PublisherChannelPool(Vertx vertx, RabbitMQOptions options, int channelCount,
+      int window) {
+    this.vertx = vertx;
+    this.options = options;
+    this.channelCount = Math.max(1, channelCount);
+    this.window = Math.max(1, window);
+  }
+
+  /**
+   * open the connection and channels, once.
+   *
+   * @return Future which completes when all channels are in confirm mode
+   */
+  public synchronized Future<Void> start() {
+    if (started != null) {
+      return started;
+    }
+    Promise<Void> promise = Promise.promise();
+    started = promise.future();
+    vertx.<Void>executeBlocking(blocking -> {
+      try {
+        ConnectionFactory factory = new ConnectionFactory();
+        factory.setHost(options.getHost());
+        factory.setPort(options.getPort());
+        factory.setUsername(options.getUser());
+        factory.setPassword(options.getPassword());
+        factory.setVirtualHost(options.getVirtualHost());
+        factory.setConnectionTimeout(options.getConnectionTimeout());
+        factory.setHandshakeTimeout(options.getHandshakeTimeout());
+        factory.setRequestedHeartbeat(options.getRequestedHeartbeat());
+        factory.setAutomaticRecoveryEnabled(true);
+        factory.setNetworkRecoveryInterval(options.getNetworkRecoveryInterval());
+        connection = factory.newConnection("iudx-rs-publisher");
+        for (int i = 0; i < channelCount; i++) {
+          channels.add(new PublisherChannel(connection.createChannel(), i));
+        }
+        blocking.complete();
+      } catch (IOException | TimeoutException e) {
+        blocking.fail(e);
+      }
+    }, false, startHandler -> {
+      if (startHandler.succeeded()) {
+        LOGGER.info("Info : publisher pool started with " + channelCount + " channels");
+        promise.complete();
+      } else {
+        LOGGER.error("Fail : publisher pool startup failed; " + startHandler.cause());
+        synchronized (this) {
+          started = null;
+        }
+        promise.fail(startHandler.cause());
+      }
+    });
+    return started;
+  }
+
+  /**
+   * publish a message and complete when the broker confirms it.
+   *
+   * @param exchange exchange to publish to
+   * @param routingKey routing key of the message
+   * @param body message payload
+   * @return Future which completes on broker ack and fails on nack or channel error
+   */
+  public Future<Void> publish(String exchange, String routingKey, Buffer body) {
+    Promise<Void> promise = Promise.promise();
+    Context context = vertx.getOrCreateContext();
+    start().onComplete(startHandler -> {
+      if (startHandler.failed()) {
+        promise.fail(startHandler.cause());
+        return;
+      }
+      int index = Math.floorMod(routingKey.hashCode(), channels.size());
+      channels.get(index)
+          .submit(new PendingMessage(exchange, routingKey, body.getBytes(), promise, context));
+    });
+    return promise.future();
+  }
+
+  /**
+   * check that an exchange and a queue exist, using passive declarations.
+   *
+   * @param exchange exchange name, or null to skip the exchange
+   * @param queue queue name, or null to skip the queue
+   * @return Future of true when every given entity exists
+   */
+  public Future<Boolean> exists(String exchange, String queue) {
+    Promise<Boolean> promise = Promise.promise();
+    start().onComplete(startHandler -> {
+      if (startHandler.failed()) {
+        promise.fail(startHandler.cause());
+        return;
+      }
+      vertx.<Boolean>executeBlocking(blocking -> {
+        Channel channel = null;
+        try {
+          channel = connection.createChannel();
+          if (exchange != null) {
+            channel.exchangeDeclarePassive(exchange);
+          }
+          if (queue != null) {
+            channel.queueDeclarePassive(queue);
+          }
+          blocking.complete(true);
+        } catch (IOException e) {
+          if (isNotFound(e)) {
+            blocking.complete(false);
+          } else {
+            blocking.fail(e);
+          }
+        } finally {
+          closeQuietly(channel);
+        }
+      }, false, promise);
+    });
+    return promise.future();
+  }
+
+  private static boolean isNotFound(IOException e) {
+    if (e.getCause() instanceof ShutdownSignalException) {
+      Method reason = ((ShutdownSignalException) e.getCause()).getReason();
+      return reason instanceof AMQP.Channel.Close
+          && ((AMQP.Channel.Close) reason).getReplyCode() == AMQP.NOT_FOUND;
+    }
+    return false;
+  }
+
+  private void closeQuietly(Channel channel) {
+    if (channel != null && channel.isOpen()) {
+      try {
+        channel.close();
+      } catch (IOException | TimeoutException e) {
+        LOGGER.debug("Info : closing passive channel; " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * close the channels and the connection.
+   */
+  public void close() {
+    for (PublisherChannel channel : channels) {
+      channel.executor.shutdown();
+    }
+    if (connection != null) {
+      try {
+        connection.close();
+      } catch (IOException e) {
+        LOGGER.error("Fail : closing publisher connection; " + e.getMessage());
+      }
+    }
+  }
+
+  private static final class PendingMessage {
+    private final String exchange;
+    private final String routingKey;
+    private final byte[] body;
+    private final Promise<Void> promise;
+    private final Context context;
+
+    private PendingMessage(String exchange, String routingKey, byte[] body,
+        Promise<Void> promise, Context context) {
+      this.exchange = exchange;
+      this.routingKey = routingKey;
+      this.body = body;
+      this.promise = promise;
+      this.context = context;
+    }
+
+    private void complete() {
+      context.runOnContext(v -> promise.complete());
+    }
+
+    private void fail(Throwable cause) {
+      context.runOnContext(v -> promise.fail(cause));
+    }
+  }
+
+  /**
+   * A channel and the thread that owns it. All state is touched only by that thread.
+   */
+  private final class PublisherChannel {
+    private final ExecutorService executor;
+    private final NavigableMap<Long, PendingMessage> unconfirmed = new TreeMap<>();
+    private final Deque<PendingMessage> waiting = new ArrayDeque<>();
+    private Channel channel;
+
+    private PublisherChannel(Channel channel, int index) throws IOException {
+      this.executor = Executors.newSingleThreadExecutor(
+          runnable -> new Thread(runnable, "rabbit-publisher-" + index));
+      listen(channel);
+    }
+
+    private void listen(Channel channel) throws IOException {
+      channel.confirmSelect();
+      /* the confirms of a replaced channel, still queued, are not those of its replacement */
+      channel.addConfirmListener(
+          (deliveryTag, multiple) -> executor.execute(() -> confirm(channel, deliveryTag,
+              multiple, true)),
+          (deliveryTag, multiple) -> executor.execute(() -> confirm(channel, deliveryTag,
+              multiple, false)));
+      /* sequence numbers restart on a recovered channel, fail whatever was in flight */
+      channel.addShutdownListener(cause -> executor.execute(() -> closed(channel, cause)));
+      this.channel = channel;
+    }
+
+    /* replace a channel closed alone by the broker, which is not recovered */
+    private void reopen() {
+      try {
+        listen(connection.createChannel());
+        LOGGER.info("Info : publisher channel replaced");
+      } catch (IOException | RuntimeException e) {
+        LOGGER.error("Fail : replacing publisher channel; " + e.getMessage());
+      }
+    }
+
+    private boolean isReplaceable() {
+      ShutdownSignalException reason = channel.getCloseReason();
+      return reason != null && !reason.isHardError() && !reason.isInitiatedByApplication()
+          && !executor.isShutdown();
+    }
+
+    private void closed(Channel closedChannel, ShutdownSignalException cause) {
+      if (closedChannel != channel) {
+        return;
+      }
+      LOGGER.error("Fail : publisher channel closed; " + cause.getMessage());
+      failUnconfirmed(cause);
+      if (isReplaceable()) {
+        reopen();
+      }
+      drain();
+    }
+
+    private void failUnconfirmed(Throwable cause) {
+      for (PendingMessage message : unconfirmed.values()) {
+        message.fail(cause);
+      }
+      unconfirmed.clear();
+    }
+
+    private void submit(PendingMessage message) {
+      executor.execute(() -> {
+        if (unconfirmed.size() < window) {
+          send(message);
+        } else {
+          waiting.add(message);
+        }
+      });
+    }
+
+    private void send(PendingMessage message) {
+      if (!channel.isOpen() && isReplaceable()) {
+        // closed before its shutdown listener ran, which then ignores it
+        failUnconfirmed(channel.getCloseReason());
+        reopen();
+      }
+      long sequence = channel.getNextPublishSeqNo();
+      unconfirmed.put(sequence, message);
+      try {
+        channel.basicPublish(message.exchange, message.routingKey, null, message.body);
+      } catch (IOException | RuntimeException e) {
+        // a closed channel throws an AlreadyClosedException, a ShutdownSignalException
+        unconfirmed.remove(sequence);
+        message.fail(e);
+      }
+    }
+
+    private void drain() {
+      while (!waiting.isEmpty() && unconfirmed.size() < window) {
+        send(waiting.poll());
+      }
+    }
+
+    private void confirm(Channel confirmedChannel, long sequence, boolean multiple,
+        boolean ack) {
+      if (confirmedChannel != channel) {
+        return;
+      }
+      Map<Long, PendingMessage> confirmed =
+          multiple ? unconfirmed.headMap(sequence, true) : unconfirmed.subMap(sequence, true,
+              sequence, true);
+      for (PendingMessage message : confirmed.values()) {
+        if (ack) {
+          message.complete();
+        } else {
+          message.fail(new IOException("message nacked by broker"));
+        }
+      }
+      confirmed.clear();
+      drain();
+    }
+  }
+}
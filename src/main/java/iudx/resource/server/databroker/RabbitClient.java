@@ -2,11 +2,14 @@ package iudx.resource.server.databroker;
 
 import static iudx.resource.server.databroker.util.Constants.*;
 import static iudx.resource.server.databroker.util.Util.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.apache.http.HttpStatus;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
@@ -28,10 +31,21 @@ public class RabbitClient {
   private RabbitMQClient client;
   private RabbitWebClient webClient;
   private PostgresClient pgSQLClient;
+  private PublisherChannelPool publisherPool;
+  private TopologyCache topologyCache;
 
   public RabbitClient(Vertx vertx, RabbitMQOptions rabbitConfigs, RabbitWebClient webClient,
       PostgresClient pgSQLClient) {
+    this(vertx, rabbitConfigs, webClient, pgSQLClient, DEFAULT_PUBLISHER_CHANNELS,
+        DEFAULT_PUBLISHER_CONFIRM_WINDOW);
+  }
+
+  public RabbitClient(Vertx vertx, RabbitMQOptions rabbitConfigs, RabbitWebClient webClient,
+      PostgresClient pgSQLClient, int publisherChannels, int publisherConfirmWindow) {
     this.client = getRabbitMQClient(vertx, rabbitConfigs);
+    this.publisherPool = new PublisherChannelPool(vertx, rabbitConfigs, publisherChannels,
+        publisherConfirmWindow);
+    this.topologyCache = new TopologyCache(vertx, TOPOLOGY_CACHE_TTL);
     this.webClient = webClient;
     this.pgSQLClient = pgSQLClient;
     client.start(clientStartupHandler -> {
@@ -59,32 +73,29 @@ public class RabbitClient {
     Promise<JsonObject> promise = Promise.promise();
     if (request != null && !request.isEmpty()) {
       String exchangeName = request.getString("exchangeName");
-      String url = "/api/exchanges/" + vHost + "/" + encodeValue(exchangeName);
-      JsonObject obj = new JsonObject();
-      obj.put(TYPE, EXCHANGE_TYPE);
-      obj.put(AUTO_DELETE, false);
-      obj.put(DURABLE, true);
-      webClient.requestAsync(REQUEST_PUT, url, obj).onComplete(requestHandler -> {
-        if (requestHandler.succeeded()) {
-          JsonObject responseJson = new JsonObject();
-          HttpResponse<Buffer> response = requestHandler.result();
-          int statusCode = response.statusCode();
-          //System.out.println(statusCode);
-          if (statusCode == HttpStatus.SC_CREATED) {
-            responseJson.put(EXCHANGE, exchangeName);
-          } else if (statusCode == HttpStatus.SC_NO_CONTENT) {
-            responseJson = Util.getResponseJson(HttpStatus.SC_CONFLICT, FAILURE, EXCHANGE_EXISTS);
-          } else if (statusCode == HttpStatus.SC_BAD_REQUEST) {
-            responseJson = Util.getResponseJson(statusCode, FAILURE,
-                EXCHANGE_EXISTS_WITH_DIFFERENT_PROPERTIES);
-          }
+      promise.future().onSuccess(r -> topologyCache.invalidate(exchangeName));
+      JsonObject errorJson = Util.getResponseJson(HttpStatus.SC_INTERNAL_SERVER_ERROR, ERROR,
+          EXCHANGE_CREATE_ERROR);
+      publisherPool.exists(exchangeName, null).onComplete(existsHandler -> {
+        if (existsHandler.failed()) {
+          LOGGER.error("Fail : " + existsHandler.cause());
+          promise.fail(errorJson.toString());
+        } else if (existsHandler.result()) {
+          JsonObject responseJson =
+              Util.getResponseJson(HttpStatus.SC_CONFLICT, FAILURE, EXCHANGE_EXISTS);
           LOGGER.debug("Success : " + responseJson);
           promise.complete(responseJson);
         } else {
-          JsonObject errorJson = Util.getResponseJson(HttpStatus.SC_INTERNAL_SERVER_ERROR, ERROR,
-              EXCHANGE_CREATE_ERROR);
-          LOGGER.error("Fail : " + requestHandler.cause());
-          promise.fail(errorJson.toString());
+          client.exchangeDeclare(exchangeName, EXCHANGE_TYPE, true, false, declareHandler -> {
+            if (declareHandler.succeeded()) {
+              JsonObject responseJson = new JsonObject().put(EXCHANGE, exchangeName);
+              LOGGER.debug("Success : " + responseJson);
+              promise.complete(responseJson);
+            } else {
+              LOGGER.error("Fail : " + declareHandler.cause());
+              promise.fail(errorJson.toString());
+            }
+          });
         }
       });
     }
@@ -125,28 +136,23 @@ public class RabbitClient {
     Promise<JsonObject> promise = Promise.promise();
     if (request != null && !request.isEmpty()) {
       String exchangeName = request.getString("id");
-      String url;
-      url = "/api/exchanges/" + vhost + "/" + encodeValue(exchangeName);
-      webClient.requestAsync(REQUEST_GET, url).onComplete(result -> {
+      publisherPool.exists(exchangeName, null).onComplete(result -> {
         if (result.succeeded()) {
-          int status = result.result().statusCode();
-          response.put(TYPE, status);
-          if (status == HttpStatus.SC_OK) {
+          if (result.result()) {
+            response.put(TYPE, HttpStatus.SC_OK);
             response.put(TITLE, SUCCESS);
             response.put(DETAIL, EXCHANGE_FOUND);
-          } else if (status == HttpStatus.SC_NOT_FOUND) {
+          } else {
+            response.put(TYPE, HttpStatus.SC_NOT_FOUND);
             response.put(TITLE, FAILURE);
             response.put(DETAIL, EXCHANGE_NOT_FOUND);
-          } else {
-            response.put("getExchange_status", status);
-            promise.fail("getExchange_status" + result.cause());
           }
+          LOGGER.info("getExchange method response : " + response);
+          promise.complete(response);
         } else {
-          response.put("getExchange_error", result.cause());
+          LOGGER.error("Error : getExchange " + result.cause());
           promise.fail("getExchange_error" + result.cause());
         }
-        LOGGER.info("getExchange method response : " + response);
-        promise.complete(response);
       });
 
     } else {
@@ -168,25 +174,27 @@ public class RabbitClient {
     Promise<JsonObject> promise = Promise.promise();
     if (request != null && !request.isEmpty()) {
       String exchangeName = request.getString("exchangeName");
-      String url = "/api/exchanges/" + vHost + "/" + encodeValue(exchangeName);
-      webClient.requestAsync(REQUEST_DELETE, url).onComplete(requestHandler -> {
-        if (requestHandler.succeeded()) {
-          JsonObject responseJson = new JsonObject();
-          HttpResponse<Buffer> response = requestHandler.result();
-          int statusCode = response.statusCode();
-          if (statusCode == HttpStatus.SC_NO_CONTENT) {
-            responseJson = new JsonObject();
-            responseJson.put(EXCHANGE, exchangeName);
-          } else {
-            responseJson = Util.getResponseJson(statusCode, FAILURE, EXCHANGE_NOT_FOUND);
-            LOGGER.debug("Success : " + responseJson);
-          }
+      promise.future().onSuccess(r -> topologyCache.invalidate(exchangeName));
+      JsonObject errorJson = Util.getResponseJson(HttpStatus.SC_INTERNAL_SERVER_ERROR, ERROR,
+          EXCHANGE_DELETE_ERROR);
+      publisherPool.exists(exchangeName, null).onComplete(existsHandler -> {
+        if (existsHandler.failed()) {
+          LOGGER.error("Error : " + existsHandler.cause());
+          promise.fail(errorJson.toString());
+        } else if (!existsHandler.result()) {
+          JsonObject responseJson =
+              Util.getResponseJson(HttpStatus.SC_NOT_FOUND, FAILURE, EXCHANGE_NOT_FOUND);
+          LOGGER.debug("Success : " + responseJson);
           promise.complete(responseJson);
         } else {
-          JsonObject errorJson = Util.getResponseJson(HttpStatus.SC_INTERNAL_SERVER_ERROR, ERROR,
-              EXCHANGE_DELETE_ERROR);
-          LOGGER.error("Error : " + requestHandler.cause());
-          promise.fail(errorJson.toString());
+          client.exchangeDelete(exchangeName, deleteHandler -> {
+            if (deleteHandler.succeeded()) {
+              promise.complete(new JsonObject().put(EXCHANGE, exchangeName));
+            } else {
+              LOGGER.error("Error : " + deleteHandler.cause());
+              promise.fail(errorJson.toString());
+            }
+          });
         }
       });
     }
@@ -260,36 +268,31 @@ public class RabbitClient {
     JsonObject finalResponse = new JsonObject();
     if (request != null && !request.isEmpty()) {
       String queueName = request.getString("queueName");
-      String url = "/api/queues/" + vhost + "/" + Util.encodeValue(queueName);//"durable":true
-      JsonObject configProp = new JsonObject();
       JsonObject arguments = new JsonObject();
       arguments.put(Constants.X_MESSAGE_TTL_NAME, Constants.X_MESSAGE_TTL_VALUE)
           .put(Constants.X_MAXLENGTH_NAME, Constants.X_MAXLENGTH_VALUE)
           .put(Constants.X_QUEUE_MODE_NAME, Constants.X_QUEUE_MODE_VALUE);
-      configProp.put(Constants.X_QUEUE_TYPE,true);
-      configProp.put(Constants.X_QUEUE_ARGUMENTS, arguments);
-      webClient.requestAsync(REQUEST_PUT, url, configProp).onComplete(ar -> {
-        if (ar.succeeded()) {
-          HttpResponse<Buffer> response = ar.result();
-          if (response != null && !response.equals(" ")) {
-            int status = response.statusCode();
-            if (status == HttpStatus.SC_CREATED) {
-              finalResponse.put(Constants.QUEUE, queueName);
-            } else if (status == HttpStatus.SC_NO_CONTENT) {
-              finalResponse.mergeIn(
-                  Util.getResponseJson(HttpStatus.SC_CONFLICT, FAILURE, QUEUE_ALREADY_EXISTS),
-                  true);
-            } else if (status == HttpStatus.SC_BAD_REQUEST) {
-              finalResponse.mergeIn(Util.getResponseJson(status, FAILURE,
-                  QUEUE_ALREADY_EXISTS_WITH_DIFFERENT_PROPERTIES), true);
-            }
-          }
-          promise.complete(finalResponse);
-          LOGGER.info("Success : " + finalResponse);
-        } else {
-          LOGGER.error("Fail : Creation of Queue failed - " + ar.cause());
+      publisherPool.exists(null, queueName).onComplete(existsHandler -> {
+        if (existsHandler.failed()) {
+          LOGGER.error("Fail : Creation of Queue failed - " + existsHandler.cause());
           finalResponse.mergeIn(Util.getResponseJson(500, FAILURE, QUEUE_CREATE_ERROR));
           promise.fail(finalResponse.toString());
+        } else if (existsHandler.result()) {
+          finalResponse.mergeIn(
+              Util.getResponseJson(HttpStatus.SC_CONFLICT, FAILURE, QUEUE_ALREADY_EXISTS), true);
+          promise.complete(finalResponse);
+        } else {
+          client.queueDeclare(queueName, true, false, false, arguments, declareHandler -> {
+            if (declareHandler.succeeded()) {
+              finalResponse.put(Constants.QUEUE, queueName);
+              promise.complete(finalResponse);
+              LOGGER.info("Success : " + finalResponse);
+            } else {
+              LOGGER.error("Fail : Creation of Queue failed - " + declareHandler.cause());
+              finalResponse.mergeIn(Util.getResponseJson(500, FAILURE, QUEUE_CREATE_ERROR));
+              promise.fail(finalResponse.toString());
+            }
+          });
         }
       });
     }
@@ -310,25 +313,30 @@ public class RabbitClient {
     JsonObject finalResponse = new JsonObject();
     if (request != null && !request.isEmpty()) {
       String queueName = request.getString("queueName");
+      promise.future().onSuccess(r -> topologyCache.invalidateAll());
       LOGGER.debug("Info : queuName" + queueName);
-      String url = "/api/queues/" + vhost + "/" + encodeValue(queueName);
-      webClient.requestAsync(REQUEST_DELETE, url).onComplete(ar -> {
-        if (ar.succeeded()) {
-          HttpResponse<Buffer> response = ar.result();
-          if (response != null && !response.equals(" ")) {
-            int status = response.statusCode();
-            if (status == HttpStatus.SC_NO_CONTENT) {
-              finalResponse.put(Constants.QUEUE, queueName);
-            } else if (status == HttpStatus.SC_NOT_FOUND) {
-              finalResponse.mergeIn(Util.getResponseJson(status, FAILURE, QUEUE_DOES_NOT_EXISTS));
-            }
-          }
+      publisherPool.exists(null, queueName).onComplete(existsHandler -> {
+        if (existsHandler.failed()) {
+          LOGGER.error("Fail : deletion of queue failed - " + existsHandler.cause());
+          finalResponse.mergeIn(Util.getResponseJson(500, FAILURE, QUEUE_DELETE_ERROR));
+          promise.fail(finalResponse.toString());
+        } else if (!existsHandler.result()) {
+          finalResponse.mergeIn(
+              Util.getResponseJson(HttpStatus.SC_NOT_FOUND, FAILURE, QUEUE_DOES_NOT_EXISTS));
           LOGGER.info(finalResponse);
           promise.complete(finalResponse);
         } else {
-          LOGGER.error("Fail : deletion of queue failed - " + ar.cause());
-          finalResponse.mergeIn(Util.getResponseJson(500, FAILURE, QUEUE_DELETE_ERROR));
-          promise.fail(finalResponse.toString());
+          client.queueDelete(queueName, deleteHandler -> {
+            if (deleteHandler.succeeded()) {
+              finalResponse.put(Constants.QUEUE, queueName);
+              LOGGER.info(finalResponse);
+              promise.complete(finalResponse);
+            } else {
+              LOGGER.error("Fail : deletion of queue failed - " + deleteHandler.cause());
+              finalResponse.mergeIn(Util.getResponseJson(500, FAILURE, QUEUE_DELETE_ERROR));
+              promise.fail(finalResponse.toString());
+            }
+          });
         }
       });
     }
@@ -345,43 +353,36 @@ public class RabbitClient {
   Future<JsonObject> bindQueue(JsonObject request, String vhost) {
     LOGGER.debug("Info : RabbitClient#bindQueue() started");
     JsonObject finalResponse = new JsonObject();
-    JsonObject requestBody = new JsonObject();
     Promise<JsonObject> promise = Promise.promise();
     if (request != null && !request.isEmpty()) {
       String exchangeName = request.getString("exchangeName");
       String queueName = request.getString("queueName");
+      promise.future().onSuccess(r -> topologyCache.invalidate(exchangeName));
       JsonArray entities = request.getJsonArray("entities");
-      int arrayPos = entities.size() - 1;
-      String url = "/api/bindings/" + vhost + "/e/" + encodeValue(exchangeName) + "/q/"
-          + Util.encodeValue(queueName);
-      for (Object rkey : entities) {
-        requestBody.put("routing_key", rkey.toString());
-        webClient.requestAsync(REQUEST_POST, url, requestBody).onComplete(ar -> {
-          if (ar.succeeded()) {
-            HttpResponse<Buffer> response = ar.result();
-            if (response != null && !response.equals(" ")) {
-              int status = response.statusCode();
-              LOGGER.info("Info : Binding " + rkey.toString() + "Success. Status is " + status);
-              if (status == HttpStatus.SC_CREATED) {
-                finalResponse.put(Constants.EXCHANGE, exchangeName);
-                finalResponse.put(Constants.QUEUE, queueName);
-                finalResponse.put(Constants.ENTITIES, entities);
-              } else if (status == HttpStatus.SC_NOT_FOUND) {
-                finalResponse
-                    .mergeIn(Util.getResponseJson(status, FAILURE, QUEUE_EXCHANGE_NOT_FOUND));
-              }
-            }
-            if (rkey == entities.getValue(arrayPos)) {
-              LOGGER.debug("Success : " + finalResponse);
-              promise.complete(finalResponse);
-            }
-          } else {
-            LOGGER.error("Fail : Binding of Queue failed - " + ar.cause());
-            finalResponse.mergeIn(Util.getResponseJson(500, FAILURE, QUEUE_BIND_ERROR));
-            promise.fail(finalResponse.toString());
-          }
+      /* a missing exchange or queue would close the client channel, so check passively first */
+      publisherPool.exists(exchangeName, queueName).compose(exists -> {
+        if (!exists) {
+          return Future.succeededFuture(Util.getResponseJson(HttpStatus.SC_NOT_FOUND, FAILURE,
+              QUEUE_EXCHANGE_NOT_FOUND));
+        }
+        List<Future> bindings = new ArrayList<>();
+        for (Object rkey : entities) {
+          bindings.add(bindQueue(queueName, exchangeName, rkey.toString()));
+        }
+        return CompositeFuture.all(bindings).map(bound -> {
+          LOGGER.info("Info : Binding " + entities + " Success");
+          return finalResponse.put(Constants.EXCHANGE, exchangeName)
+              .put(Constants.QUEUE, queueName).put(Constants.ENTITIES, entities);
         });
-      }
+      }).onComplete(bindHandler -> {
+        if (bindHandler.succeeded()) {
+          LOGGER.debug("Success : " + bindHandler.result());
+          promise.complete(bindHandler.result());
+        } else {
+          LOGGER.error("Fail : Binding of Queue failed - " + bindHandler.cause());
+          promise.fail(Util.getResponseJson(500, FAILURE, QUEUE_BIND_ERROR).toString());
+        }
+      });
     }
     return promise.future();
   }
@@ -400,6 +401,7 @@ public class RabbitClient {
     if (request != null && !request.isEmpty()) {
       String exchangeName = request.getString("exchangeName");
       String queueName = request.getString("queueName");
+      promise.future().onSuccess(r -> topologyCache.invalidate(exchangeName));
       JsonArray entities = request.getJsonArray("entities");
       int arrayPos = entities.size() - 1;
       for (Object rkey : entities) {
@@ -863,6 +865,7 @@ public class RabbitClient {
   Future<JsonObject> deleteAdapter(JsonObject json, String vhost) {
     LOGGER.debug("Info : RabbitClient#deleteAdapter() started");
     Promise<JsonObject> promise = Promise.promise();
+    promise.future().onSuccess(r -> topologyCache.invalidate(json.getString("id")));
     JsonObject finalResponse = new JsonObject();
     //System.out.println(json.toString());
     Future<JsonObject> result = getExchange(json, vhost);
@@ -1244,6 +1247,7 @@ public class RabbitClient {
     LOGGER.debug("Info : RabbitClient#bindQueue() started");
     LOGGER.debug("Info : data : " + data + " adaptorID : " + adaptorID + " topics : " + topics);
     Promise<Void> promise = Promise.promise();
+    promise.future().onSuccess(r -> topologyCache.invalidate(adaptorID));
     client.queueBind(data, adaptorID, topics, handler -> {
       if (handler.succeeded()) {
         promise.complete();
@@ -1255,7 +1259,46 @@ public class RabbitClient {
     return promise.future();
   }
 
+  /**
+   * The getExchangeBindings returns the bindings of an exchange from the topology cache, listing
+   * them through the management API only on a miss.
+   * 
+   * @param exchangeName exchange name
+   * @param vhost virtual-host
+   * @return response which is a Future object of promise of Json type
+   */
+  Future<JsonObject> getExchangeBindings(String exchangeName, String vhost) {
+    return topologyCache.get(exchangeName,
+        () -> listExchangeSubscribers(new JsonObject().put(ID, exchangeName), vhost));
+  }
+
   public RabbitMQClient getRabbitMQClient() {
     return this.client;
   }
+
+  /**
+   * publish a message on the confirm channel pool.
+   * 
+   * @param exchange exchange to publish to
+   * @param routingKey routing key of the message
+   * @param body message payload
+   * @return Future which completes when the broker confirms the message
+   */
+  Future<Void> publishConfirmed(String exchange, String routingKey, Buffer body) {
+    return publisherPool.publish(exchange, routingKey, body);
+  }
+
+  /**
+   * check that an exchange exists, without closing the channel of the client when it does not.
+   * 
+   * @param exchange exchange name
+   * @return Future of true when the exchange exists
+   */
+  Future<Boolean> exchangeExists(String exchange) {
+    return publisherPool.exists(exchange, null);
+  }
+
+  void close() {
+    publisherPool.close();
+  }
 }
@@ -0,0 +1,217 @@
+package iudx.resource.server.databroker;
+
+import static iudx.resource.server.databroker.util.Constants.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonObject;
+import io.vertx.rabbitmq.QueueOptions;
+import io.vertx.rabbitmq.RabbitMQClient;
+import io.vertx.rabbitmq.RabbitMQConsumer;
+import iudx.resource.server.databroker.util.Util;
+
+/**
+ * Consumes broker queues on behalf of the API servers and republishes every message on an event
+ * bus address.
+ * <p>
+ * Two kinds of streams are served. A subscription stream consumes the queue of a streaming
+ * subscription. A live stream consumes the live queue of a resource group, bound to its exchange,
+ * so all clients of the resources of that group share one queue, and each message carries its
+ * routing key in a header. Like a subscription queue, the live queue is shared by the dispatchers
+ * that opened it, each message delivered to one of them and published once to every API server.
+ * </p>
+ * <p>
+ * An API server opens a stream with a request and keeps it alive by renewing a lease on the
+ * address returned in the reply. The queue consumer is cancelled once its lease has expired, so a
+ * stopped API server does not leave consumers behind. The internal queue of every consumer is
+ * bounded and keeps the most recent messages.
+ * </p>
+ */
+public class StreamingDispatcher {
+
+  private static final Logger LOGGER = LogManager.getLogger(StreamingDispatcher.class);
+
+  private final Vertx vertx;
+  private final RabbitClient rabbitClient;
+  private final RabbitMQClient client;
+  private final int queueBufferSize;
+  private final String leaseAddress = STREAM_LEASE_ADDRESS_PREFIX + UUID.randomUUID();
+  private final Map<String, Future<RabbitMQConsumer>> consumers = new HashMap<>();
+  private final Map<String, Long> leases = new HashMap<>();
+  private MessageConsumer<JsonObject> openConsumer;
+  private MessageConsumer<JsonObject> liveOpenConsumer;
+  private MessageConsumer<String> leaseConsumer;
+  private long expiryTimer;
+
+  /**
+   * create a dispatcher.
+   *
+   * @param vertx vertx instance
+   * @param rabbitClient client connected to the vhost of the subscription queues and exchanges
+   * @param queueBufferSize messages buffered per queue consumer
+   */
+  public StreamingDispatcher(Vertx vertx, RabbitClient rabbitClient, int queueBufferSize) {
+    this.vertx = vertx;
+    this.rabbitClient = rabbitClient;
+    this.client = rabbitClient.getRabbitMQClient();
+    this.queueBufferSize = queueBufferSize;
+  }
+
+  /**
+   * start serving stream open and lease requests.
+   */
+  public void start() {
+    openConsumer = vertx.eventBus().consumer(STREAM_OPEN_ADDRESS,
+        message -> open(message, SUBSCRIPTION_ID, STREAM_ADDRESS_PREFIX, this::consumeQueue));
+    liveOpenConsumer = vertx.eventBus().consumer(LIVE_OPEN_ADDRESS,
+        message -> open(message, ID, LIVE_ADDRESS_PREFIX, this::consumeGroup));
+    leaseConsumer = vertx.eventBus().consumer(leaseAddress, this::renew);
+    expiryTimer = vertx.setPeriodic(STREAM_LEASE_TTL / 2, timer -> expire());
+  }
+
+  /**
+   * cancel all queue consumers and stop serving requests.
+   */
+  public void stop() {
+    vertx.cancelTimer(expiryTimer);
+    if (openConsumer != null) {
+      openConsumer.unregister();
+      liveOpenConsumer.unregister();
+      leaseConsumer.unregister();
+    }
+    for (String address : consumers.keySet()) {
+      cancel(address);
+    }
+    consumers.clear();
+    leases.clear();
+  }
+
+  private void open(Message<JsonObject> message, String key, String addressPrefix,
+      Function<String, Future<RabbitMQConsumer>> consume) {
+    String name = message.body().getString(key);
+    if (name == null || name.isBlank()) {
+      message.fail(BAD_REQUEST_CODE,
+          Util.getResponseJson(BAD_REQUEST_CODE, ERROR, PAYLOAD_ERROR).toString());
+      return;
+    }
+    String address = addressPrefix + name;
+    leases.put(address, System.currentTimeMillis());
+    consumers.computeIfAbsent(address, a -> consume.apply(name)).onComplete(consumeHandler -> {
+      if (consumeHandler.succeeded()) {
+        message.reply(new JsonObject()
+            .put(STREAM_ADDRESS, address)
+            .put(STREAM_LEASE_ADDRESS, leaseAddress)
+            .put(STREAM_LEASE_TTL_KEY, STREAM_LEASE_TTL));
+      } else {
+        consumers.remove(address);
+        leases.remove(address);
+        if (consumeHandler.cause() instanceof ReplyException) {
+          ReplyException failure = (ReplyException) consumeHandler.cause();
+          message.fail(failure.failureCode(), failure.getMessage());
+        } else {
+          message.fail(INTERNAL_ERROR_CODE,
+              Util.getResponseJson(INTERNAL_ERROR_CODE, ERROR, STREAM_OPEN_ERROR).toString());
+        }
+      }
+    });
+  }
+
+  private Future<RabbitMQConsumer> consumeQueue(String queueName) {
+    return consume(queueName, STREAM_ADDRESS_PREFIX + queueName);
+  }
+
+  /**
+   * declare the live queue of a resource group, bind it to every routing key of the group and
+   * consume it. The queue is auto-deleted, so it goes away with its last consumer. The exchange is
+   * checked first, a binding to a missing exchange would close the channel of the client.
+   */
+  private Future<RabbitMQConsumer> consumeGroup(String exchangeName) {
+    Promise<String> declared = Promise.promise();
+    rabbitClient.exchangeExists(exchangeName).onComplete(existsHandler -> {
+      if (existsHandler.failed()) {
+        declared.fail(existsHandler.cause());
+      } else if (!existsHandler.result()) {
+        declared.fail(new ReplyException(ReplyFailure.RECIPIENT_FAILURE, NOT_FOUND_CODE,
+            Util.getResponseJson(NOT_FOUND_CODE, FAILURE, EXCHANGE_NOT_FOUND).toString()));
+      } else {
+        client.queueDeclare(LIVE_QUEUE_PREFIX + exchangeName, false, false, true,
+            declareHandler -> {
+              if (declareHandler.succeeded()) {
+                declared.complete(declareHandler.result().getString("queue"));
+              } else {
+                declared.fail(declareHandler.cause());
+              }
+            });
+      }
+    });
+    return declared.future()
+        .compose(queueName -> rabbitClient
+            .bindQueue(queueName, exchangeName, exchangeName + DATA_WILDCARD_ROUTINGKEY)
+            .compose(bound -> consume(queueName, LIVE_ADDRESS_PREFIX + exchangeName)));
+  }
+
+  private Future<RabbitMQConsumer> consume(String queueName, String address) {
+    LOGGER.debug("Info : starting stream consumer for " + queueName);
+    Promise<RabbitMQConsumer> promise = Promise.promise();
+    QueueOptions options =
+        new QueueOptions().setMaxInternalQueueSize(queueBufferSize).setKeepMostRecent(true);
+    client.basicConsumer(queueName, options, consumerHandler -> {
+      if (consumerHandler.succeeded()) {
+        RabbitMQConsumer consumer = consumerHandler.result();
+        consumer.handler(received -> vertx.eventBus().publish(address, received.body(),
+            new DeliveryOptions().addHeader(ROUTING_KEY, received.envelope().routingKey())));
+        consumer.exceptionHandler(
+            cause -> LOGGER.error("Error : stream consumer " + queueName + " - " + cause));
+        promise.complete(consumer);
+      } else {
+        LOGGER.error("Error : stream consumer for " + queueName + " failed - "
+            + consumerHandler.cause());
+        promise.fail(consumerHandler.cause());
+      }
+    });
+    return promise.future();
+  }
+
+  private void renew(Message<String> message) {
+    String address = message.body();
+    if (consumers.containsKey(address)) {
+      leases.put(address, System.currentTimeMillis());
+      message.reply(address);
+    } else {
+      message.fail(NOT_FOUND_CODE, STREAM_LEASE_EXPIRED);
+    }
+  }
+
+  private void expire() {
+    long now = System.currentTimeMillis();
+    Iterator<Map.Entry<String, Long>> iterator = leases.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Long> lease = iterator.next();
+      if (now - lease.getValue() > STREAM_LEASE_TTL) {
+        LOGGER.debug("Info : stream lease expired for " + lease.getKey());
+        iterator.remove();
+        cancel(lease.getKey());
+        consumers.remove(lease.getKey());
+      }
+    }
+  }
+
+  private void cancel(String address) {
+    Future<RabbitMQConsumer> consumer = consumers.get(address);
+    if (consumer != null) {
+      consumer.onSuccess(RabbitMQConsumer::cancel);
+    }
+  }
+}
@@ -3,6 +3,12 @@ package iudx.resource.server.databroker;
 import static iudx.resource.server.databroker.util.Constants.*;
 import static iudx.resource.server.databroker.util.Util.*;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonArray;
@@ -25,11 +31,6 @@ public class SubscriptionService {
   private String user;
   private String password;
   private String vhost;
-  private int totalBindCount;
-  private int totalBindSuccess;
-  private int totalUnBindCount;
-  private int totalUnBindSuccess;
-  private boolean bindingSuccessful;
 
   private RabbitClient rabbitClient;
   private PostgresClient pgSQLClient;
@@ -49,6 +50,13 @@ public class SubscriptionService {
       String userName = request.getString(CONSUMER);
       String domain = userName.substring(userName.indexOf("@") + 1, userName.length());
       String queueName = domain + "/" + Util.getSha(userName) + "/" + request.getString("name");
+      JsonArray entitites = request.getJsonArray(ENTITIES);
+      if (getExchanges(entitites) == null) {
+        LOGGER.error("failed :: Invalid (or) NULL routingKey");
+        promise.fail(
+            getResponseJson(BAD_REQUEST_CODE, BAD_REQUEST_DATA, INVALID_ROUTING_KEY).toString());
+        return promise.future();
+      }
       Future<JsonObject> resultCreateUser = rabbitClient.createUserIfNotExist(userName, VHOST_IUDX);
       resultCreateUser.onComplete(resultCreateUserhandler -> {
         if (resultCreateUserhandler.succeeded()) {
@@ -56,12 +64,8 @@ public class SubscriptionService {
           LOGGER.debug("success :: createUserIfNotExist " + result);
           String streamingUserName = result.getString("shaUsername");
           String apiKey = result.getString("apiKey");
-          
-          JsonArray entitites = request.getJsonArray(ENTITIES);
+
           LOGGER.debug("Info : Request Access for " + entitites);
-          LOGGER.debug("Info : No of bindings to do : " + entitites.size());
-          totalBindCount = entitites.size();
-          totalBindSuccess = 0;
           requestjson.put(QUEUE_NAME, queueName);
           Future<JsonObject> resultqueue = rabbitClient.createQueue(requestjson, vhost);
           resultqueue.onComplete(resultHandlerqueue -> {
@@ -74,91 +78,24 @@ public class SubscriptionService {
                 promise.fail(createQueueResponse.toString());
               } else {
                 LOGGER.debug("Success : Success Queue Created");
-
-                for (Object currentEntity : entitites) {
-                  String routingKey = (String) currentEntity;
-                  LOGGER.debug("Info : routingKey is " + routingKey);
-                  if (routingKey != null) {
-                    if (routingKey.isEmpty() || routingKey.isBlank() || routingKey == ""
-                        || routingKey.split("/").length != 5) {
-                      LOGGER.error("failed :: Invalid (or) NULL routingKey");
-                      Future<JsonObject> resultDeletequeue =
-                          rabbitClient.deleteQueue(requestjson, vhost);
-                      resultDeletequeue.onComplete(resultHandlerDeletequeue -> {
-                        if (resultHandlerDeletequeue.succeeded()) {
-                          promise.fail(getResponseJson(BAD_REQUEST_CODE, BAD_REQUEST_DATA, INVALID_ROUTING_KEY)
-                              .toString());
-                        }
-                      });
-                    } else {
-                      String exchangeName = routingKey.substring(0, routingKey.lastIndexOf("/"));
-                      JsonArray array = new JsonArray();
-                      array.add(exchangeName + Constants.DATA_WILDCARD_ROUTINGKEY);
-                      JsonObject json = new JsonObject();
-                      json.put(EXCHANGE_NAME, exchangeName);
-                      json.put(QUEUE_NAME, queueName);
-                      json.put(ENTITIES, array);
-                      Future<JsonObject> resultbind = rabbitClient.bindQueue(json, vhost);
-                      resultbind.onComplete(resultHandlerbind -> {
-                        if (resultHandlerbind.succeeded()) {
-                          // count++
-                          totalBindSuccess += 1;
-                          LOGGER.debug("sucess :: totalBindSuccess " + totalBindSuccess
-                              + resultHandlerbind.result());
-
-                          JsonObject bindResponse = (JsonObject) resultHandlerbind.result();
-                          if (bindResponse.containsKey(TITLE)
-                              && bindResponse.getString(TITLE).equalsIgnoreCase(FAILURE)) {
-                            LOGGER.error("failed ::" + resultHandlerbind.cause());
-                            Future<JsonObject> resultDeletequeue =
-                                rabbitClient.deleteQueue(requestjson, vhost);
-                            resultDeletequeue.onComplete(resultHandlerDeletequeue -> {
-                              if (resultHandlerDeletequeue.succeeded()) {
-                                promise
-                                    .fail(getResponseJson(BAD_REQUEST_CODE, BAD_REQUEST_DATA, BINDING_FAILED)
-                                        .toString());
-                              }
-                            });
-                          } else if (totalBindSuccess == totalBindCount) {
-                            registerStreamingSubscriptionResponse.put(Constants.USER_NAME,
-                                streamingUserName);
-                            registerStreamingSubscriptionResponse.put(Constants.APIKEY,
-                                apiKey);
-                            registerStreamingSubscriptionResponse.put(Constants.ID,
-                                queueName);
-                            registerStreamingSubscriptionResponse.put(Constants.URL,
-                                Constants.BROKER_PRODUCTION_DOMAIN);
-                            registerStreamingSubscriptionResponse.put(Constants.PORT,
-                                Constants.BROKER_PRODUCTION_PORT);
-                            registerStreamingSubscriptionResponse.put(Constants.VHOST,
-                                Constants.VHOST_IUDX);
-                            promise.complete(registerStreamingSubscriptionResponse);
-                          }
-                        } else if (resultHandlerbind.failed()) {
-                          LOGGER.error("failed ::" + resultHandlerbind.cause());
-                          Future<JsonObject> resultDeletequeue =
-                              rabbitClient.deleteQueue(requestjson, vhost);
-                          resultDeletequeue.onComplete(resultHandlerDeletequeue -> {
-                            if (resultHandlerDeletequeue.succeeded()) {
-                              promise.fail(getResponseJson(BAD_REQUEST_CODE, BAD_REQUEST_DATA, BINDING_FAILED)
-                                  .toString());
-                            }
-                          });
-                        }
-                      });
-                    }
+                bindEntities(queueName, entitites).onComplete(bindHandler -> {
+                  if (bindHandler.succeeded()) {
+                    registerStreamingSubscriptionResponse.put(Constants.USER_NAME,
+                        streamingUserName);
+                    registerStreamingSubscriptionResponse.put(Constants.APIKEY, apiKey);
+                    registerStreamingSubscriptionResponse.put(Constants.ID, queueName);
+                    registerStreamingSubscriptionResponse.put(Constants.URL,
+                        Constants.BROKER_PRODUCTION_DOMAIN);
+                    registerStreamingSubscriptionResponse.put(Constants.PORT,
+                        Constants.BROKER_PRODUCTION_PORT);
+                    registerStreamingSubscriptionResponse.put(Constants.VHOST,
+                        Constants.VHOST_IUDX);
+                    promise.complete(registerStreamingSubscriptionResponse);
                   } else {
-                    LOGGER.error("failed :: Invalid (or) NULL routingKey");
-                    Future<JsonObject> resultDeletequeue =
-                        rabbitClient.deleteQueue(requestjson, vhost);
-                    resultDeletequeue.onComplete(resultHandlerDeletequeue -> {
-                      if (resultHandlerDeletequeue.succeeded()) {
-                        promise.fail(getResponseJson(BAD_REQUEST_CODE, BAD_REQUEST_DATA, INVALID_ROUTING_KEY)
-                            .toString());
-                      }
-                    });
+                    rollbackQueue(requestjson, BAD_REQUEST_DATA, bindHandler.cause().getMessage())
+                        .onFailure(promise::fail);
                   }
-                }
+                });
               }
             } else if (resultHandlerqueue.failed()) {
               LOGGER.error("Fail ::" + resultHandlerqueue.cause());
@@ -183,19 +120,19 @@ public class SubscriptionService {
       String userName = request.getString(CONSUMER);
       String domain = userName.substring(userName.indexOf("@") + 1, userName.length());
       String queueName = domain + "/" + Util.getSha(userName) + "/" + request.getString("name");
+      JsonArray entitites = request.getJsonArray(ENTITIES);
+      if (getExchanges(entitites) == null) {
+        LOGGER.error("failed :: Invalid (or) NULL routingKey");
+        promise.fail(getResponseJson(BAD_REQUEST_CODE, ERROR, INVALID_ROUTING_KEY).toString());
+        return promise.future();
+      }
       Future<JsonObject> resultCreateUser = rabbitClient.createUserIfNotExist(userName, VHOST_IUDX);
       resultCreateUser.onComplete(resultCreateUserhandler -> {
         if (resultCreateUserhandler.succeeded()) {
           JsonObject result = resultCreateUserhandler.result();
           LOGGER.debug("success :: createUserIfNotExist " + result);
-          String streamingUserName = result.getString("shaUsername");
-          String apiKey = result.getString("apiKey");
 
-          JsonArray entitites = request.getJsonArray(ENTITIES);
           LOGGER.debug("Info : Request Access for " + entitites);
-          LOGGER.debug("Info : No of bindings to do : " + entitites.size());
-          totalBindCount = entitites.size();
-          totalBindSuccess = 0;
           requestjson.put(QUEUE_NAME, queueName);
           Future<JsonObject> deleteQueue = rabbitClient.deleteQueue(requestjson, vhost);
           deleteQueue.onComplete(deleteQueuehandler -> {
@@ -212,85 +149,15 @@ public class SubscriptionService {
                     promise.fail(createQueueResponse.toString());
                   } else {
                     LOGGER.debug("Success : Queue Created");
-                    for (Object currentEntity : entitites) {
-                      String routingKey = (String) currentEntity;
-                      LOGGER.debug("Info : routingKey is " + routingKey);
-                      if (routingKey != null) {
-                        if (routingKey.isEmpty() || routingKey.isBlank() || routingKey == ""
-                            || routingKey.split("/").length != 5) {
-                          LOGGER.error("failed :: Invalid (or) NULL routingKey");
-
-                          Future<JsonObject> resultDeletequeue =
-                              rabbitClient.deleteQueue(requestjson, vhost);
-                          resultDeletequeue.onComplete(resultHandlerDeletequeue -> {
-                            if (resultHandlerDeletequeue.succeeded()) {
-                              promise.fail(
-                                  getResponseJson(BAD_REQUEST_CODE, ERROR, INVALID_ROUTING_KEY)
-                                      .toString());
-                            }
-                          });
-                        } else {
-                          String exchangeName =
-                              routingKey.substring(0, routingKey.lastIndexOf("/"));
-                          JsonArray array = new JsonArray();
-                          array.add(exchangeName + Constants.DATA_WILDCARD_ROUTINGKEY);
-                          JsonObject json = new JsonObject();
-                          json.put(EXCHANGE_NAME, exchangeName);
-                          json.put(QUEUE_NAME, queueName);
-                          json.put(ENTITIES, array);
-
-                          Future<JsonObject> resultbind = rabbitClient.bindQueue(json, vhost);
-                          resultbind.onComplete(resultHandlerbind -> {
-                            if (resultHandlerbind.succeeded()) {
-                              // count++
-                              totalBindSuccess += 1;
-                              LOGGER.info("sucess :: totalBindSuccess " + totalBindSuccess
-                                  + resultHandlerbind.result());
-
-                              JsonObject bindResponse = (JsonObject) resultHandlerbind.result();
-                              if (bindResponse.containsKey(TITLE)
-                                  && bindResponse.getString(TITLE).equalsIgnoreCase(FAILURE)) {
-                                LOGGER.error("failed ::" + resultHandlerbind.cause());
-                                Future<JsonObject> resultDeletequeue =
-                                    rabbitClient.deleteQueue(requestjson, vhost);
-                                resultDeletequeue.onComplete(resultHandlerDeletequeue -> {
-                                  if (resultHandlerDeletequeue.succeeded()) {
-                                    promise.fail(
-                                        new JsonObject().put(ERROR, "Binding Failed").toString());
-                                  }
-                                });
-                              } else if (totalBindSuccess == totalBindCount) {
-                                updateStreamingSubscriptionResponse.put(Constants.ENTITIES,
-                                    entitites);
-                                promise.complete(updateStreamingSubscriptionResponse);
-                              }
-                            } else if (resultHandlerbind.failed()) {
-                              LOGGER.error("failed ::" + resultHandlerbind.cause());
-                              Future<JsonObject> resultDeletequeue =
-                                  rabbitClient.deleteQueue(requestjson, vhost);
-                              resultDeletequeue.onComplete(resultHandlerDeletequeue -> {
-                                if (resultHandlerDeletequeue.succeeded()) {
-                                  promise
-                                      .fail(getResponseJson(BAD_REQUEST_CODE, ERROR, BINDING_FAILED)
-                                          .toString());
-                                }
-                              });
-                            }
-                          });
-                        }
+                    bindEntities(queueName, entitites).onComplete(bindHandler -> {
+                      if (bindHandler.succeeded()) {
+                        updateStreamingSubscriptionResponse.put(Constants.ENTITIES, entitites);
+                        promise.complete(updateStreamingSubscriptionResponse);
                       } else {
-                        LOGGER.error("failed :: Invalid (or) NULL routingKey");
-                        Future<JsonObject> resultDeletequeue =
-                            rabbitClient.deleteQueue(requestjson, vhost);
-                        resultDeletequeue.onComplete(resultHandlerDeletequeue -> {
-                          if (resultHandlerDeletequeue.succeeded()) {
-                            promise
-                                .fail(getResponseJson(BAD_REQUEST_CODE, ERROR, INVALID_ROUTING_KEY)
-                                    .toString());
-                          }
-                        });
+                        rollbackQueue(requestjson, ERROR, bindHandler.cause().getMessage())
+                            .onFailure(promise::fail);
                       }
-                    }
+                    });
                   }
                 } else if (resultHandlerqueue.failed()) {
                   LOGGER.error("failed ::" + resultHandlerqueue.cause());
@@ -321,9 +188,6 @@ public class SubscriptionService {
     if (request != null && !request.isEmpty()) {
       JsonArray entitites = request.getJsonArray(ENTITIES);
       LOGGER.debug("Info : Request Access for " + entitites);
-      LOGGER.debug("Info : No of bindings to do : " + entitites.size());
-      totalBindCount = entitites.size();
-      totalBindSuccess = 0;
       String queueName = request.getString(SUBSCRIPTION_ID);
       requestjson.put(QUEUE_NAME, queueName);
       Future<JsonObject> result = rabbitClient.listQueueSubscribers(requestjson, vhost);
@@ -335,59 +199,16 @@ public class SubscriptionService {
               && listQueueResponse.getString(TITLE).equalsIgnoreCase(FAILURE)) {
             promise.fail(listQueueResponse.toString());
           } else {
-            for (Object currentEntity : entitites) {
-              String routingKey = (String) currentEntity;
-              LOGGER.debug("Info : routingKey is " + routingKey);
-              if (routingKey != null) {
-                if (routingKey.isEmpty() || routingKey.isBlank() || routingKey == ""
-                    || routingKey.split("/").length != 5) {
-                  LOGGER.error("failed :: Invalid (or) NULL routingKey");
-                  promise.fail(
-                      getResponseJson(BAD_REQUEST_CODE, ERROR, INVALID_ROUTING_KEY).toString());
-                } else {
-                  String exchangeName = routingKey.substring(0, routingKey.lastIndexOf("/"));
-                  JsonArray array = new JsonArray();
-                  array.add(exchangeName + Constants.DATA_WILDCARD_ROUTINGKEY);
-                  JsonObject json = new JsonObject();
-                  json.put(EXCHANGE_NAME, exchangeName);
-                  json.put(QUEUE_NAME, queueName);
-                  json.put(ENTITIES, array);
-
-                  Future<JsonObject> resultbind = rabbitClient.bindQueue(json, vhost);
-                  resultbind.onComplete(resultHandlerbind -> {
-                    if (resultHandlerbind.succeeded()) {
-                      // count++
-                      totalBindSuccess += 1;
-                      LOGGER.info("sucess :: totalBindSuccess " + totalBindSuccess
-                          + resultHandlerbind.result());
-
-                      JsonObject bindResponse = (JsonObject) resultHandlerbind.result();
-                      if (bindResponse.containsKey(TITLE)
-                          && bindResponse.getString(TITLE).equalsIgnoreCase(FAILURE)) {
-                        LOGGER.error("failed ::" + resultHandlerbind.cause());
-                        promise.fail(new JsonObject().put(ERROR, "Binding Failed").toString());
-                      } else if (totalBindSuccess == totalBindCount) {
-                        appendStreamingSubscriptionResponse.put(Constants.ENTITIES, entitites);
-                        promise.complete(appendStreamingSubscriptionResponse);
-                      }
-                    } else if (resultHandlerbind.failed()) {
-                      LOGGER.error("failed ::" + resultHandlerbind.cause());
-                      promise.fail(
-                          getResponseJson(BAD_REQUEST_CODE, ERROR, BINDING_FAILED).toString());
-                    }
-                  });
-                }
+            /* the queue already carries other bindings, so a failed append is not rolled back */
+            bindEntities(queueName, entitites).onComplete(bindHandler -> {
+              if (bindHandler.succeeded()) {
+                appendStreamingSubscriptionResponse.put(Constants.ENTITIES, entitites);
+                promise.complete(appendStreamingSubscriptionResponse);
               } else {
-                LOGGER.error("failed :: Invalid (or) NULL routingKey");
-                Future<JsonObject> resultDeletequeue = rabbitClient.deleteQueue(requestjson, vhost);
-                resultDeletequeue.onComplete(resultHandlerDeletequeue -> {
-                  if (resultHandlerDeletequeue.succeeded()) {
-                    promise.fail(
-                        getResponseJson(BAD_REQUEST_CODE, ERROR, INVALID_ROUTING_KEY).toString());
-                  }
-                });
+                promise.fail(getResponseJson(BAD_REQUEST_CODE, ERROR,
+                    bindHandler.cause().getMessage()).toString());
               }
-            }
+            });
           }
         } else {
           LOGGER.error("Fail : Error in payload");
@@ -473,7 +294,6 @@ public class SubscriptionService {
       JsonObject publishjson = new JsonObject();
       publishjson.put(Constants.SUBSCRIPTION_ID, subscriptionID);
       publishjson.put(Constants.OPERATION, "create");
-      JsonObject requestjson = new JsonObject();
 
       LOGGER.debug("Info : Call Back registration ID check starts");
       String query = SELECT_CALLBACK.replace("$1", subscriptionID);
@@ -498,112 +318,57 @@ public class SubscriptionService {
             String callbackUrl = request.getString(Constants.CALLBACKURL);
             String queueName = request.getString(Constants.QUEUE);
             JsonArray entitites = request.getJsonArray(Constants.ENTITIES);
-            totalBindCount = entitites.size();
-            totalBindSuccess = 0;
-            requestjson.put(Constants.QUEUE_NAME, queueName);
 
-            for (Object currentEntity : entitites) {
-              String routingKey = (String) currentEntity;
-              LOGGER.info("routingKey is " + routingKey);
-              if (routingKey != null) {
-                if (routingKey.isEmpty() || routingKey.isBlank() || routingKey == ""
-                    || routingKey.split("/").length != 5) {
-                  LOGGER.error("failed :: Invalid (or) NULL routingKey");
-                  registerCallbackSubscriptionResponse.clear()
-                      .mergeIn(getResponseJson(INTERNAL_ERROR_CODE, ERROR, INVALID_ROUTING_KEY));
-                  promise.fail(registerCallbackSubscriptionResponse.toString());
+            LOGGER.debug("Info : Valid ID :: Call Back registration starts");
+            bindEntities(queueName, entitites).onComplete(bindHandler -> {
+              if (bindHandler.failed()) {
+                registerCallbackSubscriptionResponse.clear().mergeIn(
+                    getResponseJson(BAD_REQUEST_CODE, ERROR, bindHandler.cause().getMessage()));
+                promise.fail(registerCallbackSubscriptionResponse.toString());
+                return;
+              }
+              String insertQuery = INSERT_CALLBACK.replace("$1", subscriptionID)
+                  .replace("$2", callbackUrl).replace("$3", entitites.toString())
+                  .replace("$4", dateTime.toString()).replace("$5", dateTime.toString())
+                  .replace("$6", dateTime.toString());
+              pgSQLClient.executeAsync(insertQuery).onComplete(ar -> {
+                if (ar.succeeded()) {
+                  String exchangename = "callback.notification";
+                  String routingkey = "create";
+
+                  JsonObject jsonpg = new JsonObject();
+                  jsonpg.put("body", publishjson.toString());
+                  rabbitClient.getRabbitMQClient().basicPublish(exchangename, routingkey, jsonpg,
+                      resultHandler -> {
+                        if (resultHandler.succeeded()) {
+                          registerCallbackSubscriptionResponse.put("subscriptionID",
+                              subscriptionID);
+                          LOGGER.info("Message published to queue");
+                          promise.complete(registerCallbackSubscriptionResponse);
+                        } else {
+                          String deleteQuery = DELETE_CALLBACK.replace("$1", subscriptionID);
+                          pgSQLClient.executeAsync(deleteQuery).onComplete(deletepg -> {
+                            if (deletepg.succeeded()) {
+                              registerCallbackSubscriptionResponse.clear().mergeIn(
+                                  getResponseJson(INTERNAL_ERROR_CODE, ERROR, MSG_PUBLISH_FAILED));
+                              promise.fail(registerCallbackSubscriptionResponse.toString());
+                            }
+                          });
+                        }
+                      });
                 } else {
-                  LOGGER.debug("Info : Valid ID :: Call Back registration starts");
-                  String exchangeName = routingKey.substring(0, routingKey.lastIndexOf("/"));
-                  JsonArray array = new JsonArray();
-                  array.add(exchangeName + Constants.DATA_WILDCARD_ROUTINGKEY);
-                  JsonObject json = new JsonObject();
-                  json.put(Constants.EXCHANGE_NAME, exchangeName);
-                  json.put(Constants.QUEUE_NAME, queueName);
-                  json.put(Constants.ENTITIES, array);
-
-                  Future<JsonObject> resultbind = rabbitClient.bindQueue(json, vhost);
-                  resultbind.onComplete(resultHandlerbind -> {
-                    if (resultHandlerbind.succeeded()) {
-                      totalBindSuccess += 1;
-                      LOGGER.debug("sucess :: totalBindSuccess " + totalBindSuccess
-                          + resultHandlerbind.result());
-                      JsonObject bindResponse = (JsonObject) resultHandlerbind.result();
-                      if (bindResponse.containsKey(Constants.TITLE) && bindResponse
-                          .getString(Constants.TITLE).equalsIgnoreCase(Constants.FAILURE)) {
-                        LOGGER.error("failed ::" + resultHandlerbind.cause());
-                        String deleteQuery = DELETE_CALLBACK.replace("$1", subscriptionID);
-                        pgSQLClient.executeAsync(deleteQuery).onComplete(resulthandlerdel -> {
-                          if (resulthandlerdel.succeeded()) {
-                            registerCallbackSubscriptionResponse.clear().mergeIn(
-                                getResponseJson(INTERNAL_ERROR_CODE, ERROR, BINDING_FAILED));
-                            promise.fail(registerCallbackSubscriptionResponse.toString());
-                          }
-                        });
-                      } else if (totalBindSuccess == totalBindCount) {
-                        String insertQuery = INSERT_CALLBACK.replace("$1", subscriptionID)
-                            .replace("$2", callbackUrl).replace("$3", entitites.toString())
-                            .replace("$4", dateTime.toString()).replace("$5", dateTime.toString())
-                            .replace("$6", dateTime.toString());
-                        pgSQLClient.executeAsync(insertQuery).onComplete(ar -> {
-                          if (ar.succeeded()) {
-                            String exchangename = "callback.notification";
-                            String routingkey = "create";
-
-                            JsonObject jsonpg = new JsonObject();
-                            jsonpg.put("body", publishjson.toString());
-                            rabbitClient.getRabbitMQClient().basicPublish(exchangename, routingkey,
-                                jsonpg, resultHandler -> {
-                                  if (resultHandler.succeeded()) {
-                                    registerCallbackSubscriptionResponse.put("subscriptionID",
-                                        subscriptionID);
-                                    LOGGER.info("Message published to queue");
-                                    promise.complete(registerCallbackSubscriptionResponse);
-                                  } else {
-                                    String deleteQuery =
-                                        DELETE_CALLBACK.replace("$1", subscriptionID);
-                                    pgSQLClient.executeAsync(deleteQuery).onComplete(deletepg -> {
-                                      if (deletepg.succeeded()) {
-                                        registerCallbackSubscriptionResponse.clear()
-                                            .mergeIn(getResponseJson(INTERNAL_ERROR_CODE, ERROR,
-                                                MSG_PUBLISH_FAILED));
-                                        promise
-                                            .fail(registerCallbackSubscriptionResponse.toString());
-                                      }
-                                    });
-                                  }
-                                });
-                          } else {
-                            LOGGER.error("failed ::" + ar.cause().getMessage());
-                            String deleteQuery = DELETE_CALLBACK.replace("$1", subscriptionID);
-                            pgSQLClient.executeAsync(deleteQuery)
-                                .onComplete(resultHandlerDeletequeuepg -> {
-                                  if (resultHandlerDeletequeuepg.succeeded()) {
-                                    registerCallbackSubscriptionResponse.clear()
-                                        .mergeIn(getResponseJson(INTERNAL_ERROR_CODE, SQL_ERROR,
-                                            DUPLICATE_KEY));
-                                    promise.fail(registerCallbackSubscriptionResponse.toString());
-                                  }
-                                });
-                          }
-                        });
-                      }
-                    } else if (resultHandlerbind.failed()) {
-                      LOGGER.error("failed ::" + resultHandlerbind.cause());
+                  LOGGER.error("failed ::" + ar.cause().getMessage());
+                  String deleteQuery = DELETE_CALLBACK.replace("$1", subscriptionID);
+                  pgSQLClient.executeAsync(deleteQuery).onComplete(resultHandlerDeletequeuepg -> {
+                    if (resultHandlerDeletequeuepg.succeeded()) {
                       registerCallbackSubscriptionResponse.clear()
-                          .mergeIn(getResponseJson(BAD_REQUEST_CODE, ERROR, BINDING_FAILED));
+                          .mergeIn(getResponseJson(INTERNAL_ERROR_CODE, SQL_ERROR, DUPLICATE_KEY));
                       promise.fail(registerCallbackSubscriptionResponse.toString());
                     }
                   });
                 }
-              } else {
-                // TODO : DOUBT : why future passing even its handler failed ?.
-                LOGGER.error("failed :: Invalid (or) NULL routingKey");
-                registerCallbackSubscriptionResponse.clear()
-                    .mergeIn(getResponseJson(BAD_REQUEST_CODE, ERROR, INVALID_ROUTING_KEY));
-                promise.complete(registerCallbackSubscriptionResponse);
-              }
-            }
+              });
+            });
           }
         }
       });
@@ -629,94 +394,44 @@ public class SubscriptionService {
       publishjson.put("operation", "update");
       String queueName = request.getString("queue");
       JsonArray entities = request.getJsonArray("entities");
-      totalBindCount = entities.size();
-      totalBindSuccess = 0;
-      JsonObject requestjson = new JsonObject();
-      requestjson.put(Constants.QUEUE_NAME, queueName);
-      for (Object currentEntity : entities) {
-        String routingKey = (String) currentEntity;
-        LOGGER.debug("Info : routingKey is " + routingKey);
-        if (routingKey != null) {
-          if (routingKey.isEmpty() || routingKey.isBlank() || routingKey == ""
-              || routingKey.split("/").length != 5) {
-            LOGGER.error("failed :: Invalid (or) NULL routingKey");
+      bindEntities(queueName, entities).onComplete(bindHandler -> {
+        if (bindHandler.failed()) {
+          updateCallbackSubscriptionResponse.clear().mergeIn(
+              getResponseJson(BAD_REQUEST_CODE, ERROR, bindHandler.cause().getMessage()));
+          promise.fail(updateCallbackSubscriptionResponse.toString());
+          return;
+        }
+        String updateQuery =
+            UPDATE_CALLBACK.replace("$1", entities.toString()).replace("$2", subscriptionID);
+        pgSQLClient.executeAsync(updateQuery).onComplete(ar -> {
+          if (ar.succeeded()) {
+            String exchangename = "callback.notification";
+            String routingkey = "update";
+
+            JsonObject jsonpg = new JsonObject();
+            jsonpg.put("body", publishjson.toString());
+
+            rabbitClient.getRabbitMQClient().basicPublish(exchangename, routingkey, jsonpg,
+                resultHandler -> {
+                  if (resultHandler.succeeded()) {
+                    updateCallbackSubscriptionResponse.put("subscriptionID", subscriptionID);
+                    LOGGER.debug("Info : Message published to queue");
+                    promise.complete(updateCallbackSubscriptionResponse);
+                  } else {
+                    LOGGER.error("Fail : Message published failed");
+                    updateCallbackSubscriptionResponse.clear().mergeIn(
+                        getResponseJson(INTERNAL_ERROR_CODE, ERROR, MSG_PUBLISH_FAILED));
+                    promise.fail(updateCallbackSubscriptionResponse.toString());
+                  }
+                });
+          } else {
+            LOGGER.error("failed ::" + ar.cause().getMessage());
             updateCallbackSubscriptionResponse.clear()
-                .mergeIn(getResponseJson(BAD_REQUEST_CODE, ERROR, INVALID_ROUTING_KEY));
+                .mergeIn(getResponseJson(INTERNAL_ERROR_CODE, SQL_ERROR, DUPLICATE_KEY));
             promise.fail(updateCallbackSubscriptionResponse.toString());
-          } else {
-
-            String exchangeName = routingKey.substring(0, routingKey.lastIndexOf("/"));
-            JsonArray array = new JsonArray();
-            array.add(exchangeName + Constants.DATA_WILDCARD_ROUTINGKEY);
-            JsonObject json = new JsonObject();
-            json.put(Constants.EXCHANGE_NAME, exchangeName);
-            json.put(Constants.QUEUE_NAME, queueName);
-            json.put(Constants.ENTITIES, array);
-            Future<JsonObject> resultbind = rabbitClient.bindQueue(json, vhost);
-            resultbind.onComplete(resultHandlerbind -> {
-              if (resultHandlerbind.succeeded()) {
-                // count++
-                totalBindSuccess += 1;
-                LOGGER.debug(
-                    "sucess :: totalBindSuccess " + totalBindSuccess + resultHandlerbind.result());
-                JsonObject bindResponse = (JsonObject) resultHandlerbind.result();
-                if (bindResponse.containsKey(Constants.TITLE) && bindResponse
-                    .getString(Constants.TITLE).equalsIgnoreCase(Constants.FAILURE)) {
-                  LOGGER.error("failed ::" + resultHandlerbind.cause());
-
-                  updateCallbackSubscriptionResponse.put(Constants.ERROR, "Binding Failed");
-                  updateCallbackSubscriptionResponse.clear()
-                      .mergeIn(getResponseJson(BAD_REQUEST_CODE, ERROR, BINDING_FAILED));
-                  promise.fail(updateCallbackSubscriptionResponse.toString());
-                } else if (totalBindSuccess == totalBindCount) {
-                  String updateQuery = UPDATE_CALLBACK.replace("$1", entities.toString())
-                      .replace("$2", subscriptionID);
-                  pgSQLClient.executeAsync(updateQuery).onComplete(ar -> {
-                    if (ar.succeeded()) {
-                      String exchangename = "callback.notification";
-                      String routingkey = "update";
-
-                      JsonObject jsonpg = new JsonObject();
-                      jsonpg.put("body", publishjson.toString());
-
-                      rabbitClient.getRabbitMQClient().basicPublish(exchangename, routingkey,
-                          jsonpg, resultHandler -> {
-                            if (resultHandler.succeeded()) {
-                              updateCallbackSubscriptionResponse.put("subscriptionID",
-                                  subscriptionID);
-                              LOGGER.debug("Info : Message published to queue");
-                              promise.complete(updateCallbackSubscriptionResponse);
-                            } else {
-                              LOGGER.error("Fail : Message published failed");
-                              updateCallbackSubscriptionResponse.clear().mergeIn(
-                                  getResponseJson(INTERNAL_ERROR_CODE, ERROR, MSG_PUBLISH_FAILED));
-                              promise.fail(updateCallbackSubscriptionResponse.toString());
-                            }
-                          });
-                    } else {
-                      LOGGER.error("failed ::" + ar.cause().getMessage());
-                      updateCallbackSubscriptionResponse.clear()
-                          .mergeIn(getResponseJson(INTERNAL_ERROR_CODE, SQL_ERROR, DUPLICATE_KEY));
-                      promise.fail(updateCallbackSubscriptionResponse.toString());
-                    }
-                  });
-                }
-              } else if (resultHandlerbind.failed()) {
-                LOGGER.error("failed ::" + resultHandlerbind.cause());
-                updateCallbackSubscriptionResponse.clear()
-                    .mergeIn(getResponseJson(BAD_REQUEST_CODE, ERROR, BINDING_FAILED));
-                promise.fail(updateCallbackSubscriptionResponse.toString());
-              }
-            });
           }
-        } else {
-          LOGGER.error("failed :: Invalid (or) NULL routingKey");
-          updateCallbackSubscriptionResponse.clear()
-              .mergeIn(getResponseJson(BAD_REQUEST_CODE, ERROR, INVALID_ROUTING_KEY));
-          promise.fail(updateCallbackSubscriptionResponse.toString());
-        }
-      }
-
+        });
+      });
     } else {
       LOGGER.error("Error in payload");
       updateCallbackSubscriptionResponse.clear()
@@ -840,4 +555,82 @@ public class SubscriptionService {
     }
     return promise.future();
   }
+
+  /**
+   * Binds a queue to the exchanges of the given entities. Routing keys are validated before any
+   * binding is made and each exchange is bound once, with at most MAX_PARALLEL_BINDINGS calls in
+   * flight. All progress is local to the returned future, so concurrent subscriptions do not share
+   * state.
+   *
+   * @param queueName queue to bind
+   * @param entities routing keys of the subscribed resources
+   * @return Future which fails with INVALID_ROUTING_KEY or BINDING_FAILED as its message
+   */
+  private Future<Void> bindEntities(String queueName, JsonArray entities) {
+    Set<String> exchanges = getExchanges(entities);
+    if (exchanges == null) {
+      LOGGER.error("failed :: Invalid (or) NULL routingKey");
+      return Future.failedFuture(INVALID_ROUTING_KEY);
+    }
+    LOGGER.debug("Info : No of bindings to do : " + exchanges.size());
+    Iterator<String> pending = exchanges.iterator();
+    List<Future> workers = new ArrayList<>();
+    for (int i = 0; i < Math.min(MAX_PARALLEL_BINDINGS, exchanges.size()); i++) {
+      workers.add(bindNext(queueName, pending));
+    }
+    return CompositeFuture.all(workers).mapEmpty();
+  }
+
+  private Future<Void> bindNext(String queueName, Iterator<String> pending) {
+    if (!pending.hasNext()) {
+      return Future.succeededFuture();
+    }
+    String exchangeName = pending.next();
+    JsonObject json = new JsonObject();
+    json.put(EXCHANGE_NAME, exchangeName);
+    json.put(QUEUE_NAME, queueName);
+    json.put(ENTITIES, new JsonArray().add(exchangeName + DATA_WILDCARD_ROUTINGKEY));
+    return rabbitClient.bindQueue(json, vhost)
+        .recover(cause -> Future.failedFuture(BINDING_FAILED))
+        .compose(bindResponse -> {
+          if (bindResponse.containsKey(TITLE)
+              && bindResponse.getString(TITLE).equalsIgnoreCase(FAILURE)) {
+            LOGGER.error("failed :: binding " + exchangeName + " " + bindResponse);
+            return Future.failedFuture(BINDING_FAILED);
+          }
+          return bindNext(queueName, pending);
+        });
+  }
+
+  /**
+   * deletes a queue whose bindings could not be completed, then fails with the given error.
+   */
+  private Future<JsonObject> rollbackQueue(JsonObject requestjson, String title, String detail) {
+    LOGGER.error("failed :: rolling back queue " + requestjson.getString(QUEUE_NAME));
+    Promise<JsonObject> promise = Promise.promise();
+    rabbitClient.deleteQueue(requestjson, vhost).onComplete(
+        deleteHandler -> promise.fail(getResponseJson(BAD_REQUEST_CODE, title, detail).toString()));
+    return promise.future();
+  }
+
+  /**
+   * returns the distinct exchanges of the given routing keys, or null if any key is invalid.
+   */
+  static Set<String> getExchanges(JsonArray entities) {
+    if (entities == null) {
+      return null;
+    }
+    Set<String> exchanges = new LinkedHashSet<>();
+    for (Object currentEntity : entities) {
+      if (!(currentEntity instanceof String)) {
+        return null;
+      }
+      String routingKey = (String) currentEntity;
+      if (routingKey.isBlank() || routingKey.split("/").length != 5) {
+        return null;
+      }
+      exchanges.add(routingKey.substring(0, routingKey.lastIndexOf("/")));
+    }
+    return exchanges;
+  }
 }
@@ -0,0 +1,113 @@
+package iudx.resource.server.databroker;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * In-memory cache of exchange bindings (queue name to bound routing keys), filled from the
+ * management API.
+ * <p>
+ * Entries are dropped when any data broker instance changes the topology of an exchange. The
+ * change is published on the event bus, so every instance in the cluster invalidates its copy. A
+ * TTL bounds staleness for changes made outside the resource server.
+ * </p>
+ */
+public class TopologyCache {
+
+  private static final Logger LOGGER = LogManager.getLogger(TopologyCache.class);
+  static final String TOPOLOGY_INVALIDATE_ADDRESS = "iudx.rs.broker.topology.invalidate";
+  private static final String ALL_EXCHANGES = "*";
+
+  private final Vertx vertx;
+  private final long ttlMillis;
+  private final Map<String, CachedBindings> bindings = new HashMap<>();
+  private final Map<String, Future<JsonObject>> loading = new HashMap<>();
+
+  /**
+   * create a topology cache.
+   *
+   * @param vertx vertx instance, used for cluster wide invalidation
+   * @param ttlMillis maximum age of an entry
+   */
+  public TopologyCache(Vertx vertx, long ttlMillis) {
+    this.vertx = vertx;
+    this.ttlMillis = ttlMillis;
+    vertx.eventBus().<String>consumer(TOPOLOGY_INVALIDATE_ADDRESS,
+        message -> drop(message.body()));
+  }
+
+  /**
+   * get the bindings of an exchange, loading them at most once per exchange at a time.
+   *
+   * @param exchange exchange name
+   * @param loader management API call listing the exchange bindings
+   * @return Future of the bindings as returned by the loader
+   */
+  Future<JsonObject> get(String exchange, Supplier<Future<JsonObject>> loader) {
+    CachedBindings cached = bindings.get(exchange);
+    if (cached != null && System.currentTimeMillis() - cached.loadedAt < ttlMillis) {
+      return Future.succeededFuture(cached.bindings);
+    }
+    Future<JsonObject> inFlight = loading.get(exchange);
+    if (inFlight != null) {
+      return inFlight;
+    }
+    Promise<JsonObject> promise = Promise.promise();
+    loading.put(exchange, promise.future());
+    loader.get().onComplete(loadHandler -> {
+      loading.remove(exchange);
+      if (loadHandler.succeeded()) {
+        bindings.put(exchange, new CachedBindings(loadHandler.result()));
+        promise.complete(loadHandler.result());
+      } else {
+        promise.fail(loadHandler.cause());
+      }
+    });
+    return promise.future();
+  }
+
+  /**
+   * drop the cached bindings of an exchange on every data broker instance.
+   *
+   * @param exchange exchange name
+   */
+  void invalidate(String exchange) {
+    if (exchange != null) {
+      drop(exchange);
+      vertx.eventBus().publish(TOPOLOGY_INVALIDATE_ADDRESS, exchange);
+    }
+  }
+
+  /**
+   * drop all cached bindings on every data broker instance.
+   */
+  void invalidateAll() {
+    invalidate(ALL_EXCHANGES);
+  }
+
+  private void drop(String exchange) {
+    LOGGER.debug("Info : topology invalidated for " + exchange);
+    if (ALL_EXCHANGES.equals(exchange)) {
+      bindings.clear();
+    } else {
+      bindings.remove(exchange);
+    }
+  }
+
+  private static final class CachedBindings {
+    private final JsonObject bindings;
+    private final long loadedAt;
+
+    private CachedBindings(JsonObject bindings) {
+      this.bindings = bindings;
+      this.loadedAt = System.currentTimeMillis();
+    }
+  }
+}
@@ -158,6 +158,30 @@ public class Constants {
   public static final String BAD_REQUEST_DATA = "Bad Request data";
   public static final String PAYLOAD_ERROR = "Invalid request payload";
   public static final String MSG_PUBLISH_FAILED = "Message publishing failed";
+  public static final String BULK_PUBLISH_PARTIAL = "Some messages could not be published";
+  public static final String PUBLISHED = "published";
+  public static final String FAILED = "failed";
+  public static final int DEFAULT_PUBLISHER_CHANNELS = 4;
+  public static final int DEFAULT_PUBLISHER_CONFIRM_WINDOW = 256;
+  public static final long TOPOLOGY_CACHE_TTL = 300000; // 5 minutes
+  public static final String HEARTBEAT_NO_BINDING = "No queue bound for the given routing key";
+  public static final int MAX_PARALLEL_BINDINGS = 16;
+  public static final int NOT_FOUND_CODE = 404;
+
+  // streaming endpoint
+  public static final String STREAM_OPEN_ADDRESS = "iudx.rs.broker.stream.open";
+  public static final String STREAM_ADDRESS_PREFIX = "iudx.rs.broker.stream.";
+  public static final String STREAM_LEASE_ADDRESS_PREFIX = "iudx.rs.broker.stream.lease.";
+  public static final String LIVE_OPEN_ADDRESS = "iudx.rs.broker.live.open";
+  public static final String LIVE_ADDRESS_PREFIX = "iudx.rs.broker.live.";
+  public static final String LIVE_QUEUE_PREFIX = "iudx.rs.live.";
+  public static final String STREAM_ADDRESS = "address";
+  public static final String STREAM_LEASE_ADDRESS = "leaseAddress";
+  public static final String STREAM_LEASE_TTL_KEY = "leaseTtl";
+  public static final long STREAM_LEASE_TTL = 30000; // 30 seconds
+  public static final int DEFAULT_STREAM_QUEUE_BUFFER = 1000;
+  public static final String STREAM_OPEN_ERROR = "Could not consume subscription queue";
+  public static final String STREAM_LEASE_EXPIRED = "Stream lease expired";
 
   // SQL Queries
   public static final String SELECT_CALLBACK =
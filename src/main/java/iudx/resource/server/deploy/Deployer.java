@@ -42,6 +42,7 @@ import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.core.LoggerContext;
+import iudx.resource.server.tracing.Tracing;
 
 public class Deployer {
   private static final Logger LOGGER = LogManager.getLogger(Deployer.class);
@@ -129,12 +130,15 @@ public class Deployer {
     mgr = getClusterManager(host, zookeepers, clusterId);
     EventBusOptions ebOptions = new EventBusOptions().setClustered(true).setHost(host);
     VertxOptions options = new VertxOptions().setClusterManager(mgr).setEventBusOptions(ebOptions)
-        .setMetricsOptions(getMetricsOptions());
+        .setMetricsOptions(getMetricsOptions())
+        .setPreferNativeTransport(configuration.getBoolean("preferNativeTransport", false));
 
     Vertx.clusteredVertx(options, res -> {
       if (res.succeeded()) {
         vertx = res.result();
+        LOGGER.info("Native transport enabled: " + vertx.isNativeTransportEnabled());
         setJVMmetrics();
+        Tracing.init(vertx, configuration.getJsonObject("tracing", new JsonObject()));
         recursiveDeploy(vertx, configuration, 0);
       } else {
         LOGGER.fatal("Could not join cluster");
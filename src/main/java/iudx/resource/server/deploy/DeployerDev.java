@@ -19,6 +19,7 @@ import java.nio.file.Files;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import iudx.resource.server.tracing.Tracing;
 
 
 /**
@@ -65,7 +66,10 @@ public class DeployerDev {
       return;
     }
     JsonObject configuration = new JsonObject(config);
+    options.setPreferNativeTransport(configuration.getBoolean("preferNativeTransport", false));
     Vertx vertx = Vertx.vertx(options);
+    LOGGER.info("Native transport enabled: " + vertx.isNativeTransportEnabled());
+    Tracing.init(vertx, configuration.getJsonObject("tracing", new JsonObject()));
     recursiveDeploy(vertx, configuration, 0);
   }
 
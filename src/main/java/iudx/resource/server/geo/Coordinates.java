@@ -0,0 +1,363 @@
+package iudx.resource.server.geo;
+
+import java.util.Arrays;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.LineString;
+import org.locationtech.jts.geom.LinearRing;
+import org.locationtech.jts.geom.Polygon;
+
+/**
+ * coordinates of a geo-query, parsed once into a primitive array.
+ * <p>
+ * The text is a GeoJSON coordinates array: a position {@code [x,y]}, an array of positions for a
+ * line or a bbox, or an array of rings for a polygon. It is read by a hand-written tokenizer in a
+ * single pass, every number checked for its precision and range as it is read, x as a longitude
+ * and y as a latitude. The positions are kept flattened, x then y, with the end of every ring.
+ * </p>
+ */
+public final class Coordinates {
+
+  public static final int POINT = 1;
+  public static final int LINE = 2;
+  public static final int POLYGON = 3;
+
+  /** decimals allowed in a coordinate. */
+  public static final int MAX_PRECISION = 6;
+
+  private static final double[] POWERS_OF_TEN =
+      {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15};
+  private static final int MAX_DIGITS = 15;
+
+  private final double[] values;
+  private final int[] ringEnds;
+  private final int depth;
+
+  private Coordinates(double[] values, int[] ringEnds, int depth) {
+    this.values = values;
+    this.ringEnds = ringEnds;
+    this.depth = depth;
+  }
+
+  /* flatten a line string or a polygon, back from JTS */
+  static Coordinates of(Geometry geometry) {
+    if (geometry instanceof LineString) {
+      double[] values = flatten(geometry.getCoordinates());
+      return new Coordinates(values, new int[] {values.length}, LINE);
+    }
+    Polygon polygon = (Polygon) geometry;
+    double[] values = flatten(polygon.getCoordinates());
+    int[] ringEnds = new int[polygon.getNumInteriorRing() + 1];
+    int end = polygon.getExteriorRing().getNumPoints() * 2;
+    ringEnds[0] = end;
+    for (int i = 0; i < polygon.getNumInteriorRing(); i++) {
+      end += polygon.getInteriorRingN(i).getNumPoints() * 2;
+      ringEnds[i + 1] = end;
+    }
+    return new Coordinates(values, ringEnds, POLYGON);
+  }
+
+  private static double[] flatten(Coordinate[] positions) {
+    double[] values = new double[positions.length * 2];
+    for (int i = 0; i < positions.length; i++) {
+      values[2 * i] = positions[i].x;
+      values[2 * i + 1] = positions[i].y;
+    }
+    return values;
+  }
+
+  /**
+   * parse a coordinates array.
+   *
+   * @param text coordinates as in the query, like [[[72.7,21],[72.8,21.2],[72.9,20.8],[72.7,21]]]
+   * @return the coordinates
+   * @throws IllegalArgumentException when the text is not a valid coordinates array
+   */
+  public static Coordinates parse(String text) {
+    Tokenizer tokenizer = new Tokenizer(text);
+    int depth = tokenizer.array(0);
+    tokenizer.skipWhitespace();
+    if (tokenizer.pos != text.length()) {
+      throw tokenizer.invalid("unexpected character");
+    }
+    return new Coordinates(Arrays.copyOf(tokenizer.values, tokenizer.count),
+        Arrays.copyOf(tokenizer.ringEnds, tokenizer.rings), depth);
+  }
+
+  /**
+   * get the nesting of the array.
+   *
+   * @return {@link #POINT}, {@link #LINE} or {@link #POLYGON}
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  public int getPositions() {
+    return values.length / 2;
+  }
+
+  /**
+   * get a coordinate.
+   *
+   * @param index index in the flattened array, x then y of every position
+   * @return the coordinate
+   */
+  public double get(int index) {
+    return values[index];
+  }
+
+  /**
+   * get the bounding box of the positions.
+   *
+   * @return min x, min y, max x and max y
+   */
+  public double[] getBounds() {
+    double[] bounds = {values[0], values[1], values[0], values[1]};
+    for (int i = 2; i < values.length; i += 2) {
+      bounds[0] = Math.min(bounds[0], values[i]);
+      bounds[1] = Math.min(bounds[1], values[i + 1]);
+      bounds[2] = Math.max(bounds[2], values[i]);
+      bounds[3] = Math.max(bounds[3], values[i + 1]);
+    }
+    return bounds;
+  }
+
+  /**
+   * whether every ring of a polygon ends on its first position and has at least four.
+   *
+   * @return true for a polygon with closed rings
+   */
+  public boolean hasClosedRings() {
+    if (depth != POLYGON) {
+      return false;
+    }
+    int start = 0;
+    for (int end : ringEnds) {
+      if (end - start < 8 || values[start] != values[end - 2]
+          || values[start + 1] != values[end - 1]) {
+        return false;
+      }
+      start = end;
+    }
+    return true;
+  }
+
+  /**
+   * build the geometry of the coordinates, without going through GeoJSON.
+   *
+   * @param factory geometry factory
+   * @return a point, a line string or a polygon depending on the depth
+   */
+  public Geometry toGeometry(GeometryFactory factory) {
+    switch (depth) {
+      case POINT:
+        return factory.createPoint(new Coordinate(values[0], values[1]));
+      case LINE:
+        return factory.createLineString(positions(0, values.length));
+      default:
+        LinearRing shell = factory.createLinearRing(positions(0, ringEnds[0]));
+        LinearRing[] holes = new LinearRing[ringEnds.length - 1];
+        for (int i = 1; i < ringEnds.length; i++) {
+          holes[i - 1] = factory.createLinearRing(positions(ringEnds[i - 1], ringEnds[i]));
+        }
+        return factory.createPolygon(shell, holes);
+    }
+  }
+
+  private Coordinate[] positions(int start, int end) {
+    Coordinate[] positions = new Coordinate[(end - start) / 2];
+    for (int i = start; i < end; i += 2) {
+      positions[(i - start) / 2] = new Coordinate(values[i], values[i + 1]);
+    }
+    return positions;
+  }
+
+  /**
+   * render the coordinates back as a GeoJSON array.
+   *
+   * @return the coordinates array
+   */
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder(values.length * 12);
+    int ring = 0;
+    for (int i = 0; i < depth - 1; i++) {
+      text.append('[');
+    }
+    for (int i = 0; i < values.length; i += 2) {
+      if (depth == POLYGON && i == ringEnds[ring]) {
+        text.setLength(text.length() - 1);
+        text.append("],[");
+        ring++;
+      }
+      text.append('[');
+      append(text, values[i]).append(',');
+      append(text, values[i + 1]).append("],");
+    }
+    text.setLength(text.length() - 1);
+    for (int i = 0; i < depth - 1; i++) {
+      text.append(']');
+    }
+    return text.toString();
+  }
+
+  /* plain decimal notation, no exponent and no trailing zeros */
+  private static StringBuilder append(StringBuilder text, double value) {
+    long units = Math.round(Math.abs(value) * POWERS_OF_TEN[MAX_PRECISION]);
+    if (value < 0 && units != 0) {
+      text.append('-');
+    }
+    long scale = (long) POWERS_OF_TEN[MAX_PRECISION];
+    text.append(units / scale);
+    long fraction = units % scale;
+    if (fraction != 0) {
+      int decimals = MAX_PRECISION;
+      while (fraction % 10 == 0) {
+        fraction /= 10;
+        decimals--;
+      }
+      text.append('.');
+      for (int i = String.valueOf(fraction).length(); i < decimals; i++) {
+        text.append('0');
+      }
+      text.append(fraction);
+    }
+    return text;
+  }
+
+  /* recursive descent over the nested arrays, numbers read straight from the characters */
+  private static final class Tokenizer {
+    private final String text;
+    private int pos;
+    private double[] values = new double[32];
+    private int count;
+    private int[] ringEnds = new int[4];
+    private int rings;
+
+    private Tokenizer(String text) {
+      this.text = text;
+    }
+
+    /* read an array, return its depth, 1 for a position */
+    private int array(int level) {
+      if (level == POLYGON) {
+        throw invalid("too deeply nested");
+      }
+      skipWhitespace();
+      expect('[');
+      skipWhitespace();
+      if (peek() != '[') {
+        position();
+        return POINT;
+      }
+      int depth = 0;
+      do {
+        int child = array(level + 1);
+        if (depth != 0 && child != depth) {
+          throw invalid("mixed nesting");
+        }
+        depth = child;
+        skipWhitespace();
+      } while (consume(','));
+      expect(']');
+      if (depth == POINT) {
+        // the end of a line, or of a ring when nested in a polygon
+        if (rings == ringEnds.length) {
+          ringEnds = Arrays.copyOf(ringEnds, rings * 2);
+        }
+        ringEnds[rings++] = count;
+      }
+      return depth + 1;
+    }
+
+    private void position() {
+      add(number(), 180d);
+      skipWhitespace();
+      expect(',');
+      add(number(), 90d);
+      skipWhitespace();
+      expect(']');
+    }
+
+    private void add(double value, double range) {
+      if (value < -range || value > range) {
+        throw invalid(range == 90d ? "invalid latitude value " + value
+            : "invalid longitude value " + value);
+      }
+      if (count == values.length) {
+        values = Arrays.copyOf(values, count * 2);
+      }
+      values[count++] = value;
+    }
+
+    private double number() {
+      skipWhitespace();
+      boolean negative = false;
+      if (consume('-')) {
+        negative = true;
+      } else {
+        consume('+');
+      }
+      long mantissa = 0;
+      int digits = 0;
+      int decimals = -1;
+      int length = text.length();
+      while (pos < length) {
+        char c = text.charAt(pos);
+        if (c >= '0' && c <= '9') {
+          if (++digits > MAX_DIGITS) {
+            throw invalid("too many digits");
+          }
+          mantissa = mantissa * 10 + (c - '0');
+          if (decimals >= 0) {
+            decimals++;
+          }
+        } else if (c == '.' && decimals < 0) {
+          decimals = 0;
+        } else {
+          break;
+        }
+        pos++;
+      }
+      if (digits == 0 || decimals == 0) {
+        throw invalid("number expected");
+      }
+      if (decimals > MAX_PRECISION) {
+        throw invalid("invalid coordinate (only " + MAX_PRECISION + " digits allowed)");
+      }
+      double value = decimals > 0 ? mantissa / POWERS_OF_TEN[decimals] : mantissa;
+      return negative ? -value : value;
+    }
+
+    private void skipWhitespace() {
+      int length = text.length();
+      while (pos < length && Character.isWhitespace(text.charAt(pos))) {
+        pos++;
+      }
+    }
+
+    private char peek() {
+      return pos < text.length() ? text.charAt(pos) : 0;
+    }
+
+    private boolean consume(char c) {
+      if (peek() == c) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(char c) {
+      if (!consume(c)) {
+        throw invalid("'" + c + "' expected");
+      }
+    }
+
+    private IllegalArgumentException invalid(String message) {
+      return new IllegalArgumentException(message + " at " + pos + " in coordinates");
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package iudx.resource.server.geo;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.simplify.TopologyPreservingSimplifier;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * prepares the shape of a polygon or line geo-query before it is sent to Elasticsearch.
+ * <p>
+ * An over-detailed shape is simplified within a tolerance, keeping its topology, and a bounding
+ * box clause is built to go ahead of the exact geo_shape clause. The bounding box is cheap to
+ * evaluate and cached by Elasticsearch, so the exact shape is only matched against the documents
+ * near it. Both are optional, configured by the <b>geoPreprocessing</b> block of the database
+ * verticle:
+ * </p>
+ * <ul>
+ * <li>boundingBoxFilter : add the bounding box clause (default false)</li>
+ * <li>boundingBoxQuery : <b>envelope</b>, a geo_shape envelope for a geo_shape field, or
+ * <b>geo_bounding_box</b> for a geo_point field (default envelope)</li>
+ * <li>simplifyTolerance : tolerance in degrees, 0 to never simplify (default 0)</li>
+ * <li>simplifyMinPositions : least positions of a shape to be simplified (default 8)</li>
+ * </ul>
+ */
+public final class GeometryPreprocessor {
+
+  private static final Logger LOGGER = LogManager.getLogger(GeometryPreprocessor.class);
+
+  private static final String GEO_BOUNDING_BOX = "geo_bounding_box";
+  private static final String RELATION_WITHIN = "within";
+  private static final String RELATION_INTERSECTS = "intersects";
+  private static final GeometryFactory GEOMETRY_FACTORY = new GeometryFactory();
+
+  private final boolean boundingBoxFilter;
+  private final boolean geoBoundingBox;
+  private final double simplifyTolerance;
+  private final int simplifyMinPositions;
+
+  private GeometryPreprocessor(boolean boundingBoxFilter, boolean geoBoundingBox,
+      double simplifyTolerance, int simplifyMinPositions) {
+    this.boundingBoxFilter = boundingBoxFilter;
+    this.geoBoundingBox = geoBoundingBox;
+    this.simplifyTolerance = simplifyTolerance;
+    this.simplifyMinPositions = simplifyMinPositions;
+  }
+
+  /**
+   * create the preprocessor from its configuration.
+   *
+   * @param config the geoPreprocessing block, null when not configured
+   * @return the preprocessor
+   */
+  public static GeometryPreprocessor create(JsonObject config) {
+    if (config == null) {
+      return disabled();
+    }
+    return new GeometryPreprocessor(config.getBoolean("boundingBoxFilter", false),
+        GEO_BOUNDING_BOX.equals(config.getString("boundingBoxQuery", "envelope")),
+        config.getDouble("simplifyTolerance", 0d), config.getInteger("simplifyMinPositions", 8));
+  }
+
+  public static GeometryPreprocessor disabled() {
+    return new GeometryPreprocessor(false, false, 0d, Integer.MAX_VALUE);
+  }
+
+  /**
+   * simplify a line or a polygon with more positions than configured.
+   *
+   * @param coordinates coordinates of the shape
+   * @return the simplified coordinates, or the same when they are not simplified
+   */
+  public Coordinates simplify(Coordinates coordinates) {
+    if (simplifyTolerance <= 0 || coordinates.getDepth() == Coordinates.POINT
+        || coordinates.getPositions() < simplifyMinPositions) {
+      return coordinates;
+    }
+    try {
+      Geometry simplified = TopologyPreservingSimplifier
+          .simplify(coordinates.toGeometry(GEOMETRY_FACTORY), simplifyTolerance);
+      if (simplified.isEmpty() || !simplified.isValid()) {
+        return coordinates;
+      }
+      Coordinates result = Coordinates.of(simplified);
+      LOGGER.debug("Info : simplified shape from " + coordinates.getPositions() + " to "
+          + result.getPositions() + " positions");
+      return result;
+    } catch (IllegalArgumentException ex) {
+      LOGGER.error("Error : shape not simplified, " + ex.getMessage());
+      return coordinates;
+    }
+  }
+
+  /**
+   * build the bounding box clause of a shape, to go ahead of its geo_shape clause in the filter.
+   * There is none for a relation the bounding box does not imply, like disjoint.
+   *
+   * @param coordinates coordinates of the shape
+   * @param field geo field of the documents
+   * @param relation relation of the geo-query
+   * @return the clause, or null when it is not configured or not applicable
+   */
+  public JsonObject boundingBoxFilter(Coordinates coordinates, String field, String relation) {
+    if (!boundingBoxFilter
+        || !(RELATION_WITHIN.equals(relation) || RELATION_INTERSECTS.equals(relation))) {
+      return null;
+    }
+    double[] bounds = coordinates.getBounds();
+    if (geoBoundingBox) {
+      return new JsonObject().put(GEO_BOUNDING_BOX, new JsonObject().put(field,
+          new JsonObject()
+              .put("top_left", new JsonObject().put("lat", bounds[3]).put("lon", bounds[0]))
+              .put("bottom_right", new JsonObject().put("lat", bounds[1]).put("lon", bounds[2]))));
+    }
+    JsonArray envelope = new JsonArray()
+        .add(new JsonArray().add(bounds[0]).add(bounds[3]))
+        .add(new JsonArray().add(bounds[2]).add(bounds[1]));
+    return new JsonObject().put("geo_shape", new JsonObject().put(field,
+        new JsonObject()
+            .put("shape", new JsonObject().put("type", "envelope").put("coordinates", envelope))
+            .put("relation", relation)));
+  }
+}
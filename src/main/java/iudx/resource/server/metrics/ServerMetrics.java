@@ -0,0 +1,286 @@
+package iudx.resource.server.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+import com.google.common.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import io.vertx.micrometer.backends.BackendRegistries;
+
+/**
+ * Application metrics recorded next to the Vert.x metrics and scraped from the same Prometheus
+ * endpoint.
+ * <p>
+ * Latencies are timers with percentile histograms, tagged by route or by backend and operation,
+ * so that a slow request can be attributed to auth, the catalogue, the database or the response
+ * serialization. When metrics are not enabled, as in tests, everything is recorded on the no-op
+ * global registry.
+ * </p>
+ * <p>
+ * The gauges of an object each verticle instance has its own of, a connection pool or a cache,
+ * are tagged with the instance, numbered in the order they are registered in the process. A
+ * registry keeps a single gauge for a name and tags, which would leave the other instances out.
+ * </p>
+ */
+public final class ServerMetrics {
+
+  public static final String ROUTE_LATENCY = "iudx.rs.route.latency";
+  public static final String BACKEND_LATENCY = "iudx.rs.backend.latency";
+  public static final String PAYLOAD_SIZE = "iudx.rs.payload.size";
+  public static final String PAYLOAD_WIRE_SIZE = "iudx.rs.payload.wire.size";
+  public static final String ES_TOOK = "iudx.rs.es.took";
+  public static final String ES_OVERHEAD = "iudx.rs.es.overhead";
+  public static final String CALLBACK_LAG = "iudx.rs.callback.lag";
+  public static final String CONCURRENCY_LIMIT = "iudx.rs.concurrency.limit";
+  public static final String CONCURRENCY_IN_FLIGHT = "iudx.rs.concurrency.inflight";
+  public static final String SHED = "iudx.rs.shed";
+  public static final String CIRCUIT_STATE = "iudx.rs.circuit.state";
+  public static final String BULKHEAD_IN_FLIGHT = "iudx.rs.bulkhead.inflight";
+  public static final String BACKEND_REJECTED = "iudx.rs.backend.rejected";
+  public static final String BACKEND_FALLBACK = "iudx.rs.backend.fallback";
+  public static final String POOL_CONNECTIONS = "iudx.rs.pool.connections";
+  public static final String NODE_FAILURES = "iudx.rs.backend.node.failures";
+
+  public static final String BACKEND_AUTH = "auth";
+  public static final String BACKEND_CATALOGUE = "catalogue";
+  public static final String BACKEND_ELASTIC = "elasticsearch";
+  public static final String BACKEND_REDIS = "redis";
+  public static final String BACKEND_CALLBACK = "callback";
+  public static final String BACKEND_API = "api";
+
+  public static final String DIRECTION_REQUEST = "request";
+  public static final String DIRECTION_RESPONSE = "response";
+
+  private static final String INSTANCE = "instance";
+  private static final Map<String, AtomicInteger> INSTANCES = new ConcurrentHashMap<>();
+
+  private ServerMetrics() {}
+
+  /**
+   * get the registry the metrics are recorded on.
+   *
+   * @return the Vert.x backend registry, or the global registry when metrics are disabled
+   */
+  public static MeterRegistry registry() {
+    MeterRegistry registry = BackendRegistries.getDefaultNow();
+    return registry == null ? Metrics.globalRegistry : registry;
+  }
+
+  /**
+   * start timing an operation.
+   *
+   * @return sample to stop with one of the record methods
+   */
+  public static Timer.Sample start() {
+    return Timer.start(registry());
+  }
+
+  /**
+   * record the latency of an API request.
+   *
+   * @param sample sample started when the request was received
+   * @param route route template, not the request path, to keep the series bounded
+   * @param method HTTP method
+   * @param status HTTP status of the response
+   */
+  public static void recordRoute(Timer.Sample sample, String route, String method, int status) {
+    sample.stop(Timer.builder(ROUTE_LATENCY).tag("route", route).tag("method", method)
+        .tag("status", String.valueOf(status)).publishPercentileHistogram()
+        .register(registry()));
+  }
+
+  /**
+   * record the latency of a call to a backend.
+   *
+   * @param sample sample started before the call
+   * @param backend backend called
+   * @param operation operation on the backend
+   * @param succeeded whether the call succeeded
+   */
+  public static void recordBackend(Timer.Sample sample, String backend, String operation,
+      boolean succeeded) {
+    sample.stop(Timer.builder(BACKEND_LATENCY).tag("backend", backend).tag("operation", operation)
+        .tag("outcome", succeeded ? "success" : "failure").publishPercentileHistogram()
+        .register(registry()));
+  }
+
+  /**
+   * record the size of a payload sent to or received from a backend or client.
+   *
+   * @param backend backend or {@link #BACKEND_API} for API clients
+   * @param direction {@link #DIRECTION_REQUEST} or {@link #DIRECTION_RESPONSE}
+   * @param bytes payload size
+   */
+  public static void recordPayload(String backend, String direction, long bytes) {
+    DistributionSummary.builder(PAYLOAD_SIZE).baseUnit("bytes").tag("backend", backend)
+        .tag("direction", direction).publishPercentileHistogram().register(registry())
+        .record(bytes);
+  }
+
+  /**
+   * record the size of a payload exchanged with a backend, raw and as it went over the wire,
+   * compressed or not.
+   *
+   * @param backend backend exchanged with
+   * @param direction {@link #DIRECTION_REQUEST} or {@link #DIRECTION_RESPONSE}
+   * @param wireBytes bytes transferred
+   * @param rawBytes payload size
+   */
+  public static void recordPayload(String backend, String direction, long wireBytes,
+      long rawBytes) {
+    recordPayload(backend, direction, rawBytes);
+    DistributionSummary.builder(PAYLOAD_WIRE_SIZE).baseUnit("bytes").tag("backend", backend)
+        .tag("direction", direction).publishPercentileHistogram().register(registry())
+        .record(wireBytes);
+  }
+
+  /**
+   * record the time Elasticsearch reports for a search against the time the client waited, the
+   * difference being queueing, transport and decoding.
+   *
+   * @param tookMillis took reported in the search response
+   * @param wallNanos time from sending the request to decoding the response
+   */
+  public static void recordElasticTook(long tookMillis, long wallNanos) {
+    MeterRegistry registry = registry();
+    Timer.builder(ES_TOOK).publishPercentileHistogram().register(registry)
+        .record(tookMillis, TimeUnit.MILLISECONDS);
+    Timer.builder(ES_OVERHEAD).publishPercentileHistogram().register(registry)
+        .record(Math.max(0, wallNanos - TimeUnit.MILLISECONDS.toNanos(tookMillis)),
+            TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * record the time from an observation to its delivery on a callback URL.
+   *
+   * @param lagMillis delivery time minus observation time
+   */
+  public static void recordCallbackLag(long lagMillis) {
+    Timer.builder(CALLBACK_LAG).publishPercentileHistogram().register(registry())
+        .record(Math.max(0, lagMillis), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * expose the concurrency limit of an endpoint class and the requests in flight against it.
+   *
+   * @param endpointClass endpoint class
+   * @param limiter limiter of the class, held strongly by the caller
+   * @param limit reads the current limit
+   * @param inFlight reads the requests in flight
+   */
+  public static <T> void monitorLimiter(String endpointClass, T limiter,
+      ToDoubleFunction<T> limit, ToDoubleFunction<T> inFlight) {
+    MeterRegistry registry = registry();
+    Gauge.builder(CONCURRENCY_LIMIT, limiter, limit).tag("endpoint", endpointClass)
+        .register(registry);
+    Gauge.builder(CONCURRENCY_IN_FLIGHT, limiter, inFlight).tag("endpoint", endpointClass)
+        .register(registry);
+  }
+
+  /**
+   * count a request rejected to protect the server.
+   *
+   * @param endpointClass endpoint class, or API path for rate limits
+   * @param reason why the request was rejected
+   */
+  public static void recordShed(String endpointClass, String reason) {
+    Counter.builder(SHED).tag("endpoint", endpointClass).tag("reason", reason)
+        .register(registry()).increment();
+  }
+
+  /**
+   * expose the circuit state of a backend, 0 closed, 1 half open and 2 open, and the calls in
+   * flight in its bulkhead.
+   *
+   * @param backend backend guarded
+   * @param guard guard of the backend, held strongly by the caller
+   * @param state reads the circuit state
+   * @param inFlight reads the calls in flight
+   */
+  public static <T> void monitorBackend(String backend, T guard, ToDoubleFunction<T> state,
+      ToDoubleFunction<T> inFlight) {
+    MeterRegistry registry = registry();
+    Gauge.builder(CIRCUIT_STATE, guard, state).tag("backend", backend).register(registry);
+    Gauge.builder(BULKHEAD_IN_FLIGHT, guard, inFlight).tag("backend", backend)
+        .register(registry);
+  }
+
+  /**
+   * count a call to a backend rejected by its circuit breaker or bulkhead.
+   *
+   * @param backend backend called
+   * @param reason open circuit or full bulkhead
+   */
+  public static void recordRejected(String backend, String reason) {
+    Counter.builder(BACKEND_REJECTED).tag("backend", backend).tag("reason", reason)
+        .register(registry()).increment();
+  }
+
+  /**
+   * count a response served from stale data because its backend failed.
+   *
+   * @param backend backend that failed
+   */
+  public static void recordFallback(String backend) {
+    Counter.builder(BACKEND_FALLBACK).tag("backend", backend).register(registry()).increment();
+  }
+
+  /**
+   * expose the connections of the pool of a backend client, leased and available, and the
+   * requests pending for a connection, tagged with the instance of the client.
+   *
+   * @param backend backend connected to
+   * @param pool connection pool, held strongly by the caller
+   * @param leased reads the leased connections
+   * @param available reads the idle connections
+   * @param pending reads the requests waiting for a connection
+   */
+  public static <T> void monitorPool(String backend, T pool, ToDoubleFunction<T> leased,
+      ToDoubleFunction<T> available, ToDoubleFunction<T> pending) {
+    MeterRegistry registry = registry();
+    String instance = nextInstance(POOL_CONNECTIONS + '.' + backend);
+    Gauge.builder(POOL_CONNECTIONS, pool, leased).tag("backend", backend).tag("state", "leased")
+        .tag(INSTANCE, instance).register(registry);
+    Gauge.builder(POOL_CONNECTIONS, pool, available).tag("backend", backend)
+        .tag("state", "available").tag(INSTANCE, instance).register(registry);
+    Gauge.builder(POOL_CONNECTIONS, pool, pending).tag("backend", backend)
+        .tag("state", "pending").tag(INSTANCE, instance).register(registry);
+  }
+
+  /**
+   * count a node of a backend cluster taken out of rotation after failing.
+   *
+   * @param backend backend cluster
+   * @param node host of the node
+   */
+  public static void recordNodeFailure(String backend, String node) {
+    Counter.builder(NODE_FAILURES).tag("backend", backend).tag("node", node)
+        .register(registry()).increment();
+  }
+
+  /**
+   * expose the size, hits, misses and evictions of a cache, tagged with the instance of the cache.
+   * The cache has to be built with {@code recordStats()}.
+   *
+   * @param cache cache to monitor
+   * @param name cache name
+   * @return the cache
+   */
+  public static <K, V> Cache<K, V> monitor(Cache<K, V> cache, String name) {
+    return GuavaCacheMetrics.monitor(registry(), cache, name, INSTANCE, nextInstance(name));
+  }
+
+  /* the number of the next instance registering the gauges of a key in this process */
+  private static String nextInstance(String key) {
+    return String.valueOf(INSTANCES.computeIfAbsent(key, k -> new AtomicInteger())
+        .getAndIncrement());
+  }
+}
@@ -0,0 +1,133 @@
+package iudx.resource.server.resilience;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import iudx.resource.server.metrics.ServerMetrics;
+
+/**
+ * the circuit breaker and bulkhead of a backend.
+ * <p>
+ * A call first takes a slot in the bulkhead, then asks the breaker. A rejected call fails at once
+ * with a {@link BackendUnavailableException}, so that the caller can fall back to stale data or
+ * answer with a 503. There is one guard per backend and process, configured by the first verticle
+ * asking for it, from the {@code backends} block of its config:
+ * </p>
+ *
+ * <pre>
+ * "backends": {
+ *   "elasticsearch": {"maxConcurrent": 100, "timeoutMs": 10000, "slowCallMs": 10000,
+ *       "windowSize": 50, "minCalls": 20, "failureRateThreshold": 50, "openMs": 10000,
+ *       "halfOpenCalls": 3}
+ * }
+ * </pre>
+ */
+public final class BackendGuard {
+
+  private static final Logger LOGGER = LogManager.getLogger(BackendGuard.class);
+  private static final Map<String, BackendGuard> GUARDS = new ConcurrentHashMap<>();
+
+  public static final String REJECTED_OPEN = "open";
+  public static final String REJECTED_FULL = "full";
+
+  private final String backend;
+  private final CircuitBreaker breaker;
+  private final Bulkhead bulkhead;
+  private final long timeoutMillis;
+
+  private BackendGuard(String backend, JsonObject config) {
+    this.backend = backend;
+    this.timeoutMillis = config.getLong("timeoutMs", 10_000L);
+    this.bulkhead = new Bulkhead(config.getInteger("maxConcurrent", 100));
+    this.breaker = new CircuitBreaker(config.getInteger("windowSize", 50),
+        config.getInteger("minCalls", 20), config.getInteger("failureRateThreshold", 50),
+        TimeUnit.MILLISECONDS.toNanos(config.getLong("slowCallMs", timeoutMillis)),
+        TimeUnit.MILLISECONDS.toNanos(config.getLong("openMs", 10_000L)),
+        config.getInteger("halfOpenCalls", 3));
+    ServerMetrics.monitorBackend(backend, this, guard -> guard.breaker.getState().ordinal(),
+        guard -> guard.bulkhead.getInFlight());
+  }
+
+  /**
+   * get the guard of a backend.
+   *
+   * @param backend backend name, one of the backends of {@link ServerMetrics}
+   * @param config config of the calling verticle
+   * @return the guard
+   */
+  public static BackendGuard of(String backend, JsonObject config) {
+    return GUARDS.computeIfAbsent(backend, name -> new BackendGuard(name,
+        config.getJsonObject("backends", new JsonObject()).getJsonObject(name,
+            new JsonObject())));
+  }
+
+  /**
+   * ask to make a call, to be followed by {@link #release(long, boolean)} once it completes.
+   *
+   * @return false when the call has to be rejected
+   */
+  public boolean tryAcquire() {
+    if (!bulkhead.tryAcquire()) {
+      rejected(REJECTED_FULL);
+      return false;
+    }
+    if (!breaker.tryAcquire()) {
+      bulkhead.release();
+      rejected(REJECTED_OPEN);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * record the outcome of a call.
+   *
+   * @param startNanos {@link System#nanoTime()} when the call was made
+   * @param failed whether the backend failed, not whether the request was bad
+   */
+  public void release(long startNanos, boolean failed) {
+    bulkhead.release();
+    breaker.onResult(System.nanoTime() - startNanos, failed);
+  }
+
+  /**
+   * make a call whose every failure counts as a failure of the backend.
+   *
+   * @param call makes the call
+   * @return Future of the call, or failed with a {@link BackendUnavailableException}
+   */
+  public <T> Future<T> execute(Supplier<Future<T>> call) {
+    if (!tryAcquire()) {
+      return Future.failedFuture(unavailable());
+    }
+    long start = System.nanoTime();
+    return call.get().onComplete(result -> release(start, result.failed()));
+  }
+
+  public BackendUnavailableException unavailable() {
+    return new BackendUnavailableException(backend);
+  }
+
+  /**
+   * get the time after which a call is given up.
+   *
+   * @return timeout in milliseconds
+   */
+  public long getTimeoutMillis() {
+    return timeoutMillis;
+  }
+
+  public CircuitBreaker.State getState() {
+    return breaker.getState();
+  }
+
+  private void rejected(String reason) {
+    LOGGER.debug("Info : " + backend + " call rejected, " + reason);
+    ServerMetrics.recordRejected(backend, reason);
+  }
+}
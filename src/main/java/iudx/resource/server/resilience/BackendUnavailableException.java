@@ -0,0 +1,25 @@
+package iudx.resource.server.resilience;
+
+/**
+ * a call rejected because the circuit of the backend is open or its bulkhead is full.
+ */
+public class BackendUnavailableException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String MESSAGE_SUFFIX = " unavailable";
+
+  public BackendUnavailableException(String backend) {
+    super(backend + MESSAGE_SUFFIX, null, false, false);
+  }
+
+  /**
+   * whether a failure message carries the one of a rejected call, for failures passed on as text.
+   *
+   * @param message failure message
+   * @return true for a rejected call
+   */
+  public static boolean isUnavailable(String message) {
+    return message != null && message.contains(MESSAGE_SUFFIX);
+  }
+}
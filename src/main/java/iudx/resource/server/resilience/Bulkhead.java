@@ -0,0 +1,43 @@
+package iudx.resource.server.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * bounds the calls in flight to a backend, so that a slow backend holds at most that many
+ * connections and callbacks instead of all of them. Calls over the bound are rejected at once
+ * rather than queued.
+ */
+public final class Bulkhead {
+
+  private final int maxConcurrent;
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  public Bulkhead(int maxConcurrent) {
+    this.maxConcurrent = Math.max(1, maxConcurrent);
+  }
+
+  /**
+   * take a slot for a call.
+   *
+   * @return false when the bulkhead is full
+   */
+  public boolean tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= maxConcurrent) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  public void release() {
+    inFlight.decrementAndGet();
+  }
+
+  public int getInFlight() {
+    return inFlight.get();
+  }
+}
@@ -0,0 +1,147 @@
+package iudx.resource.server.resilience;
+
+/**
+ * a circuit breaker over a sliding window of the last calls to a backend.
+ * <p>
+ * While closed, every call is let through and its outcome recorded, a call slower than the slow
+ * call threshold counting as failed. Once enough calls are in the window and the share of failed
+ * ones reaches the threshold, the breaker opens and rejects every call. After the open interval
+ * it lets a few probe calls through, half open: the breaker closes when they all succeed and opens
+ * again as soon as one fails.
+ * </p>
+ * <p>
+ * Shared by the verticles calling the backend, all methods are synchronized.
+ * </p>
+ */
+public final class CircuitBreaker {
+
+  public enum State {
+    CLOSED, HALF_OPEN, OPEN
+  }
+
+  private final int minCalls;
+  private final int failureRateThreshold;
+  private final long slowCallNanos;
+  private final long openNanos;
+  private final int halfOpenCalls;
+
+  private final boolean[] window;
+  private int windowIndex;
+  private int windowCount;
+  private int windowFailures;
+
+  private State state = State.CLOSED;
+  private long openedAt;
+  private int probesStarted;
+  private int probesSucceeded;
+
+  /**
+   * create a closed breaker.
+   *
+   * @param windowSize number of calls the failure rate is computed over
+   * @param minCalls calls needed in the window before the breaker can open
+   * @param failureRateThreshold failure rate in percent at which the breaker opens
+   * @param slowCallNanos duration above which a call counts as failed
+   * @param openNanos time the breaker stays open before probing
+   * @param halfOpenCalls probe calls let through while half open
+   */
+  public CircuitBreaker(int windowSize, int minCalls, int failureRateThreshold,
+      long slowCallNanos, long openNanos, int halfOpenCalls) {
+    this.window = new boolean[Math.max(1, windowSize)];
+    this.minCalls = Math.max(1, Math.min(minCalls, window.length));
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallNanos = slowCallNanos;
+    this.openNanos = openNanos;
+    this.halfOpenCalls = Math.max(1, halfOpenCalls);
+  }
+
+  /**
+   * ask to make a call.
+   *
+   * @return false when the call has to be rejected
+   */
+  public synchronized boolean tryAcquire() {
+    return tryAcquire(System.nanoTime());
+  }
+
+  synchronized boolean tryAcquire(long now) {
+    if (state == State.OPEN) {
+      if (now - openedAt < openNanos) {
+        return false;
+      }
+      state = State.HALF_OPEN;
+      probesStarted = 0;
+      probesSucceeded = 0;
+    }
+    if (state == State.HALF_OPEN) {
+      if (probesStarted >= halfOpenCalls) {
+        return false;
+      }
+      probesStarted++;
+    }
+    return true;
+  }
+
+  /**
+   * record the outcome of a call let through.
+   *
+   * @param durationNanos time the call took
+   * @param failed whether the backend failed the call
+   */
+  public synchronized void onResult(long durationNanos, boolean failed) {
+    onResult(durationNanos, failed, System.nanoTime());
+  }
+
+  synchronized void onResult(long durationNanos, boolean failed, long now) {
+    boolean failure = failed || durationNanos > slowCallNanos;
+    switch (state) {
+      case HALF_OPEN:
+        if (failure) {
+          open(now);
+        } else if (++probesSucceeded >= halfOpenCalls) {
+          close();
+        }
+        break;
+      case CLOSED:
+        record(failure);
+        if (windowCount >= minCalls && windowFailures * 100 >= failureRateThreshold * windowCount) {
+          open(now);
+        }
+        break;
+      default:
+        /* a call let through before the breaker opened */
+        break;
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  private void record(boolean failure) {
+    if (windowCount == window.length) {
+      if (window[windowIndex]) {
+        windowFailures--;
+      }
+    } else {
+      windowCount++;
+    }
+    window[windowIndex] = failure;
+    if (failure) {
+      windowFailures++;
+    }
+    windowIndex = (windowIndex + 1) % window.length;
+  }
+
+  private void open(long now) {
+    state = State.OPEN;
+    openedAt = now;
+  }
+
+  private void close() {
+    state = State.CLOSED;
+    windowIndex = 0;
+    windowCount = 0;
+    windowFailures = 0;
+  }
+}
@@ -0,0 +1,211 @@
+package iudx.resource.server.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * a timed stage of a request.
+ * <p>
+ * Spans of one request share a trace id and point to the span they were started from. Ids and the
+ * sampled flag follow the W3C trace context, so a span is carried between processes as a
+ * {@code traceparent} header. A span is exported once, when it ends, if its trace is sampled.
+ * </p>
+ */
+public final class Span {
+
+  /** a span that records nothing, used when there is no trace to join. */
+  public static final Span NOOP = new Span(null, null, null, "noop", false);
+
+  private static final String VERSION = "00";
+  private static final String INVALID_VERSION = "ff";
+  private static final int SAMPLED_FLAG = 1;
+
+  private final String traceId;
+  private final String spanId;
+  private final String parentId;
+  private final String name;
+  private final boolean sampled;
+  private final long startMicros;
+  private final long startNanos;
+  private final Map<String, String> tags = new LinkedHashMap<>();
+  private volatile long durationNanos = -1;
+
+  private Span(String traceId, String parentId, String spanId, String name, boolean sampled) {
+    this.traceId = traceId;
+    this.parentId = parentId;
+    this.spanId = spanId;
+    this.name = name;
+    this.sampled = sampled;
+    this.startMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    this.startNanos = System.nanoTime();
+  }
+
+  static Span root(String name, boolean sampled) {
+    return new Span(randomHex(2), null, randomHex(1), name, sampled);
+  }
+
+  /**
+   * continue a trace started in another verticle, sampled as it was there.
+   *
+   * @param name span name
+   * @param traceparent W3C traceparent header of the remote parent
+   * @return the span, or null if the header is malformed
+   */
+  static Span fromTraceparent(String name, String traceparent) {
+    String[] parts = parse(traceparent);
+    if (parts == null) {
+      return null;
+    }
+    boolean sampled = (Integer.parseInt(parts[3], 16) & SAMPLED_FLAG) == SAMPLED_FLAG;
+    return new Span(parts[1], parts[2], randomHex(1), name, sampled);
+  }
+
+  /**
+   * continue a trace started by a client, whose sampled flag is not trusted.
+   *
+   * @param name span name
+   * @param traceparent W3C traceparent header of the remote parent
+   * @param sampled whether the span is sampled, decided by this server
+   * @return the span, or null if the header is malformed
+   */
+  static Span fromTraceparent(String name, String traceparent, boolean sampled) {
+    String[] parts = parse(traceparent);
+    return parts == null ? null : new Span(parts[1], parts[2], randomHex(1), name, sampled);
+  }
+
+  /* the version, trace id, parent id and flags, null unless all are lowercase hex of their size */
+  private static String[] parse(String traceparent) {
+    String[] parts = traceparent.split("-", -1);
+    if (parts.length != 4 || !isHex(parts[0], 2) || !isHex(parts[1], 32)
+        || !isHex(parts[2], 16) || !isHex(parts[3], 2)) {
+      return null;
+    }
+    // version ff and all zero ids are invalid
+    if (INVALID_VERSION.equals(parts[0]) || isZero(parts[1]) || isZero(parts[2])) {
+      return null;
+    }
+    return parts;
+  }
+
+  private static boolean isHex(String value, int length) {
+    if (value.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isZero(String hex) {
+    for (int i = 0; i < hex.length(); i++) {
+      if (hex.charAt(i) != '0') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * start a span for a stage of this span.
+   *
+   * @param name stage name
+   * @return the child span
+   */
+  public Span child(String name) {
+    if (this == NOOP) {
+      return NOOP;
+    }
+    return new Span(traceId, spanId, randomHex(1), name, sampled);
+  }
+
+  /**
+   * attach a tag to the span.
+   *
+   * @param key tag key
+   * @param value tag value
+   * @return this span
+   */
+  public synchronized Span tag(String key, String value) {
+    if (this != NOOP) {
+      tags.put(key, value);
+    }
+    return this;
+  }
+
+  /**
+   * end the span and export it, once.
+   */
+  public void end() {
+    if (this == NOOP || durationNanos >= 0) {
+      return;
+    }
+    durationNanos = System.nanoTime() - startNanos;
+    if (sampled) {
+      Tracing.export(this);
+    }
+  }
+
+  public boolean isEnded() {
+    return durationNanos >= 0;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * get the duration of an ended span.
+   *
+   * @return duration in milliseconds, or the time so far for a running span
+   */
+  public double getDurationMillis() {
+    long nanos = durationNanos >= 0 ? durationNanos : System.nanoTime() - startNanos;
+    return nanos / 1_000_000.0;
+  }
+
+  /**
+   * get the span as a W3C traceparent header value.
+   *
+   * @return header value, null for {@link #NOOP}
+   */
+  public String traceparent() {
+    if (this == NOOP) {
+      return null;
+    }
+    return VERSION + "-" + traceId + "-" + spanId + "-" + (sampled ? "01" : "00");
+  }
+
+  /**
+   * get the span as one exported record.
+   *
+   * @return the span fields
+   */
+  public synchronized JsonObject toJson() {
+    JsonObject json = new JsonObject().put("traceId", traceId).put("spanId", spanId)
+        .put("parentId", parentId).put("name", name).put("start", startMicros)
+        .put("durationMicros", TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    if (!tags.isEmpty()) {
+      json.put("tags", new JsonObject(new LinkedHashMap<>(tags)));
+    }
+    return json;
+  }
+
+  private static String randomHex(int longs) {
+    StringBuilder hex = new StringBuilder(longs * 16);
+    for (int i = 0; i < longs; i++) {
+      String part = Long.toHexString(ThreadLocalRandom.current().nextLong());
+      for (int pad = part.length(); pad < 16; pad++) {
+        hex.append('0');
+      }
+      hex.append(part);
+    }
+    return hex.toString();
+  }
+}
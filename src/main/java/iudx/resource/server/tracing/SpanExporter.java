@@ -0,0 +1,43 @@
+package iudx.resource.server.tracing;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.AsyncFile;
+import io.vertx.core.file.OpenOptions;
+
+/**
+ * writes ended spans, one JSON line per span.
+ */
+public interface SpanExporter {
+
+  SpanExporter NONE = span -> {
+  };
+
+  void export(Span span);
+
+  /**
+   * export to a dedicated logger, so that the log configuration decides the sink.
+   *
+   * @param loggerName logger name
+   * @return the exporter
+   */
+  static SpanExporter log(String loggerName) {
+    Logger logger = LogManager.getLogger(loggerName);
+    return span -> logger.info(span.toJson().encode());
+  }
+
+  /**
+   * append to a local file.
+   *
+   * @param vertx vertx instance
+   * @param path file path
+   * @return the exporter
+   */
+  static SpanExporter file(Vertx vertx, String path) {
+    AsyncFile file = vertx.fileSystem().openBlocking(path,
+        new OpenOptions().setCreate(true).setAppend(true).setWrite(true));
+    return span -> file.write(Buffer.buffer(span.toJson().encode()).appendString("\n"));
+  }
+}
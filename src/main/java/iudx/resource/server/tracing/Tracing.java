@@ -0,0 +1,153 @@
+package iudx.resource.server.tracing;
+
+import java.util.concurrent.ThreadLocalRandom;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * request tracing for the resource server.
+ * <p>
+ * The API server starts a span per request and a child span per stage. A call made while a span
+ * is in scope carries it over the event bus as a {@code traceparent} header, and the receiving
+ * verticle has it in scope while its handler runs, so spans of the database, latest and auth
+ * services join the trace of the request. Each process exports its own spans; a trace is put
+ * together from the exported records by trace id. An API request may join the trace of its
+ * client with a {@code traceparent} header, but is sampled by the sample rate; the sampled flag
+ * is followed only between verticles.
+ * </p>
+ * <p>
+ * Configured from the {@code tracing} block of the deployment configuration:
+ * {@code sampleRate} (0 to 1, share of API requests exported), {@code exporter} ({@code log},
+ * {@code file} or {@code none}), {@code file} (path for the file exporter) and
+ * {@code serverTiming} (add a Server-Timing header to API responses).
+ * </p>
+ */
+public final class Tracing {
+
+  private static final Logger LOGGER = LogManager.getLogger(Tracing.class);
+
+  public static final String TRACEPARENT = "traceparent";
+  private static final String TRACE_LOGGER = "iudx.resource.server.trace";
+  private static final String DEFAULT_TRACE_FILE = "./trace.log";
+
+  private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+  private static volatile SpanExporter exporter = SpanExporter.NONE;
+  private static volatile double sampleRate;
+  private static volatile boolean serverTiming;
+  private static boolean initialized;
+
+  private Tracing() {}
+
+  /**
+   * configure tracing and install the event bus interceptors, once per process.
+   *
+   * @param vertx vertx instance
+   * @param config tracing configuration, may be empty
+   */
+  public static synchronized void init(Vertx vertx, JsonObject config) {
+    if (initialized) {
+      return;
+    }
+    initialized = true;
+    sampleRate = config.getDouble("sampleRate", 0.0);
+    serverTiming = config.getBoolean("serverTiming", false);
+    switch (config.getString("exporter", "none")) {
+      case "log":
+        exporter = SpanExporter.log(TRACE_LOGGER);
+        break;
+      case "file":
+        exporter = SpanExporter.file(vertx, config.getString("file", DEFAULT_TRACE_FILE));
+        break;
+      default:
+        exporter = SpanExporter.NONE;
+    }
+    vertx.eventBus().addOutboundInterceptor(delivery -> {
+      Span current = CURRENT.get();
+      if (current != null && current != Span.NOOP
+          && !delivery.message().headers().contains(TRACEPARENT)) {
+        delivery.message().headers().add(TRACEPARENT, current.traceparent());
+      }
+      delivery.next();
+    });
+    vertx.eventBus().addInboundInterceptor(delivery -> {
+      String traceparent = delivery.message().headers().get(TRACEPARENT);
+      Span remote = traceparent == null ? null
+          : Span.fromTraceparent(delivery.message().address(), traceparent);
+      if (remote == null) {
+        delivery.next();
+        return;
+      }
+      Span previous = CURRENT.get();
+      CURRENT.set(remote);
+      try {
+        delivery.next();
+      } finally {
+        restore(previous);
+      }
+    });
+    LOGGER.info("Info : tracing enabled, sample rate " + sampleRate);
+  }
+
+  public static boolean isServerTimingEnabled() {
+    return serverTiming;
+  }
+
+  /**
+   * start the span of an incoming request. The request comes from any client, so it is sampled by
+   * the sample rate whatever its sampled flag says.
+   *
+   * @param name span name
+   * @param traceparent traceparent header of the request, may be null
+   * @return a span continuing the caller's trace, or the root of a new trace
+   */
+  public static Span startRequest(String name, String traceparent) {
+    boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    Span span = traceparent == null ? null : Span.fromTraceparent(name, traceparent, sampled);
+    return span == null ? Span.root(name, sampled) : span;
+  }
+
+  /**
+   * start a span under the span in scope.
+   *
+   * @param name span name
+   * @return the span, or {@link Span#NOOP} when no trace is in scope
+   */
+  public static Span start(String name) {
+    Span current = CURRENT.get();
+    return current == null ? Span.NOOP : current.child(name);
+  }
+
+  /**
+   * run a call with a span in scope, so that event bus messages it sends carry the span.
+   *
+   * @param span span to put in scope
+   * @param call call to run
+   */
+  public static void inScope(Span span, Runnable call) {
+    Span previous = CURRENT.get();
+    CURRENT.set(span);
+    try {
+      call.run();
+    } finally {
+      restore(previous);
+    }
+  }
+
+  static void export(Span span) {
+    try {
+      exporter.export(span);
+    } catch (RuntimeException e) {
+      LOGGER.debug("Info : span export failed; " + e.getMessage());
+    }
+  }
+
+  private static void restore(Span previous) {
+    if (previous == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(previous);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package iudx.resource.server.apiserver.limits;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrencyLimitTest {
+
+  private static final long MILLI = 1_000_000L;
+
+  @Test
+  public void testVegasGrowsWithoutQueue() {
+    VegasLimit limit = new VegasLimit(20, 1, 200);
+    limit.update(10 * MILLI, 20, false);
+    assertEquals(20, limit.getLimit());
+    limit.update(10 * MILLI, 20, false);
+    assertTrue(limit.getLimit() > 20);
+  }
+
+  @Test
+  public void testVegasShrinksWhenQueueBuilds() {
+    VegasLimit limit = new VegasLimit(20, 1, 200);
+    limit.update(10 * MILLI, 20, false);
+    limit.update(100 * MILLI, 20, false);
+    assertTrue(limit.getLimit() < 20);
+  }
+
+  @Test
+  public void testVegasShrinksOnDrop() {
+    VegasLimit limit = new VegasLimit(20, 1, 200);
+    limit.update(10 * MILLI, 1, false);
+    limit.update(10 * MILLI, 1, true);
+    assertTrue(limit.getLimit() < 20);
+  }
+
+  @Test
+  public void testVegasHoldsWhenIdle() {
+    VegasLimit limit = new VegasLimit(20, 1, 200);
+    limit.update(10 * MILLI, 1, false);
+    limit.update(100 * MILLI, 1, false);
+    limit.update(10 * MILLI, 1, false);
+    assertEquals(20, limit.getLimit());
+  }
+
+  @Test
+  public void testVegasStaysWithinBounds() {
+    VegasLimit limit = new VegasLimit(20, 5, 30);
+    limit.update(10 * MILLI, 20, false);
+    for (int i = 0; i < 100; i++) {
+      limit.update(10 * MILLI, 30, false);
+    }
+    assertEquals(30, limit.getLimit());
+    for (int i = 0; i < 100; i++) {
+      limit.update(10 * MILLI, 30, true);
+    }
+    assertEquals(5, limit.getLimit());
+  }
+
+  @Test
+  public void testAimdGrowsWhileUsed() {
+    AimdLimit limit = new AimdLimit(20, 1, 200, 5000);
+    limit.update(10 * MILLI, 20, false);
+    assertEquals(21, limit.getLimit());
+    limit.update(10 * MILLI, 1, false);
+    assertEquals(21, limit.getLimit());
+  }
+
+  @Test
+  public void testAimdBacksOffOnDropOrTimeout() {
+    AimdLimit limit = new AimdLimit(20, 1, 200, 5000);
+    limit.update(10 * MILLI, 20, true);
+    assertEquals(18, limit.getLimit());
+    limit.update(6000 * MILLI, 20, false);
+    assertEquals(16, limit.getLimit());
+  }
+
+  @Test
+  public void testLimiterRejectsAtLimit() {
+    EndpointLimiter limiter = new EndpointLimiter("test", new AimdLimit(2, 1, 200, 5000));
+    assertTrue(limiter.tryAcquire());
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+    limiter.release();
+    assertEquals(1, limiter.getInFlight());
+    assertEquals(2, limiter.getLimit());
+    assertTrue(limiter.tryAcquire());
+  }
+}
@@ -0,0 +1,78 @@
+package iudx.resource.server.apiserver.limits;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import io.vertx.core.json.JsonObject;
+
+public class RateLimiterTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  private static RateLimiter limiter() {
+    return new RateLimiter(new JsonObject().put("enabled", true).put("idleSeconds", 10)
+        .put("default", new JsonObject().put("rate", 1).put("burst", 2)));
+  }
+
+  private static JsonObject consumedElsewhere(String consumer, String api, long count) {
+    return new JsonObject().put("node", "other-node").put("consumed",
+        new JsonObject().put(consumer, new JsonObject().put(api, count)));
+  }
+
+  @Test
+  public void testBucketsPerConsumerAndApi() {
+    RateLimiter limiter = limiter();
+    assertEquals(0, limiter.tryAcquire("a", "/x", null, 0));
+    assertEquals(0, limiter.tryAcquire("a", "/x", null, 0));
+    assertTrue(limiter.tryAcquire("a", "/x", null, 0) > 0);
+    assertEquals(0, limiter.tryAcquire("b", "/x", null, 0));
+    assertEquals(0, limiter.tryAcquire("a", "/y", null, 0));
+    assertEquals(0, limiter.tryAcquire("a", "/x", null, SECOND));
+  }
+
+  @Test
+  public void testGrantedLimit() {
+    RateLimiter limiter = limiter();
+    JsonObject granted = new JsonObject().put("rate", 1).put("burst", 5);
+    for (int i = 0; i < 5; i++) {
+      assertEquals(0, limiter.tryAcquire("a", "/x", granted, 0));
+    }
+    assertTrue(limiter.tryAcquire("a", "/x", granted, 0) > 0);
+  }
+
+  @Test
+  public void testDisabled() {
+    RateLimiter limiter = new RateLimiter(new JsonObject());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(0, limiter.tryAcquire("a", "/x", null, 0));
+    }
+  }
+
+  @Test
+  public void testReconcileWithOtherNodes() {
+    RateLimiter limiter = limiter();
+    assertEquals(0, limiter.tryAcquire("a", "/x", null, 0));
+    assertEquals(1, limiter.drain(0).getJsonObject("a").getLong("/x"));
+    assertTrue(limiter.drain(0).isEmpty());
+    // one token left and three taken elsewhere, so three short of the one asked for
+    limiter.absorb(consumedElsewhere("a", "/x", 3));
+    assertEquals(3 * SECOND, limiter.tryAcquire("a", "/x", null, 0), 1000);
+    assertEquals(0, limiter.tryAcquire("a", "/x", null, 3 * SECOND));
+  }
+
+  @Test
+  public void testIdleBucketsEvicted() {
+    RateLimiter limiter = limiter();
+    assertEquals(0, limiter.tryAcquire("a", "/x", null, 0));
+    assertEquals(0, limiter.tryAcquire("b", "/x", null, 0));
+    limiter.drain(0);
+    // still used recently, the tokens taken elsewhere apply
+    limiter.drain(5 * SECOND);
+    limiter.absorb(consumedElsewhere("b", "/x", 5));
+    assertTrue(limiter.tryAcquire("b", "/x", null, 5 * SECOND) > 0);
+    // dropped once idle, so a new full bucket is created
+    limiter.drain(11 * SECOND);
+    limiter.absorb(consumedElsewhere("a", "/x", 5));
+    assertEquals(0, limiter.tryAcquire("a", "/x", null, 11 * SECOND));
+    assertEquals(0, limiter.tryAcquire("a", "/x", null, 11 * SECOND));
+  }
+}
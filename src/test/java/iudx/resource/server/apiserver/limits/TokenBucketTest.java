@@ -0,0 +1,58 @@
+package iudx.resource.server.apiserver.limits;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class TokenBucketTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  @Test
+  public void testRefill() {
+    TokenBucket bucket = new TokenBucket(10, 5, 0);
+    for (int i = 0; i < 5; i++) {
+      assertEquals(0, bucket.tryConsume(0));
+    }
+    assertEquals(SECOND / 10, bucket.tryConsume(0), 1000);
+    assertEquals(0, bucket.tryConsume(SECOND / 10));
+    assertTrue(bucket.tryConsume(SECOND / 10) > 0);
+  }
+
+  @Test
+  public void testRefillUpToBurst() {
+    TokenBucket bucket = new TokenBucket(10, 5, 0);
+    long now = 60 * SECOND;
+    for (int i = 0; i < 5; i++) {
+      assertEquals(0, bucket.tryConsume(now));
+    }
+    assertTrue(bucket.tryConsume(now) > 0);
+  }
+
+  @Test
+  public void testAbsorbDownToMinusBurst() {
+    TokenBucket bucket = new TokenBucket(10, 5, 0);
+    bucket.absorb(100);
+    // six tokens short of one: the five absorbed below zero and the one asked for
+    assertEquals(6 * SECOND / 10, bucket.tryConsume(0), 1000);
+    assertEquals(0, bucket.tryConsume(7 * SECOND / 10));
+  }
+
+  @Test
+  public void testDrainConsumed() {
+    TokenBucket bucket = new TokenBucket(10, 5, 0);
+    bucket.tryConsume(0);
+    bucket.tryConsume(0);
+    assertEquals(2, bucket.drainConsumed());
+    assertEquals(0, bucket.drainConsumed());
+  }
+
+  @Test
+  public void testIdle() {
+    TokenBucket bucket = new TokenBucket(10, 5, 0);
+    bucket.tryConsume(0);
+    assertFalse(bucket.isIdle(10 * SECOND, 10 * SECOND));
+    bucket.drainConsumed();
+    assertFalse(bucket.isIdle(10 * SECOND - 1, 10 * SECOND));
+    assertTrue(bucket.isIdle(10 * SECOND, 10 * SECOND));
+  }
+}
@@ -0,0 +1,139 @@
+package iudx.resource.server.apiserver.query;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static iudx.resource.server.apiserver.util.Constants.*;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.api.validation.ValidationException;
+import org.junit.jupiter.api.Test;
+
+public class CompiledQueryTest {
+
+  private static final String ID = "iisc.ac.in/89a36273d77dac4cf38114fca1bbe64392547f86/"
+      + "rs.iudx.io/surat-itms-realtime-information/surat-itms-live-eta";
+
+  @Test
+  public void testCircleQuery() {
+    CompiledQuery query = CompiledQuery.fromQueryString("id=" + ID
+        + "&georel=near;maxdistance=10&geometry=point&coordinates=%5B25.319768%2C82.987988%5D"
+        + "&geoproperty=location&attrs=id,speed", false);
+    JsonObject json = query.toJson();
+    assertEquals(ID, json.getJsonArray(JSON_ID).getString(0));
+    assertEquals(25.319768, json.getDouble(JSON_LAT));
+    assertEquals(82.987988, json.getDouble(JSON_LON));
+    assertEquals(10.0, json.getDouble(JSON_RADIUS));
+    assertEquals(new JsonArray().add("id").add("speed"), json.getJsonArray(JSON_ATTRIBUTE_FILTER));
+    assertEquals("latestSearch_geoSearch_responseFilter", json.getString(JSON_SEARCH_TYPE));
+    assertTrue(query.hasSpatialParams());
+    assertFalse(query.hasTemporalParams());
+  }
+
+  @Test
+  public void testTemporalQueryKeepsPlus() {
+    CompiledQuery query = CompiledQuery.fromQueryString("id=" + ID + "&timerel=during"
+        + "&time=2020-10-19T14:20:00+05:30&endtime=2020-10-19T16:20:00%2B05:30&q=speed>=30"
+        + "&options=count", true);
+    JsonObject json = query.toJson();
+    assertEquals("2020-10-19T14:20:00+05:30", json.getString(JSON_TIME));
+    assertEquals("2020-10-19T16:20:00+05:30", json.getString(JSON_ENDTIME));
+    assertEquals("during", json.getString(JSON_TIMEREL));
+    JsonObject term = json.getJsonArray(JSON_ATTR_QUERY).getJsonObject(0);
+    assertEquals("speed", term.getString(JSON_ATTRIBUTE));
+    assertEquals(">=", term.getString(JSON_OPERATOR));
+    assertEquals("30", term.getString(JSON_VALUE));
+    assertEquals("temporalSearch_attributeSearch", json.getString(JSON_SEARCH_TYPE));
+    assertTrue(query.isCount());
+    JsonObject spaced = CompiledQuery.fromQueryString("id=" + ID + "&timerel=after"
+        + "&time=2020-10-19T14:20:00%2005:30", true).toJson();
+    assertEquals("2020-10-19T14:20:00+05:30", spaced.getString(JSON_TIME));
+  }
+
+  @Test
+  public void testAggregationQuery() {
+    CompiledQuery query = CompiledQuery.fromQueryString("id=" + ID
+        + "&georel=within&geometry=bbox&coordinates=[[72.7,21.2],[72.9,20.8]]"
+        + "&geoproperty=location&aggregate=geotile_grid&attrs=speed", false);
+    JsonObject json = query.toJson();
+    assertTrue(query.isAggregation());
+    assertEquals("geotile_grid", json.getString(JSON_AGGREGATE));
+    assertEquals(7, json.getInteger(JSON_PRECISION));
+    assertEquals(new JsonArray().add("speed"), json.getJsonArray(JSON_ATTRIBUTE_FILTER));
+    assertThrows(ValidationException.class, () -> CompiledQuery
+        .fromQueryString("id=" + ID + "&aggregate=geohash_grid&precision=13", false));
+    assertThrows(ValidationException.class,
+        () -> CompiledQuery.fromQueryString("id=" + ID + "&precision=5", false));
+    assertThrows(ValidationException.class, () -> CompiledQuery
+        .fromQueryString("id=" + ID + "&aggregate=geotile_grid&options=count", false));
+  }
+
+  @Test
+  public void testCountWithResults() {
+    JsonObject json = CompiledQuery
+        .fromQueryString("id=" + ID + "&q=speed>=30&count=true&approximate=true", false).toJson();
+    assertTrue(json.getBoolean(JSON_WITH_COUNT));
+    assertTrue(json.getBoolean(JSON_APPROXIMATE));
+    assertFalse(CompiledQuery.fromQueryString("id=" + ID + "&count=false", false).toJson()
+        .containsKey(JSON_WITH_COUNT));
+    assertThrows(ValidationException.class,
+        () -> CompiledQuery.fromQueryString("id=" + ID + "&approximate=true", false));
+    assertThrows(ValidationException.class,
+        () -> CompiledQuery.fromQueryString("id=" + ID + "&count=yes", false));
+  }
+
+  @Test
+  public void testInvalidQueries() {
+    assertThrows(ValidationException.class,
+        () -> CompiledQuery.fromQueryString("attrs=speed", false));
+    assertThrows(ValidationException.class,
+        () -> CompiledQuery.fromQueryString("id=" + ID + "&unknown=1", false));
+    assertThrows(ValidationException.class,
+        () -> CompiledQuery.fromQueryString("id=" + ID + "&id=" + ID, false));
+    assertThrows(ValidationException.class,
+        () -> CompiledQuery.fromQueryString("id=" + ID + "&timerel=after&time=2020-10-19T14:20:00Z",
+            false));
+    assertThrows(ValidationException.class,
+        () -> CompiledQuery.fromQueryString("id=" + ID + "&georel=within&geometry=polygon", false));
+    assertThrows(ValidationException.class, () -> CompiledQuery.fromQueryString("id=" + ID
+        + "&timerel=during&time=2020-10-01T00:00:00Z&endtime=2020-10-19T00:00:00Z", true));
+    assertThrows(ValidationException.class,
+        () -> CompiledQuery.fromQueryString("id=" + ID + "&q=speed~30", false));
+    assertThrows(ValidationException.class, () -> CompiledQuery.fromQueryString("id=" + ID
+        + "&georel=within&geometry=polygon&geoproperty=location"
+        + "&coordinates=[[[72.7,21],[72.8,21.2],[72.9,20.8],[72.7,21.1]]]", false));
+    assertThrows(ValidationException.class, () -> CompiledQuery.fromQueryString("id=" + ID
+        + "&georel=near;maxdistance=10&geometry=point&geoproperty=location"
+        + "&coordinates=[[72.7,21],[72.8,21.2]]", false));
+  }
+
+  @Test
+  public void testSeparatorsRejected() {
+    assertThrows(ValidationException.class, () -> CompiledQuery.fromQueryString(
+        "georel=near;id=allowed&id=" + ID + "&geometry=point&coordinates=[25.3,82.9]"
+            + "&geoproperty=location", false));
+    assertThrows(ValidationException.class, () -> CompiledQuery.fromQueryString("id=" + ID
+        + "&georel=near;maxdistance=10;mindistance=1&geometry=point&coordinates=[25.3,82.9]"
+        + "&geoproperty=location", false));
+    assertThrows(ValidationException.class,
+        () -> CompiledQuery.fromQueryString("id=" + ID + ";id=allowed", false));
+    assertThrows(ValidationException.class,
+        () -> CompiledQuery.fromQueryString("id=" + ID + "&attrs=speed;id=allowed", false));
+  }
+
+  @Test
+  public void testPostQuery() {
+    JsonObject body = new JsonObject().put("type", "Query")
+        .put("entities", new JsonArray().add(new JsonObject().put("id", ID)))
+        .put("geoQ", new JsonObject().put("geometry", "polygon")
+            .put("coordinates", new JsonArray("[[[72.7,21],[72.8,21.2],[72.9,20.8],[72.7,21]]]"))
+            .put("georel", "within").put("geoproperty", "location"))
+        .put("temporalQ", new JsonObject().put("timerel", "before")
+            .put("time", "2020-10-19T14:20:00Z"));
+    JsonObject json = CompiledQuery.fromJson(body).toJson();
+    assertEquals("polygon", json.getString(JSON_GEOMETRY));
+    assertEquals("[[[72.7,21],[72.8,21.2],[72.9,20.8],[72.7,21]]]",
+        json.getString(JSON_COORDINATES));
+    assertEquals("before", json.getString(JSON_TIMEREL));
+    assertFalse(json.containsKey(JSON_ENDTIME));
+    assertEquals("temporalSearch_geoSearch", json.getString(JSON_SEARCH_TYPE));
+  }
+}
@@ -0,0 +1,99 @@
+package iudx.resource.server.apiserver.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import iudx.resource.server.metrics.ServerMetrics;
+import iudx.resource.server.resilience.BackendUnavailableException;
+
+public class CatalogueServiceTest {
+
+  private static final String ID = "iisc.ac.in/89a36273d77dac4cf38114fca1bbe64392547f86/"
+      + "rs.iudx.io/surat-itms-realtime-information/surat-itms-live-eta";
+  private static final List<String> OLD_FILTERS = Arrays.asList("TEMPORAL", "ATTR");
+  private static final List<String> NEW_FILTERS = Arrays.asList("TEMPORAL", "ATTR", "SPATIAL");
+
+  private final AtomicLong now = new AtomicLong();
+  // catalogue calls for ID, answered by completing the promise
+  private final List<Promise<List<String>>> calls = new ArrayList<>();
+  private CatalogueService catalogue;
+
+  @BeforeEach
+  public void setUp() {
+    JsonObject config = new JsonObject().put("catalogueCache",
+        new JsonObject().put("softTtlMinutes", 60).put("hardTtlMinutes", 1440));
+    catalogue = new CatalogueService(config, now::get, id -> {
+      assertEquals(ID, id);
+      Promise<List<String>> promise = Promise.promise();
+      calls.add(promise);
+      return promise.future();
+    });
+  }
+
+  private void loadOldFilters() {
+    Future<List<String>> filters = catalogue.getApplicableFilters(ID);
+    calls.get(0).complete(OLD_FILTERS);
+    assertEquals(OLD_FILTERS, filters.result());
+  }
+
+  private static long minutes(long minutes) {
+    return TimeUnit.MINUTES.toMillis(minutes);
+  }
+
+  @Test
+  public void testFreshHitNotLoaded() {
+    loadOldFilters();
+    now.set(minutes(59));
+    assertEquals(OLD_FILTERS, catalogue.getApplicableFilters(ID).result());
+    assertEquals(1, calls.size());
+  }
+
+  @Test
+  public void testStaleHitServedWhileRefreshed() {
+    loadOldFilters();
+    now.set(minutes(60));
+    assertEquals(OLD_FILTERS, catalogue.getApplicableFilters(ID).result());
+    assertEquals(OLD_FILTERS, catalogue.getApplicableFilters(ID).result());
+    assertEquals(2, calls.size());
+    calls.get(1).complete(NEW_FILTERS);
+    assertEquals(NEW_FILTERS, catalogue.getApplicableFilters(ID).result());
+    assertEquals(2, calls.size());
+  }
+
+  @Test
+  public void testConcurrentMissesShareOneCall() {
+    Future<List<String>> first = catalogue.getApplicableFilters(ID);
+    Future<List<String>> second = catalogue.getApplicableFilters(ID);
+    assertFalse(first.isComplete());
+    assertFalse(second.isComplete());
+    assertEquals(1, calls.size());
+    calls.get(0).complete(OLD_FILTERS);
+    assertEquals(OLD_FILTERS, first.result());
+    assertEquals(OLD_FILTERS, second.result());
+  }
+
+  @Test
+  public void testExpiredServedWhenCatalogueFails() {
+    loadOldFilters();
+    now.set(minutes(1440));
+    Future<List<String>> filters = catalogue.getApplicableFilters(ID);
+    assertFalse(filters.isComplete());
+    calls.get(1).fail(new BackendUnavailableException(ServerMetrics.BACKEND_CATALOGUE));
+    assertEquals(OLD_FILTERS, filters.result());
+  }
+
+  @Test
+  public void testMissFailsWhenCatalogueFails() {
+    Future<List<String>> filters = catalogue.getApplicableFilters(ID);
+    calls.get(0).fail(new BackendUnavailableException(ServerMetrics.BACKEND_CATALOGUE));
+    assertTrue(filters.cause() instanceof BackendUnavailableException);
+  }
+}
@@ -647,11 +647,11 @@ public class DatabaseServiceTest {
         .add(
             "iisc.ac.in/89a36273d77dac4cf38114fca1bbe64392547f86/rs.iudx.io/surat-itms-realtime-information/surat-itms-live-eta"))
         .put("searchType", "responseFilter_").put("attrs", new JsonArray().add("id")
-            .add("latitude").add("longitude"));
+            .add("latitude").add("longitude"))
+        .put("applicableFilters", new JsonArray().add("ATTR").add("TEMPORAL").add("SPATIAL"));
 
-    dbService.countQuery(request, testContext.failing(response -> testContext.verify(() -> {
-      assertEquals("Count is not supported with filtering", new JsonObject(response
-          .getMessage()).getString("detail"));
+    dbService.countQuery(request, testContext.succeeding(response -> testContext.verify(() -> {
+      assertTrue(response.getJsonArray("results").getJsonObject(0).containsKey("count"));
       testContext.completeNow();
     })));
   }
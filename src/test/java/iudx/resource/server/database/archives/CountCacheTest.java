@@ -0,0 +1,41 @@
+package iudx.resource.server.database.archives;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.ZonedDateTime;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+public class CountCacheTest {
+
+  private static final String INDEX = "iisc.ac.in__89a36273d77dac4cf38114fca1bbe64392547f86";
+  private static final JsonObject QUERY = new JsonObject().put("query",
+      new JsonObject().put("bool", new JsonObject().put("filter", "id")));
+
+  private JsonObject request(String timerel, String time, String endtime) {
+    JsonObject request = new JsonObject().put("searchType", "temporalSearch_attributeSearch")
+        .put("timerel", timerel).put("time", time);
+    return endtime == null ? request : request.put("endtime", endtime);
+  }
+
+  @Test
+  public void testClosedWindowCached() {
+    CountCache cache = new CountCache(new JsonObject());
+    String key = cache.key(INDEX,
+        request("during", "2020-10-01T00:00:00Z", "2020-10-05T00:00:00Z"), QUERY);
+    assertNotNull(key);
+    assertNull(cache.get(key));
+    cache.put(key, 42L);
+    assertEquals(42L, cache.get(key));
+    assertEquals(key, cache.key(INDEX, request("before", "2020-10-05T00:00:00Z", null), QUERY));
+  }
+
+  @Test
+  public void testOpenWindowNotCached() {
+    CountCache cache = new CountCache(new JsonObject());
+    String now = ZonedDateTime.now().toString();
+    assertNull(cache.key(INDEX, request("during", "2020-10-01T00:00:00Z", now), QUERY));
+    assertNull(cache.key(INDEX, request("after", "2020-10-01T00:00:00Z", null), QUERY));
+    assertNull(cache.key(INDEX, new JsonObject().put("searchType", "latestSearch_geoSearch"),
+        QUERY));
+  }
+}
@@ -0,0 +1,48 @@
+package iudx.resource.server.database.archives;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.concurrent.TimeUnit;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+public class QueryCostEstimatorTest {
+
+  private static final String DENSE = "iisc.ac.in__dense";
+  private static final String SPARSE = "iisc.ac.in__sparse";
+  private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+  /* the rates are recorded by the test, the client sampling them is never called */
+  private QueryCostEstimator estimator() {
+    QueryCostEstimator estimator = new QueryCostEstimator(null, new JsonObject()
+        .put("maxDocuments", 1000000).put("minDays", 1).put("maxDays", 365));
+    estimator.record(DENSE, 4000000L, 0L, 2 * DAY);
+    estimator.record(SPARSE, 100L, 0L, 10 * DAY);
+    return estimator;
+  }
+
+  @Test
+  public void testDefaultWindow() {
+    QueryCostEstimator estimator = estimator();
+    JsonObject dense = new JsonObject().put("searchType", "geoSearch");
+    assertNull(estimator.limit(DENSE, dense));
+    assertEquals(1, dense.getInteger("windowDays"));
+    JsonObject sparse = new JsonObject().put("searchType", "temporalSearch")
+        .put("timerel", "before").put("time", "2020-10-19T00:00:00Z");
+    assertNull(estimator.limit(SPARSE, sparse));
+    assertEquals(365, sparse.getInteger("windowDays"));
+  }
+
+  @Test
+  public void testExpensiveWindow() {
+    QueryCostEstimator estimator = estimator();
+    JsonObject request = new JsonObject().put("searchType", "temporalSearch")
+        .put("timerel", "during").put("time", "2020-10-01T00:00:00Z")
+        .put("endtime", "2020-10-05T00:00:00Z");
+    assertNotNull(estimator.limit(DENSE, request));
+    assertNull(estimator.limit(SPARSE, request));
+    assertFalse(request.containsKey("windowDays"));
+    JsonObject disabled = new JsonObject().put("searchType", "geoSearch");
+    assertNull(new QueryCostEstimator(null, null).limit(DENSE, disabled));
+    assertFalse(disabled.containsKey("windowDays"));
+  }
+}
@@ -0,0 +1,43 @@
+package iudx.resource.server.database.archives;
+
+import static org.junit.jupiter.api.Assertions.*;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import iudx.resource.server.geo.GeometryPreprocessor;
+import org.junit.jupiter.api.Test;
+
+public class ResponseProjectionTest {
+
+  private static final JsonArray EXCLUDES = new JsonArray().add("@timestamp");
+
+  @Test
+  public void testSource() {
+    ResponseProjection projection =
+        ResponseProjection.create(new JsonObject().put("excludes", EXCLUDES));
+    JsonArray attrs = new JsonArray().add("id").add("speed");
+    assertEquals(new JsonObject().put("includes", attrs).put("excludes", EXCLUDES),
+        projection.source(attrs));
+    assertEquals(new JsonObject().put("excludes", EXCLUDES), projection.source(null));
+    assertNull(ResponseProjection.none().source(null));
+    assertEquals(new JsonObject().put("includes", attrs), ResponseProjection.create(null)
+        .source(attrs));
+  }
+
+  @Test
+  public void testDecodedQuery() {
+    QueryDecoder decoder = new QueryDecoder(GeometryPreprocessor.disabled(),
+        ResponseProjection.create(new JsonObject().put("excludes", EXCLUDES)));
+    JsonObject request = new JsonObject()
+        .put("id", new JsonArray().add("iisc.ac.in/89a36273d77dac4cf38114fca1bbe64392547f86/"
+            + "rs.iudx.io/surat-itms-realtime-information/surat-itms-live-eta"))
+        .put("searchType", "responseFilter_").put("attrs", new JsonArray().add("speed"))
+        .put("timeLimit", "test,2020-10-19T00:00:00Z,30")
+        .put("applicableFilters", new JsonArray().add("ATTR"));
+    JsonObject count = decoder.queryDecoder(request.copy().put("search", false));
+    assertFalse(count.containsKey("Error"));
+    assertFalse(count.containsKey("_source"));
+    JsonObject search = decoder.queryDecoder(request.copy().put("search", true));
+    assertEquals(new JsonArray().add("speed"),
+        search.getJsonObject("_source").getJsonArray("includes"));
+  }
+}
@@ -0,0 +1,76 @@
+package iudx.resource.server.databroker;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.rabbitmq.RabbitMQOptions;
+import iudx.resource.server.configuration.Configuration;
+
+@ExtendWith(VertxExtension.class)
+public class PublisherChannelPoolTest {
+
+  private static PublisherChannelPool pool;
+
+  @BeforeAll
+  @DisplayName("Start a publisher pool of a single channel")
+  static void startPool(Vertx vertx, io.vertx.reactivex.core.Vertx vertx2,
+      VertxTestContext testContext) {
+    JsonObject brokerConfig = new Configuration().configLoader(2, vertx2);
+    RabbitMQOptions options = new RabbitMQOptions()
+        .setUser(brokerConfig.getString("dataBrokerUserName"))
+        .setPassword(brokerConfig.getString("dataBrokerPassword"))
+        .setHost(brokerConfig.getString("dataBrokerIP"))
+        .setPort(Integer.parseInt(brokerConfig.getString("dataBrokerPort")))
+        .setVirtualHost(brokerConfig.getString("dataBrokerVhost"))
+        .setConnectionTimeout(Integer.parseInt(brokerConfig.getString("connectionTimeout")))
+        .setRequestedHeartbeat(Integer.parseInt(brokerConfig.getString("requestedHeartbeat")))
+        .setHandshakeTimeout(Integer.parseInt(brokerConfig.getString("handshakeTimeout")))
+        .setNetworkRecoveryInterval(
+            Integer.parseInt(brokerConfig.getString("networkRecoveryInterval")));
+    pool = new PublisherChannelPool(vertx, options, 1, 16);
+    pool.start().onComplete(testContext.succeeding(v -> testContext.completeNow()));
+  }
+
+  @AfterAll
+  static void closePool() {
+    pool.close();
+  }
+
+  @Test
+  @DisplayName("Publish to a missing exchange fails, and the channel is replaced")
+  void testPublishToMissingExchange(VertxTestContext testContext) {
+    Buffer body = Buffer.buffer(new JsonObject().put("id", "id1").encode());
+    pool.publish(UUID.randomUUID().toString(), "id1", body).onComplete(missing -> {
+      assertTrue(missing.failed());
+      // the same routing key, on the same channel, once replaced
+      pool.publish("amq.topic", "id1", body)
+          .onComplete(testContext.succeeding(v -> testContext.completeNow()));
+    });
+  }
+
+  @Test
+  @DisplayName("Messages waiting behind a closed channel complete")
+  void testBurstToMissingExchange(VertxTestContext testContext) {
+    Buffer body = Buffer.buffer(new JsonObject().put("id", "id2").encode());
+    String exchange = UUID.randomUUID().toString();
+    int count = 64;
+    int[] completed = {0};
+    for (int i = 0; i < count; i++) {
+      pool.publish(exchange, "id2", body).onComplete(published -> {
+        testContext.verify(() -> assertTrue(published.failed()));
+        if (++completed[0] == count) {
+          testContext.completeNow();
+        }
+      });
+    }
+  }
+}
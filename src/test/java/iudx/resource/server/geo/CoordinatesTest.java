@@ -0,0 +1,40 @@
+package iudx.resource.server.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class CoordinatesTest {
+
+  @Test
+  public void testParsePolygon() {
+    Coordinates polygon =
+        Coordinates.parse(" [[[72.7, 21],[72.8,21.2],[72.9,-20.000001],[72.7,21.0]]]");
+    assertEquals(Coordinates.POLYGON, polygon.getDepth());
+    assertEquals(4, polygon.getPositions());
+    assertEquals(-20.000001, polygon.get(5));
+    assertTrue(polygon.hasClosedRings());
+    assertEquals("[[[72.7,21],[72.8,21.2],[72.9,-20.000001],[72.7,21]]]", polygon.toString());
+    assertFalse(Coordinates.parse("[[[72.7,21],[72.8,21.2],[72.9,20.8],[72.7,21.1]]]")
+        .hasClosedRings());
+  }
+
+  @Test
+  public void testParsePoint() {
+    Coordinates point = Coordinates.parse("[-0.0001,49.40606]");
+    assertEquals(Coordinates.POINT, point.getDepth());
+    assertEquals(-0.0001, point.get(0));
+    assertEquals("[-0.0001,49.40606]", point.toString());
+  }
+
+  @Test
+  public void testInvalidCoordinates() {
+    assertThrows(IllegalArgumentException.class, () -> Coordinates.parse("[1.1234567,2]"));
+    assertThrows(IllegalArgumentException.class, () -> Coordinates.parse("[180.5,2]"));
+    assertThrows(IllegalArgumentException.class, () -> Coordinates.parse("[2,-90.1]"));
+    assertThrows(IllegalArgumentException.class, () -> Coordinates.parse("[1,2,3]"));
+    assertThrows(IllegalArgumentException.class, () -> Coordinates.parse("[[1,2],[[3,4]]]"));
+    assertThrows(IllegalArgumentException.class, () -> Coordinates.parse("[[[[1,2]]]]"));
+    assertThrows(IllegalArgumentException.class, () -> Coordinates.parse("[1e2,2]"));
+    assertThrows(IllegalArgumentException.class, () -> Coordinates.parse("[1,2]]"));
+  }
+}
@@ -0,0 +1,43 @@
+package iudx.resource.server.geo;
+
+import static org.junit.jupiter.api.Assertions.*;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+public class GeometryPreprocessorTest {
+
+  private static final String POLYGON =
+      "[[[72.7,21],[72.75,21.000001],[72.8,21],[72.8,21.2],[72.9,20.8],[72.7,21]]]";
+
+  private GeometryPreprocessor preprocessor(String boundingBoxQuery) {
+    return GeometryPreprocessor.create(new JsonObject().put("boundingBoxFilter", true)
+        .put("boundingBoxQuery", boundingBoxQuery).put("simplifyTolerance", 0.0001)
+        .put("simplifyMinPositions", 4));
+  }
+
+  @Test
+  public void testSimplify() {
+    Coordinates simplified = preprocessor("envelope").simplify(Coordinates.parse(POLYGON));
+    assertEquals("[[[72.7,21],[72.8,21],[72.8,21.2],[72.9,20.8],[72.7,21]]]",
+        simplified.toString());
+    assertTrue(simplified.hasClosedRings());
+    Coordinates coordinates = Coordinates.parse(POLYGON);
+    assertSame(coordinates, GeometryPreprocessor.disabled().simplify(coordinates));
+  }
+
+  @Test
+  public void testBoundingBoxFilter() {
+    Coordinates coordinates = Coordinates.parse(POLYGON);
+    JsonObject envelope =
+        preprocessor("envelope").boundingBoxFilter(coordinates, "location", "within");
+    assertEquals(new JsonObject("{\"geo_shape\":{\"location\":{\"shape\":{\"type\":\"envelope\","
+        + "\"coordinates\":[[72.7,21.2],[72.9,20.8]]},\"relation\":\"within\"}}}"), envelope);
+    JsonObject box =
+        preprocessor("geo_bounding_box").boundingBoxFilter(coordinates, "location", "intersects");
+    assertEquals(21.2, box.getJsonObject("geo_bounding_box").getJsonObject("location")
+        .getJsonObject("top_left").getDouble("lat"));
+    assertNull(preprocessor("envelope").boundingBoxFilter(coordinates, "location", "disjoint"));
+    assertNull(GeometryPreprocessor.disabled().boundingBoxFilter(coordinates, "location",
+        "within"));
+  }
+}
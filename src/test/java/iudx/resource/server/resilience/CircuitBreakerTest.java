@@ -0,0 +1,54 @@
+package iudx.resource.server.resilience;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class CircuitBreakerTest {
+
+  private static final long SLOW = 1_000L;
+  private static final long OPEN = 10_000L;
+
+  private CircuitBreaker breaker() {
+    return new CircuitBreaker(10, 4, 50, SLOW, OPEN, 2);
+  }
+
+  @Test
+  public void testOpensOnFailureRate() {
+    CircuitBreaker breaker = breaker();
+    breaker.onResult(1, false, 0);
+    breaker.onResult(1, true, 0);
+    breaker.onResult(1, false, 0);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    breaker.onResult(SLOW + 1, false, 0);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire(OPEN - 1));
+  }
+
+  @Test
+  public void testHalfOpenProbesClose() {
+    CircuitBreaker breaker = breaker();
+    for (int i = 0; i < 4; i++) {
+      breaker.onResult(1, true, 0);
+    }
+    assertTrue(breaker.tryAcquire(OPEN));
+    assertTrue(breaker.tryAcquire(OPEN));
+    assertFalse(breaker.tryAcquire(OPEN));
+    assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    breaker.onResult(1, false, OPEN);
+    breaker.onResult(1, false, OPEN);
+    assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+  }
+
+  @Test
+  public void testHalfOpenProbeFailureReopens() {
+    CircuitBreaker breaker = breaker();
+    for (int i = 0; i < 4; i++) {
+      breaker.onResult(1, true, 0);
+    }
+    assertTrue(breaker.tryAcquire(OPEN));
+    breaker.onResult(1, true, OPEN);
+    assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    assertFalse(breaker.tryAcquire(2 * OPEN - 1));
+    assertTrue(breaker.tryAcquire(2 * OPEN));
+  }
+}
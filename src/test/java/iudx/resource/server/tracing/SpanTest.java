@@ -0,0 +1,46 @@
+package iudx.resource.server.tracing;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+public class SpanTest {
+
+  private static final String TRACE_ID = "4bf92f3577b34da6a3ce929d0e0e4736";
+  private static final String PARENT_ID = "00f067aa0ba902b7";
+  private static final String ZERO_TRACE_ID = "00000000000000000000000000000000";
+  private static final String ZERO_PARENT_ID = "0000000000000000";
+
+  private static String traceparent(String flags) {
+    return "00-" + TRACE_ID + "-" + PARENT_ID + "-" + flags;
+  }
+
+  @Test
+  public void testSampledBit() {
+    assertTrue(Span.fromTraceparent("s", traceparent("01")).traceparent().endsWith("-01"));
+    assertTrue(Span.fromTraceparent("s", traceparent("03")).traceparent().endsWith("-01"));
+    assertTrue(Span.fromTraceparent("s", traceparent("00")).traceparent().endsWith("-00"));
+    assertTrue(Span.fromTraceparent("s", traceparent("02")).traceparent().endsWith("-00"));
+    assertTrue(Span.fromTraceparent("s", traceparent("10")).traceparent().endsWith("-00"));
+  }
+
+  @Test
+  public void testRemoteFlagOverridden() {
+    Span span = Span.fromTraceparent("s", traceparent("01"), false);
+    assertTrue(span.traceparent().startsWith("00-" + TRACE_ID + "-"));
+    assertTrue(span.traceparent().endsWith("-00"));
+  }
+
+  @Test
+  public void testMalformedRejected() {
+    assertNull(Span.fromTraceparent("s", "00-" + TRACE_ID.replace('a', 'x') + "-" + PARENT_ID
+        + "-01"));
+    assertNull(Span.fromTraceparent("s", "00-" + TRACE_ID.toUpperCase() + "-" + PARENT_ID
+        + "-01"));
+    assertNull(Span.fromTraceparent("s", "00-" + TRACE_ID + "-" + PARENT_ID + "-0x"));
+    assertNull(Span.fromTraceparent("s", "00-" + TRACE_ID + "-" + PARENT_ID + "-01-"));
+    assertNull(Span.fromTraceparent("s", "ff-" + TRACE_ID + "-" + PARENT_ID + "-01"));
+    assertNull(Span.fromTraceparent("s", "00-" + ZERO_TRACE_ID + "-" + PARENT_ID + "-01"));
+    assertNull(Span.fromTraceparent("s", "00-" + TRACE_ID + "-" + ZERO_PARENT_ID + "-01"));
+    assertNull(Span.fromTraceparent("s", "<script>", true));
+  }
+}